@@ -0,0 +1,106 @@
+package io.awa.avro;
+
+import io.awa.events.WorkflowEvent;
+import io.awa.model.Workflow;
+import io.awa.visualization.VisualizationDelta;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Encodes and decodes single Avro binary messages (no container file, no schema header).
+ * <p>
+ * The codec keeps its encoder, decoder and output buffer between calls, so steady-state
+ * encoding allocates only the returned array. Not thread-safe; use one codec per thread.
+ *
+ * <pre>{@code
+ * AvroCodec<WorkflowEvent> codec = AvroCodec.workflowEvents();
+ * byte[] message = codec.encode(event);
+ * WorkflowEvent copy = codec.decode(message);
+ * }</pre>
+ */
+public final class AvroCodec<T> {
+
+    private final DatumWriter<T> writer;
+    private final DatumReader<T> reader;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+
+    private BinaryEncoder encoder;
+    private BinaryDecoder decoder;
+
+    public AvroCodec(DatumWriter<T> writer, DatumReader<T> reader) {
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    public static AvroCodec<Workflow> workflows() {
+        return new AvroCodec<>(new WorkflowDatumWriter(), new WorkflowDatumReader());
+    }
+
+    public static AvroCodec<WorkflowEvent> workflowEvents() {
+        return new AvroCodec<>(new WorkflowEventDatumWriter(), new WorkflowEventDatumReader());
+    }
+
+    public static AvroCodec<VisualizationDelta> visualizationDeltas() {
+        return new AvroCodec<>(new VisualizationDeltaDatumWriter(), new VisualizationDeltaDatumReader());
+    }
+
+    /**
+     * Encodes the value into a new array.
+     *
+     * @throws IllegalArgumentException if a field the schema requires is null
+     */
+    public byte[] encode(T value) {
+        buffer.reset();
+        try {
+            encode(value, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Encodes the value onto the stream, without a length prefix. If encoding fails, part of
+     * the message may already have been written to the stream.
+     *
+     * @throws IllegalArgumentException if a field the schema requires is null
+     */
+    public void encode(T value, OutputStream out) throws IOException {
+        encoder = EncoderFactory.get().binaryEncoder(out, encoder);
+        try {
+            writer.write(value, encoder);
+        } catch (RuntimeException | IOException e) {
+            // A reused encoder would flush the partial message into the next stream
+            encoder = null;
+            throw e;
+        }
+        encoder.flush();
+    }
+
+    public T decode(byte[] message) {
+        return decode(message, 0, message.length, null);
+    }
+
+    /**
+     * Decodes a message, filling {@code reuse} where the reader supports it.
+     *
+     * @throws IllegalArgumentException if the message holds a value the model cannot represent
+     */
+    public T decode(byte[] message, int offset, int length, T reuse) {
+        decoder = DecoderFactory.get().binaryDecoder(message, offset, length, decoder);
+        try {
+            return reader.read(reuse, decoder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
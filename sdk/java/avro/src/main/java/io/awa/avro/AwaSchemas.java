@@ -0,0 +1,84 @@
+package io.awa.avro;
+
+import org.apache.avro.Schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * The Avro schemas of {@code spec/avro}, bundled with this module.
+ * <p>
+ * Files are parsed with a single parser in dependency order, so named types such as
+ * {@code Activity} or {@code NodeType} resolve across files.
+ */
+public final class AwaSchemas {
+
+    private static final String[] WORKFLOW_FILES = {
+            "context.avsc", "context_binding.avsc", "access_right.avsc", "data_object.avsc",
+            "program.avsc", "control.avsc", "sla.avsc", "activity.avsc", "edge.avsc",
+            "event_node.avsc", "decision_node.avsc", "workflow.avsc"
+    };
+
+    private static final Schema WORKFLOW;
+    private static final Schema WORKFLOW_EVENT;
+    private static final Schema VISUALIZATION_EVENT;
+    private static final Schema VISUALIZATION_DELTA;
+
+    static {
+        Schema.Parser parser = new Schema.Parser();
+        Schema last = null;
+        for (String file : WORKFLOW_FILES) {
+            last = parse(parser, file);
+        }
+        WORKFLOW = last;
+        WORKFLOW_EVENT = parse(new Schema.Parser(), "event.avsc");
+        VISUALIZATION_EVENT = parse(new Schema.Parser(), "visualization_event.avsc");
+        VISUALIZATION_DELTA = VISUALIZATION_EVENT.getField("payload").schema().getTypes().stream()
+                .filter(type -> type.getName().equals("VisualizationDeltaPayload"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Missing VisualizationDeltaPayload in visualization_event.avsc"));
+    }
+
+    private AwaSchemas() {
+    }
+
+    /**
+     * {@code io.awa.schema.Workflow} with all nested records.
+     */
+    public static Schema workflow() {
+        return WORKFLOW;
+    }
+
+    /**
+     * {@code io.awa.events.WorkflowEvent}.
+     */
+    public static Schema workflowEvent() {
+        return WORKFLOW_EVENT;
+    }
+
+    /**
+     * {@code io.awa.visualization.VisualizationEvent}.
+     */
+    public static Schema visualizationEvent() {
+        return VISUALIZATION_EVENT;
+    }
+
+    /**
+     * The {@code VisualizationDeltaPayload} branch of the visualization event payload.
+     */
+    public static Schema visualizationDelta() {
+        return VISUALIZATION_DELTA;
+    }
+
+    private static Schema parse(Schema.Parser parser, String file) {
+        try (InputStream in = AwaSchemas.class.getResourceAsStream("schema/" + file)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing bundled schema " + file);
+            }
+            return parser.parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read bundled schema " + file, e);
+        }
+    }
+}
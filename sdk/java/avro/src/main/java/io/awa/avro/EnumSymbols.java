@@ -0,0 +1,59 @@
+package io.awa.avro;
+
+import org.apache.avro.Schema;
+
+import java.lang.reflect.Array;
+
+/**
+ * Maps a Java enum to the symbols of an Avro enum schema by name, ignoring case,
+ * so {@code ActorType.AI_AGENT} is written as the symbol {@code ai_agent}.
+ */
+final class EnumSymbols<E extends Enum<E>> {
+
+    private final Schema schema;
+    private final int[] indexByOrdinal;
+    private final E[] constantByIndex;
+
+    EnumSymbols(Schema schema, Class<E> type) {
+        if (schema.getType() != Schema.Type.ENUM) {
+            throw new IllegalStateException(schema.getFullName() + " is not an enum schema");
+        }
+        this.schema = schema;
+        E[] constants = type.getEnumConstants();
+        this.indexByOrdinal = new int[constants.length];
+        @SuppressWarnings("unchecked")
+        E[] byIndex = (E[]) Array.newInstance(type, schema.getEnumSymbols().size());
+        this.constantByIndex = byIndex;
+        for (E constant : constants) {
+            indexByOrdinal[constant.ordinal()] = -1;
+            for (int i = 0; i < byIndex.length; i++) {
+                if (schema.getEnumSymbols().get(i).equalsIgnoreCase(constant.name())) {
+                    indexByOrdinal[constant.ordinal()] = i;
+                    byIndex[i] = constant;
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the schema has no symbol for the constant
+     */
+    int indexOf(E constant) {
+        int index = indexByOrdinal[constant.ordinal()];
+        if (index < 0) {
+            throw new IllegalArgumentException(schema.getFullName() + " has no symbol for " + constant);
+        }
+        return index;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the index is out of range or has no Java constant
+     */
+    E constantAt(int index) {
+        E constant = index >= 0 && index < constantByIndex.length ? constantByIndex[index] : null;
+        if (constant == null) {
+            throw new IllegalArgumentException(schema.getFullName() + " has no Java constant for index " + index);
+        }
+        return constant;
+    }
+}
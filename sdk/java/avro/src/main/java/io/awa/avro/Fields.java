@@ -0,0 +1,281 @@
+package io.awa.avro;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.Encoder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Encoding helpers shared by the datum writers and readers.
+ * <p>
+ * Every union in the AWA schemas is {@code ["null", T]}, so branch 0 is null and branch 1 the value.
+ */
+final class Fields {
+
+    static final ObjectMapper JSON = new ObjectMapper();
+    static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+    static final TypeReference<List<Object>> JSON_ARRAY = new TypeReference<>() {
+    };
+
+    private Fields() {
+    }
+
+    interface ItemWriter<T> {
+        void write(Encoder out, T value) throws IOException;
+    }
+
+    interface ItemReader<T> {
+        T read(Decoder in) throws IOException;
+    }
+
+    /**
+     * Fails when the bundled record schema no longer has exactly these fields in this order,
+     * since the hand-written bindings encode fields positionally.
+     */
+    static Schema record(Schema schema, String... fields) {
+        List<Schema.Field> actual = schema.getFields();
+        boolean matches = actual.size() == fields.length;
+        for (int i = 0; matches && i < fields.length; i++) {
+            matches = actual.get(i).name().equals(fields[i]);
+        }
+        if (!matches) {
+            List<String> names = new ArrayList<>();
+            actual.forEach(field -> names.add(field.name()));
+            throw new IllegalStateException("Schema " + schema.getFullName() + " has fields " + names
+                    + ", the codec expects " + List.of(fields));
+        }
+        return schema;
+    }
+
+    /**
+     * The schema of a field, unwrapped from a {@code ["null", T]} union and from arrays.
+     */
+    static Schema field(Schema record, String name) {
+        Schema schema = record.getField(name).schema();
+        while (true) {
+            if (schema.getType() == Schema.Type.UNION) {
+                schema = schema.getTypes().get(1);
+            } else if (schema.getType() == Schema.Type.ARRAY) {
+                schema = schema.getElementType();
+            } else {
+                return schema;
+            }
+        }
+    }
+
+    static void writeString(Encoder out, String value, String field) throws IOException {
+        out.writeString(require(value, field));
+    }
+
+    static void writeOptionalString(Encoder out, String value) throws IOException {
+        if (writePresent(out, value)) {
+            out.writeString(value);
+        }
+    }
+
+    static void writeUuid(Encoder out, UUID value, String field) throws IOException {
+        out.writeString(require(value, field).toString());
+    }
+
+    static void writeOptionalUuid(Encoder out, UUID value) throws IOException {
+        if (writePresent(out, value)) {
+            out.writeString(value.toString());
+        }
+    }
+
+    static void writeOptionalDouble(Encoder out, Double value) throws IOException {
+        if (writePresent(out, value)) {
+            out.writeDouble(value);
+        }
+    }
+
+    static void writeOptionalLong(Encoder out, Long value) throws IOException {
+        if (writePresent(out, value)) {
+            out.writeLong(value);
+        }
+    }
+
+    static <E extends Enum<E>> void writeEnum(Encoder out, EnumSymbols<E> symbols, E value, String field)
+            throws IOException {
+        out.writeEnum(symbols.indexOf(require(value, field)));
+    }
+
+    static <E extends Enum<E>> void writeOptionalEnum(Encoder out, EnumSymbols<E> symbols, E value)
+            throws IOException {
+        if (writePresent(out, value)) {
+            out.writeEnum(symbols.indexOf(value));
+        }
+    }
+
+    /**
+     * Writes a value as a JSON string, for fields the schema carries as {@code *_json}.
+     */
+    static void writeOptionalJson(Encoder out, Object value) throws IOException {
+        if (writePresent(out, value)) {
+            out.writeString(JSON.writeValueAsString(value));
+        }
+    }
+
+    /**
+     * Writes a {@code timestamp-millis}; a missing timestamp is written as 0.
+     */
+    static void writeTimestamp(Encoder out, OffsetDateTime value) throws IOException {
+        out.writeLong(value != null ? value.toInstant().toEpochMilli() : 0L);
+    }
+
+    /**
+     * Writes an array, a null list as an empty one.
+     */
+    static <T> void writeArray(Encoder out, List<T> items, ItemWriter<T> writer) throws IOException {
+        out.writeArrayStart();
+        int size = items != null ? items.size() : 0;
+        out.setItemCount(size);
+        for (int i = 0; i < size; i++) {
+            out.startItem();
+            writer.write(out, items.get(i));
+        }
+        out.writeArrayEnd();
+    }
+
+    /**
+     * Writes a {@code ["null", map<string>]}; values that are not strings are written as JSON.
+     */
+    static void writeOptionalStringMap(Encoder out, Map<String, ?> map) throws IOException {
+        if (!writePresent(out, map)) {
+            return;
+        }
+        out.writeMapStart();
+        out.setItemCount(map.size());
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            out.startItem();
+            out.writeString(entry.getKey());
+            Object value = entry.getValue();
+            out.writeString(value instanceof String ? (String) value : JSON.writeValueAsString(value));
+        }
+        out.writeMapEnd();
+    }
+
+    /**
+     * Writes the branch of a {@code ["null", T]} union; returns whether the value itself still has to be written.
+     */
+    static boolean writePresent(Encoder out, Object value) throws IOException {
+        if (value == null) {
+            out.writeIndex(0);
+            out.writeNull();
+            return false;
+        }
+        out.writeIndex(1);
+        return true;
+    }
+
+    private static <T> T require(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value;
+    }
+
+    static String readOptionalString(Decoder in) throws IOException {
+        return readPresent(in) ? in.readString() : null;
+    }
+
+    static UUID readUuid(Decoder in) throws IOException {
+        return UUID.fromString(in.readString());
+    }
+
+    static UUID readOptionalUuid(Decoder in) throws IOException {
+        return readPresent(in) ? UUID.fromString(in.readString()) : null;
+    }
+
+    static Double readOptionalDouble(Decoder in) throws IOException {
+        return readPresent(in) ? in.readDouble() : null;
+    }
+
+    static Long readOptionalLong(Decoder in) throws IOException {
+        return readPresent(in) ? in.readLong() : null;
+    }
+
+    static <E extends Enum<E>> E readEnum(Decoder in, EnumSymbols<E> symbols) throws IOException {
+        return symbols.constantAt(in.readEnum());
+    }
+
+    static <E extends Enum<E>> E readOptionalEnum(Decoder in, EnumSymbols<E> symbols) throws IOException {
+        return readPresent(in) ? symbols.constantAt(in.readEnum()) : null;
+    }
+
+    static <T> T readOptionalJson(Decoder in, TypeReference<T> type) throws IOException {
+        return readPresent(in) ? JSON.readValue(in.readString(), type) : null;
+    }
+
+    static Object readOptionalJsonValue(Decoder in) throws IOException {
+        return readPresent(in) ? JSON.readValue(in.readString(), Object.class) : null;
+    }
+
+    /**
+     * Reads a {@code timestamp-millis} as UTC; 0 reads back as null.
+     */
+    static OffsetDateTime readTimestamp(Decoder in) throws IOException {
+        long millis = in.readLong();
+        return millis != 0L ? OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC) : null;
+    }
+
+    static <T> List<T> readArray(Decoder in, ItemReader<T> reader) throws IOException {
+        long count = in.readArrayStart();
+        if (count == 0) {
+            return new ArrayList<>();
+        }
+        List<T> items = new ArrayList<>((int) Math.min(count, 1024));
+        for (; count > 0; count = in.arrayNext()) {
+            for (long i = 0; i < count; i++) {
+                items.add(reader.read(in));
+            }
+        }
+        return items;
+    }
+
+    static <V> Map<String, V> readOptionalStringMap(Decoder in, Map<String, V> into) throws IOException {
+        if (!readPresent(in)) {
+            return null;
+        }
+        for (long count = in.readMapStart(); count > 0; count = in.mapNext()) {
+            for (long i = 0; i < count; i++) {
+                String key = in.readString();
+                @SuppressWarnings("unchecked")
+                V value = (V) in.readString();
+                into.put(key, value);
+            }
+        }
+        return into;
+    }
+
+    /**
+     * Reads the branch of a {@code ["null", T]} union; returns whether a value follows.
+     */
+    static boolean readPresent(Decoder in) throws IOException {
+        int branch = in.readIndex();
+        if (branch == 0) {
+            in.readNull();
+            return false;
+        }
+        if (branch != 1) {
+            throw new IllegalArgumentException("Invalid union branch " + branch);
+        }
+        return true;
+    }
+
+    static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : Collections.emptyList();
+    }
+}
@@ -0,0 +1,96 @@
+package io.awa.avro;
+
+import io.awa.model.NodeType;
+import io.awa.model.visualization.CurveType;
+import io.awa.model.visualization.VisualizationConfig.Quaternion;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+import io.awa.model.visualization.VisualizationConfig.Vector3D;
+import io.awa.visualization.VisualizationChange;
+import io.awa.visualization.VisualizationDelta;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+
+import java.io.IOException;
+
+import static io.awa.avro.Fields.readArray;
+import static io.awa.avro.Fields.readEnum;
+import static io.awa.avro.Fields.readOptionalDouble;
+import static io.awa.avro.Fields.readOptionalString;
+import static io.awa.avro.Fields.readOptionalUuid;
+import static io.awa.avro.Fields.readPresent;
+
+/**
+ * Reads a {@link VisualizationDelta} written with {@link VisualizationDeltaDatumWriter}.
+ * <p>
+ * The visualization id is not part of the payload and is left as it is on {@code reuse}, so a
+ * consumer can set it from the event envelope. Points written without z read back with z 0.
+ * Stateless and thread-safe.
+ */
+public final class VisualizationDeltaDatumReader implements DatumReader<VisualizationDelta> {
+
+    /**
+     * Sets the writer's schema, which must be the bundled one; schema resolution is not supported.
+     *
+     * @throws IllegalArgumentException if the schema is not the bundled one
+     */
+    @Override
+    public void setSchema(Schema schema) {
+        if (!VisualizationDeltaDatumWriter.SCHEMA.equals(schema)) {
+            throw new IllegalArgumentException("Only the bundled "
+                    + VisualizationDeltaDatumWriter.SCHEMA.getFullName() + " schema is supported");
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a node or curve type is not one the model knows
+     */
+    @Override
+    public VisualizationDelta read(VisualizationDelta reuse, Decoder in) throws IOException {
+        VisualizationDelta delta = reuse != null ? reuse : new VisualizationDelta();
+        delta.setChanges(readArray(in, VisualizationDeltaDatumReader::readChange));
+        return delta;
+    }
+
+    private static VisualizationChange readChange(Decoder in) throws IOException {
+        VisualizationChange change = new VisualizationChange();
+        change.setType(readEnum(in, VisualizationDeltaDatumWriter.CHANGE_TYPE));
+        change.setTargetId(readOptionalUuid(in));
+        String nodeType = readOptionalString(in);
+        change.setNodeType(nodeType != null ? NodeType.fromValue(nodeType) : null);
+        change.setPosition(readPresent(in) ? readPoint(in) : null);
+        change.setWidth(readOptionalDouble(in));
+        change.setHeight(readOptionalDouble(in));
+        if (readPresent(in)) {
+            change.setRotation(new Quaternion(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble()));
+        }
+        change.setScale(readPresent(in) ? readPoint(in) : null);
+        String curveType = readOptionalString(in);
+        change.setCurveType(curveType != null ? CurveType.fromValue(curveType) : null);
+        if (readPresent(in)) {
+            change.setControlPoints2d(readArray(in, point -> {
+                Vector2D vector = new Vector2D(point.readDouble(), point.readDouble());
+                readOptionalDouble(point);
+                return vector;
+            }));
+        }
+        if (readPresent(in)) {
+            change.setControlPoints3d(readArray(in, VisualizationDeltaDatumReader::readPoint));
+        }
+        change.setAnimated(readPresent(in) ? in.readBoolean() : null);
+        change.setTarget(readPresent(in) ? readPoint(in) : null);
+        change.setZoom(readOptionalDouble(in));
+        change.setFov(readOptionalDouble(in));
+        change.setAlpha(readOptionalDouble(in));
+        change.setBeta(readOptionalDouble(in));
+        change.setRadius(readOptionalDouble(in));
+        return change;
+    }
+
+    private static Vector3D readPoint(Decoder in) throws IOException {
+        double x = in.readDouble();
+        double y = in.readDouble();
+        Double z = readOptionalDouble(in);
+        return new Vector3D(x, y, z != null ? z : 0);
+    }
+}
@@ -0,0 +1,121 @@
+package io.awa.avro;
+
+import io.awa.model.visualization.VisualizationConfig.Quaternion;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+import io.awa.model.visualization.VisualizationConfig.Vector3D;
+import io.awa.visualization.VisualizationChange;
+import io.awa.visualization.VisualizationChangeType;
+import io.awa.visualization.VisualizationDelta;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+
+import java.io.IOException;
+
+import static io.awa.avro.Fields.field;
+import static io.awa.avro.Fields.record;
+import static io.awa.avro.Fields.writeArray;
+import static io.awa.avro.Fields.writeEnum;
+import static io.awa.avro.Fields.writeOptionalDouble;
+import static io.awa.avro.Fields.writeOptionalString;
+import static io.awa.avro.Fields.writeOptionalUuid;
+import static io.awa.avro.Fields.writePresent;
+
+/**
+ * Writes a {@link VisualizationDelta} as the {@code VisualizationDeltaPayload} of
+ * {@code spec/avro/visualization_event.avsc}.
+ * <p>
+ * The payload carries only the changes; the visualization id travels in the event envelope.
+ * 2D positions and control points are written without z. Stateless and thread-safe.
+ *
+ * @see VisualizationDeltaDatumReader
+ */
+public final class VisualizationDeltaDatumWriter implements DatumWriter<VisualizationDelta> {
+
+    static final Schema SCHEMA = record(AwaSchemas.visualizationDelta(), "changes");
+
+    static final Schema CHANGE = record(field(SCHEMA, "changes"),
+            "type", "target_id", "node_type", "position", "width", "height", "rotation", "scale", "curve_type",
+            "control_points_2d", "control_points_3d", "animated", "target", "zoom", "fov", "alpha", "beta", "radius");
+
+    static final EnumSymbols<VisualizationChangeType> CHANGE_TYPE =
+            new EnumSymbols<>(field(CHANGE, "type"), VisualizationChangeType.class);
+
+    static {
+        record(field(CHANGE, "position"), "x", "y", "z");
+        record(field(CHANGE, "rotation"), "x", "y", "z", "w");
+    }
+
+    /**
+     * Always the bundled schema; the writer cannot write other versions.
+     *
+     * @throws IllegalArgumentException if the schema is not the bundled one
+     */
+    @Override
+    public void setSchema(Schema schema) {
+        if (!SCHEMA.equals(schema)) {
+            throw new IllegalArgumentException("Only the bundled " + SCHEMA.getFullName() + " schema is supported");
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a change has no type
+     */
+    @Override
+    public void write(VisualizationDelta delta, Encoder out) throws IOException {
+        writeArray(out, delta.getChanges(), VisualizationDeltaDatumWriter::writeChange);
+    }
+
+    private static void writeChange(Encoder out, VisualizationChange change) throws IOException {
+        writeEnum(out, CHANGE_TYPE, change.getType(), "VisualizationChange.type");
+        writeOptionalUuid(out, change.getTargetId());
+        writeOptionalString(out, change.getNodeType() != null ? change.getNodeType().getValue() : null);
+        boolean planar = change.getType() == VisualizationChangeType.NODE_MOVED_2D
+                || change.getType() == VisualizationChangeType.CAMERA_2D_CHANGED;
+        if (writePresent(out, change.getPosition())) {
+            writePoint(out, change.getPosition(), planar);
+        }
+        writeOptionalDouble(out, change.getWidth());
+        writeOptionalDouble(out, change.getHeight());
+        Quaternion rotation = change.getRotation();
+        if (writePresent(out, rotation)) {
+            out.writeDouble(rotation.getX());
+            out.writeDouble(rotation.getY());
+            out.writeDouble(rotation.getZ());
+            out.writeDouble(rotation.getW());
+        }
+        if (writePresent(out, change.getScale())) {
+            writePoint(out, change.getScale(), false);
+        }
+        writeOptionalString(out, change.getCurveType() != null ? change.getCurveType().getValue() : null);
+        if (writePresent(out, change.getControlPoints2d())) {
+            writeArray(out, change.getControlPoints2d(), VisualizationDeltaDatumWriter::writePoint2d);
+        }
+        if (writePresent(out, change.getControlPoints3d())) {
+            writeArray(out, change.getControlPoints3d(), (o, point) -> writePoint(o, point, false));
+        }
+        if (writePresent(out, change.getAnimated())) {
+            out.writeBoolean(change.getAnimated());
+        }
+        if (writePresent(out, change.getTarget())) {
+            writePoint(out, change.getTarget(), false);
+        }
+        writeOptionalDouble(out, change.getZoom());
+        writeOptionalDouble(out, change.getFov());
+        writeOptionalDouble(out, change.getAlpha());
+        writeOptionalDouble(out, change.getBeta());
+        writeOptionalDouble(out, change.getRadius());
+    }
+
+    private static void writePoint(Encoder out, Vector3D point, boolean planar) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+        writeOptionalDouble(out, planar ? null : point.getZ());
+    }
+
+    private static void writePoint2d(Encoder out, Vector2D point) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+        writeOptionalDouble(out, null);
+    }
+}
@@ -0,0 +1,287 @@
+package io.awa.avro;
+
+import io.awa.model.AccessRight;
+import io.awa.model.Activity;
+import io.awa.model.Context;
+import io.awa.model.ContextBinding;
+import io.awa.model.Control;
+import io.awa.model.DataObject;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+import io.awa.model.Program;
+import io.awa.model.SLA;
+import io.awa.model.Workflow;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+
+import static io.awa.avro.Fields.JSON;
+import static io.awa.avro.Fields.JSON_ARRAY;
+import static io.awa.avro.Fields.JSON_OBJECT;
+import static io.awa.avro.Fields.readArray;
+import static io.awa.avro.Fields.readEnum;
+import static io.awa.avro.Fields.readOptionalDouble;
+import static io.awa.avro.Fields.readOptionalEnum;
+import static io.awa.avro.Fields.readOptionalJson;
+import static io.awa.avro.Fields.readOptionalJsonValue;
+import static io.awa.avro.Fields.readOptionalLong;
+import static io.awa.avro.Fields.readOptionalString;
+import static io.awa.avro.Fields.readOptionalStringMap;
+import static io.awa.avro.Fields.readOptionalUuid;
+import static io.awa.avro.Fields.readPresent;
+import static io.awa.avro.Fields.readTimestamp;
+import static io.awa.avro.Fields.readUuid;
+
+/**
+ * Reads a {@link Workflow} written with {@link WorkflowDatumWriter}.
+ * <p>
+ * Metadata values come back as strings, timestamps in UTC, and {@code Context.ttl} as a
+ * normalized duration such as {@code PT1H}. Stateless and thread-safe.
+ */
+public final class WorkflowDatumReader implements DatumReader<Workflow> {
+
+    /**
+     * Sets the writer's schema, which must be the bundled one; schema resolution is not supported.
+     *
+     * @throws IllegalArgumentException if the schema is not the bundled one
+     */
+    @Override
+    public void setSchema(Schema schema) {
+        if (!AwaSchemas.workflow().equals(schema)) {
+            throw new IllegalArgumentException("Only the bundled " + AwaSchemas.workflow().getFullName()
+                    + " schema is supported");
+        }
+    }
+
+    /**
+     * Reads a new workflow; {@code reuse} is ignored.
+     */
+    @Override
+    public Workflow read(Workflow reuse, Decoder in) throws IOException {
+        Workflow workflow = new Workflow();
+        workflow.setId(readUuid(in));
+        workflow.setName(in.readString());
+        workflow.setVersion(in.readString());
+        workflow.setDescription(readOptionalString(in));
+        workflow.setOwnerId(readOptionalUuid(in));
+        workflow.setOrganizationId(readOptionalUuid(in));
+        workflow.setParentWorkflowId(readOptionalUuid(in));
+        workflow.setExpansionActivityId(readOptionalUuid(in));
+        workflow.setActivities(readArray(in, WorkflowDatumReader::readActivity));
+        workflow.setEdges(readArray(in, WorkflowDatumReader::readEdge));
+        workflow.setEvents(readArray(in, WorkflowDatumReader::readEvent));
+        workflow.setDecisionNodes(readArray(in, WorkflowDatumReader::readDecisionNode));
+        workflow.setContexts(readArray(in, WorkflowDatumReader::readContext));
+        workflow.setSla(readOptionalSla(in));
+        workflow.setMetadata(readOptionalStringMap(in, new HashMap<>()));
+        workflow.setCreatedAt(readTimestamp(in));
+        workflow.setUpdatedAt(readTimestamp(in));
+        return workflow;
+    }
+
+    private static Activity readActivity(Decoder in) throws IOException {
+        Activity activity = new Activity();
+        activity.setId(readUuid(in));
+        activity.setName(in.readString());
+        activity.setDescription(readOptionalString(in));
+        readOptionalString(in);
+        activity.setRoleId(readUuid(in));
+        activity.setActorType(readEnum(in, WorkflowLayout.ACTOR_TYPE));
+        activity.setSystemId(readOptionalUuid(in));
+        activity.setMachineId(readOptionalUuid(in));
+        activity.setEndpointId(readOptionalUuid(in));
+        activity.setOrganizationId(readOptionalUuid(in));
+        activity.setInputs(readArray(in, WorkflowDatumReader::readDataObject));
+        activity.setOutputs(readArray(in, WorkflowDatumReader::readDataObject));
+        activity.setContextBindings(readArray(in, WorkflowDatumReader::readContextBinding));
+        activity.setAccessRights(readArray(in, WorkflowDatumReader::readAccessRight));
+        activity.setPrograms(readArray(in, WorkflowDatumReader::readProgram));
+        activity.setControls(readArray(in, WorkflowDatumReader::readControl));
+        activity.setSla(readOptionalSla(in));
+        activity.setExpandable(in.readBoolean());
+        activity.setExpansionWorkflowId(readOptionalUuid(in));
+        return activity;
+    }
+
+    private static DataObject readDataObject(Decoder in) throws IOException {
+        DataObject data = new DataObject();
+        data.setName(in.readString());
+        data.setDescription(readOptionalString(in));
+        data.setSchema(readOptionalJson(in, JSON_OBJECT));
+        data.setRequired(in.readBoolean());
+        return data;
+    }
+
+    private static ContextBinding readContextBinding(Decoder in) throws IOException {
+        ContextBinding binding = new ContextBinding();
+        binding.setId(readOptionalUuid(in));
+        binding.setContextId(readUuid(in));
+        binding.setActivityId(readOptionalUuid(in));
+        binding.setAccessMode(readEnum(in, WorkflowLayout.ACCESS_MODE));
+        binding.setRequired(in.readBoolean());
+        String onRead = readOptionalString(in);
+        String onWrite = readOptionalString(in);
+        if (onRead != null || onWrite != null) {
+            binding.setTransforms(new ContextBinding.Transforms(onRead, onWrite));
+        }
+        return binding;
+    }
+
+    private static AccessRight readAccessRight(Decoder in) throws IOException {
+        AccessRight right = new AccessRight();
+        right.setId(readUuid(in));
+        right.setName(in.readString());
+        right.setDescription(readOptionalString(in));
+        right.setActivityId(readOptionalUuid(in));
+        right.setDirection(readEnum(in, WorkflowLayout.ACCESS_DIRECTION));
+        right.setResourceType(readEnum(in, WorkflowLayout.RESOURCE_TYPE));
+        right.setResourceId(readOptionalString(in));
+        right.setPermission(readEnum(in, WorkflowLayout.PERMISSION));
+        right.setScope(readOptionalString(in));
+        right.setConditions(readOptionalJson(in, JSON_OBJECT));
+        return right;
+    }
+
+    private static Program readProgram(Decoder in) throws IOException {
+        Program program = new Program();
+        program.setId(readUuid(in));
+        program.setName(in.readString());
+        program.setLanguage(in.readString());
+        program.setCode(readOptionalString(in));
+        program.setCodeUri(readOptionalString(in));
+        program.setParameters(readArray(in, WorkflowDatumReader::readParameter));
+        program.setMcpServer(readOptionalString(in));
+        return program;
+    }
+
+    private static Program.Parameter readParameter(Decoder in) throws IOException {
+        Program.Parameter parameter = new Program.Parameter();
+        parameter.setName(in.readString());
+        parameter.setType(in.readString());
+        parameter.setRequired(in.readBoolean());
+        parameter.setDefaultValue(readOptionalJsonValue(in));
+        return parameter;
+    }
+
+    private static Control readControl(Decoder in) throws IOException {
+        Control control = new Control();
+        control.setId(readUuid(in));
+        control.setName(in.readString());
+        control.setDescription(readOptionalString(in));
+        control.setType(readEnum(in, WorkflowLayout.CONTROL_TYPE));
+        control.setExpression(readOptionalString(in));
+        control.setEnforcement(readOptionalEnum(in, WorkflowLayout.ENFORCEMENT));
+        return control;
+    }
+
+    private static SLA readOptionalSla(Decoder in) throws IOException {
+        if (!readPresent(in)) {
+            return null;
+        }
+        SLA sla = new SLA();
+        sla.setId(readOptionalUuid(in));
+        sla.setName(readOptionalString(in));
+        sla.setTargetTime(readOptionalString(in));
+        sla.setMaxTime(readOptionalString(in));
+        if (readPresent(in)) {
+            SLA.EscalationPolicy policy = new SLA.EscalationPolicy();
+            policy.setWarningThreshold(readOptionalString(in));
+            policy.setWarningAction(readOptionalString(in));
+            policy.setBreachAction(readOptionalString(in));
+            policy.setNotifyRoles(readArray(in, Fields::readUuid));
+            sla.setEscalationPolicy(policy);
+        }
+        sla.setMetrics(readArray(in, WorkflowDatumReader::readMetric));
+        return sla;
+    }
+
+    private static SLA.SLAMetric readMetric(Decoder in) throws IOException {
+        SLA.SLAMetric metric = new SLA.SLAMetric();
+        metric.setName(readOptionalString(in));
+        metric.setTarget(readOptionalDouble(in));
+        metric.setUnit(readOptionalString(in));
+        metric.setComparison(readOptionalString(in));
+        return metric;
+    }
+
+    private static Edge readEdge(Decoder in) throws IOException {
+        Edge edge = new Edge();
+        edge.setId(readUuid(in));
+        edge.setSourceId(readUuid(in));
+        edge.setTargetId(readUuid(in));
+        edge.setSourceType(readOptionalEnum(in, WorkflowLayout.NODE_TYPE));
+        edge.setTargetType(readOptionalEnum(in, WorkflowLayout.NODE_TYPE));
+        edge.setCondition(readOptionalString(in));
+        edge.setLabel(readOptionalString(in));
+        edge.setDefault(in.readBoolean());
+        return edge;
+    }
+
+    private static Event readEvent(Decoder in) throws IOException {
+        Event event = new Event();
+        event.setId(readUuid(in));
+        event.setName(in.readString());
+        event.setDescription(readOptionalString(in));
+        event.setEventType(in.readString());
+        event.setEventDefinition(readOptionalJson(in, JSON_OBJECT));
+        return event;
+    }
+
+    private static DecisionNode readDecisionNode(Decoder in) throws IOException {
+        DecisionNode node = new DecisionNode();
+        node.setId(readUuid(in));
+        node.setName(in.readString());
+        node.setDescription(readOptionalString(in));
+        if (readPresent(in)) {
+            DecisionNode.DecisionTable table = new DecisionNode.DecisionTable();
+            table.setHitPolicy(readOptionalEnum(in, WorkflowLayout.HIT_POLICY));
+            table.setInputs(readArray(in, WorkflowDatumReader::readColumn));
+            table.setOutputs(readArray(in, WorkflowDatumReader::readColumn));
+            table.setRules(readArray(in, WorkflowDatumReader::readRule));
+            node.setDecisionTable(table);
+        }
+        node.setDefaultOutputEdgeId(readOptionalUuid(in));
+        return node;
+    }
+
+    private static DecisionNode.TableColumn readColumn(Decoder in) throws IOException {
+        DecisionNode.TableColumn column = new DecisionNode.TableColumn();
+        column.setName(in.readString());
+        column.setLabel(readOptionalString(in));
+        column.setType(in.readString());
+        column.setAllowedValues(readOptionalJson(in, JSON_ARRAY));
+        return column;
+    }
+
+    private static DecisionNode.DecisionRule readRule(Decoder in) throws IOException {
+        DecisionNode.DecisionRule rule = new DecisionNode.DecisionRule();
+        rule.setId(readOptionalUuid(in));
+        rule.setDescription(readOptionalString(in));
+        rule.setInputEntries(readArray(in, Decoder::readString));
+        rule.setOutputEntries(JSON.readValue(in.readString(), JSON_ARRAY));
+        rule.setOutputEdgeId(readOptionalUuid(in));
+        return rule;
+    }
+
+    private static Context readContext(Decoder in) throws IOException {
+        Context context = new Context();
+        context.setId(readUuid(in));
+        context.setName(in.readString());
+        context.setDescription(readOptionalString(in));
+        context.setType(readEnum(in, WorkflowLayout.CONTEXT_TYPE));
+        context.setSchema(readOptionalJson(in, JSON_OBJECT));
+        context.setInitialValue(readOptionalJsonValue(in));
+        context.setSyncPattern(readEnum(in, WorkflowLayout.SYNC_PATTERN));
+        context.setVisibility(readEnum(in, WorkflowLayout.VISIBILITY));
+        context.setOwnerWorkflowId(readOptionalUuid(in));
+        context.setLifecycle(readEnum(in, WorkflowLayout.LIFECYCLE));
+        Long ttlSeconds = readOptionalLong(in);
+        context.setTtl(ttlSeconds != null ? Duration.ofSeconds(ttlSeconds).toString() : null);
+        return context;
+    }
+}
@@ -0,0 +1,259 @@
+package io.awa.avro;
+
+import io.awa.context.ContextTtl;
+import io.awa.model.AccessRight;
+import io.awa.model.Activity;
+import io.awa.model.Context;
+import io.awa.model.ContextBinding;
+import io.awa.model.Control;
+import io.awa.model.DataObject;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+import io.awa.model.Program;
+import io.awa.model.SLA;
+import io.awa.model.Workflow;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static io.awa.avro.Fields.writeArray;
+import static io.awa.avro.Fields.writeEnum;
+import static io.awa.avro.Fields.writeOptionalDouble;
+import static io.awa.avro.Fields.writeOptionalEnum;
+import static io.awa.avro.Fields.writeOptionalJson;
+import static io.awa.avro.Fields.writeOptionalLong;
+import static io.awa.avro.Fields.writeOptionalString;
+import static io.awa.avro.Fields.writeOptionalStringMap;
+import static io.awa.avro.Fields.writeOptionalUuid;
+import static io.awa.avro.Fields.writePresent;
+import static io.awa.avro.Fields.writeString;
+import static io.awa.avro.Fields.writeTimestamp;
+import static io.awa.avro.Fields.writeUuid;
+
+/**
+ * Writes a {@link Workflow} in the binary encoding of {@code spec/avro/workflow.avsc}.
+ * <p>
+ * Fields the model has but the schema does not ({@code analytics}) are not written, and
+ * the schema's {@code Activity.procedure} is always null. Maps and free-form values go
+ * into the schema's {@code *_json} string fields, {@code Context.ttl} into {@code ttl_seconds}.
+ * Stateless and thread-safe.
+ *
+ * @see WorkflowDatumReader
+ */
+public final class WorkflowDatumWriter implements DatumWriter<Workflow> {
+
+    /**
+     * Always the bundled schema; the writer cannot write other versions.
+     *
+     * @throws IllegalArgumentException if the schema is not the bundled one
+     */
+    @Override
+    public void setSchema(Schema schema) {
+        if (!AwaSchemas.workflow().equals(schema)) {
+            throw new IllegalArgumentException("Only the bundled " + AwaSchemas.workflow().getFullName()
+                    + " schema is supported");
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a field the schema requires is null
+     */
+    @Override
+    public void write(Workflow workflow, Encoder out) throws IOException {
+        writeUuid(out, workflow.getId(), "Workflow.id");
+        writeString(out, workflow.getName(), "Workflow.name");
+        writeString(out, workflow.getVersion(), "Workflow.version");
+        writeOptionalString(out, workflow.getDescription());
+        writeOptionalUuid(out, workflow.getOwnerId());
+        writeOptionalUuid(out, workflow.getOrganizationId());
+        writeOptionalUuid(out, workflow.getParentWorkflowId());
+        writeOptionalUuid(out, workflow.getExpansionActivityId());
+        writeArray(out, workflow.getActivities(), WorkflowDatumWriter::writeActivity);
+        writeArray(out, workflow.getEdges(), WorkflowDatumWriter::writeEdge);
+        writeArray(out, workflow.getEvents(), WorkflowDatumWriter::writeEvent);
+        writeArray(out, workflow.getDecisionNodes(), WorkflowDatumWriter::writeDecisionNode);
+        writeArray(out, workflow.getContexts(), WorkflowDatumWriter::writeContext);
+        writeOptionalSla(out, workflow.getSla());
+        writeOptionalStringMap(out, workflow.getMetadata());
+        writeTimestamp(out, workflow.getCreatedAt());
+        writeTimestamp(out, workflow.getUpdatedAt());
+    }
+
+    private static void writeActivity(Encoder out, Activity activity) throws IOException {
+        writeUuid(out, activity.getId(), "Activity.id");
+        writeString(out, activity.getName(), "Activity.name");
+        writeOptionalString(out, activity.getDescription());
+        writeOptionalString(out, null);
+        writeUuid(out, activity.getRoleId(), "Activity.role_id");
+        writeEnum(out, WorkflowLayout.ACTOR_TYPE, activity.getActorType(), "Activity.actor_type");
+        writeOptionalUuid(out, activity.getSystemId());
+        writeOptionalUuid(out, activity.getMachineId());
+        writeOptionalUuid(out, activity.getEndpointId());
+        writeOptionalUuid(out, activity.getOrganizationId());
+        writeArray(out, activity.getInputs(), WorkflowDatumWriter::writeDataObject);
+        writeArray(out, activity.getOutputs(), WorkflowDatumWriter::writeDataObject);
+        writeArray(out, activity.getContextBindings(), WorkflowDatumWriter::writeContextBinding);
+        writeArray(out, activity.getAccessRights(), WorkflowDatumWriter::writeAccessRight);
+        writeArray(out, activity.getPrograms(), WorkflowDatumWriter::writeProgram);
+        writeArray(out, activity.getControls(), WorkflowDatumWriter::writeControl);
+        writeOptionalSla(out, activity.getSla());
+        out.writeBoolean(activity.isExpandable());
+        writeOptionalUuid(out, activity.getExpansionWorkflowId());
+    }
+
+    private static void writeDataObject(Encoder out, DataObject data) throws IOException {
+        writeString(out, data.getName(), "DataObject.name");
+        writeOptionalString(out, data.getDescription());
+        writeOptionalJson(out, data.getSchema());
+        out.writeBoolean(data.isRequired());
+    }
+
+    private static void writeContextBinding(Encoder out, ContextBinding binding) throws IOException {
+        ContextBinding.Transforms transforms = binding.getTransforms();
+        writeOptionalUuid(out, binding.getId());
+        writeUuid(out, binding.getContextId(), "ContextBinding.context_id");
+        writeOptionalUuid(out, binding.getActivityId());
+        writeEnum(out, WorkflowLayout.ACCESS_MODE, binding.getAccessMode(), "ContextBinding.access_mode");
+        out.writeBoolean(binding.isRequired());
+        writeOptionalString(out, transforms != null ? transforms.getOnRead() : null);
+        writeOptionalString(out, transforms != null ? transforms.getOnWrite() : null);
+    }
+
+    private static void writeAccessRight(Encoder out, AccessRight right) throws IOException {
+        writeUuid(out, right.getId(), "AccessRight.id");
+        writeString(out, right.getName(), "AccessRight.name");
+        writeOptionalString(out, right.getDescription());
+        writeOptionalUuid(out, right.getActivityId());
+        writeEnum(out, WorkflowLayout.ACCESS_DIRECTION, right.getDirection(), "AccessRight.direction");
+        writeEnum(out, WorkflowLayout.RESOURCE_TYPE, right.getResourceType(), "AccessRight.resource_type");
+        writeOptionalString(out, right.getResourceId());
+        writeEnum(out, WorkflowLayout.PERMISSION, right.getPermission(), "AccessRight.permission");
+        writeOptionalString(out, right.getScope());
+        writeOptionalJson(out, right.getConditions());
+    }
+
+    private static void writeProgram(Encoder out, Program program) throws IOException {
+        writeUuid(out, program.getId(), "Program.id");
+        writeString(out, program.getName(), "Program.name");
+        writeString(out, program.getLanguage(), "Program.language");
+        writeOptionalString(out, program.getCode());
+        writeOptionalString(out, program.getCodeUri());
+        writeArray(out, program.getParameters(), WorkflowDatumWriter::writeParameter);
+        writeOptionalString(out, program.getMcpServer());
+    }
+
+    private static void writeParameter(Encoder out, Program.Parameter parameter) throws IOException {
+        writeString(out, parameter.getName(), "Program.parameters.name");
+        writeString(out, parameter.getType(), "Program.parameters.type");
+        out.writeBoolean(parameter.isRequired());
+        writeOptionalJson(out, parameter.getDefaultValue());
+    }
+
+    private static void writeControl(Encoder out, Control control) throws IOException {
+        writeUuid(out, control.getId(), "Control.id");
+        writeString(out, control.getName(), "Control.name");
+        writeOptionalString(out, control.getDescription());
+        writeEnum(out, WorkflowLayout.CONTROL_TYPE, control.getType(), "Control.type");
+        writeOptionalString(out, control.getExpression());
+        writeOptionalEnum(out, WorkflowLayout.ENFORCEMENT, control.getEnforcement());
+    }
+
+    private static void writeOptionalSla(Encoder out, SLA sla) throws IOException {
+        if (!writePresent(out, sla)) {
+            return;
+        }
+        writeOptionalUuid(out, sla.getId());
+        writeOptionalString(out, sla.getName());
+        writeOptionalString(out, sla.getTargetTime());
+        writeOptionalString(out, sla.getMaxTime());
+        SLA.EscalationPolicy policy = sla.getEscalationPolicy();
+        if (writePresent(out, policy)) {
+            writeOptionalString(out, policy.getWarningThreshold());
+            writeOptionalString(out, policy.getWarningAction());
+            writeOptionalString(out, policy.getBreachAction());
+            writeArray(out, policy.getNotifyRoles(), (o, role) -> writeUuid(o, role, "SLA.notify_roles"));
+        }
+        writeArray(out, sla.getMetrics(), WorkflowDatumWriter::writeMetric);
+    }
+
+    private static void writeMetric(Encoder out, SLA.SLAMetric metric) throws IOException {
+        writeOptionalString(out, metric.getName());
+        writeOptionalDouble(out, metric.getTarget());
+        writeOptionalString(out, metric.getUnit());
+        writeOptionalString(out, metric.getComparison());
+    }
+
+    private static void writeEdge(Encoder out, Edge edge) throws IOException {
+        writeUuid(out, edge.getId(), "Edge.id");
+        writeUuid(out, edge.getSourceId(), "Edge.source_id");
+        writeUuid(out, edge.getTargetId(), "Edge.target_id");
+        writeOptionalEnum(out, WorkflowLayout.NODE_TYPE, edge.getSourceType());
+        writeOptionalEnum(out, WorkflowLayout.NODE_TYPE, edge.getTargetType());
+        writeOptionalString(out, edge.getCondition());
+        writeOptionalString(out, edge.getLabel());
+        out.writeBoolean(edge.isDefault());
+    }
+
+    private static void writeEvent(Encoder out, Event event) throws IOException {
+        writeUuid(out, event.getId(), "Event.id");
+        writeString(out, event.getName(), "Event.name");
+        writeOptionalString(out, event.getDescription());
+        writeString(out, event.getEventType(), "Event.event_type");
+        writeOptionalJson(out, event.getEventDefinition());
+    }
+
+    private static void writeDecisionNode(Encoder out, DecisionNode node) throws IOException {
+        DecisionNode.DecisionTable table = node.getDecisionTable();
+        writeUuid(out, node.getId(), "DecisionNode.id");
+        writeString(out, node.getName(), "DecisionNode.name");
+        writeOptionalString(out, node.getDescription());
+        if (writePresent(out, table)) {
+            writeOptionalEnum(out, WorkflowLayout.HIT_POLICY, table.getHitPolicy());
+            writeArray(out, table.getInputs(), WorkflowDatumWriter::writeColumn);
+            writeArray(out, table.getOutputs(), WorkflowDatumWriter::writeColumn);
+            writeArray(out, table.getRules(), WorkflowDatumWriter::writeRule);
+        }
+        writeOptionalUuid(out, node.getDefaultOutputEdgeId());
+    }
+
+    private static void writeColumn(Encoder out, DecisionNode.TableColumn column) throws IOException {
+        writeString(out, column.getName(), "TableColumn.name");
+        writeOptionalString(out, column.getLabel());
+        writeString(out, column.getType(), "TableColumn.type");
+        writeOptionalJson(out, column.getAllowedValues());
+    }
+
+    private static void writeRule(Encoder out, DecisionNode.DecisionRule rule) throws IOException {
+        writeOptionalUuid(out, rule.getId());
+        writeOptionalString(out, rule.getDescription());
+        writeArray(out, rule.getInputEntries(), (o, entry) -> writeString(o, entry, "DecisionRule.input_entries"));
+        out.writeString(Fields.JSON.writeValueAsString(Fields.orEmpty(rule.getOutputEntries())));
+        writeOptionalUuid(out, rule.getOutputEdgeId());
+    }
+
+    private static void writeContext(Encoder out, Context context) throws IOException {
+        writeUuid(out, context.getId(), "Context.id");
+        writeString(out, context.getName(), "Context.name");
+        writeOptionalString(out, context.getDescription());
+        writeEnum(out, WorkflowLayout.CONTEXT_TYPE, context.getType(), "Context.type");
+        writeOptionalJson(out, context.getSchema());
+        writeOptionalJson(out, context.getInitialValue());
+        writeEnum(out, WorkflowLayout.SYNC_PATTERN, context.getSyncPattern(), "Context.sync_pattern");
+        writeEnum(out, WorkflowLayout.VISIBILITY, context.getVisibility(), "Context.visibility");
+        writeOptionalUuid(out, context.getOwnerWorkflowId());
+        writeEnum(out, WorkflowLayout.LIFECYCLE, context.getLifecycle(), "Context.lifecycle");
+        writeOptionalLong(out, ttlSeconds(context.getTtl()));
+    }
+
+    /**
+     * Seconds of an ISO 8601 duration. Years and months have no fixed length and are rejected.
+     */
+    static Long ttlSeconds(String ttl) {
+        Duration duration = ContextTtl.parse(ttl);
+        return duration != null ? duration.getSeconds() : null;
+    }
+}
@@ -0,0 +1,68 @@
+package io.awa.avro;
+
+import io.awa.events.WorkflowEvent;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.awa.avro.Fields.readEnum;
+import static io.awa.avro.Fields.readOptionalEnum;
+import static io.awa.avro.Fields.readOptionalString;
+import static io.awa.avro.Fields.readOptionalStringMap;
+import static io.awa.avro.Fields.readOptionalUuid;
+import static io.awa.avro.Fields.readUuid;
+
+/**
+ * Reads a {@link WorkflowEvent} written with {@link WorkflowEventDatumWriter}.
+ * <p>
+ * Passing the previous event as {@code reuse} overwrites it in place, including its metadata
+ * map, so a consumer that handles one event at a time allocates only the field values.
+ * Stateless and thread-safe.
+ */
+public final class WorkflowEventDatumReader implements DatumReader<WorkflowEvent> {
+
+    /**
+     * Sets the writer's schema, which must be the bundled one; schema resolution is not supported.
+     *
+     * @throws IllegalArgumentException if the schema is not the bundled one
+     */
+    @Override
+    public void setSchema(Schema schema) {
+        if (!WorkflowEventDatumWriter.SCHEMA.equals(schema)) {
+            throw new IllegalArgumentException("Only the bundled "
+                    + WorkflowEventDatumWriter.SCHEMA.getFullName() + " schema is supported");
+        }
+    }
+
+    @Override
+    public WorkflowEvent read(WorkflowEvent reuse, Decoder in) throws IOException {
+        WorkflowEvent event = reuse != null ? reuse : new WorkflowEvent();
+        event.setEventId(readUuid(in));
+        event.setEventType(readEnum(in, WorkflowEventDatumWriter.EVENT_TYPE));
+        event.setWorkflowId(readUuid(in));
+        event.setWorkflowInstanceId(readUuid(in));
+        event.setActivityId(readOptionalUuid(in));
+        event.setContextId(readOptionalUuid(in));
+        event.setDecisionNodeId(readOptionalUuid(in));
+        event.setActorId(readOptionalString(in));
+        event.setActorType(readOptionalEnum(in, WorkflowEventDatumWriter.ACTOR_TYPE));
+        event.setPayload(readOptionalString(in));
+        event.setErrorMessage(readOptionalString(in));
+        event.setErrorCode(readOptionalString(in));
+        event.setCorrelationId(readOptionalString(in));
+        event.setParentEventId(readOptionalUuid(in));
+        event.setTimestamp(in.readLong());
+        Map<String, String> metadata = event.getMetadata();
+        if (metadata instanceof HashMap) {
+            metadata.clear();
+        } else {
+            metadata = new HashMap<>();
+        }
+        event.setMetadata(readOptionalStringMap(in, metadata));
+        return event;
+    }
+}
@@ -0,0 +1,73 @@
+package io.awa.avro;
+
+import io.awa.events.WorkflowEvent;
+import io.awa.events.WorkflowEventType;
+import io.awa.model.ActorType;
+import org.apache.avro.Schema;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+
+import java.io.IOException;
+
+import static io.awa.avro.Fields.field;
+import static io.awa.avro.Fields.record;
+import static io.awa.avro.Fields.writeEnum;
+import static io.awa.avro.Fields.writeOptionalEnum;
+import static io.awa.avro.Fields.writeOptionalString;
+import static io.awa.avro.Fields.writeOptionalStringMap;
+import static io.awa.avro.Fields.writeOptionalUuid;
+import static io.awa.avro.Fields.writeUuid;
+
+/**
+ * Writes a {@link WorkflowEvent} in the binary encoding of {@code spec/avro/event.avsc}.
+ * Stateless and thread-safe.
+ *
+ * @see WorkflowEventDatumReader
+ */
+public final class WorkflowEventDatumWriter implements DatumWriter<WorkflowEvent> {
+
+    static final Schema SCHEMA = record(AwaSchemas.workflowEvent(),
+            "event_id", "event_type", "workflow_id", "workflow_instance_id", "activity_id", "context_id",
+            "decision_node_id", "actor_id", "actor_type", "payload", "error_message", "error_code",
+            "correlation_id", "parent_event_id", "timestamp", "metadata");
+
+    static final EnumSymbols<WorkflowEventType> EVENT_TYPE =
+            new EnumSymbols<>(field(SCHEMA, "event_type"), WorkflowEventType.class);
+    static final EnumSymbols<ActorType> ACTOR_TYPE =
+            new EnumSymbols<>(field(SCHEMA, "actor_type"), ActorType.class);
+
+    /**
+     * Always the bundled schema; the writer cannot write other versions.
+     *
+     * @throws IllegalArgumentException if the schema is not the bundled one
+     */
+    @Override
+    public void setSchema(Schema schema) {
+        if (!SCHEMA.equals(schema)) {
+            throw new IllegalArgumentException("Only the bundled " + SCHEMA.getFullName() + " schema is supported");
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if a field the schema requires is null
+     */
+    @Override
+    public void write(WorkflowEvent event, Encoder out) throws IOException {
+        writeUuid(out, event.getEventId(), "WorkflowEvent.event_id");
+        writeEnum(out, EVENT_TYPE, event.getEventType(), "WorkflowEvent.event_type");
+        writeUuid(out, event.getWorkflowId(), "WorkflowEvent.workflow_id");
+        writeUuid(out, event.getWorkflowInstanceId(), "WorkflowEvent.workflow_instance_id");
+        writeOptionalUuid(out, event.getActivityId());
+        writeOptionalUuid(out, event.getContextId());
+        writeOptionalUuid(out, event.getDecisionNodeId());
+        writeOptionalString(out, event.getActorId());
+        writeOptionalEnum(out, ACTOR_TYPE, event.getActorType());
+        writeOptionalString(out, event.getPayload());
+        writeOptionalString(out, event.getErrorMessage());
+        writeOptionalString(out, event.getErrorCode());
+        writeOptionalString(out, event.getCorrelationId());
+        writeOptionalUuid(out, event.getParentEventId());
+        out.writeLong(event.getTimestamp());
+        writeOptionalStringMap(out, event.getMetadata());
+    }
+}
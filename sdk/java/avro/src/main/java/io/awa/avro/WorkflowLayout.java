@@ -0,0 +1,115 @@
+package io.awa.avro;
+
+import io.awa.model.AccessDirection;
+import io.awa.model.AccessMode;
+import io.awa.model.ActorType;
+import io.awa.model.ContextType;
+import io.awa.model.Control;
+import io.awa.model.DecisionNode;
+import io.awa.model.Lifecycle;
+import io.awa.model.NodeType;
+import io.awa.model.Permission;
+import io.awa.model.ResourceType;
+import io.awa.model.SyncPattern;
+import io.awa.model.Visibility;
+import org.apache.avro.Schema;
+
+import static io.awa.avro.Fields.field;
+import static io.awa.avro.Fields.record;
+
+/**
+ * Field order and enum symbols of the {@code io.awa.schema.Workflow} schema, checked once
+ * against the bundled spec when the codec is first used.
+ */
+final class WorkflowLayout {
+
+    static final Schema WORKFLOW = record(AwaSchemas.workflow(),
+            "id", "name", "version", "description", "owner_id", "organization_id", "parent_workflow_id",
+            "expansion_activity_id", "activities", "edges", "events", "decision_nodes", "contexts", "sla",
+            "metadata", "created_at", "updated_at");
+
+    static final Schema ACTIVITY = record(field(WORKFLOW, "activities"),
+            "id", "name", "description", "procedure", "role_id", "actor_type", "system_id", "machine_id",
+            "endpoint_id", "organization_id", "inputs", "outputs", "context_bindings", "access_rights",
+            "programs", "controls", "sla", "is_expandable", "expansion_workflow_id");
+
+    static final Schema DATA_OBJECT = record(field(ACTIVITY, "inputs"),
+            "name", "description", "schema_json", "required");
+
+    static final Schema CONTEXT_BINDING = record(field(ACTIVITY, "context_bindings"),
+            "id", "context_id", "activity_id", "access_mode", "required", "transform_on_read", "transform_on_write");
+
+    static final Schema ACCESS_RIGHT = record(field(ACTIVITY, "access_rights"),
+            "id", "name", "description", "activity_id", "direction", "resource_type", "resource_id", "permission",
+            "scope", "conditions_json");
+
+    static final Schema PROGRAM = record(field(ACTIVITY, "programs"),
+            "id", "name", "language", "code", "code_uri", "parameters", "mcp_server");
+
+    static final Schema PROGRAM_PARAMETER = record(field(PROGRAM, "parameters"),
+            "name", "type", "required", "default_json");
+
+    static final Schema CONTROL = record(field(ACTIVITY, "controls"),
+            "id", "name", "description", "type", "expression", "enforcement");
+
+    static final Schema SLA = record(field(WORKFLOW, "sla"),
+            "id", "name", "target_time", "max_time", "escalation_policy", "metrics");
+
+    static final Schema ESCALATION_POLICY = record(field(SLA, "escalation_policy"),
+            "warning_threshold", "warning_action", "breach_action", "notify_roles");
+
+    static final Schema SLA_METRIC = record(field(SLA, "metrics"),
+            "name", "target", "unit", "comparison");
+
+    static final Schema EDGE = record(field(WORKFLOW, "edges"),
+            "id", "source_id", "target_id", "source_type", "target_type", "condition", "label", "is_default");
+
+    static final Schema EVENT = record(field(WORKFLOW, "events"),
+            "id", "name", "description", "event_type", "event_definition_json");
+
+    static final Schema DECISION_NODE = record(field(WORKFLOW, "decision_nodes"),
+            "id", "name", "description", "decision_table", "default_output_edge_id");
+
+    static final Schema DECISION_TABLE = record(field(DECISION_NODE, "decision_table"),
+            "hit_policy", "inputs", "outputs", "rules");
+
+    static final Schema TABLE_COLUMN = record(field(DECISION_TABLE, "inputs"),
+            "name", "label", "type", "allowed_values_json");
+
+    static final Schema DECISION_RULE = record(field(DECISION_TABLE, "rules"),
+            "id", "description", "input_entries", "output_entries_json", "output_edge_id");
+
+    static final Schema CONTEXT = record(field(WORKFLOW, "contexts"),
+            "id", "name", "description", "type", "schema_json", "initial_value", "sync_pattern", "visibility",
+            "owner_workflow_id", "lifecycle", "ttl_seconds");
+
+    static final EnumSymbols<ActorType> ACTOR_TYPE =
+            new EnumSymbols<>(field(ACTIVITY, "actor_type"), ActorType.class);
+    static final EnumSymbols<AccessMode> ACCESS_MODE =
+            new EnumSymbols<>(field(CONTEXT_BINDING, "access_mode"), AccessMode.class);
+    static final EnumSymbols<AccessDirection> ACCESS_DIRECTION =
+            new EnumSymbols<>(field(ACCESS_RIGHT, "direction"), AccessDirection.class);
+    static final EnumSymbols<ResourceType> RESOURCE_TYPE =
+            new EnumSymbols<>(field(ACCESS_RIGHT, "resource_type"), ResourceType.class);
+    static final EnumSymbols<Permission> PERMISSION =
+            new EnumSymbols<>(field(ACCESS_RIGHT, "permission"), Permission.class);
+    static final EnumSymbols<Control.ControlType> CONTROL_TYPE =
+            new EnumSymbols<>(field(CONTROL, "type"), Control.ControlType.class);
+    static final EnumSymbols<Control.Enforcement> ENFORCEMENT =
+            new EnumSymbols<>(field(CONTROL, "enforcement"), Control.Enforcement.class);
+    static final EnumSymbols<NodeType> NODE_TYPE =
+            new EnumSymbols<>(field(EDGE, "source_type"), NodeType.class);
+    static final EnumSymbols<DecisionNode.HitPolicy> HIT_POLICY =
+            new EnumSymbols<>(field(DECISION_TABLE, "hit_policy"), DecisionNode.HitPolicy.class);
+    static final EnumSymbols<ContextType> CONTEXT_TYPE =
+            new EnumSymbols<>(field(CONTEXT, "type"), ContextType.class);
+    static final EnumSymbols<SyncPattern> SYNC_PATTERN =
+            new EnumSymbols<>(field(CONTEXT, "sync_pattern"), SyncPattern.class);
+    static final EnumSymbols<Visibility> VISIBILITY =
+            new EnumSymbols<>(field(CONTEXT, "visibility"), Visibility.class);
+    static final EnumSymbols<Lifecycle> LIFECYCLE =
+            new EnumSymbols<>(field(CONTEXT, "lifecycle"), Lifecycle.class);
+
+    private WorkflowLayout() {
+    }
+}
@@ -0,0 +1,138 @@
+package io.awa.benchmarks;
+
+import io.awa.access.AccessDecisionCache;
+import io.awa.access.AccessIndex;
+import io.awa.model.AccessRight;
+import io.awa.model.Activity;
+import io.awa.model.Permission;
+import io.awa.model.ResourceType;
+import io.awa.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccessDecisionCache} vs. evaluating every check with {@link AccessIndex} and with a scan
+ * of the activity's {@code access_rights}, on repeat traffic: 64k checks drawn from 4k distinct
+ * requests, the most frequent far more often than the rest, against 10k activities. Each
+ * operation is one check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessDecisionCacheBenchmark {
+
+    private static final int ACTIVITIES = 10_000;
+    private static final int DISTINCT = 4096;
+    private static final int CHECKS = 1 << 16;
+    private static final Permission[] PERMISSIONS = Permission.values();
+
+    private AccessIndex index;
+    private AccessDecisionCache cache;
+    private Map<UUID, Activity> byId;
+    private UUID[] activityIds;
+    private ResourceType[] types;
+    private String[] resourceIds;
+    private Permission[] permissions;
+    private Map<String, Object> attributes;
+
+    @Setup
+    public void setUp() {
+        Workflow workflow = AccessIndexBenchmark.workflow(ACTIVITIES, 42L);
+        index = AccessIndex.compile(workflow);
+        cache = new AccessDecisionCache(16_384);
+        cache.update(workflow);
+        byId = new HashMap<>();
+        for (Activity activity : workflow.getActivities()) {
+            byId.put(activity.getId(), activity);
+        }
+        attributes = Map.of("amount", 2500, "region", "eu");
+
+        Random random = new Random(7L);
+        List<Activity> list = workflow.getActivities();
+        UUID[] distinctActivities = new UUID[DISTINCT];
+        ResourceType[] distinctTypes = new ResourceType[DISTINCT];
+        String[] distinctIds = new String[DISTINCT];
+        Permission[] distinctPermissions = new Permission[DISTINCT];
+        for (int i = 0; i < DISTINCT; i++) {
+            Activity activity = list.get(random.nextInt(list.size()));
+            AccessRight right = activity.getAccessRights().get(random.nextInt(activity.getAccessRights().size()));
+            boolean hit = random.nextBoolean();
+            distinctActivities[i] = activity.getId();
+            distinctTypes[i] = right.getResourceType();
+            distinctPermissions[i] = hit ? right.getPermission() : PERMISSIONS[random.nextInt(PERMISSIONS.length)];
+            String id = right.getResourceId();
+            distinctIds[i] = id == null ? "anything-" + i
+                    : id.endsWith("*") ? id.substring(0, id.length() - 1) + "orders/" + i
+                    : hit ? id : id + "-other";
+        }
+        activityIds = new UUID[CHECKS];
+        types = new ResourceType[CHECKS];
+        resourceIds = new String[CHECKS];
+        permissions = new Permission[CHECKS];
+        for (int i = 0; i < CHECKS; i++) {
+            // Squaring a uniform draw skews it towards the first requests
+            double u = random.nextDouble();
+            int k = (int) (u * u * DISTINCT);
+            activityIds[i] = distinctActivities[k];
+            types[i] = distinctTypes[k];
+            // A gateway parses each request afresh, so ids arrive as new strings
+            resourceIds[i] = new String(distinctIds[k]);
+            permissions[i] = distinctPermissions[k];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public int cached() {
+        int allowed = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (cache.isAllowed(activityIds[i], types[i], resourceIds[i], permissions[i], null, attributes)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public int index() {
+        int allowed = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (index.isAllowed(activityIds[i], types[i], resourceIds[i], permissions[i], attributes)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public int scan() {
+        int allowed = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (AccessIndexBenchmark.scan(byId.get(activityIds[i]), types[i], resourceIds[i], permissions[i], attributes)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,197 @@
+package io.awa.benchmarks;
+
+import io.awa.access.AccessIndex;
+import io.awa.model.AccessDirection;
+import io.awa.model.AccessRight;
+import io.awa.model.Activity;
+import io.awa.model.Permission;
+import io.awa.model.ResourceType;
+import io.awa.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccessIndex} checks vs. scanning the activity's {@code access_rights} list, over a
+ * synthetic workflow whose activities declare exact, prefix, wildcard and conditional rights.
+ * About half the checks are allowed. Each operation is one check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessIndexBenchmark {
+
+    private static final int CHECKS = 1024;
+    private static final int RIGHTS_PER_ACTIVITY = 12;
+    private static final ResourceType[] TYPES = ResourceType.values();
+    private static final Permission[] PERMISSIONS = Permission.values();
+
+    @Param({"1000", "10000"})
+    public int activities;
+
+    private AccessIndex index;
+    private Map<UUID, Activity> byId;
+    private UUID[] activityIds;
+    private ResourceType[] types;
+    private String[] resourceIds;
+    private Permission[] permissions;
+    private Map<String, Object> attributes;
+
+    @Setup
+    public void setUp() {
+        Workflow workflow = workflow(activities, 42L);
+        index = AccessIndex.compile(workflow);
+        byId = new HashMap<>();
+        for (Activity activity : workflow.getActivities()) {
+            byId.put(activity.getId(), activity);
+        }
+        attributes = Map.of("amount", 2500, "region", "eu");
+
+        Random random = new Random(7L);
+        activityIds = new UUID[CHECKS];
+        types = new ResourceType[CHECKS];
+        resourceIds = new String[CHECKS];
+        permissions = new Permission[CHECKS];
+        List<Activity> list = workflow.getActivities();
+        for (int i = 0; i < CHECKS; i++) {
+            Activity activity = list.get(random.nextInt(list.size()));
+            AccessRight right = activity.getAccessRights().get(random.nextInt(RIGHTS_PER_ACTIVITY));
+            activityIds[i] = activity.getId();
+            boolean hit = random.nextBoolean();
+            types[i] = right.getResourceType();
+            permissions[i] = hit ? right.getPermission() : PERMISSIONS[random.nextInt(PERMISSIONS.length)];
+            String id = right.getResourceId();
+            resourceIds[i] = id == null ? "anything-" + i
+                    : id.endsWith("*") ? id.substring(0, id.length() - 1) + "orders/" + i
+                    : hit ? id : id + "-other";
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public int index() {
+        int allowed = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (index.isAllowed(activityIds[i], types[i], resourceIds[i], permissions[i], attributes)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public int scan() {
+        int allowed = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (scan(byId.get(activityIds[i]), types[i], resourceIds[i], permissions[i], attributes)) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * The same rules as {@link AccessIndex}, checked right by right.
+     */
+    static boolean scan(Activity activity, ResourceType type, String resourceId, Permission permission,
+                        Map<String, ?> attributes) {
+        if (activity == null) {
+            return false;
+        }
+        for (AccessRight right : activity.getAccessRights()) {
+            if (right.getResourceType() != type || right.getPermission() != permission) {
+                continue;
+            }
+            String id = right.getResourceId();
+            boolean matches = id == null || id.isEmpty() || id.equals("*")
+                    || (id.endsWith("*") ? resourceId != null && resourceId.startsWith(id.substring(0, id.length() - 1))
+                    : id.equals(resourceId));
+            if (matches && conditionsHold(right.getConditions(), attributes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean conditionsHold(Map<String, Object> conditions, Map<String, ?> attributes) {
+        if (conditions == null) {
+            return true;
+        }
+        for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+            String key = condition.getKey();
+            if (key.startsWith("max_") || key.startsWith("min_")) {
+                Object value = attributes.get(key.substring(4));
+                double bound = ((Number) condition.getValue()).doubleValue();
+                if (!(value instanceof Number)
+                        || (key.startsWith("max_") ? ((Number) value).doubleValue() > bound : ((Number) value).doubleValue() < bound)) {
+                    return false;
+                }
+            } else if (!String.valueOf(condition.getValue()).equals(String.valueOf(attributes.get(key)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Activities with a dozen rights each: exact ids, prefixes such as {@code db/7/*}, a few for
+     * any id, and a quarter limited by {@code max_amount} or {@code region}.
+     */
+    static Workflow workflow(int activities, long seed) {
+        Random random = new Random(seed);
+        List<Activity> list = new ArrayList<>(activities);
+        for (int a = 0; a < activities; a++) {
+            List<AccessRight> rights = new ArrayList<>(RIGHTS_PER_ACTIVITY);
+            for (int r = 0; r < RIGHTS_PER_ACTIVITY; r++) {
+                int kind = random.nextInt(10);
+                String resourceId = kind < 6 ? "svc-" + random.nextInt(500)
+                        : kind < 9 ? "db/" + random.nextInt(50) + "/" + (random.nextBoolean() ? "" : "t" + random.nextInt(10) + "/") + "*"
+                        : null;
+                Map<String, Object> conditions = null;
+                int limited = random.nextInt(8);
+                if (limited == 0) {
+                    conditions = Map.of("max_amount", 1000 + random.nextInt(4) * 1000);
+                } else if (limited == 1) {
+                    conditions = Map.of("region", random.nextBoolean() ? "eu" : "us");
+                }
+                rights.add(AccessRight.builder()
+                        .id(new UUID(random.nextLong(), random.nextLong()))
+                        .name("right-" + r)
+                        .direction(random.nextBoolean() ? AccessDirection.REQUIRES : AccessDirection.PROVISIONS)
+                        .resourceType(TYPES[random.nextInt(TYPES.length)])
+                        .resourceId(resourceId)
+                        .permission(PERMISSIONS[random.nextInt(PERMISSIONS.length)])
+                        .conditions(conditions)
+                        .build());
+            }
+            list.add(Activity.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .name("Activity " + a)
+                    .accessRights(rights)
+                    .build());
+        }
+        return Workflow.builder().id(new UUID(seed, 0)).name("Access rights").version("1.0.0")
+                .activities(list).build();
+    }
+}
@@ -0,0 +1,114 @@
+package io.awa.benchmarks;
+
+import io.awa.control.AuditRecord;
+import io.awa.control.AuditSink;
+import io.awa.control.AuditWriter;
+import io.awa.control.FileAuditWriter;
+import io.awa.model.Control;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link AuditSink} over a {@link FileAuditWriter} that syncs every batch vs. writing and
+ * syncing each record as it happens, and the sink over a writer that stores nothing, for the
+ * cost of the ring alone. Each operation is one record, measured until it is written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditSinkBenchmark {
+
+    private static final int RECORDS = 1 << 14;
+    private static final int SYNCHRONOUS_RECORDS = 64;
+
+    private Path directory;
+    private AuditSink fileSink;
+    private AuditSink nullSink;
+    private FileAuditWriter synchronous;
+    private AuditRecord[] records;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("awa-audit");
+        fileSink = new AuditSink(FileAuditWriter.open(directory.resolve("batched.jsonl")));
+        nullSink = new AuditSink(batch -> { });
+        synchronous = FileAuditWriter.open(directory.resolve("synchronous.jsonl"));
+        records = new AuditRecord[RECORDS];
+        UUID instance = UUID.randomUUID();
+        UUID control = UUID.randomUUID();
+        for (int i = 0; i < RECORDS; i++) {
+            records[i] = AuditRecord.builder()
+                    .id(UUID.randomUUID())
+                    .workflowInstanceId(instance)
+                    .activityId(new UUID(i, i))
+                    .activityName("Review claim " + i)
+                    .controlId(control)
+                    .controlName("Claims audit trail")
+                    .enforcement(Control.Enforcement.MANDATORY)
+                    .outcome(AuditRecord.Outcome.COMPLETED)
+                    .timestamp(System.currentTimeMillis())
+                    .build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fileSink.close();
+        nullSink.close();
+        synchronous.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void batchedFile() {
+        for (AuditRecord record : records) {
+            fileSink.offer(record);
+        }
+        fileSink.flush();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void ringOnly() {
+        for (AuditRecord record : records) {
+            nullSink.offer(record);
+        }
+        nullSink.flush();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYNCHRONOUS_RECORDS)
+    public void synchronousFile() throws IOException {
+        for (int i = 0; i < SYNCHRONOUS_RECORDS; i++) {
+            synchronous.write(List.of(records[i]));
+        }
+    }
+}
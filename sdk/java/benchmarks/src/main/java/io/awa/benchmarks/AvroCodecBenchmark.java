@@ -0,0 +1,133 @@
+package io.awa.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awa.avro.AvroCodec;
+import io.awa.events.WorkflowEvent;
+import io.awa.events.WorkflowEventType;
+import io.awa.model.ActorType;
+import io.awa.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Avro binary vs. Jackson JSON for single WorkflowEvent messages and whole workflows
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroCodecBenchmark {
+
+    @State(Scope.Thread)
+    public static class EventState {
+        ObjectMapper mapper;
+        AvroCodec<WorkflowEvent> codec;
+        WorkflowEvent event;
+        WorkflowEvent reuse;
+        byte[] json;
+        byte[] avro;
+
+        @Setup
+        public void setUp() throws IOException {
+            mapper = Workflows.mapper();
+            codec = AvroCodec.workflowEvents();
+            event = WorkflowEvent.builder()
+                    .eventId(UUID.randomUUID())
+                    .eventType(WorkflowEventType.ACTIVITY_COMPLETED)
+                    .workflowId(UUID.randomUUID())
+                    .workflowInstanceId(UUID.randomUUID())
+                    .activityId(UUID.randomUUID())
+                    .actorId("agent-7")
+                    .actorType(ActorType.AI_AGENT)
+                    .payload("{\"score\":42,\"approved\":true}")
+                    .correlationId("order-1234")
+                    .timestamp(1_760_000_000_000L)
+                    .metadata(Map.of("region", "eu-west-1"))
+                    .build();
+            reuse = new WorkflowEvent();
+            json = mapper.writeValueAsBytes(event);
+            avro = codec.encode(event);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WorkflowState {
+        @Param({"10", "1000"})
+        public int activities;
+
+        ObjectMapper mapper;
+        AvroCodec<Workflow> codec;
+        Workflow workflow;
+        byte[] json;
+        byte[] avro;
+
+        @Setup
+        public void setUp() throws IOException {
+            mapper = Workflows.mapper();
+            codec = AvroCodec.workflows();
+            workflow = Workflows.synthetic(activities, 42L);
+            json = mapper.writeValueAsBytes(workflow);
+            avro = codec.encode(workflow);
+        }
+    }
+
+    @Benchmark
+    public byte[] eventJsonEncode(EventState state) throws IOException {
+        return state.mapper.writeValueAsBytes(state.event);
+    }
+
+    @Benchmark
+    public byte[] eventAvroEncode(EventState state) {
+        return state.codec.encode(state.event);
+    }
+
+    @Benchmark
+    public WorkflowEvent eventJsonDecode(EventState state) throws IOException {
+        return state.mapper.readValue(state.json, WorkflowEvent.class);
+    }
+
+    @Benchmark
+    public WorkflowEvent eventAvroDecode(EventState state) {
+        return state.codec.decode(state.avro);
+    }
+
+    @Benchmark
+    public WorkflowEvent eventAvroDecodeReuse(EventState state) {
+        return state.codec.decode(state.avro, 0, state.avro.length, state.reuse);
+    }
+
+    @Benchmark
+    public byte[] workflowJsonEncode(WorkflowState state) throws IOException {
+        return state.mapper.writeValueAsBytes(state.workflow);
+    }
+
+    @Benchmark
+    public byte[] workflowAvroEncode(WorkflowState state) {
+        return state.codec.encode(state.workflow);
+    }
+
+    @Benchmark
+    public Workflow workflowJsonDecode(WorkflowState state) throws IOException {
+        return state.mapper.readValue(state.json, Workflow.class);
+    }
+
+    @Benchmark
+    public Workflow workflowAvroDecode(WorkflowState state) {
+        return state.codec.decode(state.avro);
+    }
+}
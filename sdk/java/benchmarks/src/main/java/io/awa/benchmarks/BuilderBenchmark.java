@@ -0,0 +1,58 @@
+package io.awa.benchmarks;
+
+import io.awa.builder.WorkflowBuilder;
+import io.awa.model.ActorType;
+import io.awa.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WorkflowBuilder}: full assembly by activity name, and {@link WorkflowBuilder#build()} alone
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuilderBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int activities;
+
+    private WorkflowBuilder assembled;
+
+    @Setup
+    public void setUp() {
+        assembled = WorkflowBuilder.workflow("Assembled " + activities);
+        UUID roleId = UUID.randomUUID();
+        for (int i = 0; i < activities; i++) {
+            assembled.activity("Activity " + i, roleId, ActorType.APPLICATION);
+        }
+        for (int i = 0; i + 1 < activities; i++) {
+            assembled.edge("Activity " + i, "Activity " + (i + 1));
+        }
+    }
+
+    @Benchmark
+    public Workflow assembleAndBuild() {
+        return Workflows.built(activities);
+    }
+
+    @Benchmark
+    public Workflow build() {
+        return assembled.build();
+    }
+}
@@ -0,0 +1,103 @@
+package io.awa.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awa.model.Edge;
+import io.awa.runtime.CompiledConditionEvaluator;
+import io.awa.runtime.EdgeConditionEvaluator;
+import io.awa.runtime.SimpleConditionEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interpreted ({@link SimpleConditionEvaluator}) vs compiled ({@link CompiledConditionEvaluator})
+ * evaluation of the conditional edges of the example workflows and a synthetic workflow.
+ * Each operation evaluates one condition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionBenchmark {
+
+    private static final int EDGES = 256;
+
+    private Edge[] edges;
+    private Map<String, Object> variables;
+    private EdgeConditionEvaluator interpreted;
+    private EdgeConditionEvaluator compiled;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Workflows.mapper();
+        List<Edge> conditional = new ArrayList<>();
+        // Only the edges are read, so examples with activities the model rejects still count
+        for (String json : Workflows.examples().values()) {
+            for (JsonNode edge : mapper.readTree(json).path("edges")) {
+                collect(mapper.treeToValue(edge, Edge.class), conditional);
+            }
+        }
+        for (Edge edge : Workflows.synthetic(100, 42L).getEdges()) {
+            collect(edge, conditional);
+        }
+
+        edges = new Edge[EDGES];
+        for (int i = 0; i < EDGES; i++) {
+            edges[i] = conditional.get(i % conditional.size());
+        }
+        variables = new HashMap<>();
+        variables.put("approved", Boolean.TRUE);
+        variables.put("validation_passed", "true");
+        variables.put("risk_score", 42);
+        variables.put("score", 75.5);
+
+        interpreted = new SimpleConditionEvaluator();
+        compiled = new CompiledConditionEvaluator();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EDGES)
+    public int interpreted() {
+        return evaluateAll(interpreted);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EDGES)
+    public int compiled() {
+        return evaluateAll(compiled);
+    }
+
+    private int evaluateAll(EdgeConditionEvaluator evaluator) {
+        int taken = 0;
+        for (Edge edge : edges) {
+            if (evaluator.evaluate(edge, variables)) {
+                taken++;
+            }
+        }
+        return taken;
+    }
+
+    private static void collect(Edge edge, List<Edge> into) {
+        if (edge.getCondition() != null && !edge.getCondition().isBlank()) {
+            into.add(edge);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package io.awa.benchmarks;
+
+import io.awa.context.CacheStats;
+import io.awa.context.ContextBackend;
+import io.awa.context.ContextCache;
+import io.awa.model.Context;
+import io.awa.model.ContextType;
+import io.awa.model.Lifecycle;
+import io.awa.model.SyncPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of CACHED document contexts through {@link ContextCache} and through an LRU map of the same
+ * size, over a skewed workload: most reads go to a small set of hot contexts, the rest are spread over
+ * many rarely read ones. Every miss pays a simulated backend fetch, so throughput follows hit rate;
+ * the hit rates are printed at the end of each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextCacheBenchmark {
+
+    private static final int CACHE_SIZE = 1_000;
+    private static final int HOT = 500;
+    private static final int COLD = 100_000;
+    private static final int TRACE = 1 << 20;
+    private static final long FETCH_TOKENS = 2_000;
+
+    private Context[] contexts;
+    private int[] trace;
+    private int position;
+    private ContextCache cache;
+    private Map<UUID, Object> lru;
+    private long lruHits;
+    private long lruReads;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Random random = new Random(42L);
+        contexts = new Context[HOT + COLD];
+        for (int i = 0; i < contexts.length; i++) {
+            contexts[i] = Context.builder()
+                    .id(new UUID(random.nextLong(), random.nextLong()))
+                    .name("Document " + i)
+                    .type(ContextType.DOCUMENT)
+                    .syncPattern(SyncPattern.SHARED_STATE)
+                    .lifecycle(Lifecycle.CACHED)
+                    .ttl("PT1H")
+                    .build();
+        }
+        // Half of the reads go to the hot set, the other half are scattered over the cold ones
+        trace = new int[TRACE];
+        for (int i = 0; i < TRACE; i++) {
+            trace[i] = random.nextBoolean() ? random.nextInt(HOT) : HOT + random.nextInt(COLD);
+        }
+        ContextBackend backend = new ContextBackend() {
+            @Override
+            public Object load(Context context) {
+                return fetch(context);
+            }
+
+            @Override
+            public void store(Context context, Object value) {
+            }
+        };
+        cache = new ContextCache(backend, CACHE_SIZE);
+        lru = new LinkedHashMap<>(CACHE_SIZE * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Object> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+        lruHits = 0;
+        lruReads = 0;
+        position = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        CacheStats stats = cache.stats();
+        if (stats.getHits() + stats.getMisses() > 0) {
+            System.out.printf("%n  ContextCache hit rate %.3f%n", stats.hitRate());
+        }
+        if (lruReads > 0) {
+            System.out.printf("%n  LRU hit rate %.3f%n", (double) lruHits / lruReads);
+        }
+    }
+
+    @Benchmark
+    public Object contextCache() {
+        return cache.get(next(), null);
+    }
+
+    @Benchmark
+    public Object lruMap() {
+        Context context = next();
+        synchronized (lru) {
+            lruReads++;
+            Object value = lru.get(context.getId());
+            if (value != null) {
+                lruHits++;
+                return value;
+            }
+        }
+        Object value = fetch(context);
+        synchronized (lru) {
+            lru.put(context.getId(), value);
+        }
+        return value;
+    }
+
+    private Context next() {
+        return contexts[trace[position++ & (TRACE - 1)]];
+    }
+
+    private static Object fetch(Context context) {
+        Blackhole.consumeCPU(FETCH_TOKENS);
+        return context.getName();
+    }
+}
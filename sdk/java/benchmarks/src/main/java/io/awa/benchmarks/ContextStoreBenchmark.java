@@ -0,0 +1,182 @@
+package io.awa.benchmarks;
+
+import io.awa.context.BlackboardStore;
+import io.awa.context.EventSourcedStore;
+import io.awa.context.MessageQueueStore;
+import io.awa.context.SharedStateStore;
+import io.awa.model.Context;
+import io.awa.model.ContextType;
+import io.awa.model.SyncPattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Context stores under contention from several agent threads, against the lock-based structures
+ * they replace: a synchronized map for shared state and the blackboard, and an
+ * {@link ArrayBlockingQueue} for message passing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextStoreBenchmark {
+
+    private static final int KEYS = 64;
+    private static final String[] KEY_NAMES = new String[KEYS];
+
+    static {
+        for (int i = 0; i < KEYS; i++) {
+            KEY_NAMES[i] = "key-" + i;
+        }
+    }
+
+    private SharedStateStore sharedState;
+    private BlackboardStore blackboard;
+    private EventSourcedStore eventSourced;
+    private MessageQueueStore messages;
+    private ArrayBlockingQueue<Object> blockingQueue;
+    private Map<String, Object> lockedMap;
+    private List<Object> lockedLog;
+
+    @Setup
+    public void setUp() {
+        sharedState = new SharedStateStore(context(SyncPattern.SHARED_STATE));
+        blackboard = new BlackboardStore(context(SyncPattern.BLACKBOARD));
+        eventSourced = new EventSourcedStore(context(SyncPattern.EVENT_SOURCING));
+        messages = new MessageQueueStore(context(SyncPattern.MESSAGE_PASSING), 1 << 16);
+        blockingQueue = new ArrayBlockingQueue<>(1 << 16);
+        lockedMap = new HashMap<>();
+        lockedLog = new ArrayList<>();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object sharedStateReadWrite() {
+        String key = KEY_NAMES[ThreadLocalRandom.current().nextInt(KEYS)];
+        if (ThreadLocalRandom.current().nextInt(4) == 0) {
+            return sharedState.put(key, key);
+        }
+        return sharedState.get(key);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object lockedMapReadWrite() {
+        String key = KEY_NAMES[ThreadLocalRandom.current().nextInt(KEYS)];
+        synchronized (lockedMap) {
+            if (ThreadLocalRandom.current().nextInt(4) == 0) {
+                return lockedMap.put(key, key);
+            }
+            return lockedMap.get(key);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void sharedStateCounter() {
+        sharedState.add("hits", 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object lockedMapCounter() {
+        synchronized (lockedMap) {
+            return lockedMap.merge("hits", 1L, (a, b) -> (Long) a + (Long) b);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean blackboardIncrement() {
+        String key = KEY_NAMES[ThreadLocalRandom.current().nextInt(KEYS)];
+        while (true) {
+            BlackboardStore.Entry entry = blackboard.read(key);
+            long version = entry != null ? entry.getVersion() : BlackboardStore.ABSENT;
+            long value = entry != null ? (Long) entry.getValue() : 0L;
+            if (blackboard.write(key, value + 1, version)) {
+                return true;
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long eventSourcedAppend() {
+        long sequence = eventSourced.append(KEY_NAMES[ThreadLocalRandom.current().nextInt(KEYS)], "value");
+        if ((sequence & 0xFFFF) == 0xFFFF) {
+            eventSourced.compact();
+        }
+        return sequence;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int lockedLogAppend() {
+        synchronized (lockedLog) {
+            lockedLog.add("value");
+            if (lockedLog.size() > 0xFFFF) {
+                lockedLog.clear();
+            }
+            return lockedLog.size();
+        }
+    }
+
+    @Benchmark
+    @Group("messageQueue")
+    @GroupThreads(3)
+    public boolean messageQueueOffer() {
+        return messages.offer("task", "payload");
+    }
+
+    @Benchmark
+    @Group("messageQueue")
+    @GroupThreads(1)
+    public Object messageQueuePoll() {
+        return messages.poll();
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    @GroupThreads(3)
+    public boolean blockingQueueOffer() {
+        return blockingQueue.offer("payload");
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    @GroupThreads(1)
+    public Object blockingQueuePoll() {
+        return blockingQueue.poll();
+    }
+
+    private static Context context(SyncPattern pattern) {
+        return Context.builder()
+                .id(UUID.randomUUID())
+                .name(pattern.getValue())
+                .type(ContextType.DATA)
+                .syncPattern(pattern)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package io.awa.benchmarks;
+
+import io.awa.decision.CompiledDecisionTable;
+import io.awa.decision.DecisionResult;
+import io.awa.model.DecisionNode;
+import io.awa.model.DecisionNode.DecisionRule;
+import io.awa.model.DecisionNode.DecisionTable;
+import io.awa.model.DecisionNode.HitPolicy;
+import io.awa.model.DecisionNode.TableColumn;
+import io.awa.runtime.DecisionTableHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CompiledDecisionTable} on a routing table of region equality and amount range rules, on its
+ * own and behind the {@link DecisionTableHandler} the engine routes through
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionTableBenchmark {
+
+    private static final int REGIONS = 50;
+    private static final int INPUTS = 1024;
+
+    @Param({"100", "2000"})
+    public int rules;
+
+    @Param({"FIRST", "COLLECT"})
+    public HitPolicy hitPolicy;
+
+    private DecisionNode node;
+    private CompiledDecisionTable table;
+    private final DecisionTableHandler handler = new DecisionTableHandler();
+    private List<Map<String, Object>> inputs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int bands = Math.max(1, rules / REGIONS);
+        List<DecisionRule> ruleList = new ArrayList<>(rules);
+        for (int r = 0; r < rules; r++) {
+            int band = r / REGIONS;
+            ruleList.add(DecisionRule.builder()
+                    .id(new UUID(0, r))
+                    .inputEntries(List.of("\"region-" + (r % REGIONS) + "\"",
+                            "[" + band * 100 + ".." + (band + 1) * 100 + ")", "-"))
+                    .outputEntries(List.of("route-" + r))
+                    .outputEdgeId(new UUID(1, r))
+                    .build());
+        }
+        node = DecisionNode.builder()
+                .id(UUID.randomUUID())
+                .name("Routing")
+                .defaultOutputEdgeId(new UUID(2, 0))
+                .decisionTable(DecisionTable.builder()
+                        .hitPolicy(hitPolicy)
+                        .inputs(List.of(column("region"), column("amount"), column("channel")))
+                        .outputs(List.of(column("route")))
+                        .rules(ruleList)
+                        .build())
+                .build();
+        table = CompiledDecisionTable.compile(node);
+
+        Random random = new Random(42L);
+        inputs = new ArrayList<>(INPUTS);
+        for (int i = 0; i < INPUTS; i++) {
+            inputs.add(Map.of(
+                    "region", "region-" + random.nextInt(REGIONS),
+                    "amount", random.nextInt(bands * 100),
+                    "channel", "web"));
+        }
+    }
+
+    @Benchmark
+    public DecisionResult evaluate() {
+        next = (next + 1) & (INPUTS - 1);
+        return table.evaluate(inputs.get(next));
+    }
+
+    @Benchmark
+    public UUID route() {
+        next = (next + 1) & (INPUTS - 1);
+        return handler.route(node, inputs.get(next));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CompiledDecisionTable compile() {
+        return CompiledDecisionTable.compile(node);
+    }
+
+    private static TableColumn column(String name) {
+        return TableColumn.builder().name(name).build();
+    }
+}
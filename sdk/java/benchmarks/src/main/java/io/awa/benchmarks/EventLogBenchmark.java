@@ -0,0 +1,120 @@
+package io.awa.benchmarks;
+
+import io.awa.events.WorkflowEvent;
+import io.awa.events.WorkflowEventType;
+import io.awa.events.log.EventCursor;
+import io.awa.events.log.EventLog;
+import io.awa.model.ActorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link EventLog} append latency and replay scan rate. Run with {@code -prof gc} to check
+ * that appends and flyweight scans do not allocate.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventLogBenchmark {
+
+    private static final int REPLAY_EVENTS = 100_000;
+
+    private Path directory;
+    private EventLog log;
+    private WorkflowEvent event;
+    private UUID instanceId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("awa-event-log-");
+        log = EventLog.open(directory);
+        instanceId = UUID.randomUUID();
+        HashMap<String, String> metadata = new HashMap<>();
+        metadata.put("region", "eu-west-1");
+        event = WorkflowEvent.builder()
+                .eventId(UUID.randomUUID())
+                .eventType(WorkflowEventType.ACTIVITY_COMPLETED)
+                .workflowId(UUID.randomUUID())
+                .workflowInstanceId(instanceId)
+                .activityId(UUID.randomUUID())
+                .actorId("agent-7")
+                .actorType(ActorType.AI_AGENT)
+                .payload("{\"score\":42,\"approved\":true}")
+                .timestamp(1_760_000_000_000L)
+                .metadata(metadata)
+                .build();
+        for (int i = 0; i < REPLAY_EVENTS; i++) {
+            log.append(event);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    public long append() {
+        return log.append(event);
+    }
+
+    /**
+     * Replays the first 100k events, filtering by instance without materializing them.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long replayFlyweight() {
+        EventCursor cursor = log.cursor();
+        long timestamps = 0;
+        for (int i = 0; i < REPLAY_EVENTS && cursor.next(); i++) {
+            if (cursor.isWorkflowInstance(instanceId)) {
+                timestamps += cursor.timestamp();
+            }
+        }
+        return timestamps;
+    }
+
+    /**
+     * Replays the first 100k events into one reused {@link WorkflowEvent}.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long replayMaterialized() {
+        EventCursor cursor = log.cursor();
+        WorkflowEvent copy = new WorkflowEvent();
+        long timestamps = 0;
+        for (int i = 0; i < REPLAY_EVENTS && cursor.next(); i++) {
+            timestamps += cursor.readInto(copy).getTimestamp();
+        }
+        return timestamps;
+    }
+}
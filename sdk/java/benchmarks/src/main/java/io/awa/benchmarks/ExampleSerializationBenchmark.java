@@ -0,0 +1,61 @@
+package io.awa.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awa.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round-trips of the {@code examples/*.awa.json} workflows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExampleSerializationBenchmark {
+
+    // order-processing is left out: its actor_type "program" is not an ActorType
+    @Param({
+            "customer-support-ai/workflow.awa.json",
+            "insurance-claims-management/insurance-claims-management.awa.json",
+            "retail-distribution/workflow.awa.json",
+            "skills-demonstration/scenario.awa.json"
+    })
+    public String example;
+
+    private ObjectMapper mapper;
+    private byte[] json;
+    private Workflow workflow;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Workflows.mapper();
+        json = Workflows.example(example).getBytes(StandardCharsets.UTF_8);
+        workflow = mapper.readValue(json, Workflow.class);
+    }
+
+    @Benchmark
+    public Workflow deserialize() throws IOException {
+        return mapper.readValue(json, Workflow.class);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(workflow);
+    }
+}
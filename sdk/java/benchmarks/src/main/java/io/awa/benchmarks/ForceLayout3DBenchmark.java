@@ -0,0 +1,61 @@
+package io.awa.benchmarks;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.layout.ForceLayout3D;
+import io.awa.layout.SpatialLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ForceLayout3D} of a branching workflow from scratch until it converges, summing forces
+ * on one thread and on four. Each run is long, so each is timed once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ForceLayout3DBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    public int activities;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private ForceLayout3D layout;
+    private WorkflowGraph graph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool(threads);
+        layout = new ForceLayout3D().pool(pool).parallelThreshold(threads == 1 ? Integer.MAX_VALUE : 1);
+        graph = WorkflowGraph.of(LayeredLayoutBenchmark.branching(activities, 1, 42L));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SpatialLayout layout() {
+        return layout.layout(graph);
+    }
+}
@@ -0,0 +1,99 @@
+package io.awa.benchmarks;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.model.Edge;
+import io.awa.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breadth-first reachability from the first activity: over the indexed {@link WorkflowGraph},
+ * and over {@link Workflow#getEdges()} grouped by source, as callers did before the graph existed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphTraversalBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int activities;
+
+    private Workflow workflow;
+    private WorkflowGraph graph;
+
+    @Setup
+    public void setUp() {
+        workflow = Workflows.synthetic(activities, 42L);
+        graph = WorkflowGraph.of(workflow);
+    }
+
+    @Benchmark
+    public WorkflowGraph compileGraph() {
+        return WorkflowGraph.of(workflow);
+    }
+
+    @Benchmark
+    public int traverseGraph() {
+        int n = graph.nodeCount();
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        seen[0] = true;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int k = 0, degree = graph.outDegree(node); k < degree; k++) {
+                int next = graph.successor(node, k);
+                if (!seen[next]) {
+                    seen[next] = true;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return tail;
+    }
+
+    @Benchmark
+    public int traverseEdgeList() {
+        Map<UUID, List<Edge>> outgoing = new HashMap<>();
+        for (Edge edge : workflow.getEdges()) {
+            outgoing.computeIfAbsent(edge.getSourceId(), id -> new ArrayList<>()).add(edge);
+        }
+        UUID start = workflow.getActivities().get(0).getId();
+        Set<UUID> seen = new HashSet<>();
+        ArrayDeque<UUID> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            for (Edge edge : outgoing.getOrDefault(queue.poll(), List.of())) {
+                if (seen.add(edge.getTargetId())) {
+                    queue.add(edge.getTargetId());
+                }
+            }
+        }
+        return seen.size();
+    }
+}
@@ -0,0 +1,136 @@
+package io.awa.benchmarks;
+
+import io.awa.ids.IdRegistry;
+import io.awa.ids.IntObjectMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UUID interning and int-keyed lookups against the {@code HashMap<UUID, …>} they replace.
+ * Lookup benchmarks probe every key once in shuffled order, so the score is per pass over all ids.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdRegistryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int ids;
+
+    private UUID[] uuids;
+    private UUID[] probes;
+    private int[] intProbes;
+    private Map<UUID, Integer> uuidIndex;
+    private IdRegistry registry;
+    private Map<UUID, String> uuidValues;
+    private Map<Integer, String> boxedValues;
+    private IntObjectMap<String> intValues;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42L);
+        uuids = new UUID[ids];
+        uuidIndex = new HashMap<>();
+        registry = new IdRegistry(ids);
+        uuidValues = new HashMap<>();
+        boxedValues = new HashMap<>();
+        intValues = new IntObjectMap<>(ids);
+        for (int i = 0; i < ids; i++) {
+            // Copies, so lookups compare equal but not identical instances, as with ids parsed from JSON
+            uuids[i] = new UUID(random.nextLong(), random.nextLong());
+            uuidIndex.put(uuids[i], i);
+            registry.intern(uuids[i]);
+            uuidValues.put(uuids[i], "value " + i);
+            boxedValues.put(i, "value " + i);
+            intValues.put(i, "value " + i);
+        }
+        probes = new UUID[ids];
+        intProbes = new int[ids];
+        for (int i = 0; i < ids; i++) {
+            int j = random.nextInt(ids);
+            probes[i] = new UUID(uuids[j].getMostSignificantBits(), uuids[j].getLeastSignificantBits());
+            intProbes[i] = j;
+        }
+    }
+
+    @Benchmark
+    public Map<UUID, Integer> buildHashMap() {
+        Map<UUID, Integer> index = new HashMap<>();
+        for (int i = 0; i < uuids.length; i++) {
+            index.put(uuids[i], i);
+        }
+        return index;
+    }
+
+    @Benchmark
+    public IdRegistry buildRegistry() {
+        IdRegistry result = new IdRegistry();
+        for (UUID uuid : uuids) {
+            result.intern(uuid);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long lookupHashMap() {
+        long sum = 0;
+        for (UUID probe : probes) {
+            sum += uuidIndex.get(probe);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long lookupRegistry() {
+        long sum = 0;
+        for (UUID probe : probes) {
+            sum += registry.indexOf(probe);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int valuesByUuid() {
+        int sum = 0;
+        for (UUID probe : probes) {
+            sum += uuidValues.get(probe).length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int valuesByBoxedInt() {
+        int sum = 0;
+        for (int probe : intProbes) {
+            sum += boxedValues.get(probe).length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int valuesByInt() {
+        int sum = 0;
+        for (int probe : intProbes) {
+            sum += intValues.get(probe).length();
+        }
+        return sum;
+    }
+}
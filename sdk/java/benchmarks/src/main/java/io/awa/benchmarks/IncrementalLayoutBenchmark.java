@@ -0,0 +1,86 @@
+package io.awa.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awa.layout.GraphLayout;
+import io.awa.layout.IncrementalLayout;
+import io.awa.layout.LayeredLayout;
+import io.awa.model.Activity;
+import io.awa.model.Edge;
+import io.awa.model.Workflow;
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.visualization.VisualizationDelta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Laying out a branching workflow again after one activity is added off its middle: in full with
+ * {@link LayeredLayout}, and only around the new activity with {@link IncrementalLayout}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalLayoutBenchmark {
+
+    @Param({"1000", "5000"})
+    public int activities;
+
+    private final ObjectMapper mapper = Workflows.mapper();
+    private final LayeredLayout full = new LayeredLayout();
+    private final IncrementalLayout incremental = new IncrementalLayout();
+    private String laidOut;
+    private Workflow edited;
+    private Set<UUID> changed;
+    private VisualizationConfig visualization;
+
+    @Setup
+    public void setUp() throws Exception {
+        Workflow workflow = LayeredLayoutBenchmark.branching(activities, 1, 42L);
+        VisualizationConfig initial = new VisualizationConfig();
+        full.layout(workflow, initial);
+        laidOut = mapper.writeValueAsString(initial);
+
+        Activity added = Activity.builder().id(UUID.randomUUID()).name("Added").build();
+        Edge edge = Edge.builder().id(UUID.randomUUID())
+                .sourceId(workflow.getActivities().get(activities / 2).getId()).targetId(added.getId()).build();
+        List<Activity> nodes = new ArrayList<>(workflow.getActivities());
+        nodes.add(added);
+        List<Edge> edges = new ArrayList<>(workflow.getEdges());
+        edges.add(edge);
+        edited = workflow.toBuilder().activities(nodes).edges(edges).build();
+        changed = Set.of(added.getId(), edge.getId());
+    }
+
+    @Setup(Level.Invocation)
+    public void resetPositions() throws Exception {
+        visualization = mapper.readValue(laidOut, VisualizationConfig.class);
+    }
+
+    @Benchmark
+    public GraphLayout fullLayout() {
+        return full.layout(edited, visualization);
+    }
+
+    @Benchmark
+    public VisualizationDelta incrementalLayout() {
+        return incremental.relayout(edited, visualization, changed);
+    }
+}
@@ -0,0 +1,94 @@
+package io.awa.benchmarks;
+
+import io.awa.layout.GraphLayout;
+import io.awa.layout.LayeredLayout;
+import io.awa.model.Activity;
+import io.awa.model.Edge;
+import io.awa.model.Workflow;
+import io.awa.model.visualization.VisualizationConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LayeredLayout} of a branching workflow with forward skips and loops back, as one
+ * connected process and split into 20 disconnected ones, which are laid out in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LayeredLayoutBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int activities;
+
+    private final LayeredLayout layout = new LayeredLayout();
+    private Workflow connected;
+    private Workflow components;
+
+    @Setup
+    public void setUp() {
+        connected = branching(activities, 1, 42L);
+        components = branching(activities, 20, 42L);
+    }
+
+    @Benchmark
+    public GraphLayout connected() {
+        return layout.layout(connected, new VisualizationConfig());
+    }
+
+    @Benchmark
+    public GraphLayout twentyComponents() {
+        return layout.layout(components, new VisualizationConfig());
+    }
+
+    /**
+     * Each activity follows one of the few before it; a quarter also skip ahead and one in thirty loops back.
+     */
+    static Workflow branching(int activities, int parts, long seed) {
+        Random random = new Random(seed);
+        List<Activity> nodes = new ArrayList<>(activities);
+        for (int i = 0; i < activities; i++) {
+            nodes.add(Activity.builder().id(new UUID(seed, i)).name("Activity " + i).build());
+        }
+        int partSize = (activities + parts - 1) / parts;
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < activities; i++) {
+            int first = i / partSize * partSize;
+            int last = Math.min(activities, first + partSize) - 1;
+            if (i > first) {
+                edges.add(edge(nodes, i - 1 - random.nextInt(Math.min(i - first, 6)), i));
+            }
+            if (random.nextInt(4) == 0 && i < last) {
+                edges.add(edge(nodes, i, Math.min(last, i + 1 + random.nextInt(8))));
+            }
+            if (random.nextInt(30) == 0 && i > first) {
+                edges.add(edge(nodes, i, Math.max(first, i - 1 - random.nextInt(10))));
+            }
+        }
+        return Workflow.builder().id(UUID.randomUUID()).name("Branching").version("1.0.0")
+                .activities(nodes).edges(edges).build();
+    }
+
+    private static Edge edge(List<Activity> nodes, int source, int target) {
+        return Edge.builder().id(UUID.randomUUID())
+                .sourceId(nodes.get(source).getId()).targetId(nodes.get(target).getId()).build();
+    }
+}
@@ -0,0 +1,64 @@
+package io.awa.benchmarks;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.layout.EdgeRoutes;
+import io.awa.layout.GraphLayout;
+import io.awa.layout.LayeredLayout;
+import io.awa.layout.OrthogonalRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrthogonalRouter} over the {@link LayeredLayout} of a branching workflow, on the calling
+ * thread, with the layout itself for scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrthogonalRouterBenchmark {
+
+    @Param({"1000", "5000"})
+    public int activities;
+
+    private final LayeredLayout layout = new LayeredLayout();
+    private final OrthogonalRouter router = new OrthogonalRouter().parallelThreshold(Integer.MAX_VALUE);
+    private WorkflowGraph graph;
+    private GraphLayout laidOut;
+    private double[] widths;
+    private double[] heights;
+
+    @Setup
+    public void setUp() {
+        graph = WorkflowGraph.of(LayeredLayoutBenchmark.branching(activities, 1, 42L));
+        widths = new double[graph.nodeCount()];
+        heights = new double[graph.nodeCount()];
+        Arrays.fill(widths, LayeredLayout.DEFAULT_NODE_WIDTH);
+        Arrays.fill(heights, LayeredLayout.DEFAULT_NODE_HEIGHT);
+        laidOut = layout.layout(graph, widths, heights);
+    }
+
+    @Benchmark
+    public GraphLayout layout() {
+        return layout.layout(graph, widths, heights);
+    }
+
+    @Benchmark
+    public EdgeRoutes route() {
+        return router.route(graph, laidOut);
+    }
+}
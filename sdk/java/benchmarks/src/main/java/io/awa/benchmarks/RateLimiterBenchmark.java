@@ -0,0 +1,141 @@
+package io.awa.benchmarks;
+
+import io.awa.control.ControlPipeline;
+import io.awa.control.RateLimit;
+import io.awa.control.RateLimiter;
+import io.awa.model.Activity;
+import io.awa.model.ActorType;
+import io.awa.model.Control;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link RateLimiter} vs. the same GCRA kept in a {@code ConcurrentHashMap} of {@code AtomicLong}s,
+ * on 1M requests spread over 100k to 4M keys with a skew towards the first, and the
+ * {@link ControlPipeline} checks before an activity with an authorization and a rate limit
+ * control. Each operation is one request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RateLimiterBenchmark {
+
+    private static final int REQUESTS = 1 << 20;
+
+    @Param({"100000", "4000000"})
+    public int keys;
+
+    private RateLimit limit;
+    private RateLimiter limiter;
+    private Map<String, AtomicLong> map;
+    private long intervalNanos;
+    private long toleranceNanos;
+    private String[] trace;
+
+    private ControlPipeline pipeline;
+    private Activity activity;
+    private List<Map<String, Object>> variables;
+
+    @Setup
+    public void setUp() {
+        limit = RateLimit.parse("100/s by customer");
+        limiter = new RateLimiter(1 << 20);
+        map = new ConcurrentHashMap<>();
+        intervalNanos = limit.getPeriod().toNanos() / limit.getCount();
+        toleranceNanos = intervalNanos * (limit.getBurst() - 1);
+
+        String[] names = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            names[i] = "customer-" + i;
+        }
+        Random random = new Random(7L);
+        trace = new String[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            double u = random.nextDouble();
+            trace[i] = names[(int) (keys * u * u * u)];
+        }
+
+        List<Control> controls = List.of(
+                Control.builder().name("Claim cap").type(Control.ControlType.AUTHORIZATION)
+                        .expression("claim_amount <= 10000").enforcement(Control.Enforcement.MANDATORY).build(),
+                Control.builder().name("Per customer").type(Control.ControlType.RATE_LIMIT)
+                        .expression("100/s by customer").enforcement(Control.Enforcement.MANDATORY).build());
+        activity = Activity.builder().id(UUID.randomUUID()).name("Pay claim").actorType(ActorType.ROBOT)
+                .controls(new ArrayList<>(controls)).build();
+        pipeline = new ControlPipeline().rateLimiter(new RateLimiter(1 << 20));
+        variables = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            Map<String, Object> vars = new HashMap<>();
+            vars.put("claim_amount", random.nextInt(12_000));
+            vars.put("customer", trace[i]);
+            variables.add(vars);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void limiter(Blackhole blackhole) {
+        for (String key : trace) {
+            blackhole.consume(limiter.tryAcquire(limit, key));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void concurrentMap(Blackhole blackhole) {
+        for (String key : trace) {
+            AtomicLong arrival = map.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+            long now = System.nanoTime();
+            boolean admitted = false;
+            while (true) {
+                long tat = arrival.get();
+                long from = tat == Long.MIN_VALUE ? now : Math.max(tat, now);
+                if (from - now > toleranceNanos) {
+                    break;
+                }
+                if (arrival.compareAndSet(tat, from + intervalNanos)) {
+                    admitted = true;
+                    break;
+                }
+            }
+            blackhole.consume(admitted);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void pipeline(Blackhole blackhole) {
+        for (Map<String, Object> vars : variables) {
+            try {
+                pipeline.before(activity, vars);
+                blackhole.consume(true);
+            } catch (RuntimeException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+}
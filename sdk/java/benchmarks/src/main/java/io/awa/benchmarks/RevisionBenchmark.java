@@ -0,0 +1,73 @@
+package io.awa.benchmarks;
+
+import io.awa.model.Activity;
+import io.awa.model.Workflow;
+import io.awa.revision.WorkflowRevision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deriving a revision that renames one activity: {@link WorkflowRevision#withActivity} against
+ * copying the lists of a mutable {@link Workflow}. Run with {@code -prof gc} to compare the bytes
+ * each revision retains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RevisionBenchmark {
+
+    @Param({"2000", "20000"})
+    public int activities;
+
+    private Workflow workflow;
+    private WorkflowRevision revision;
+    private int edits;
+
+    @Setup
+    public void setUp() {
+        workflow = Workflows.synthetic(activities, 42L);
+        revision = WorkflowRevision.of(workflow);
+    }
+
+    @Benchmark
+    public WorkflowRevision persistentRevision() {
+        int index = edits++ % activities;
+        Activity activity = revision.getActivities().get(index);
+        return revision.withActivity(activity.toBuilder().name("Activity " + index).build());
+    }
+
+    @Benchmark
+    public Workflow copiedWorkflow() {
+        int index = edits++ % activities;
+        Workflow copy = Workflow.builder()
+                .id(workflow.getId())
+                .name(workflow.getName())
+                .version(workflow.getVersion())
+                .activities(new ArrayList<>(workflow.getActivities()))
+                .edges(new ArrayList<>(workflow.getEdges()))
+                .events(new ArrayList<>(workflow.getEvents()))
+                .decisionNodes(new ArrayList<>(workflow.getDecisionNodes()))
+                .contexts(new ArrayList<>(workflow.getContexts()))
+                .metadata(new HashMap<>(workflow.getMetadata()))
+                .build();
+        Activity activity = copy.getActivities().get(index);
+        copy.getActivities().set(index, activity.toBuilder().name("Activity " + index).build());
+        return copy;
+    }
+}
@@ -0,0 +1,59 @@
+package io.awa.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awa.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round-trips of synthetic workflows of increasing size
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int activities;
+
+    private ObjectMapper mapper;
+    private Workflow workflow;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Workflows.mapper();
+        workflow = Workflows.synthetic(activities, 42L);
+        json = mapper.writeValueAsBytes(workflow);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(workflow);
+    }
+
+    @Benchmark
+    public Workflow deserialize() throws IOException {
+        return mapper.readValue(json, Workflow.class);
+    }
+
+    @Benchmark
+    public Workflow roundTrip() throws IOException {
+        return mapper.readValue(mapper.writeValueAsBytes(workflow), Workflow.class);
+    }
+}
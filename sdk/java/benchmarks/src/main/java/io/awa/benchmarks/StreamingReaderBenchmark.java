@@ -0,0 +1,94 @@
+package io.awa.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awa.json.HeavyFields;
+import io.awa.json.StreamedElement;
+import io.awa.json.WorkflowStream;
+import io.awa.json.WorkflowStreamReader;
+import io.awa.model.Activity;
+import io.awa.model.Program;
+import io.awa.model.Workflow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding a whole workflow file vs. streaming it with {@link WorkflowStreamReader}, for
+ * synthetic workflows whose activities embed program code. Run with {@code -prof gc}
+ * to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamingReaderBenchmark {
+
+    private static final int CODE_SIZE = 4096;
+
+    @Param({"1000", "10000"})
+    public int activities;
+
+    private Path file;
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = WorkflowStreamReader.defaultMapper();
+        Workflow workflow = Workflows.synthetic(activities, 42L);
+        String code = "x".repeat(CODE_SIZE);
+        for (Activity activity : workflow.getActivities()) {
+            activity.setPrograms(new ArrayList<>(List.of(Program.builder().name("handler").language("python").code(code).build())));
+        }
+        file = Files.createTempFile("awa-workflow-", ".json");
+        mapper.writeValue(file.toFile(), workflow);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Workflow bindWholeDocument() throws IOException {
+        return mapper.readValue(file.toFile(), Workflow.class);
+    }
+
+    @Benchmark
+    public long streamIncludingHeavyFields() throws IOException {
+        return stream(HeavyFields.INCLUDE);
+    }
+
+    @Benchmark
+    public long streamDeferringHeavyFields() throws IOException {
+        return stream(HeavyFields.DEFER);
+    }
+
+    private long stream(HeavyFields heavyFields) throws IOException {
+        try (WorkflowStream stream = new WorkflowStreamReader(mapper).heavyFields(heavyFields).open(file)) {
+            long count = 0;
+            for (StreamedElement element = stream.next(); element != null; element = stream.next()) {
+                count++;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.awa.benchmarks;
+
+import io.awa.sla.Timeout;
+import io.awa.sla.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TimingWheel} vs. a {@code ScheduledThreadPoolExecutor} that removes cancelled tasks,
+ * each holding a million pending SLA deadlines: every operation schedules a deadline minutes to
+ * hours ahead and cancels it again, as an activity that completes within its SLA does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TimingWheelBenchmark {
+
+    private static final int PENDING = 1 << 20;
+    private static final int TIMERS = 1 << 16;
+    private static final Runnable TASK = () -> { };
+
+    private TimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+    private long[] delays;
+    private Timeout[] timeouts;
+    private ScheduledFuture<?>[] futures;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        wheel = new TimingWheel();
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        for (int i = 0; i < PENDING; i++) {
+            long delay = 60 + i % 86_400;
+            wheel.schedule(TASK, delay, TimeUnit.SECONDS);
+            executor.schedule(TASK, delay, TimeUnit.SECONDS);
+        }
+        delays = new long[TIMERS];
+        for (int i = 0; i < TIMERS; i++) {
+            delays[i] = 60 + (i * 7919L) % 14_400;
+        }
+        timeouts = new Timeout[TIMERS];
+        futures = new ScheduledFuture<?>[TIMERS];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMERS)
+    public void timingWheel() {
+        for (int i = 0; i < TIMERS; i++) {
+            timeouts[i] = wheel.schedule(TASK, delays[i], TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < TIMERS; i++) {
+            timeouts[i].cancel();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMERS)
+    public void scheduledExecutor() {
+        for (int i = 0; i < TIMERS; i++) {
+            futures[i] = executor.schedule(TASK, delays[i], TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < TIMERS; i++) {
+            futures[i].cancel(false);
+        }
+    }
+}
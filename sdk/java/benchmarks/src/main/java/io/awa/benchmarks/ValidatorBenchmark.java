@@ -0,0 +1,80 @@
+package io.awa.benchmarks;
+
+import io.awa.model.Activity;
+import io.awa.model.Edge;
+import io.awa.model.Workflow;
+import io.awa.validation.ValidationResult;
+import io.awa.validation.ValidationSession;
+import io.awa.validation.WorkflowValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link WorkflowValidator} runs against incremental re-validation of one edit through a
+ * {@link ValidationSession}: renaming an activity (element checks only) and re-targeting an edge
+ * (element and graph checks).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    @Param({"1000", "10000"})
+    public int activities;
+
+    private WorkflowValidator validator;
+    private Workflow workflow;
+    private ValidationSession session;
+    private Activity activity;
+    private Edge edge;
+    private UUID nextTarget;
+    private UUID skipTarget;
+    private int edits;
+
+    @Setup
+    public void setUp() {
+        validator = new WorkflowValidator();
+        workflow = Workflows.synthetic(activities, 42L);
+        session = validator.session(workflow);
+        activity = workflow.getActivities().get(activities / 2);
+        // The unconditional edge out of a branching activity; re-targeting it to the skip target keeps every node reachable
+        edge = workflow.getEdges().get(workflow.getEdges().size() / 2);
+        int source = workflow.getActivities().indexOf(workflow.getActivities().stream()
+                .filter(a -> a.getId().equals(edge.getSourceId())).findFirst().orElseThrow());
+        nextTarget = edge.getTargetId();
+        skipTarget = workflow.getActivities().get(Math.min(source + 2, activities - 1)).getId();
+    }
+
+    @Benchmark
+    public ValidationResult fullValidation() {
+        return validator.validate(workflow);
+    }
+
+    @Benchmark
+    public ValidationResult renameActivity() {
+        activity.setName("Activity " + (edits++ & 1));
+        return session.revalidate(workflow, List.of(activity.getId()));
+    }
+
+    @Benchmark
+    public ValidationResult retargetEdge() {
+        edge.setTargetId((edits++ & 1) == 0 ? skipTarget : nextTarget);
+        return session.revalidate(workflow, List.of(edge.getId()));
+    }
+}
@@ -0,0 +1,123 @@
+package io.awa.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awa.avro.AvroCodec;
+import io.awa.model.NodeType;
+import io.awa.model.visualization.CurveType;
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.model.visualization.VisualizationConfig.EdgeRouting;
+import io.awa.model.visualization.VisualizationConfig.NodePosition2D;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+import io.awa.visualization.DeltaCoalescer;
+import io.awa.visualization.VisualizationChange;
+import io.awa.visualization.VisualizationDelta;
+import io.awa.visualization.VisualizationPatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One second of dragging a node (30 moves) in a visualization: re-serializing the whole config
+ * after each move, vs. coalescing the moves into one delta and encoding it as JSON or Avro. Also
+ * applies the delta to a replica. The setup prints the encoded sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisualizationDeltaBenchmark {
+
+    private static final int MOVES = 30;
+
+    @Param({"200", "2000"})
+    public int nodes;
+
+    private ObjectMapper mapper;
+    private AvroCodec<VisualizationDelta> codec;
+    private VisualizationConfig config;
+    private VisualizationPatcher replica;
+    private UUID dragged;
+    private VisualizationDelta delta;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Workflows.mapper();
+        codec = AvroCodec.visualizationDeltas();
+        config = new VisualizationConfig();
+        config.setId(UUID.randomUUID());
+        List<NodePosition2D> positions = new ArrayList<>(nodes);
+        List<EdgeRouting> routings = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            NodePosition2D node = new NodePosition2D();
+            node.setId(UUID.randomUUID());
+            node.setNodeId(UUID.randomUUID());
+            node.setNodeType(NodeType.ACTIVITY);
+            node.setPosition(new Vector2D(i % 40 * 180, i / 40 * 120));
+            node.setWidth(150.0);
+            node.setHeight(80.0);
+            positions.add(node);
+            EdgeRouting routing = new EdgeRouting();
+            routing.setId(UUID.randomUUID());
+            routing.setEdgeId(UUID.randomUUID());
+            routing.setCurveType(CurveType.SMOOTHSTEP);
+            routing.setControlPoints2d(List.of(new Vector2D(i * 10, 0), new Vector2D(i * 10, 60)));
+            routings.add(routing);
+        }
+        config.setNodePositions2d(positions);
+        config.setEdgeRoutings(routings);
+        replica = new VisualizationPatcher(mapper.readValue(mapper.writeValueAsBytes(config), VisualizationConfig.class));
+        dragged = positions.get(nodes / 2).getNodeId();
+        delta = coalesce();
+        System.out.printf("%nconfig %d B, delta %d B JSON / %d B Avro%n", mapper.writeValueAsBytes(config).length,
+                mapper.writeValueAsBytes(delta).length, codec.encode(delta).length);
+    }
+
+    @Benchmark
+    public long fullConfigPerMove() throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < MOVES; i++) {
+            bytes += mapper.writeValueAsBytes(config).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] coalescedDeltaJson() throws IOException {
+        return mapper.writeValueAsBytes(coalesce());
+    }
+
+    @Benchmark
+    public byte[] coalescedDeltaAvro() {
+        return codec.encode(coalesce());
+    }
+
+    @Benchmark
+    public VisualizationConfig applyDelta() {
+        replica.apply(delta);
+        return replica.getConfig();
+    }
+
+    private VisualizationDelta coalesce() {
+        DeltaCoalescer pending = new DeltaCoalescer(config.getId());
+        for (int i = 0; i < MOVES; i++) {
+            pending.add(VisualizationChange.nodeMoved2d(dragged, 100 + i * 3, 200 + i * 2));
+        }
+        return pending.flush();
+    }
+}
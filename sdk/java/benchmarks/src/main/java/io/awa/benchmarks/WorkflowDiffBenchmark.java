@@ -0,0 +1,78 @@
+package io.awa.benchmarks;
+
+import io.awa.model.Activity;
+import io.awa.model.Workflow;
+import io.awa.revision.WorkflowDiff;
+import io.awa.revision.WorkflowPatch;
+import io.awa.revision.WorkflowRevision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WorkflowDiff} between two versions that differ in one renamed activity: as mutable
+ * workflows with separately deserialized elements, and as revisions sharing their unchanged
+ * elements. Also applies the patch to each form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowDiffBenchmark {
+
+    @Param({"2000", "20000"})
+    public int activities;
+
+    private final WorkflowDiff diff = new WorkflowDiff();
+    private Workflow before;
+    private Workflow after;
+    private WorkflowRevision beforeRevision;
+    private WorkflowRevision afterRevision;
+    private WorkflowPatch patch;
+
+    @Setup
+    public void setUp() {
+        before = Workflows.synthetic(activities, 42L);
+        // Same ids and content, distinct element instances, as when both versions come off the wire
+        after = Workflows.synthetic(activities, 42L);
+        Activity renamed = after.getActivities().get(activities / 2);
+        renamed.setName(renamed.getName() + " (reviewed)");
+        after.setVersion("1.0.1");
+
+        beforeRevision = WorkflowRevision.of(before);
+        afterRevision = beforeRevision.withActivity(renamed).withVersion("1.0.1");
+        patch = diff.diff(before, after);
+    }
+
+    @Benchmark
+    public WorkflowPatch diffWorkflows() {
+        return diff.diff(before, after);
+    }
+
+    @Benchmark
+    public WorkflowPatch diffRevisions() {
+        return diff.diff(beforeRevision, afterRevision);
+    }
+
+    @Benchmark
+    public Workflow applyToWorkflow() {
+        return diff.apply(before, patch);
+    }
+
+    @Benchmark
+    public WorkflowRevision applyToRevision() {
+        return diff.apply(beforeRevision, patch);
+    }
+}
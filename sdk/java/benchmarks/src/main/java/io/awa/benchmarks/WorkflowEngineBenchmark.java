@@ -0,0 +1,73 @@
+package io.awa.benchmarks;
+
+import io.awa.model.Workflow;
+import io.awa.runtime.WorkflowEngine;
+import io.awa.runtime.WorkflowInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Activity transitions per second through {@link WorkflowEngine}, running batches of
+ * concurrent instances of a synthetic workflow with no-op handlers.
+ * The SDK target is at least 50k transitions per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowEngineBenchmark {
+
+    private static final int INSTANCES = 1_000;
+    private static final int ACTIVITIES = 20;
+
+    private WorkflowEngine engine;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        Workflow workflow = Workflows.synthetic(ACTIVITIES, 42L);
+        engine = new WorkflowEngine(workflow);
+        variables = Map.of("score", 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    /**
+     * Every instance walks the full chain: {@code score > 50} never holds, so branches take their default edge.
+     */
+    @Benchmark
+    @OperationsPerInvocation(INSTANCES * ACTIVITIES)
+    public void transitions() {
+        CompletableFuture<?>[] completions = new CompletableFuture<?>[INSTANCES];
+        for (int i = 0; i < INSTANCES; i++) {
+            completions[i] = engine.start(variables).completion();
+        }
+        CompletableFuture.allOf(completions).join();
+        for (CompletableFuture<?> completion : completions) {
+            WorkflowInstance instance = (WorkflowInstance) completion.join();
+            if (instance.getStatus() != WorkflowInstance.Status.COMPLETED) {
+                throw new IllegalStateException("Instance " + instance.getId() + " ended "
+                        + instance.getStatus() + ": " + instance.getErrorMessage());
+            }
+        }
+    }
+}
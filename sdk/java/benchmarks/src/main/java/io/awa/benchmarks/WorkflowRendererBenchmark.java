@@ -0,0 +1,74 @@
+package io.awa.benchmarks;
+
+import io.awa.layout.LayeredLayout;
+import io.awa.layout.OrthogonalRouter;
+import io.awa.model.Workflow;
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.visualization.WorkflowRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WorkflowRenderer} on a routed 30-activity workflow, as a 320x200 thumbnail and at full
+ * size, with the same picture encoded by {@code ImageIO} for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowRendererBenchmark {
+
+    @Param({"thumbnail", "full"})
+    public String size;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+    private WorkflowRenderer renderer;
+    private Workflow workflow;
+    private VisualizationConfig visualization;
+
+    @Setup
+    public void setUp() {
+        workflow = LayeredLayoutBenchmark.branching(30, 1, 42L);
+        visualization = new VisualizationConfig();
+        new LayeredLayout().layout(workflow, visualization);
+        new OrthogonalRouter().route(workflow, visualization);
+        renderer = size.equals("thumbnail") ? new WorkflowRenderer().size(320, 200) : new WorkflowRenderer();
+    }
+
+    @Benchmark
+    public int svg() throws IOException {
+        out.reset();
+        renderer.writeSvg(workflow, visualization, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int png() throws IOException {
+        out.reset();
+        renderer.writePng(workflow, visualization, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int pngImageIo() throws IOException {
+        out.reset();
+        ImageIO.write(renderer.render(workflow, visualization), "png", out);
+        return out.size();
+    }
+}
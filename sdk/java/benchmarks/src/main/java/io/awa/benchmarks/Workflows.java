@@ -0,0 +1,240 @@
+package io.awa.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.awa.builder.WorkflowBuilder;
+import io.awa.model.AccessMode;
+import io.awa.model.Activity;
+import io.awa.model.ActorType;
+import io.awa.model.Context;
+import io.awa.model.ContextBinding;
+import io.awa.model.ContextType;
+import io.awa.model.Edge;
+import io.awa.model.NodeType;
+import io.awa.model.SyncPattern;
+import io.awa.model.Workflow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark fixtures: deterministic synthetic workflows and the {@code examples/*.awa.json} documents.
+ */
+public final class Workflows {
+
+    /**
+     * Directory holding the example workflows; defaults to the nearest {@code examples} directory above the working directory.
+     */
+    public static final String EXAMPLES_DIR_PROPERTY = "awa.examples.dir";
+
+    private static final ActorType[] ACTOR_TYPES = ActorType.values();
+
+    private Workflows() {
+    }
+
+    /**
+     * The mapper used for all serialization benchmarks. Example documents use lower-case
+     * enum values and carry fields the SDK does not model, so both are tolerated.
+     */
+    public static ObjectMapper mapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    /**
+     * Builds a workflow of {@code activities} activities: a main chain with a conditional
+     * skip edge every fifth activity, and one shared context bound to every activity.
+     */
+    public static Workflow synthetic(int activities, long seed) {
+        Random random = new Random(seed);
+        UUID workflowId = uuid(random);
+        Context context = Context.builder()
+                .id(uuid(random))
+                .name("Shared State")
+                .type(ContextType.DATA)
+                .syncPattern(SyncPattern.SHARED_STATE)
+                .ownerWorkflowId(workflowId)
+                .build();
+
+        List<Activity> nodes = new ArrayList<>(activities);
+        for (int i = 0; i < activities; i++) {
+            ContextBinding binding = ContextBinding.builder()
+                    .id(uuid(random))
+                    .contextId(context.getId())
+                    .accessMode(i % 2 == 0 ? AccessMode.READ_WRITE : AccessMode.READ)
+                    .build();
+            nodes.add(Activity.builder()
+                    .id(uuid(random))
+                    .name("Activity " + i)
+                    .description("Synthetic activity " + i)
+                    .roleId(uuid(random))
+                    .actorType(ACTOR_TYPES[random.nextInt(ACTOR_TYPES.length)])
+                    .contextBindings(new ArrayList<>(List.of(binding)))
+                    .build());
+        }
+
+        List<Edge> edges = new ArrayList<>(activities + activities / 5);
+        for (int i = 0; i + 1 < activities; i++) {
+            boolean branch = i % 5 == 0 && i + 2 < activities;
+            edges.add(edge(random, nodes.get(i), nodes.get(i + 1), null, branch));
+            if (branch) {
+                edges.add(edge(random, nodes.get(i), nodes.get(i + 2), "score > 50", false));
+            }
+        }
+
+        return Workflow.builder()
+                .id(workflowId)
+                .name("Synthetic " + activities)
+                .version("1.0.0")
+                .activities(nodes)
+                .edges(edges)
+                .contexts(new ArrayList<>(List.of(context)))
+                .build();
+    }
+
+    /**
+     * Same shape as {@link #synthetic(int, long)}, assembled through {@link WorkflowBuilder}.
+     */
+    public static Workflow built(int activities) {
+        WorkflowBuilder builder = WorkflowBuilder.workflow("Built " + activities)
+                .context("Shared State", ContextType.DATA, SyncPattern.SHARED_STATE);
+        UUID roleId = UUID.randomUUID();
+        for (int i = 0; i < activities; i++) {
+            builder.activity("Activity " + i, roleId, ACTOR_TYPES[i % ACTOR_TYPES.length]);
+        }
+        for (int i = 0; i + 1 < activities; i++) {
+            builder.edge("Activity " + i, "Activity " + (i + 1));
+            if (i % 5 == 0 && i + 2 < activities) {
+                builder.edge("Activity " + i, "Activity " + (i + 2), "score > 50");
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Loads every {@code *.awa.json} example below the examples directory, keyed by
+     * path relative to it (for example {@code retail-distribution/workflow.awa.json}).
+     * Non-UUID ids (such as {@code act-receive-order}) are replaced with stable name-based UUIDs
+     * so the documents bind to the SDK model.
+     */
+    public static Map<String, String> examples() {
+        Path dir = examplesDir();
+        ObjectMapper mapper = mapper();
+        Map<String, String> result = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".awa.json")).sorted()::iterator) {
+                JsonNode root = mapper.readTree(file.toFile());
+                if (root.has("workflow") && !root.has("activities")) {
+                    root = root.get("workflow");
+                }
+                normalizeIds(root, null);
+                result.put(dir.relativize(file).toString().replace('\\', '/'), mapper.writeValueAsString(root));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load examples from " + dir, e);
+        }
+        if (result.isEmpty()) {
+            throw new IllegalStateException("No *.awa.json examples found in " + dir);
+        }
+        return result;
+    }
+
+    public static String example(String path) {
+        String json = examples().get(path);
+        if (json == null) {
+            throw new IllegalArgumentException("Unknown example: " + path);
+        }
+        return json;
+    }
+
+    private static Path examplesDir() {
+        String configured = System.getProperty(EXAMPLES_DIR_PROPERTY);
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        for (Path dir = Paths.get("").toAbsolutePath(); dir != null; dir = dir.getParent()) {
+            Path candidate = dir.resolve("examples");
+            if (Files.isDirectory(candidate)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("examples directory not found, set -D" + EXAMPLES_DIR_PROPERTY);
+    }
+
+    private static void normalizeIds(JsonNode node, String field) {
+        if (node instanceof ObjectNode) {
+            ObjectNode object = (ObjectNode) node;
+            Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> entry = fields.next();
+                if (entry.getValue().isTextual() && isIdField(entry.getKey())) {
+                    entry.setValue(new TextNode(toUuid(entry.getValue().asText()).toString()));
+                } else {
+                    normalizeIds(entry.getValue(), entry.getKey());
+                }
+            }
+        } else if (node instanceof ArrayNode) {
+            ArrayNode array = (ArrayNode) node;
+            boolean ids = field != null && field.endsWith("_ids");
+            for (int i = 0; i < array.size(); i++) {
+                if (ids && array.get(i).isTextual()) {
+                    array.set(i, new TextNode(toUuid(array.get(i).asText()).toString()));
+                } else {
+                    normalizeIds(array.get(i), null);
+                }
+            }
+        }
+    }
+
+    private static boolean isIdField(String name) {
+        return name.equals("id") || name.endsWith("_id") || name.endsWith("Id");
+    }
+
+    private static UUID toUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Edge edge(Random random, Activity source, Activity target, String condition, boolean isDefault) {
+        return Edge.builder()
+                .id(uuid(random))
+                .sourceId(source.getId())
+                .targetId(target.getId())
+                .sourceType(NodeType.ACTIVITY)
+                .targetType(NodeType.ACTIVITY)
+                .condition(condition)
+                .isDefault(isDefault)
+                .build();
+    }
+
+    private static UUID uuid(Random random) {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+}
@@ -0,0 +1,86 @@
+package io.awa.access;
+
+/**
+ * Counters of an {@link AccessDecisionCache} since it was created
+ */
+public final class AccessCacheStats {
+
+    private final long hits;
+    private final long negativeHits;
+    private final long conditionalHits;
+    private final long misses;
+    private final long stale;
+    private final long evictions;
+    private final long size;
+
+    AccessCacheStats(long hits, long negativeHits, long conditionalHits, long misses, long stale, long evictions,
+                     long size) {
+        this.hits = hits;
+        this.negativeHits = negativeHits;
+        this.conditionalHits = conditionalHits;
+        this.misses = misses;
+        this.stale = stale;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * Checks answered from the cache, allowed or denied.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Hits on a cached denial.
+     */
+    public long getNegativeHits() {
+        return negativeHits;
+    }
+
+    /**
+     * Hits that tested the conditions of the rights that apply against the request's attributes.
+     */
+    public long getConditionalHits() {
+        return conditionalHits;
+    }
+
+    /**
+     * Checks looked up in the access rights, including stale ones.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Misses on a decision cached before its workflow's access rights changed.
+     */
+    public long getStale() {
+        return stale;
+    }
+
+    /**
+     * Decisions dropped to make room for others.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Decisions held when the counters were read, including stale ones not yet replaced.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "AccessCacheStats{hits=" + hits + ", negativeHits=" + negativeHits + ", conditionalHits=" + conditionalHits
+                + ", misses=" + misses + ", stale=" + stale + ", evictions=" + evictions + ", size=" + size + "}";
+    }
+}
@@ -0,0 +1,146 @@
+package io.awa.access;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code conditions} of an {@link io.awa.model.AccessRight} compiled into tests over the
+ * attributes of a request; all of them must hold.
+ * <p>
+ * A key {@code max_x} requires attribute {@code x} to be a number no greater than the value and
+ * {@code min_x} no less than it, so {@code "max_amount": 100000} caps {@code amount}. Any other
+ * key requires the attribute of that name to equal the value, or one of its elements when the
+ * value is a list; numbers compare as numbers and anything else by its text. A null value
+ * requires the attribute to be absent or null, and a missing attribute fails every other test.
+ */
+final class AccessCondition {
+
+    static final AccessCondition ALWAYS = new AccessCondition(new String[0], new byte[0], new double[0], new Object[0]);
+
+    private static final byte MAX = 0;
+    private static final byte MIN = 1;
+    private static final byte EQUALS = 2;
+    private static final byte ONE_OF = 3;
+    private static final byte ABSENT = 4;
+
+    private final String[] names;
+    private final byte[] tests;
+    private final double[] bounds;
+    private final Object[] values;
+
+    private AccessCondition(String[] names, byte[] tests, double[] bounds, Object[] values) {
+        this.names = names;
+        this.tests = tests;
+        this.bounds = bounds;
+        this.values = values;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a {@code max_} or {@code min_} value is not a number
+     */
+    static AccessCondition compile(Map<String, Object> conditions) {
+        if (conditions == null || conditions.isEmpty()) {
+            return ALWAYS;
+        }
+        int n = conditions.size();
+        String[] names = new String[n];
+        byte[] tests = new byte[n];
+        double[] bounds = new double[n];
+        Object[] values = new Object[n];
+        int i = 0;
+        for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+            String key = condition.getKey();
+            Object value = condition.getValue();
+            boolean max = key.startsWith("max_");
+            if ((max || key.startsWith("min_")) && key.length() > 4) {
+                double bound = number(value);
+                if (Double.isNaN(bound)) {
+                    throw new IllegalArgumentException("Condition " + key + " must be a number: " + value);
+                }
+                names[i] = key.substring(4);
+                tests[i] = max ? MAX : MIN;
+                bounds[i] = bound;
+            } else if (value == null) {
+                names[i] = key;
+                tests[i] = ABSENT;
+            } else if (value instanceof Collection<?> options) {
+                Set<Object> keys = new HashSet<>();
+                for (Object option : options) {
+                    keys.add(key(option));
+                }
+                names[i] = key;
+                tests[i] = ONE_OF;
+                values[i] = keys;
+            } else {
+                names[i] = key;
+                tests[i] = EQUALS;
+                values[i] = key(value);
+            }
+            i++;
+        }
+        return new AccessCondition(names, tests, bounds, values);
+    }
+
+    boolean isAlways() {
+        return names.length == 0;
+    }
+
+    boolean test(Map<String, ?> attributes) {
+        for (int i = 0; i < names.length; i++) {
+            Object attribute = attributes != null ? attributes.get(names[i]) : null;
+            boolean holds = switch (tests[i]) {
+                case MAX -> number(attribute) <= bounds[i];
+                case MIN -> number(attribute) >= bounds[i];
+                case ABSENT -> attribute == null;
+                case ONE_OF -> attribute != null && oneOf((Set<?>) values[i], attribute);
+                default -> attribute != null && values[i].equals(key(attribute));
+            };
+            if (!holds) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean oneOf(Set<?> keys, Object attribute) {
+        if (attribute instanceof Collection<?> elements) {
+            for (Object element : elements) {
+                if (element != null && keys.contains(key(element))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return keys.contains(key(attribute));
+    }
+
+    /**
+     * Equality key: numbers and numeric text as a Double, booleans as themselves, anything else as text.
+     */
+    private static Object key(Object value) {
+        if (value instanceof Boolean) {
+            return value;
+        }
+        double number = number(value);
+        return Double.isNaN(number) ? String.valueOf(value) : (Object) (number == 0 ? 0.0 : number);
+    }
+
+    private static double number(Object value) {
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        if (value instanceof String text && !text.isEmpty()) {
+            char first = text.charAt(0);
+            if (Character.isDigit(first) || first == '-' || first == '+' || first == '.') {
+                try {
+                    return Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+            }
+        }
+        return Double.NaN;
+    }
+}
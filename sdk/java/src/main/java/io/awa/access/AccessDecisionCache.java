@@ -0,0 +1,352 @@
+package io.awa.access;
+
+import io.awa.model.AccessRight;
+import io.awa.model.Activity;
+import io.awa.model.Permission;
+import io.awa.model.ResourceType;
+import io.awa.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authorization for the activities of any number of workflows, with a bounded cache of decisions
+ * keyed by (activity, resource type, resource id, permission, scope) in front of each workflow's
+ * {@link AccessIndex}.
+ * <p>
+ * {@link #update(Workflow)} compiles a workflow's access rights and stamps them with a new
+ * version only when they changed; edits that leave the rights alone keep the cache warm. Each
+ * cached decision carries the version it was made under, so once a workflow's rights change its
+ * decisions stop matching, and only its decisions: those of other workflows stay valid. Denials
+ * are cached like grants. Where rights with {@code conditions} apply, the cache holds their
+ * compiled conditions instead of an answer, and a hit tests them against the request's
+ * attributes without looking the rights up again.
+ * <p>
+ * Decisions live in a fixed table of 4-way sets with CLOCK replacement. Entries are immutable
+ * and read without locks, so checks scale across threads; a set written by two threads at once
+ * at worst loses one of the decisions. Updates are serialized with each other but not with checks.
+ *
+ * <pre>{@code
+ * AccessDecisionCache authorization = new AccessDecisionCache(100_000);
+ * authorization.update(workflow);
+ * if (!authorization.isAllowed(activityId, ResourceType.API, "payments/refunds", Permission.EXECUTE, null, null)) {
+ *     throw new SecurityException("Not allowed");
+ * }
+ * }</pre>
+ */
+public final class AccessDecisionCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 65_536;
+
+    private static final int WAYS = 4;
+    private static final int PERMISSIONS = Permission.values().length;
+
+    private final Entry[] entries;
+    private final byte[] referenced;
+    private final int setMask;
+
+    private final Map<UUID, Compiled> byWorkflow = new ConcurrentHashMap<>();
+    private final Map<UUID, Compiled> byActivity = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder conditionalHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AccessDecisionCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize most decisions held at once, rounded down to a power of two no smaller than 4
+     * @throws IllegalArgumentException if the maximum size is not positive
+     */
+    public AccessDecisionCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        int sets = Integer.highestOneBit(Math.max(1, maximumSize / WAYS));
+        this.entries = new Entry[sets * WAYS];
+        this.referenced = new byte[sets * WAYS];
+        this.setMask = sets - 1;
+    }
+
+    /**
+     * Compiles the workflow's access rights, replacing those of an earlier version of it. Its
+     * cached decisions are invalidated if any right was added, removed or changed in resource
+     * type, resource id, permission, scope or conditions.
+     *
+     * @return whether the access rights changed
+     * @throws IllegalArgumentException if the workflow has no id, or a {@code max_} or {@code min_}
+     *                                  condition is not a number
+     */
+    public synchronized boolean update(Workflow workflow) {
+        if (workflow.getId() == null) {
+            throw new IllegalArgumentException("Workflow id is required");
+        }
+        Map<UUID, List<AccessRight>> rights = snapshot(workflow);
+        Compiled previous = byWorkflow.get(workflow.getId());
+        if (previous != null && previous.rights.equals(rights)) {
+            return false;
+        }
+        Compiled next = new Compiled(AccessIndex.compile(workflow), versions.incrementAndGet(), rights);
+        byWorkflow.put(workflow.getId(), next);
+        for (UUID activityId : rights.keySet()) {
+            byActivity.put(activityId, next);
+        }
+        if (previous != null) {
+            for (UUID activityId : previous.rights.keySet()) {
+                byActivity.remove(activityId, previous);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets a workflow; its activities are denied everything from now on.
+     *
+     * @return whether the workflow was known
+     */
+    public synchronized boolean remove(UUID workflowId) {
+        Compiled previous = byWorkflow.remove(workflowId);
+        if (previous == null) {
+            return false;
+        }
+        for (UUID activityId : previous.rights.keySet()) {
+            byActivity.remove(activityId, previous);
+        }
+        return true;
+    }
+
+    /**
+     * Whether the activity may use the resource with the permission within a scope, given the
+     * request's attributes for the rights' conditions; see {@link AccessIndex} for the rules.
+     * An activity of no known workflow is denied.
+     *
+     * @param scope the request's scope, or null to match only rights without one
+     * @param attributes the request's attributes, or null
+     */
+    public boolean isAllowed(UUID activityId, ResourceType resourceType, String resourceId, Permission permission,
+                             String scope, Map<String, ?> attributes) {
+        if (activityId == null || resourceType == null || permission == null) {
+            return false;
+        }
+        Compiled compiled = byActivity.get(activityId);
+        long version = compiled != null ? compiled.version : 0;
+        long hi = activityId.getMostSignificantBits();
+        long lo = activityId.getLeastSignificantBits();
+        int kind = resourceType.ordinal() * PERMISSIONS + permission.ordinal();
+        int hash = hash(hi, lo, kind, resourceId, scope);
+        int set = (hash & setMask) * WAYS;
+        Entry[] table = entries;
+        for (int i = set; i < set + WAYS; i++) {
+            Entry entry = table[i];
+            if (entry != null && entry.matches(hash, hi, lo, kind, resourceId, scope)) {
+                if (entry.version == version) {
+                    referenced[i] = 1;
+                    hits.increment();
+                    AccessCondition[] conditions = entry.conditions;
+                    if (conditions.length == 0) {
+                        negativeHits.increment();
+                        return false;
+                    }
+                    if (conditions != AccessIndex.ALLOW) {
+                        conditionalHits.increment();
+                    }
+                    return anyHolds(conditions, attributes);
+                }
+                stale.increment();
+                break;
+            }
+        }
+
+        misses.increment();
+        AccessCondition[] conditions = compiled != null
+                ? compiled.index.conditions(activityId, resourceType, resourceId, permission, scope)
+                : AccessIndex.DENY;
+        store(set, new Entry(hash, hi, lo, kind, resourceId, scope, version, conditions));
+        return anyHolds(conditions, attributes);
+    }
+
+    private static boolean anyHolds(AccessCondition[] conditions, Map<String, ?> attributes) {
+        for (AccessCondition condition : conditions) {
+            if (condition.test(attributes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops every cached decision; compiled access rights are kept.
+     */
+    public void invalidateAll() {
+        Arrays.fill(entries, null);
+    }
+
+    public AccessCacheStats stats() {
+        long size = 0;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                size++;
+            }
+        }
+        return new AccessCacheStats(hits.sum(), negativeHits.sum(), conditionalHits.sum(), misses.sum(), stale.sum(),
+                evictions.sum(), size);
+    }
+
+    /**
+     * Most decisions held at once.
+     */
+    public int getMaximumSize() {
+        return entries.length;
+    }
+
+    /**
+     * Puts the decision in the set: over an entry for the same key, else in a free way, else over
+     * the first way not referenced since the hand last passed it, starting from a random way.
+     */
+    private void store(int set, Entry entry) {
+        Entry[] table = entries;
+        int victim = -1;
+        for (int i = set; i < set + WAYS; i++) {
+            Entry current = table[i];
+            if (current == null || current.matches(entry.hash, entry.hi, entry.lo, entry.kind, entry.resourceId, entry.scope)) {
+                victim = i;
+                break;
+            }
+        }
+        if (victim < 0) {
+            int start = ThreadLocalRandom.current().nextInt(WAYS);
+            for (int w = 0; w < WAYS; w++) {
+                int i = set + ((start + w) & (WAYS - 1));
+                if (referenced[i] == 0) {
+                    victim = i;
+                    break;
+                }
+                referenced[i] = 0;
+            }
+            if (victim < 0) {
+                victim = set + start;
+            }
+            evictions.increment();
+        }
+        referenced[victim] = 0;
+        table[victim] = entry;
+    }
+
+    /**
+     * What decisions depend on: per activity, including those without rights, the resource type,
+     * resource id, permission, scope and conditions of each right.
+     */
+    private static Map<UUID, List<AccessRight>> snapshot(Workflow workflow) {
+        Map<UUID, List<AccessRight>> rights = new HashMap<>();
+        if (workflow.getActivities() == null) {
+            return rights;
+        }
+        for (Activity activity : workflow.getActivities()) {
+            if (activity.getId() == null) {
+                continue;
+            }
+            List<AccessRight> copies = rights.computeIfAbsent(activity.getId(), id -> new ArrayList<>());
+            if (activity.getAccessRights() == null) {
+                continue;
+            }
+            for (AccessRight right : activity.getAccessRights()) {
+                copies.add(AccessRight.builder()
+                        .resourceType(right.getResourceType())
+                        .resourceId(right.getResourceId())
+                        .permission(right.getPermission())
+                        .scope(right.getScope())
+                        .conditions(right.getConditions() != null ? copy(right.getConditions()) : null)
+                        .build());
+            }
+        }
+        return rights;
+    }
+
+    /**
+     * A copy of condition values down through their nested lists and maps, so that an edit in
+     * place to any of them shows as a change.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copied = new HashMap<>();
+            map.forEach((k, v) -> copied.put(k, copy(v)));
+            return (T) copied;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copied = new ArrayList<>(list.size());
+            list.forEach(v -> copied.add(copy(v)));
+            return (T) copied;
+        }
+        return value;
+    }
+
+    private static int hash(long hi, long lo, int kind, String resourceId, String scope) {
+        long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+        int result = (int) (h ^ (h >>> 32)) + kind * 0x632BE5AB;
+        result = 31 * result + (resourceId != null ? resourceId.hashCode() : 0);
+        result = 31 * result + (scope != null ? scope.hashCode() : 0);
+        result *= 0x9E3779B9;
+        return result ^ (result >>> 16);
+    }
+
+    private static final class Compiled {
+
+        final AccessIndex index;
+        final long version;
+        final Map<UUID, List<AccessRight>> rights;
+
+        Compiled(AccessIndex index, long version, Map<UUID, List<AccessRight>> rights) {
+            this.index = index;
+            this.version = version;
+            this.rights = rights;
+        }
+    }
+
+    /**
+     * One cached decision; immutable, so it may be read through a race.
+     */
+    private static final class Entry {
+
+        final int hash;
+        final long hi;
+        final long lo;
+        final int kind;
+        final String resourceId;
+        final String scope;
+        final long version;
+        final AccessCondition[] conditions;
+
+        Entry(int hash, long hi, long lo, int kind, String resourceId, String scope, long version,
+              AccessCondition[] conditions) {
+            this.hash = hash;
+            this.hi = hi;
+            this.lo = lo;
+            this.kind = kind;
+            this.resourceId = resourceId;
+            this.scope = scope;
+            this.version = version;
+            this.conditions = conditions;
+        }
+
+        boolean matches(int hash, long hi, long lo, int kind, String resourceId, String scope) {
+            return this.hash == hash && this.hi == hi && this.lo == lo && this.kind == kind
+                    && Objects.equals(this.resourceId, resourceId) && Objects.equals(this.scope, scope);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package io.awa.access;
+
+import io.awa.ids.IdRegistry;
+import io.awa.model.AccessDirection;
+import io.awa.model.AccessRight;
+import io.awa.model.Activity;
+import io.awa.model.Permission;
+import io.awa.model.ResourceType;
+import io.awa.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * The access rights of a workflow, or of every workflow in a collection, compiled for
+ * authorization checks: may an activity use a resource with a permission?
+ * <p>
+ * A check passes when the activity declares an access right of that resource type and permission
+ * whose resource id matches and whose {@code conditions} hold for the request's attributes. A
+ * right's {@code resource_id} matches an id equal to it; ending in {@code *}, any id starting with
+ * the rest; and when it is missing, empty or {@code *}, any id at all. A right with a {@code scope} applies only to
+ * requests made in that scope. Rights of both directions count unless the index is compiled for
+ * one. Permissions do not imply one another.
+ * <p>
+ * Activities are interned by an {@link IdRegistry} and (activity, resource type, permission)
+ * triples numbered densely, so a check hashes the activity once, finds its triple in an int
+ * table, then looks up the resource id among exact ids and prefixes in one open-addressing table,
+ * probing only the prefix lengths that triple actually declares. No check allocates. Conditions
+ * are compiled into typed tests once. Instances are immutable and thread-safe.
+ */
+public final class AccessIndex {
+
+    private static final int TYPES = ResourceType.values().length;
+    private static final int PERMISSIONS = Permission.values().length;
+    private static final int EMPTY = -1;
+
+    /** Results of {@link #conditions}. */
+    static final AccessCondition[] ALLOW = {AccessCondition.ALWAYS};
+    static final AccessCondition[] DENY = {};
+    private static final int[] NO_LENGTHS = new int[0];
+
+    private final IdRegistry activities;
+    private final int rightCount;
+
+    /** Triple key {@code (activity * TYPES + type) * PERMISSIONS + permission} to its dense number. */
+    private final int[] tripleKeys;
+    private final int[] tripleTable;
+    /** Per triple: grants matching any resource id, and the distinct prefix lengths, longest first. */
+    private final Grant[][] anyId;
+    private final int[][] prefixLengths;
+
+    /** Exact ids and prefixes of all triples, keyed by triple, kind and pattern. */
+    private final int[] patternTriple;
+    private final String[] patterns;
+    private final boolean[] patternIsPrefix;
+    private final Grant[][] patternGrants;
+    private final int[] patternTable;
+
+    private AccessIndex(Collection<Workflow> workflows, AccessDirection direction) {
+        this.activities = new IdRegistry();
+        Map<Long, Integer> triples = new HashMap<>();
+        List<Map<String, List<Grant>>> exactIds = new ArrayList<>();
+        List<Map<String, List<Grant>>> prefixes = new ArrayList<>();
+        List<List<Grant>> any = new ArrayList<>();
+        int rights = 0;
+        for (Workflow workflow : workflows) {
+            for (Activity activity : orEmpty(workflow.getActivities())) {
+                if (activity.getId() == null) {
+                    continue;
+                }
+                int a = activities.intern(activity.getId());
+                for (AccessRight right : orEmpty(activity.getAccessRights())) {
+                    if (right.getResourceType() == null || right.getPermission() == null
+                            || direction != null && right.getDirection() != direction) {
+                        continue;
+                    }
+                    long key = ((long) a * TYPES + right.getResourceType().ordinal()) * PERMISSIONS
+                            + right.getPermission().ordinal();
+                    int triple = triples.computeIfAbsent(key, k -> {
+                        exactIds.add(new HashMap<>());
+                        prefixes.add(new HashMap<>());
+                        any.add(new ArrayList<>());
+                        return triples.size();
+                    });
+                    Grant grant = new Grant(right);
+                    String id = right.getResourceId();
+                    if (id == null || id.isEmpty() || id.equals("*")) {
+                        any.get(triple).add(grant);
+                    } else if (id.endsWith("*")) {
+                        prefixes.get(triple).computeIfAbsent(id.substring(0, id.length() - 1), p -> new ArrayList<>())
+                                .add(grant);
+                    } else {
+                        exactIds.get(triple).computeIfAbsent(id, p -> new ArrayList<>()).add(grant);
+                    }
+                    rights++;
+                }
+            }
+        }
+        this.rightCount = rights;
+
+        int tripleCount = triples.size();
+        this.tripleKeys = new int[tripleCount];
+        this.tripleTable = new int[tableSize(tripleCount)];
+        Arrays.fill(tripleTable, EMPTY);
+        for (Map.Entry<Long, Integer> entry : triples.entrySet()) {
+            int key = Math.toIntExact(entry.getKey());
+            int triple = entry.getValue();
+            tripleKeys[triple] = key;
+            int mask = tripleTable.length - 1;
+            int slot = mix(key) & mask;
+            while (tripleTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            tripleTable[slot] = triple;
+        }
+
+        this.anyId = new Grant[tripleCount][];
+        this.prefixLengths = new int[tripleCount][];
+        int patternCount = 0;
+        for (int t = 0; t < tripleCount; t++) {
+            anyId[t] = ordered(any.get(t));
+            TreeSet<Integer> lengths = new TreeSet<>();
+            for (String prefix : prefixes.get(t).keySet()) {
+                lengths.add(prefix.length());
+            }
+            prefixLengths[t] = lengths.isEmpty() ? NO_LENGTHS
+                    : lengths.descendingSet().stream().mapToInt(Integer::intValue).toArray();
+            patternCount += exactIds.get(t).size() + prefixes.get(t).size();
+        }
+
+        this.patternTriple = new int[patternCount];
+        this.patterns = new String[patternCount];
+        this.patternIsPrefix = new boolean[patternCount];
+        this.patternGrants = new Grant[patternCount][];
+        this.patternTable = new int[tableSize(patternCount)];
+        Arrays.fill(patternTable, EMPTY);
+        int p = 0;
+        for (int t = 0; t < tripleCount; t++) {
+            for (Map.Entry<String, List<Grant>> entry : exactIds.get(t).entrySet()) {
+                addPattern(p++, t, entry.getKey(), false, entry.getValue());
+            }
+            for (Map.Entry<String, List<Grant>> entry : prefixes.get(t).entrySet()) {
+                addPattern(p++, t, entry.getKey(), true, entry.getValue());
+            }
+        }
+    }
+
+    private void addPattern(int p, int triple, String text, boolean prefix, List<Grant> grants) {
+        patternTriple[p] = triple;
+        patterns[p] = text;
+        patternIsPrefix[p] = prefix;
+        patternGrants[p] = ordered(grants);
+        int mask = patternTable.length - 1;
+        int slot = patternHash(triple, text.hashCode(), prefix) & mask;
+        while (patternTable[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        patternTable[slot] = p;
+    }
+
+    /**
+     * Compiles the access rights of the workflow's activities, of both directions.
+     *
+     * @throws IllegalArgumentException if a {@code max_} or {@code min_} condition is not a number
+     */
+    public static AccessIndex compile(Workflow workflow) {
+        return new AccessIndex(List.of(workflow), null);
+    }
+
+    /**
+     * Compiles the access rights of the activities of all the workflows, such as those of a
+     * collection, of both directions. Rights of an activity id found in several workflows are merged.
+     *
+     * @throws IllegalArgumentException if a {@code max_} or {@code min_} condition is not a number
+     */
+    public static AccessIndex compile(Collection<Workflow> workflows) {
+        return new AccessIndex(workflows, null);
+    }
+
+    /**
+     * Compiles only the access rights of one direction, for example just what activities
+     * {@link AccessDirection#REQUIRES require}.
+     *
+     * @throws IllegalArgumentException if a {@code max_} or {@code min_} condition is not a number
+     */
+    public static AccessIndex compile(Collection<Workflow> workflows, AccessDirection direction) {
+        return new AccessIndex(workflows, Objects.requireNonNull(direction, "direction"));
+    }
+
+    /**
+     * Number of access rights compiled.
+     */
+    public int size() {
+        return rightCount;
+    }
+
+    /**
+     * Whether the activity may use the resource with the permission, for a request without scope
+     * or attributes: rights with a scope or conditions do not apply.
+     */
+    public boolean isAllowed(UUID activityId, ResourceType resourceType, String resourceId, Permission permission) {
+        return match(activityId, resourceType, resourceId, permission, null, null) != null;
+    }
+
+    /**
+     * Whether the activity may use the resource with the permission, given the request's
+     * attributes for the rights' conditions; rights with a scope do not apply.
+     */
+    public boolean isAllowed(UUID activityId, ResourceType resourceType, String resourceId, Permission permission,
+                             Map<String, ?> attributes) {
+        return match(activityId, resourceType, resourceId, permission, null, attributes) != null;
+    }
+
+    /**
+     * Whether the activity may use the resource with the permission within a scope, given the
+     * request's attributes for the rights' conditions.
+     */
+    public boolean isAllowed(UUID activityId, ResourceType resourceType, String resourceId, Permission permission,
+                             String scope, Map<String, ?> attributes) {
+        return match(activityId, resourceType, resourceId, permission, scope, attributes) != null;
+    }
+
+    /**
+     * The access right that allows the request, or null if none does. A null resource id matches
+     * only rights for any id, and a null scope only rights without one. Rights for the exact id
+     * are tried first, then prefixes from the longest, then rights for any id; within each, rights
+     * without conditions come first, then declaration order.
+     */
+    public AccessRight match(UUID activityId, ResourceType resourceType, String resourceId, Permission permission,
+                             String scope, Map<String, ?> attributes) {
+        int triple = triple(activityId, resourceType, permission);
+        Grant grant = triple != EMPTY ? find(triple, resourceId, scope, attributes) : null;
+        return grant != null ? grant.right : null;
+    }
+
+    /**
+     * The conditions under which the request is allowed, whatever its attributes: {@link #ALLOW}
+     * if a right without conditions applies, {@link #DENY} if no right does, otherwise those of
+     * the conditional rights that apply, most specific first; the request is allowed if any holds.
+     */
+    AccessCondition[] conditions(UUID activityId, ResourceType resourceType, String resourceId, Permission permission,
+                                 String scope) {
+        int triple = triple(activityId, resourceType, permission);
+        if (triple == EMPTY) {
+            return DENY;
+        }
+        List<AccessCondition> conditions = new ArrayList<>();
+        if (resourceId != null) {
+            int exact = pattern(triple, resourceId, resourceId.hashCode(), resourceId.length(), false);
+            if (exact != EMPTY && collect(patternGrants[exact], scope, conditions)) {
+                return ALLOW;
+            }
+            for (int length : prefixLengths[triple]) {
+                if (length > resourceId.length()) {
+                    continue;
+                }
+                int prefix = pattern(triple, resourceId, prefixHash(resourceId, length), length, true);
+                if (prefix != EMPTY && collect(patternGrants[prefix], scope, conditions)) {
+                    return ALLOW;
+                }
+            }
+        }
+        if (collect(anyId[triple], scope, conditions)) {
+            return ALLOW;
+        }
+        return conditions.isEmpty() ? DENY : conditions.toArray(new AccessCondition[0]);
+    }
+
+    /**
+     * Walks the rights whose resource id matches, most specific first, and returns the first one
+     * in scope whose conditions hold.
+     */
+    private Grant find(int triple, String resourceId, String scope, Map<String, ?> attributes) {
+        if (resourceId != null) {
+            int exact = pattern(triple, resourceId, resourceId.hashCode(), resourceId.length(), false);
+            Grant grant = exact != EMPTY ? first(patternGrants[exact], scope, attributes) : null;
+            if (grant != null) {
+                return grant;
+            }
+            for (int length : prefixLengths[triple]) {
+                if (length > resourceId.length()) {
+                    continue;
+                }
+                int prefix = pattern(triple, resourceId, prefixHash(resourceId, length), length, true);
+                grant = prefix != EMPTY ? first(patternGrants[prefix], scope, attributes) : null;
+                if (grant != null) {
+                    return grant;
+                }
+            }
+        }
+        return first(anyId[triple], scope, attributes);
+    }
+
+    private int triple(UUID activityId, ResourceType resourceType, Permission permission) {
+        if (resourceType == null || permission == null) {
+            return EMPTY;
+        }
+        int a = activities.indexOf(activityId);
+        if (a < 0) {
+            return EMPTY;
+        }
+        int key = (a * TYPES + resourceType.ordinal()) * PERMISSIONS + permission.ordinal();
+        int[] table = tripleTable;
+        int mask = table.length - 1;
+        for (int slot = mix(key) & mask, t; (t = table[slot]) != EMPTY; slot = (slot + 1) & mask) {
+            if (tripleKeys[t] == key) {
+                return t;
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * The pattern of the triple equal to the first {@code length} characters of the id, whose
+     * {@link String#hashCode} is given.
+     */
+    private int pattern(int triple, String id, int hash, int length, boolean prefix) {
+        int[] table = patternTable;
+        int mask = table.length - 1;
+        for (int slot = patternHash(triple, hash, prefix) & mask, p; (p = table[slot]) != EMPTY;
+             slot = (slot + 1) & mask) {
+            String text = patterns[p];
+            if (patternTriple[p] == triple && patternIsPrefix[p] == prefix && text.length() == length
+                    && id.regionMatches(0, text, 0, length)) {
+                return p;
+            }
+        }
+        return EMPTY;
+    }
+
+    private static Grant first(Grant[] grants, String scope, Map<String, ?> attributes) {
+        if (grants == null) {
+            return null;
+        }
+        for (Grant grant : grants) {
+            if (grant.inScope(scope) && grant.condition.test(attributes)) {
+                return grant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the conditions of the grants in scope, stopping with true at one without conditions.
+     */
+    private static boolean collect(Grant[] grants, String scope, List<AccessCondition> conditions) {
+        if (grants == null) {
+            return false;
+        }
+        for (Grant grant : grants) {
+            if (grant.inScope(scope)) {
+                if (grant.condition.isAlways()) {
+                    return true;
+                }
+                conditions.add(grant.condition);
+            }
+        }
+        return false;
+    }
+
+    private static Grant[] ordered(List<Grant> grants) {
+        if (grants.isEmpty()) {
+            return null;
+        }
+        List<Grant> result = new ArrayList<>(grants.size());
+        for (Grant grant : grants) {
+            if (grant.condition.isAlways()) {
+                result.add(grant);
+            }
+        }
+        for (Grant grant : grants) {
+            if (!grant.condition.isAlways()) {
+                result.add(grant);
+            }
+        }
+        return result.toArray(new Grant[0]);
+    }
+
+    /**
+     * {@link String#hashCode} of the id's first {@code length} characters, without the substring.
+     */
+    private static int prefixHash(String id, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + id.charAt(i);
+        }
+        return h;
+    }
+
+    /**
+     * Smallest power of two keeping the load factor at or below one half.
+     */
+    private static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(entries, 2) * 2 - 1) << 1;
+    }
+
+    private static int patternHash(int triple, int textHash, boolean prefix) {
+        return mix(triple * 0x9E3779B9 + textHash + (prefix ? 0x632BE5AB : 0));
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : List.of();
+    }
+
+    private static final class Grant {
+
+        final AccessRight right;
+        final String scope;
+        final AccessCondition condition;
+
+        Grant(AccessRight right) {
+            this.right = right;
+            this.scope = right.getScope() == null || right.getScope().isEmpty() ? null : right.getScope();
+            this.condition = AccessCondition.compile(right.getConditions());
+        }
+
+        boolean inScope(String requested) {
+            return scope == null || scope.equals(requested);
+        }
+    }
+}
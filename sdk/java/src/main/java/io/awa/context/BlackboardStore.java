@@ -0,0 +1,163 @@
+package io.awa.context;
+
+import io.awa.model.Context;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link io.awa.model.SyncPattern#BLACKBOARD}: versioned entries that agents read, work on, and
+ * post back with optimistic concurrency.
+ * <p>
+ * Each entry is an immutable (key, value, version) triple. An agent reads an entry, computes, and
+ * posts with {@link #write(String, Object, long)} naming the version it read; the post succeeds only
+ * if nobody posted in between, decided atomically on the entry, and otherwise the agent re-reads
+ * and retries. Readers never lock. Versions come from one board-wide counter and are drawn only by
+ * posts and removals that succeed, so a version is never reused, even after an entry is removed and
+ * posted again, and {@link #lastVersion()} changes exactly when the board does.
+ */
+public final class BlackboardStore implements ContextStore {
+
+    /** Version of an absent entry */
+    public static final long ABSENT = 0L;
+
+    private final Context context;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Creates the board, seeded with the entries of the context's initial value when it is an object.
+     */
+    public BlackboardStore(Context context) {
+        this.context = context;
+        ContextValues.initialEntries(context).forEach((key, value) -> {
+            if (key != null) {
+                entries.put(key, new Entry(key, value, versions.incrementAndGet()));
+            }
+        });
+    }
+
+    @Override
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * Posts the value whatever the current version.
+     */
+    @Override
+    public void write(String key, Object value) {
+        ContextValues.requireKey(key);
+        entries.compute(key, (k, current) -> new Entry(k, value, versions.incrementAndGet()));
+    }
+
+    /**
+     * Posts the value if the entry is still at {@code expectedVersion}; {@link #ABSENT} expects no entry.
+     *
+     * @return whether the value was posted
+     */
+    public boolean write(String key, Object value, long expectedVersion) {
+        ContextValues.requireKey(key);
+        if (version(entries.get(key)) != expectedVersion) {
+            return false;
+        }
+        // the version is drawn only once the post is certain, so failed posts use up none
+        Entry[] posted = new Entry[1];
+        entries.compute(key, (k, current) -> {
+            if (version(current) != expectedVersion) {
+                return current;
+            }
+            posted[0] = new Entry(k, value, versions.incrementAndGet());
+            return posted[0];
+        });
+        return posted[0] != null;
+    }
+
+    /**
+     * Removes the entry if it is still at {@code expectedVersion}.
+     *
+     * @return whether the entry was removed
+     */
+    public boolean remove(String key, long expectedVersion) {
+        Entry current = entries.get(ContextValues.requireKey(key));
+        if (current == null || current.version != expectedVersion) {
+            return false;
+        }
+        if (entries.remove(key, current)) {
+            versions.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The current entry of the key, or null.
+     */
+    public Entry read(String key) {
+        return entries.get(ContextValues.requireKey(key));
+    }
+
+    /**
+     * The current version of the key, {@link #ABSENT} if it has no entry.
+     */
+    public long version(String key) {
+        return version(read(key));
+    }
+
+    /**
+     * The highest version handed out so far. It only grows, and stays the same while the board does.
+     */
+    public long lastVersion() {
+        return versions.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * A point-in-time copy of the entries; concurrent posts may or may not be included.
+     */
+    public Map<String, Entry> snapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(entries));
+    }
+
+    private static long version(Entry entry) {
+        return entry != null ? entry.version : ABSENT;
+    }
+
+    /**
+     * One posted value. Entries compare by identity, which is what a conditional removal relies on.
+     */
+    public static final class Entry {
+        private final String key;
+        private final Object value;
+        private final long version;
+
+        Entry(String key, Object value, long version) {
+            this.key = key;
+            this.value = value;
+            this.version = version;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public String toString() {
+            return key + "@" + version + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.awa.context;
+
+/**
+ * Counters of a {@link ContextCache} since it was created
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long loads;
+    private final long evictions;
+    private final long expirations;
+    private final long size;
+
+    CacheStats(long hits, long misses, long loads, long evictions, long expirations, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Reads that found no live entry, including expired ones.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Calls to {@link ContextBackend#load}.
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    /**
+     * Entries dropped to stay within the maximum size.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Entries dropped because their TTL ran out.
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * Entries in the bounded cache when the counters were read; transient contexts are not counted.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hits + ", misses=" + misses + ", loads=" + loads + ", evictions=" + evictions
+                + ", expirations=" + expirations + ", size=" + size + "}";
+    }
+}
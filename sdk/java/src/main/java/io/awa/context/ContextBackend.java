@@ -0,0 +1,21 @@
+package io.awa.context;
+
+import io.awa.model.Context;
+
+/**
+ * Durable storage behind a {@link ContextCache}, for example a database table or an object store
+ */
+public interface ContextBackend {
+
+    /**
+     * Loads the stored value of the context.
+     *
+     * @return the value, or null if none is stored
+     */
+    Object load(Context context);
+
+    /**
+     * Stores the value of the context, replacing any previous one; a null value deletes it.
+     */
+    void store(Context context, Object value);
+}
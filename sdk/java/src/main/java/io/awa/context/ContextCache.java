@@ -0,0 +1,440 @@
+package io.awa.context;
+
+import io.awa.events.WorkflowEventType;
+import io.awa.model.Context;
+import io.awa.model.Lifecycle;
+import io.awa.runtime.WorkflowEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds context values in memory according to each context's {@link Lifecycle}.
+ * <ul>
+ *   <li>{@link Lifecycle#CACHED}: kept in a size-bounded cache and dropped after {@code ttl}; a miss
+ *   loads from the {@link ContextBackend}, and writes stay in the cache.</li>
+ *   <li>{@link Lifecycle#PERSISTENT} (also when no lifecycle is set): shares the bounded cache without
+ *   expiry, and writes go through to the backend before the cache.</li>
+ *   <li>{@link Lifecycle#TRANSIENT}: kept per workflow instance, never stored, dropped after {@code ttl}
+ *   and freed by {@link #release(UUID)} when the instance ends.</li>
+ * </ul>
+ * A context with nothing stored reads as its {@code initial_value}.
+ * <p>
+ * The bounded cache uses W-TinyLFU eviction: new entries go to a small LRU window (1% of the
+ * size), and an entry leaving the window enters the main segmented LRU only if a
+ * {@link FrequencySketch} has seen it more often than the entry it would evict. One-off reads of
+ * large documents therefore do not flush the contexts agents keep coming back to. Expired entries
+ * are dropped when read or by {@link #cleanUp()}. Cache bookkeeping runs under one lock; backend
+ * loads and stores run outside it, so two concurrent misses on one context may both load it.
+ *
+ * <pre>{@code
+ * ContextCache cache = new ContextCache(backend, 1_000);
+ * engine.listener(cache.instanceListener());
+ * Object document = cache.get(context, instance.getId());
+ * }</pre>
+ */
+public class ContextCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final ContextBackend backend;
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final FrequencySketch sketch;
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private final Node window = Node.sentinel();
+    private final Node probation = Node.sentinel();
+    private final Node protectedQueue = Node.sentinel();
+    private int windowSize;
+    private int protectedSize;
+
+    private final Map<UUID, Map<UUID, Node>> transients = new ConcurrentHashMap<>();
+    private final Map<String, Duration> ttls = new ConcurrentHashMap<>();
+    private volatile LongSupplier ticker = System::nanoTime;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ContextCache(ContextBackend backend) {
+        this(backend, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param maximumSize most CACHED and PERSISTENT contexts held at once
+     * @throws IllegalArgumentException if the maximum size is not positive
+     */
+    public ContextCache(ContextBackend backend, int maximumSize) {
+        if (backend == null) {
+            throw new IllegalArgumentException("Backend is required");
+        }
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.backend = backend;
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * 4 / 5;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Replaces the nanosecond clock TTLs are measured with; {@link System#nanoTime()} by default.
+     */
+    public ContextCache ticker(LongSupplier ticker) {
+        this.ticker = ticker;
+        return this;
+    }
+
+    /**
+     * Reads the value of the context for a workflow instance, loading it from the backend on a miss.
+     *
+     * @param instanceId the reading instance; required for TRANSIENT contexts, ignored otherwise
+     * @throws IllegalArgumentException if the context has no id, or is TRANSIENT and no instance is given
+     */
+    public Object get(Context context, UUID instanceId) {
+        UUID contextId = requireId(context);
+        if (lifecycle(context) == Lifecycle.TRANSIENT) {
+            Map<UUID, Node> values = transients.get(requireInstance(context, instanceId));
+            Node node = values != null ? values.get(contextId) : null;
+            if (node != null && isExpired(node, ticker.getAsLong())) {
+                if (values.remove(contextId, node)) {
+                    expirations.increment();
+                }
+                node = null;
+            }
+            if (node == null) {
+                misses.increment();
+                return context.getInitialValue();
+            }
+            hits.increment();
+            return node.value;
+        }
+
+        synchronized (this) {
+            Node node = nodes.get(contextId);
+            if (node != null && isExpired(node, ticker.getAsLong())) {
+                remove(node);
+                expirations.increment();
+                node = null;
+            }
+            sketch.increment(contextId.hashCode());
+            if (node != null) {
+                hits.increment();
+                onAccess(node);
+                return node.value;
+            }
+            misses.increment();
+        }
+
+        loads.increment();
+        Object value = backend.load(context);
+        if (value == null) {
+            value = context.getInitialValue();
+        }
+        if (value == null) {
+            return null;
+        }
+        synchronized (this) {
+            // A write that landed while loading is newer than what was loaded
+            Node current = nodes.get(contextId);
+            if (current != null) {
+                return current.value;
+            }
+            admit(contextId, value, expiry(context));
+        }
+        return value;
+    }
+
+    /**
+     * Writes the value of the context for a workflow instance; null removes it.
+     * PERSISTENT values are stored in the backend first, and stay uncached if that fails.
+     *
+     * @param instanceId the writing instance; required for TRANSIENT contexts, ignored otherwise
+     * @throws IllegalArgumentException if the context has no id, or is TRANSIENT and no instance is given
+     */
+    public void put(Context context, UUID instanceId, Object value) {
+        UUID contextId = requireId(context);
+        Lifecycle lifecycle = lifecycle(context);
+        if (lifecycle == Lifecycle.TRANSIENT) {
+            UUID instance = requireInstance(context, instanceId);
+            if (value == null) {
+                Map<UUID, Node> values = transients.get(instance);
+                if (values != null) {
+                    values.remove(contextId);
+                }
+                return;
+            }
+            Node node = new Node(contextId, value, expiry(context));
+            transients.computeIfAbsent(instance, id -> new ConcurrentHashMap<>()).put(contextId, node);
+            return;
+        }
+        if (lifecycle == Lifecycle.PERSISTENT) {
+            synchronized (this) {
+                // Readers must not keep serving the old value if the store fails
+                Node stale = nodes.get(contextId);
+                if (stale != null) {
+                    remove(stale);
+                }
+            }
+            backend.store(context, value);
+        }
+        synchronized (this) {
+            Node node = nodes.get(contextId);
+            if (value == null) {
+                if (node != null) {
+                    remove(node);
+                }
+                return;
+            }
+            sketch.increment(contextId.hashCode());
+            if (node != null) {
+                node.value = value;
+                node.expiresAt = expiry(context);
+                onAccess(node);
+            } else {
+                admit(contextId, value, expiry(context));
+            }
+        }
+    }
+
+    /**
+     * Drops the cached value of the context without touching the backend.
+     */
+    public void invalidate(Context context, UUID instanceId) {
+        UUID contextId = requireId(context);
+        if (lifecycle(context) == Lifecycle.TRANSIENT) {
+            Map<UUID, Node> values = instanceId != null ? transients.get(instanceId) : null;
+            if (values != null) {
+                values.remove(contextId);
+            }
+            return;
+        }
+        synchronized (this) {
+            Node node = nodes.get(contextId);
+            if (node != null) {
+                remove(node);
+            }
+        }
+    }
+
+    /**
+     * Frees the TRANSIENT context values of a finished workflow instance.
+     *
+     * @return the number of values freed
+     */
+    public int release(UUID instanceId) {
+        Map<UUID, Node> values = instanceId != null ? transients.remove(instanceId) : null;
+        return values != null ? values.size() : 0;
+    }
+
+    /**
+     * A listener that calls {@link #release(UUID)} when an instance completes, fails or is cancelled.
+     */
+    public WorkflowEventListener instanceListener() {
+        return event -> {
+            WorkflowEventType type = event.getEventType();
+            if (type == WorkflowEventType.WORKFLOW_COMPLETED || type == WorkflowEventType.WORKFLOW_FAILED
+                    || type == WorkflowEventType.WORKFLOW_CANCELLED) {
+                release(event.getWorkflowInstanceId());
+            }
+        };
+    }
+
+    /**
+     * Drops every expired entry now instead of when it is next read.
+     *
+     * @return the number of entries dropped
+     */
+    public int cleanUp() {
+        long now = ticker.getAsLong();
+        int dropped = 0;
+        synchronized (this) {
+            for (Iterator<Node> it = nodes.values().iterator(); it.hasNext(); ) {
+                Node node = it.next();
+                if (isExpired(node, now)) {
+                    it.remove();
+                    unlink(node);
+                    dropped++;
+                }
+            }
+        }
+        for (Map<UUID, Node> values : transients.values()) {
+            for (Iterator<Node> it = values.values().iterator(); it.hasNext(); ) {
+                if (isExpired(it.next(), now)) {
+                    it.remove();
+                    dropped++;
+                }
+            }
+        }
+        expirations.add(dropped);
+        return dropped;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loads.sum(), evictions.sum(), expirations.sum(),
+                nodes.size());
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    // W-TinyLFU bookkeeping, all under the cache lock
+
+    private void admit(UUID key, Object value, long expiresAt) {
+        Node node = new Node(key, value, expiresAt);
+        nodes.put(key, node);
+        node.queue = WINDOW;
+        node.linkLast(window);
+        windowSize++;
+        if (windowSize <= windowMaximum) {
+            return;
+        }
+        // The window's LRU entry competes with the main space's LRU entry for a place
+        Node candidate = window.next;
+        candidate.unlink();
+        windowSize--;
+        candidate.queue = PROBATION;
+        candidate.linkLast(probation);
+        if (nodes.size() > maximumSize) {
+            Node victim = probation.next;
+            Node loser = sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())
+                    ? victim : candidate;
+            nodes.remove(loser.key);
+            unlink(loser);
+            evictions.increment();
+        }
+    }
+
+    private void onAccess(Node node) {
+        node.unlink();
+        if (node.queue == WINDOW) {
+            node.linkLast(window);
+        } else if (node.queue == PROBATION) {
+            node.queue = PROTECTED;
+            node.linkLast(protectedQueue);
+            if (++protectedSize > protectedMaximum) {
+                Node demoted = protectedQueue.next;
+                demoted.unlink();
+                protectedSize--;
+                demoted.queue = PROBATION;
+                demoted.linkLast(probation);
+            }
+        } else {
+            node.linkLast(protectedQueue);
+        }
+    }
+
+    private void remove(Node node) {
+        nodes.remove(node.key);
+        unlink(node);
+    }
+
+    private void unlink(Node node) {
+        node.unlink();
+        if (node.queue == WINDOW) {
+            windowSize--;
+        } else if (node.queue == PROTECTED) {
+            protectedSize--;
+        }
+    }
+
+    // Helpers
+
+    private long expiry(Context context) {
+        if (lifecycle(context) == Lifecycle.PERSISTENT || context.getTtl() == null) {
+            return Node.NEVER;
+        }
+        Duration ttl = ttls.computeIfAbsent(context.getTtl(), ContextCache::ttl);
+        long nanos;
+        try {
+            nanos = ttl.toNanos();
+        } catch (ArithmeticException e) {
+            return Node.NEVER;
+        }
+        long expiresAt = ticker.getAsLong() + nanos;
+        return expiresAt == Node.NEVER ? expiresAt - 1 : expiresAt;
+    }
+
+    private static Duration ttl(String text) {
+        Duration ttl = ContextTtl.parse(text);
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("Context.ttl " + text + " is negative");
+        }
+        return ttl;
+    }
+
+    private static boolean isExpired(Node node, long now) {
+        return node.expiresAt != Node.NEVER && now - node.expiresAt >= 0;
+    }
+
+    private static Lifecycle lifecycle(Context context) {
+        return context.getLifecycle() != null ? context.getLifecycle() : Lifecycle.PERSISTENT;
+    }
+
+    private static UUID requireId(Context context) {
+        if (context.getId() == null) {
+            throw new IllegalArgumentException("Context " + context.getName() + " has no id");
+        }
+        return context.getId();
+    }
+
+    private static UUID requireInstance(Context context, UUID instanceId) {
+        if (instanceId == null) {
+            throw new IllegalArgumentException("Transient context " + context.getId() + " needs a workflow instance");
+        }
+        return instanceId;
+    }
+
+    private static final class Node {
+        static final long NEVER = Long.MIN_VALUE;
+
+        final UUID key;
+        volatile Object value;
+        volatile long expiresAt;
+        byte queue;
+        Node prev;
+        Node next;
+
+        Node(UUID key, Object value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        static Node sentinel() {
+            Node node = new Node(null, null, NEVER);
+            node.prev = node;
+            node.next = node;
+            return node;
+        }
+
+        void linkLast(Node head) {
+            prev = head.prev;
+            next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.awa.context;
+
+import io.awa.model.Context;
+import io.awa.model.SyncPattern;
+
+/**
+ * Runtime storage behind a shared {@link Context}, implementing its {@link SyncPattern}.
+ * <p>
+ * Every store accepts writes of a value under a key; how a write becomes visible depends on
+ * the pattern, so reading goes through the concrete store:
+ * <ul>
+ *   <li>{@link SharedStateStore}: last write wins, readable at once by every agent</li>
+ *   <li>{@link MessageQueueStore}: writes are messages, taken in order by one consumer</li>
+ *   <li>{@link BlackboardStore}: versioned entries, updated with optimistic concurrency</li>
+ *   <li>{@link EventSourcedStore}: writes are appended events, state is their fold</li>
+ * </ul>
+ * All stores are thread-safe.
+ *
+ * <pre>{@code
+ * ContextStore store = ContextStore.of(context);
+ * store.write("status", "triaged");
+ * }</pre>
+ */
+public interface ContextStore {
+
+    Context getContext();
+
+    default SyncPattern getSyncPattern() {
+        return getContext().getSyncPattern();
+    }
+
+    /**
+     * Publishes a value under the key the way the sync pattern does: stored, sent, posted or appended.
+     *
+     * @throws IllegalArgumentException if the key is null
+     */
+    void write(String key, Object value);
+
+    /**
+     * Creates the store for the context's sync pattern with default settings.
+     *
+     * @throws IllegalArgumentException if the context has no sync pattern
+     */
+    static ContextStore of(Context context) {
+        if (context.getSyncPattern() == null) {
+            throw new IllegalArgumentException("Context " + context.getId() + " has no sync pattern");
+        }
+        switch (context.getSyncPattern()) {
+            case SHARED_STATE:
+                return new SharedStateStore(context);
+            case MESSAGE_PASSING:
+                return new MessageQueueStore(context);
+            case BLACKBOARD:
+                return new BlackboardStore(context);
+            case EVENT_SOURCING:
+                return new EventSourcedStore(context);
+            default:
+                throw new IllegalArgumentException("Unsupported sync pattern: " + context.getSyncPattern());
+        }
+    }
+}
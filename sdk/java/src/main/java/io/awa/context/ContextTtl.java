@@ -0,0 +1,43 @@
+package io.awa.context;
+
+import java.time.Duration;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses {@code Context.ttl}, an ISO 8601 duration such as {@code PT15M} or {@code P1DT12H}
+ */
+public final class ContextTtl {
+
+    private ContextTtl() {
+    }
+
+    /**
+     * Parses the TTL. Days count as 24 hours; years and months have no fixed length and are rejected.
+     * A negative TTL such as {@code PT-5S} parses to a negative duration, as the Avro writer has always
+     * stored it; callers that expire entries reject it themselves.
+     *
+     * @return the duration, or null if {@code ttl} is null
+     * @throws IllegalArgumentException if the TTL is not an ISO 8601 duration of fixed length
+     */
+    public static Duration parse(String ttl) {
+        if (ttl == null) {
+            return null;
+        }
+        try {
+            int time = ttl.indexOf('T');
+            String datePart = time < 0 ? ttl : ttl.substring(0, time);
+            Duration duration = time < 0 ? Duration.ZERO : Duration.parse("P" + ttl.substring(time));
+            if (datePart.length() > 1) {
+                Period period = Period.parse(datePart);
+                if (period.getYears() != 0 || period.getMonths() != 0) {
+                    throw new IllegalArgumentException("Context.ttl " + ttl + " has no fixed length in seconds");
+                }
+                duration = duration.plusDays(period.getDays());
+            }
+            return duration;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Context.ttl " + ttl + " is not an ISO 8601 duration", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.awa.context;
+
+import io.awa.model.Context;
+
+import java.util.Map;
+
+/**
+ * Helpers shared by the stores
+ */
+final class ContextValues {
+
+    private ContextValues() {
+    }
+
+    /**
+     * The entries of the context's initial value when it is a JSON object, otherwise none.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> initialEntries(Context context) {
+        Object initial = context.getInitialValue();
+        return initial instanceof Map ? (Map<String, Object>) initial : Map.of();
+    }
+
+    static String requireKey(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is required");
+        }
+        return key;
+    }
+}
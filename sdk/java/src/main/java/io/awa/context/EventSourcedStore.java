@@ -0,0 +1,250 @@
+package io.awa.context;
+
+import io.awa.model.Context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link io.awa.model.SyncPattern#EVENT_SOURCING}: every write is an immutable event, and the state
+ * of the context is the fold of its events.
+ * <p>
+ * Events get consecutive sequence numbers from 0. Appends are serialized, but hold the lock only
+ * to store the event and apply it to the current state, which lives in a {@link ConcurrentHashMap}
+ * so {@link #get} never waits for writers. Every {@code snapshotInterval} events a copy of the
+ * state is kept, so {@link #stateAt(long)} replays at most that many events, and {@link #compact()}
+ * drops the events the latest snapshot already covers. Events and snapshots are held in memory;
+ * attach a listener to also journal them, for example to an {@link io.awa.events.log.EventLog}.
+ * A null value removes the key from the state.
+ */
+public final class EventSourcedStore implements ContextStore {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+
+    private final Context context;
+    private final int snapshotInterval;
+    private final ConcurrentHashMap<String, Object> state = new ConcurrentHashMap<>();
+    /** Snapshots by the sequence of the first event they do not include */
+    private final TreeMap<Long, Map<String, Object>> snapshots = new TreeMap<>();
+    private final List<EventListener> listeners = new ArrayList<>();
+
+    private ContextEvent[] events = new ContextEvent[64];
+    private int count;
+    private long firstSequence;
+    private volatile long nextSequence;
+
+    public EventSourcedStore(Context context) {
+        this(context, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Creates the store; its state before the first event holds the entries of the context's
+     * initial value when it is an object.
+     *
+     * @throws IllegalArgumentException if the snapshot interval is not positive
+     */
+    public EventSourcedStore(Context context, int snapshotInterval) {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be positive: " + snapshotInterval);
+        }
+        this.context = context;
+        this.snapshotInterval = snapshotInterval;
+        ContextValues.initialEntries(context).forEach((key, value) -> {
+            if (key != null && value != null) {
+                state.put(key, value);
+            }
+        });
+        snapshots.put(0L, copyState());
+    }
+
+    @Override
+    public Context getContext() {
+        return context;
+    }
+
+    @Override
+    public void write(String key, Object value) {
+        append(key, value);
+    }
+
+    /**
+     * Calls the listener with every event appended from now on, in sequence order, on the appending thread.
+     */
+    public synchronized EventSourcedStore listener(EventListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Appends an event setting the key, or removing it when the value is null.
+     *
+     * @return the sequence of the event
+     */
+    public synchronized long append(String key, Object value) {
+        ContextEvent event = new ContextEvent(nextSequence, ContextValues.requireKey(key), value,
+                System.currentTimeMillis());
+        if (count == events.length) {
+            events = Arrays.copyOf(events, count * 2);
+        }
+        events[count++] = event;
+        apply(state, event);
+        nextSequence = event.sequence + 1;
+        if (nextSequence % snapshotInterval == 0) {
+            snapshots.put(nextSequence, copyState());
+        }
+        for (EventListener listener : listeners) {
+            listener.onEvent(event);
+        }
+        return event.sequence;
+    }
+
+    /**
+     * The current value of the key, without waiting for appends in progress.
+     */
+    public Object get(String key) {
+        return state.get(ContextValues.requireKey(key));
+    }
+
+    /**
+     * A copy of the current state.
+     */
+    public synchronized Map<String, Object> state() {
+        return Collections.unmodifiableMap(copyState());
+    }
+
+    /**
+     * The state after the events before {@code sequence}, rebuilt from the nearest snapshot.
+     *
+     * @throws IllegalArgumentException if the sequence is beyond the log, or before the oldest
+     *                                  snapshot left by {@link #compact()}
+     */
+    public synchronized Map<String, Object> stateAt(long sequence) {
+        if (sequence > nextSequence) {
+            throw new IllegalArgumentException("Sequence " + sequence + " is beyond the log, which ends at "
+                    + nextSequence);
+        }
+        Map.Entry<Long, Map<String, Object>> snapshot = snapshots.floorEntry(sequence);
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Sequence " + sequence + " was compacted away; the oldest state is at "
+                    + snapshots.firstKey());
+        }
+        Map<String, Object> result = new HashMap<>(snapshot.getValue());
+        for (long s = snapshot.getKey(); s < sequence; s++) {
+            apply(result, events[(int) (s - firstSequence)]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * The events from {@code fromSequence} on, or from the oldest one kept if that is later.
+     */
+    public synchronized List<ContextEvent> events(long fromSequence) {
+        int from = (int) Math.max(0, Math.min(fromSequence - firstSequence, count));
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(events, from, count)));
+    }
+
+    /**
+     * Drops the events and snapshots older than the latest snapshot.
+     *
+     * @return the number of events dropped
+     */
+    public synchronized int compact() {
+        long keepFrom = snapshots.lastKey();
+        int dropped = (int) (keepFrom - firstSequence);
+        if (dropped == 0) {
+            return 0;
+        }
+        snapshots.headMap(keepFrom).clear();
+        int kept = count - dropped;
+        ContextEvent[] remaining = new ContextEvent[Math.max(64, Integer.highestOneBit(Math.max(1, kept)) << 1)];
+        System.arraycopy(events, dropped, remaining, 0, kept);
+        events = remaining;
+        count = kept;
+        firstSequence = keepFrom;
+        return dropped;
+    }
+
+    /**
+     * Sequence the next event will get, which is also the number of events ever appended.
+     */
+    public long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Sequence of the oldest event still kept.
+     */
+    public synchronized long firstSequence() {
+        return firstSequence;
+    }
+
+    private Map<String, Object> copyState() {
+        return new HashMap<>(state);
+    }
+
+    private static void apply(Map<String, Object> target, ContextEvent event) {
+        if (event.value != null) {
+            target.put(event.key, event.value);
+        } else {
+            target.remove(event.key);
+        }
+    }
+
+    /**
+     * Receives appended events
+     */
+    @FunctionalInterface
+    public interface EventListener {
+        void onEvent(ContextEvent event);
+    }
+
+    /**
+     * One write to the context
+     */
+    public static final class ContextEvent {
+        private final long sequence;
+        private final String key;
+        private final Object value;
+        private final long timestamp;
+
+        ContextEvent(long sequence, String key, Object value, long timestamp) {
+            this.sequence = sequence;
+            this.key = key;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * The value written, null for a removal.
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * Epoch milliseconds when the event was appended.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + sequence + " " + key + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.awa.context;
+
+/**
+ * Approximate access counts for the TinyLFU admission policy of {@link ContextCache}.
+ * <p>
+ * A count-min sketch of 4-bit counters packed sixteen to a long: each key increments one counter
+ * in each of four longs and its frequency is the smallest of the four. After ten increments per
+ * cache entry every counter is halved, so the sketch forgets old popularity. Not thread-safe.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int length = Integer.highestOneBit(Math.max(16, Math.min(maximumSize, 1 << 24)) - 1) << 1;
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.sampleSize = Math.max(10 * maximumSize, 160);
+    }
+
+    int frequency(int hash) {
+        int h = spread(hash);
+        int start = (h & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int offset = (start + i) << 2;
+            int count = (int) ((table[indexOf(h, i)] >>> offset) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int hash) {
+        int h = spread(hash);
+        int start = (h & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(h, i);
+            int offset = (start + i) << 2;
+            if (((table[index] >>> offset) & 0xF) != 0xF) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 17);
+    }
+}
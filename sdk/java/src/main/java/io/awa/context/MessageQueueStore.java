@@ -0,0 +1,173 @@
+package io.awa.context;
+
+import io.awa.model.Context;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * {@link io.awa.model.SyncPattern#MESSAGE_PASSING}: a bounded queue of messages from any number of
+ * agents to the one agent consuming the context.
+ * <p>
+ * The queue is a ring buffer with a sequence number per slot (Vyukov's bounded queue, specialized
+ * to a single consumer). A producer claims a slot with one CAS on the tail and publishes it with
+ * an ordered write of the slot's sequence; the consumer needs no atomic operations at all. Nothing
+ * blocks: {@link #offer} returns false when the queue is full, {@link #poll} null when it is empty.
+ * Any thread may produce; only one thread at a time may consume.
+ */
+public final class MessageQueueStore implements ContextStore {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Context context;
+    private final Message[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public MessageQueueStore(Context context) {
+        this(context, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximum number of queued messages, rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive or above 2^30
+     */
+    public MessageQueueStore(Context context, int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.context = context;
+        this.slots = new Message[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * Sends a message.
+     *
+     * @throws IllegalStateException if the queue is full
+     */
+    @Override
+    public void write(String key, Object value) {
+        if (!offer(key, value)) {
+            throw new IllegalStateException("Message queue of context " + context.getId() + " is full");
+        }
+    }
+
+    /**
+     * Sends a message unless the queue is full.
+     *
+     * @return false if the queue is full
+     */
+    public boolean offer(String key, Object value) {
+        Message message = new Message(ContextValues.requireKey(key), value, System.currentTimeMillis());
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long lag = sequences.get(index) - position;
+            if (lag == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = message;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (lag < 0) {
+                // The slot still holds the message from one lap ago
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest message, or returns null if there is none. Consumer thread only.
+     */
+    public Message poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        Message message = slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, position + mask + 1);
+        head = position + 1;
+        return message;
+    }
+
+    /**
+     * Takes up to {@code max} messages in order, passing each to the consumer. Consumer thread only.
+     *
+     * @return the number of messages taken
+     */
+    public int drain(Consumer<Message> consumer, int max) {
+        int taken = 0;
+        Message message;
+        while (taken < max && (message = poll()) != null) {
+            consumer.accept(message);
+            taken++;
+        }
+        return taken;
+    }
+
+    /**
+     * Number of queued messages; a moving estimate while producers or the consumer are active.
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * A message sent through the context
+     */
+    public static final class Message {
+        private final String key;
+        private final Object value;
+        private final long timestamp;
+
+        Message(String key, Object value, long timestamp) {
+            this.key = key;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * Epoch milliseconds when the message was sent.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.awa.context;
+
+import io.awa.model.Context;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link io.awa.model.SyncPattern#SHARED_STATE}: a key/value map every agent reads and writes directly.
+ * <p>
+ * Values live in a {@link ConcurrentHashMap}, so reads never lock and writes to different keys
+ * rarely contend: each write CASes or locks only its own bin. Read-modify-write goes through
+ * {@link #update} or {@link #compareAndSet}, both atomic per key. Counters that many agents bump
+ * at once use {@link #add}, backed by a {@link LongAdder} per key that spreads increments over
+ * cells instead of retrying one CAS; counters are a separate namespace from the values.
+ * Null values are not stored: writing null removes the key.
+ */
+public final class SharedStateStore implements ContextStore {
+
+    private final Context context;
+    private final ConcurrentHashMap<String, Object> values;
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the store, seeded with the entries of the context's initial value when it is an object.
+     */
+    public SharedStateStore(Context context) {
+        this.context = context;
+        Map<String, Object> initial = ContextValues.initialEntries(context);
+        this.values = new ConcurrentHashMap<>(Math.max(16, initial.size() * 2));
+        initial.forEach((key, value) -> {
+            if (key != null && value != null) {
+                values.put(key, value);
+            }
+        });
+    }
+
+    @Override
+    public Context getContext() {
+        return context;
+    }
+
+    @Override
+    public void write(String key, Object value) {
+        put(key, value);
+    }
+
+    public Object get(String key) {
+        return values.get(ContextValues.requireKey(key));
+    }
+
+    /**
+     * Sets the value of the key, or removes the key when the value is null.
+     *
+     * @return the previous value, or null
+     */
+    public Object put(String key, Object value) {
+        ContextValues.requireKey(key);
+        return value != null ? values.put(key, value) : values.remove(key);
+    }
+
+    public Object remove(String key) {
+        return values.remove(ContextValues.requireKey(key));
+    }
+
+    /**
+     * Sets the value only when the key currently holds {@code expected} (by equals; null for absent).
+     * A null {@code value} removes the key.
+     *
+     * @return whether the value was set
+     */
+    public boolean compareAndSet(String key, Object expected, Object value) {
+        ContextValues.requireKey(key);
+        if (expected == null) {
+            return value == null ? !values.containsKey(key) : values.putIfAbsent(key, value) == null;
+        }
+        return value != null ? values.replace(key, expected, value) : values.remove(key, expected);
+    }
+
+    /**
+     * Atomically replaces the value of the key with the function's result, null meaning absent.
+     * The function runs while other writers of the same key wait, so keep it short.
+     *
+     * @return the new value
+     */
+    public Object update(String key, UnaryOperator<Object> function) {
+        if (function == null) {
+            throw new IllegalArgumentException("Function is required");
+        }
+        return values.compute(ContextValues.requireKey(key), (k, current) -> function.apply(current));
+    }
+
+    /**
+     * Adds to the counter of the key, creating it at 0.
+     */
+    public void add(String key, long delta) {
+        LongAdder counter = counters.get(ContextValues.requireKey(key));
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.add(delta);
+    }
+
+    /**
+     * The current sum of the counter of the key, 0 if it was never added to.
+     */
+    public long counter(String key) {
+        LongAdder counter = counters.get(ContextValues.requireKey(key));
+        return counter != null ? counter.sum() : 0L;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * A point-in-time copy of the values; concurrent writes may or may not be included.
+     */
+    public Map<String, Object> snapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(values));
+    }
+}
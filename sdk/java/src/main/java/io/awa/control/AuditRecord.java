@@ -0,0 +1,34 @@
+package io.awa.control;
+
+import io.awa.model.Control;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * AuditRecord - one execution of an activity under an AUDIT control (spec/ddl audit_records)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditRecord {
+
+    private UUID id;
+    private UUID workflowInstanceId;
+    private UUID activityId;
+    private String activityName;
+    private UUID controlId;
+    private String controlName;
+    private Control.Enforcement enforcement;
+    private Outcome outcome;
+    private String detail;
+    private long timestamp;
+
+    public enum Outcome {
+        COMPLETED, FAILED
+    }
+}
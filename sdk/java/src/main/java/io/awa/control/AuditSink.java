@@ -0,0 +1,403 @@
+package io.awa.control;
+
+import io.awa.model.Control;
+
+import java.io.IOException;
+import java.sql.SQLNonTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects {@link AuditRecord}s off the executing thread and stores them in batches.
+ * <p>
+ * {@link #offer} puts a record in a fixed ring buffer: claiming a slot is one compare-and-set,
+ * with no lock and no allocation beyond the record. One flusher thread drains the ring and hands
+ * the records to the {@link AuditWriter} once {@code batchSize} of them are waiting, or once the
+ * oldest has waited {@code maxDelay}, so a file is synced and a database round trip is paid once
+ * per batch rather than once per activity. A batch the writer rejects is offered to it again,
+ * backing off up to a second between attempts, until it is stored or the sink is closed. A
+ * rejection no retry can cure, an {@link SQLNonTransientException} or
+ * {@link IllegalArgumentException}, is not retried: the batch is split in halves, down to the
+ * records that cannot be stored, and those are counted in {@link #getFailed()}.
+ * <p>
+ * While the writer falls behind the ring fills up, and what an offer does then depends on the
+ * enforcement of the record's control: {@link Backpressure#BLOCK} waits for room (the default for
+ * MANDATORY), {@link Backpressure#DROP} discards the record and counts it (the default for
+ * ADVISORY and INFORMATIONAL), and {@link Backpressure#FAIL} throws, failing the activity.
+ * <p>
+ * Configure the sink before the first offer. The flusher is a daemon thread started on first
+ * use; {@link #close()} writes out what is buffered, and the flusher then closes the writer.
+ *
+ * <pre>{@code
+ * AuditSink audit = new AuditSink(FileAuditWriter.open(Path.of("audit.jsonl")))
+ *         .maxDelay(Duration.ofMillis(20));
+ * WorkflowEngine engine = new WorkflowEngine(workflow)
+ *         .controls(new ControlPipeline().auditSink(audit));
+ * }</pre>
+ */
+public final class AuditSink implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(50);
+
+    private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int RUNNING = 0;
+    private static final int WAITING_FOR_FIRST = 1;
+    private static final int WAITING_FOR_BATCH = 2;
+
+    /**
+     * What an offer does while the ring is full.
+     */
+    public enum Backpressure {
+        /** Wait for the flusher to make room. */
+        BLOCK,
+        /** Discard the record, counting it in {@link #getDropped()}. */
+        DROP,
+        /** Throw {@link IllegalStateException}. */
+        FAIL
+    }
+
+    private final AuditWriter writer;
+    private final AtomicReferenceArray<AuditRecord> ring;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final Backpressure[] backpressure = {Backpressure.BLOCK, Backpressure.DROP, Backpressure.DROP};
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long maxDelayNanos = DEFAULT_MAX_DELAY.toNanos();
+
+    private volatile Thread flusher;
+    private volatile int parked;
+    private volatile long batchStart;
+    private volatile boolean closed;
+    private volatile long flushTarget = -1;
+    private volatile long flushed;
+
+    private final LongAdder dropped = new LongAdder();
+    private volatile long written;
+    private volatile long failed;
+    private volatile long batches;
+    private volatile Exception lastError;
+
+    public AuditSink(AuditWriter writer) {
+        this(writer, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity records buffered at most, rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive or above 2^30
+     */
+    public AuditSink(AuditWriter writer, int capacity) {
+        if (writer == null) {
+            throw new IllegalArgumentException("Audit writer is required");
+        }
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.writer = writer;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    /**
+     * Records handed to the writer at once, at most. Defaults to 1024.
+     */
+    public AuditSink batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Longest a record waits for its batch to fill before it is written anyway. Defaults to 50 ms.
+     */
+    public AuditSink maxDelay(Duration maxDelay) {
+        if (maxDelay.isNegative() || maxDelay.isZero()) {
+            throw new IllegalArgumentException("Max delay must be positive: " + maxDelay);
+        }
+        this.maxDelayNanos = maxDelay.toNanos();
+        return this;
+    }
+
+    public AuditSink backpressure(Control.Enforcement enforcement, Backpressure policy) {
+        backpressure[enforcement.ordinal()] = policy;
+        return this;
+    }
+
+    /**
+     * Queues the record for writing; records of no enforcement count as MANDATORY.
+     *
+     * @return false if the ring was full and the record was dropped
+     * @throws IllegalStateException if the sink is closed before the record is queued, or the ring
+     *                               is full and the record's policy is {@link Backpressure#FAIL}
+     */
+    public boolean offer(AuditRecord record) {
+        if (closed) {
+            throw new IllegalStateException("Audit sink is closed");
+        }
+        Thread thread = flusher != null ? flusher : start();
+        Control.Enforcement enforcement = record.getEnforcement() != null
+                ? record.getEnforcement() : Control.Enforcement.MANDATORY;
+        long t;
+        int waits = 0;
+        while (true) {
+            t = tail.get();
+            if (t - head.get() < capacity) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    break;
+                }
+                continue;
+            }
+            switch (backpressure[enforcement.ordinal()]) {
+                case DROP -> {
+                    dropped.increment();
+                    return false;
+                }
+                case FAIL -> throw new IllegalStateException("Audit buffer full: " + capacity + " records waiting");
+                default -> {
+                    if (closed) {
+                        throw new IllegalStateException("Audit sink is closed");
+                    }
+                    LockSupport.unpark(thread);
+                    if (++waits < 64) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(50_000);
+                    }
+                }
+            }
+        }
+        ring.setRelease((int) t & mask, record);
+        if (closed) {
+            // The flusher may have seen the ring empty and stopped before the slot was claimed
+            while (head.get() <= t && thread.isAlive()) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(100_000);
+            }
+            if (head.get() <= t) {
+                throw new IllegalStateException("Audit sink is closed");
+            }
+            return true;
+        }
+        int state = parked;
+        if (state == WAITING_FOR_FIRST || state == WAITING_FOR_BATCH && t + 1 - batchStart >= batchSize) {
+            parked = RUNNING;
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until every record offered before the call has been handed to the writer, or given
+     * up on after the sink was closed.
+     */
+    public void flush() {
+        long target = tail.get();
+        Thread thread = flusher;
+        if (thread == null) {
+            return;
+        }
+        flushTarget = target;
+        LockSupport.unpark(thread);
+        while (flushed < target && thread.isAlive()) {
+            LockSupport.parkNanos(100_000);
+            if (flushTarget < target) {
+                flushTarget = target;
+            }
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Stops taking records, writes out those buffered, or gives up on them if the writer fails,
+     * and closes the writer; an error closing it is kept as the {@link #getLastError() last
+     * error}. An interrupt stops the wait, and the flusher finishes on its own.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            thread = flusher;
+        }
+        if (thread == null) {
+            closeWriter();
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeWriter() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            lastError = e;
+        }
+    }
+
+    private synchronized Thread start() {
+        if (flusher == null) {
+            if (closed) {
+                throw new IllegalStateException("Audit sink is closed");
+            }
+            Thread thread = new Thread(this::drain, "awa-audit");
+            thread.setDaemon(true);
+            thread.start();
+            flusher = thread;
+        }
+        return flusher;
+    }
+
+    /**
+     * The flusher: drains the ring into a batch and writes it once full, overdue, flushed or
+     * closing, and closes the writer last. It parks while there is nothing to do; producers wake
+     * it for the first record of a batch and for the one that fills it, not for every record.
+     */
+    private void drain() {
+        List<AuditRecord> batch = new ArrayList<>(Math.min(batchSize, capacity));
+        long deadline = 0;
+        long h = head.get();
+        while (true) {
+            while (batch.size() < batchSize) {
+                int slot = (int) h & mask;
+                AuditRecord record = ring.getAcquire(slot);
+                if (record == null) {
+                    break;
+                }
+                if (batch.isEmpty()) {
+                    batchStart = h;
+                    deadline = System.nanoTime() + maxDelayNanos;
+                }
+                ring.setPlain(slot, null);
+                batch.add(record);
+                head.setRelease(++h);
+            }
+            boolean stopping = closed;
+            if (!batch.isEmpty() && (batch.size() >= batchSize || stopping || flushTarget > batchStart
+                    || System.nanoTime() - deadline >= 0)) {
+                store(batch);
+                batch.clear();
+                flushed = h;
+                continue;
+            }
+            if (batch.isEmpty()) {
+                flushed = h;
+                if (stopping && tail.get() == h) {
+                    closeWriter();
+                    return;
+                }
+            }
+            if (h < tail.get() && ring.getAcquire((int) h & mask) == null) {
+                // a producer claimed the slot and has yet to fill it
+                Thread.yield();
+                continue;
+            }
+            parked = batch.isEmpty() ? WAITING_FOR_FIRST : WAITING_FOR_BATCH;
+            if (ring.getAcquire((int) h & mask) == null && !closed) {
+                LockSupport.parkNanos(batch.isEmpty() ? maxDelayNanos : deadline - System.nanoTime());
+            }
+            parked = RUNNING;
+        }
+    }
+
+    private void store(List<AuditRecord> batch) {
+        long backoff = MIN_RETRY_NANOS;
+        while (true) {
+            try {
+                writer.write(batch);
+                written += batch.size();
+                batches++;
+                return;
+            } catch (Exception e) {
+                lastError = e;
+                if (e instanceof SQLNonTransientException || e instanceof IllegalArgumentException) {
+                    if (batch.size() == 1) {
+                        failed++;
+                    } else {
+                        int half = batch.size() / 2;
+                        store(batch.subList(0, half));
+                        store(batch.subList(half, batch.size()));
+                    }
+                    return;
+                }
+                if (closed) {
+                    failed += batch.size();
+                    return;
+                }
+                LockSupport.parkNanos(backoff);
+                backoff = Math.min(backoff * 2, MAX_RETRY_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Records handed to the writer since the sink was created.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Records discarded because the ring was full and their policy was {@link Backpressure#DROP}.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records given up on: rejected by the writer for good, or still failing when the sink was
+     * closed.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Batches handed to the writer since the sink was created.
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Records offered but not yet handed to the writer.
+     */
+    public long getPending() {
+        return Math.max(0, tail.get() - flushed);
+    }
+
+    /**
+     * The last exception the writer threw, or null.
+     */
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
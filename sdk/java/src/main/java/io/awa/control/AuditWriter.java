@@ -0,0 +1,22 @@
+package io.awa.control;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Stores the batches of records an {@link AuditSink} collects. Called from the sink's one
+ * flusher thread, so implementations need not be thread-safe.
+ */
+public interface AuditWriter extends AutoCloseable {
+
+    /**
+     * Stores the records, all or none; a batch that throws is offered again, unless it throws
+     * {@link java.sql.SQLNonTransientException} or {@link IllegalArgumentException}, for a record
+     * that can never be stored.
+     */
+    void write(List<AuditRecord> records) throws Exception;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
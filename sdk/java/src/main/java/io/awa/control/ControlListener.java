@@ -0,0 +1,11 @@
+package io.awa.control;
+
+/**
+ * Receives the controls of an activity that did not hold. Called on the executing thread for
+ * MANDATORY controls, just before the activity fails, and on the pipeline's executor for the rest.
+ */
+@FunctionalInterface
+public interface ControlListener {
+
+    void onViolation(ControlViolation violation);
+}
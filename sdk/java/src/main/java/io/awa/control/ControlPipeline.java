@@ -0,0 +1,367 @@
+package io.awa.control;
+
+import io.awa.expression.CompiledExpression;
+import io.awa.expression.ExpressionCompiler;
+import io.awa.expression.VariableResolver;
+import io.awa.model.Activity;
+import io.awa.model.Control;
+import io.awa.runtime.Uuids;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces the {@code controls} of activities around their execution.
+ * <p>
+ * AUTHORIZATION, SECURITY and RATE_LIMIT controls are checked {@link #before} the activity runs,
+ * against the token variables; VALIDATION, COMPLIANCE and AUDIT controls {@link #after} it, against
+ * the variables with the activity's outputs on top. A control holds if its {@code expression}, in
+ * the language of {@link ExpressionCompiler}, is true; one without an expression always holds.
+ * RATE_LIMIT expressions are {@link RateLimit}s instead, drawing from the pipeline's
+ * {@link RateLimiter}, and hold while the execution is within the limit.
+ * <p>
+ * MANDATORY controls, and those without an enforcement, are checked on the executing thread and
+ * the first that fails ends the check with a {@link ControlViolationException}; rate limits go
+ * last, and a denied execution gives back the requests it took from the limits before the one
+ * that denied it, so it spends none. ADVISORY and INFORMATIONAL controls never stop an
+ * activity: they are checked on the pipeline's executor, against a copy of the variables, and
+ * only reported to the listeners. The default executor is one daemon thread with a bounded queue;
+ * checks that find it full are dropped and counted rather than slowing the activity down.
+ * <p>
+ * Each AUDIT control also records every execution of its activity, completed or failed, in the
+ * pipeline's {@link AuditSink}, off the executing thread.
+ * <p>
+ * Controls are compiled once per activity id and recompiled when they change. Rate limits keep
+ * their buckets until their control changes.
+ *
+ * <pre>{@code
+ * ControlPipeline controls = new ControlPipeline()
+ *         .rateLimiter(new RateLimiter(1 << 22))
+ *         .listener(violation -> log.warn("{}", violation));
+ * WorkflowEngine engine = new WorkflowEngine(workflow).controls(controls);
+ * }</pre>
+ */
+public class ControlPipeline {
+
+    private static final int DEFAULT_QUEUE_SIZE = 65_536;
+
+    private final Map<UUID, Compiled> compiled = new ConcurrentHashMap<>();
+    private final List<ControlListener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile RateLimiter rateLimiter;
+    private Executor executor;
+    private AuditSink auditSink;
+
+    public ControlPipeline rateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    /**
+     * Executor for ADVISORY and INFORMATIONAL controls. Defaults to one shared daemon thread.
+     */
+    public ControlPipeline executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Where AUDIT controls record each execution of their activity. Without a sink nothing is recorded.
+     */
+    public ControlPipeline auditSink(AuditSink auditSink) {
+        this.auditSink = auditSink;
+        return this;
+    }
+
+    public ControlPipeline listener(ControlListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Checks the controls due before the activity runs.
+     *
+     * @throws ControlViolationException if a MANDATORY control does not hold
+     * @throws IllegalArgumentException if an expression of the activity's controls is not valid
+     */
+    public void before(Activity activity, Map<String, Object> variables) {
+        List<Control> controls = activity.getControls();
+        if (controls == null || controls.isEmpty()) {
+            return;
+        }
+        Compiled checks = compiled(activity, controls);
+        check(activity, checks.before, ControlViolation.Phase.BEFORE, variables, VariableResolver.of(variables));
+    }
+
+    /**
+     * Checks the controls due after the activity ran, against its outputs over the variables.
+     *
+     * @param outputs the activity's outputs, or null
+     * @throws ControlViolationException if a MANDATORY control does not hold
+     * @throws IllegalArgumentException if an expression of the activity's controls is not valid
+     */
+    public void after(Activity activity, Map<String, Object> variables, Map<String, Object> outputs) {
+        List<Control> controls = activity.getControls();
+        if (controls == null || controls.isEmpty()) {
+            return;
+        }
+        Compiled checks = compiled(activity, controls);
+        if (checks.after.length == 0) {
+            return;
+        }
+        Map<String, Object> merged = variables;
+        if (outputs != null && !outputs.isEmpty()) {
+            merged = new HashMap<>(variables);
+            merged.putAll(outputs);
+        }
+        check(activity, checks.after, ControlViolation.Phase.AFTER, merged, VariableResolver.of(merged));
+    }
+
+    /**
+     * Offers one record per AUDIT control of the activity to the audit sink, if one is set.
+     *
+     * @param detail why the activity failed, or null
+     * @throws IllegalStateException if the sink is full and refuses a record, or is closed
+     */
+    public void audit(UUID workflowInstanceId, Activity activity, AuditRecord.Outcome outcome, String detail) {
+        AuditSink sink = auditSink;
+        List<Control> controls = activity.getControls();
+        if (sink == null || controls == null || controls.isEmpty()) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        for (Control control : compiled(activity, controls).audits) {
+            sink.offer(AuditRecord.builder()
+                    .id(Uuids.random())
+                    .workflowInstanceId(workflowInstanceId)
+                    .activityId(activity.getId())
+                    .activityName(activity.getName())
+                    .controlId(control.getId())
+                    .controlName(control.getName())
+                    .enforcement(control.getEnforcement() != null ? control.getEnforcement() : Control.Enforcement.MANDATORY)
+                    .outcome(outcome)
+                    .detail(detail)
+                    .timestamp(timestamp)
+                    .build());
+        }
+    }
+
+    private void check(Activity activity, Check[] checks, ControlViolation.Phase phase, Map<String, Object> variables,
+                       VariableResolver resolver) {
+        Map<String, Object> snapshot = null;
+        List<Check> deferred = null;
+        int limited = 0;
+        for (int c = 0; c < checks.length; c++) {
+            Check check = checks[c];
+            if (!check.mandatory) {
+                if (deferred == null) {
+                    deferred = new ArrayList<>(checks.length);
+                    snapshot = new HashMap<>(variables);
+                }
+                deferred.add(check);
+                continue;
+            }
+            if (check.holds(this, variables, resolver)) {
+                if (check.rateLimit != null) {
+                    limited++;
+                }
+            } else {
+                // Rate limits come last: give back what the ones that held already took
+                for (int k = c - 1; limited > 0; k--) {
+                    if (checks[k].mandatory && checks[k].rateLimit != null) {
+                        rateLimiter().release(checks[k].rateLimit, variables);
+                        limited--;
+                    }
+                }
+                ControlViolation violation = new ControlViolation(activity, check.control, phase, check.message());
+                report(violation);
+                throw new ControlViolationException(violation);
+            }
+        }
+        if (deferred != null) {
+            defer(activity, deferred, phase, snapshot);
+        }
+    }
+
+    private void defer(Activity activity, List<Check> checks, ControlViolation.Phase phase,
+                       Map<String, Object> variables) {
+        Runnable task = () -> {
+            VariableResolver resolver = VariableResolver.of(variables);
+            for (Check check : checks) {
+                boolean holds;
+                String message;
+                try {
+                    holds = check.holds(this, variables, resolver);
+                    message = check.message();
+                } catch (RuntimeException e) {
+                    holds = false;
+                    message = "Control " + check.name() + " could not be checked: " + e.getMessage();
+                }
+                if (!holds) {
+                    report(new ControlViolation(activity, check.control, phase, message));
+                }
+            }
+        };
+        try {
+            (executor != null ? executor : DefaultExecutor.INSTANCE).execute(task);
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+        }
+    }
+
+    private void report(ControlViolation violation) {
+        for (ControlListener listener : listeners) {
+            listener.onViolation(violation);
+        }
+    }
+
+    /**
+     * ADVISORY and INFORMATIONAL checks dropped because the executor refused them.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Forgets the compiled controls, and with them the rate limits' buckets.
+     */
+    public void clear() {
+        compiled.clear();
+    }
+
+    private RateLimiter rateLimiter() {
+        RateLimiter current = rateLimiter;
+        if (current == null) {
+            synchronized (this) {
+                if (rateLimiter == null) {
+                    rateLimiter = new RateLimiter();
+                }
+                current = rateLimiter;
+            }
+        }
+        return current;
+    }
+
+    private Compiled compiled(Activity activity, List<Control> controls) {
+        UUID id = activity.getId();
+        if (id == null) {
+            return Compiled.of(controls);
+        }
+        Compiled cached = compiled.get(id);
+        if (cached != null && cached.controls.equals(controls)) {
+            return cached;
+        }
+        // Compiled within the map's lock, so racing first checks share one set of rate limits
+        return compiled.compute(id, (key, current) ->
+                current != null && current.controls.equals(controls) ? current : Compiled.of(controls));
+    }
+
+    private static final class Compiled {
+
+        final List<Control> controls;
+        final Check[] before;
+        final Check[] after;
+        final Control[] audits;
+
+        private Compiled(List<Control> controls, Check[] before, Check[] after, Control[] audits) {
+            this.controls = controls;
+            this.before = before;
+            this.after = after;
+            this.audits = audits;
+        }
+
+        static Compiled of(List<Control> controls) {
+            List<Control> copies = new ArrayList<>(controls.size());
+            List<Check> before = new ArrayList<>();
+            List<Check> limits = new ArrayList<>();
+            List<Check> after = new ArrayList<>();
+            List<Control> audits = new ArrayList<>();
+            for (Control control : controls) {
+                Control copy = Control.builder()
+                        .id(control.getId())
+                        .name(control.getName())
+                        .description(control.getDescription())
+                        .type(control.getType())
+                        .expression(control.getExpression())
+                        .enforcement(control.getEnforcement())
+                        .build();
+                copies.add(copy);
+                Control.ControlType type = copy.getType();
+                if (type == Control.ControlType.AUDIT) {
+                    audits.add(copy);
+                }
+                if (type == Control.ControlType.RATE_LIMIT) {
+                    limits.add(new Check(copy, null, RateLimit.parse(copy.getExpression())));
+                } else if (copy.getExpression() != null && !copy.getExpression().isBlank()) {
+                    Check check = new Check(copy, ExpressionCompiler.compile(copy.getExpression()), null);
+                    if (type == Control.ControlType.AUTHORIZATION || type == Control.ControlType.SECURITY) {
+                        before.add(check);
+                    } else {
+                        after.add(check);
+                    }
+                }
+            }
+            before.addAll(limits);
+            return new Compiled(Collections.unmodifiableList(copies), before.toArray(new Check[0]),
+                    after.toArray(new Check[0]), audits.toArray(new Control[0]));
+        }
+    }
+
+    private static final class Check {
+
+        final Control control;
+        final CompiledExpression expression;
+        final RateLimit rateLimit;
+        final boolean mandatory;
+
+        Check(Control control, CompiledExpression expression, RateLimit rateLimit) {
+            this.control = control;
+            this.expression = expression;
+            this.rateLimit = rateLimit;
+            this.mandatory = control.getEnforcement() == null || control.getEnforcement() == Control.Enforcement.MANDATORY;
+        }
+
+        boolean holds(ControlPipeline pipeline, Map<String, Object> variables, VariableResolver resolver) {
+            return rateLimit != null ? pipeline.rateLimiter().tryAcquire(rateLimit, variables) : expression.test(resolver);
+        }
+
+        String name() {
+            return control.getName() != null ? "'" + control.getName() + "'" : String.valueOf(control.getId());
+        }
+
+        String message() {
+            return rateLimit != null
+                    ? "Control " + name() + " rate limit exceeded: " + rateLimit
+                    : "Control " + name() + " failed: " + control.getExpression();
+        }
+    }
+
+    /**
+     * Shared executor for ADVISORY and INFORMATIONAL checks, started on first use.
+     */
+    private static final class DefaultExecutor {
+
+        static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(DEFAULT_QUEUE_SIZE),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "awa-controls");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.awa.control;
+
+import io.awa.model.Activity;
+import io.awa.model.Control;
+
+/**
+ * A control that did not hold for one execution of an activity
+ */
+public final class ControlViolation {
+
+    /**
+     * When the control was checked.
+     */
+    public enum Phase {
+        BEFORE, AFTER
+    }
+
+    private final Activity activity;
+    private final Control control;
+    private final Phase phase;
+    private final String message;
+    private final long timestamp;
+
+    ControlViolation(Activity activity, Control control, Phase phase, String message) {
+        this.activity = activity;
+        this.control = control;
+        this.phase = phase;
+        this.message = message;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public Activity getActivity() {
+        return activity;
+    }
+
+    public Control getControl() {
+        return control;
+    }
+
+    public Control.Enforcement getEnforcement() {
+        return control.getEnforcement() != null ? control.getEnforcement() : Control.Enforcement.MANDATORY;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Epoch milliseconds at which the control was found not to hold.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "ControlViolation{" + getEnforcement() + " " + phase + ": " + message + "}";
+    }
+}
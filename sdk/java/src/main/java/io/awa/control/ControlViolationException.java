@@ -0,0 +1,22 @@
+package io.awa.control;
+
+/**
+ * Thrown when a MANDATORY control of an activity does not hold; the activity fails with its message.
+ * A violation is an expected outcome, as frequent as the traffic a rate limit turns away, so the
+ * exception records no stack trace.
+ */
+public class ControlViolationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ControlViolation violation;
+
+    public ControlViolationException(ControlViolation violation) {
+        super(violation.getMessage(), null, false, false);
+        this.violation = violation;
+    }
+
+    public ControlViolation getViolation() {
+        return violation;
+    }
+}
@@ -0,0 +1,104 @@
+package io.awa.control;
+
+import io.awa.model.Control;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Inserts audit records into the {@code audit_records} table of {@code spec/ddl/awa.postgresql.sql},
+ * or a table of the same columns, with one JDBC batch and one transaction per batch of records.
+ * With PostgreSQL, set {@code reWriteBatchedInserts=true} on the connection so the driver sends
+ * a batch as multi-row inserts. Records of no enforcement are stored as MANDATORY, as the sink
+ * treats them.
+ */
+public final class JdbcAuditWriter implements AuditWriter {
+
+    public static final String DEFAULT_TABLE = "audit_records";
+
+    private final DataSource dataSource;
+    private final String sql;
+
+    public JdbcAuditWriter(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE);
+    }
+
+    /**
+     * @param table the table name, optionally qualified by its schema
+     * @throws IllegalArgumentException if the table name is not a plain SQL identifier
+     */
+    public JdbcAuditWriter(DataSource dataSource, String table) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Data source is required");
+        }
+        if (table == null || !table.matches("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?")) {
+            throw new IllegalArgumentException("Invalid table name: " + table);
+        }
+        this.dataSource = dataSource;
+        this.sql = "INSERT INTO " + table + " (id, workflow_instance_id, activity_id, activity_name, control_id,"
+                + " control_name, enforcement, outcome, detail, recorded_at)"
+                + " VALUES (?, ?, ?, ?, ?, ?, CAST(? AS enforcement), ?, ?, ?)";
+    }
+
+    @Override
+    public void write(List<AuditRecord> records) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                for (AuditRecord record : records) {
+                    uuid(insert, 1, record.getId());
+                    uuid(insert, 2, record.getWorkflowInstanceId());
+                    uuid(insert, 3, record.getActivityId());
+                    insert.setString(4, record.getActivityName());
+                    uuid(insert, 5, record.getControlId());
+                    insert.setString(6, record.getControlName());
+                    Control.Enforcement enforcement = record.getEnforcement() != null
+                            ? record.getEnforcement() : Control.Enforcement.MANDATORY;
+                    insert.setString(7, enforcement.name().toLowerCase(Locale.ROOT));
+                    if (record.getOutcome() != null) {
+                        insert.setString(8, record.getOutcome().name().toLowerCase(Locale.ROOT));
+                    } else {
+                        insert.setNull(8, Types.VARCHAR);
+                    }
+                    insert.setString(9, record.getDetail());
+                    insert.setTimestamp(10, new Timestamp(record.getTimestamp()));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Nothing to release: each batch takes a connection from the data source and returns it.
+     */
+    @Override
+    public void close() {
+    }
+
+    private static void uuid(PreparedStatement insert, int index, UUID value) throws SQLException {
+        if (value != null) {
+            insert.setObject(index, value);
+        } else {
+            insert.setNull(index, Types.OTHER);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.awa.control;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code expression} of a {@link io.awa.model.Control.ControlType#RATE_LIMIT} control:
+ * <pre>
+ *   100/min
+ *   5 per second burst 20
+ *   1000 per 1 hour by customer_id, region
+ * </pre>
+ * A count, {@code /} or {@code per}, an optional multiplier and a unit ({@code ms}, {@code s},
+ * {@code min}, {@code h}, {@code d}, or their names spelled out, singular or plural). The rate is
+ * sustained indefinitely; {@code burst} allows that many requests at once after a quiet spell and
+ * defaults to the count, so {@code 100/min} admits 100 at once and then one every 0.6 s.
+ * {@code by} names the variables whose values key separate buckets; without it every execution
+ * shares one.
+ * <p>
+ * Each parsed instance has its own buckets in a {@link RateLimiter}, even one parsed from the
+ * same text as another.
+ */
+public final class RateLimit {
+
+    /** Longest burst window: the limiter keeps arrival times in 44 bits of microseconds. */
+    static final long MAX_WINDOW_MICROS = 1L << 40;
+
+    private static final AtomicLong SEEDS = new AtomicLong();
+
+    private final String expression;
+    private final long count;
+    private final Duration period;
+    private final long burst;
+    private final List<String> keys;
+    final long intervalMicros;
+    final long toleranceMicros;
+    final long seed;
+
+    private RateLimit(String expression, long count, Duration period, long burst, List<String> keys) {
+        this.expression = expression;
+        this.count = count;
+        this.period = period;
+        this.burst = burst;
+        this.keys = keys;
+        long periodMicros = period.toNanos() / 1000;
+        this.intervalMicros = periodMicros / count;
+        if (intervalMicros < 1) {
+            throw new IllegalArgumentException("Rate limit above one request per microsecond: " + expression);
+        }
+        if (intervalMicros * burst > MAX_WINDOW_MICROS || intervalMicros * burst < 0) {
+            throw new IllegalArgumentException("Rate limit burst window above 12 days: " + expression);
+        }
+        this.toleranceMicros = intervalMicros * (burst - 1);
+        this.seed = SEEDS.incrementAndGet() * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is not a rate limit, or its rate is
+     *                                  above one per microsecond or its burst spans more than 12 days
+     */
+    public static RateLimit parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Rate limit expression is required");
+        }
+        String[] original = expression.trim().replace("/", " / ").replace(",", " , ").split("\\s+");
+        String[] words = new String[original.length];
+        for (int w = 0; w < words.length; w++) {
+            words[w] = original[w].toLowerCase(Locale.ROOT);
+        }
+        int i = 0;
+        long count = positive(words, i++, expression);
+        if (i >= words.length || !(words[i].equals("/") || words[i].equals("per"))) {
+            throw invalid(expression);
+        }
+        i++;
+        long multiplier = 1;
+        if (i < words.length && Character.isDigit(words[i].charAt(0))) {
+            multiplier = positive(words, i++, expression);
+        }
+        if (i >= words.length) {
+            throw invalid(expression);
+        }
+        Duration period = unit(words[i++], expression).multipliedBy(multiplier);
+        long burst = count;
+        if (i < words.length && words[i].equals("burst")) {
+            burst = positive(words, i + 1, expression);
+            i += 2;
+        }
+        List<String> keys = new ArrayList<>();
+        if (i < words.length && words[i].equals("by")) {
+            i++;
+            while (true) {
+                if (i >= words.length || words[i].equals(",")) {
+                    throw invalid(expression);
+                }
+                keys.add(original[i++]);
+                if (i >= words.length || !words[i].equals(",")) {
+                    break;
+                }
+                i++;
+            }
+        }
+        if (i != words.length) {
+            throw invalid(expression);
+        }
+        return new RateLimit(expression, count, period, burst, Collections.unmodifiableList(keys));
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Requests admitted per period, sustained.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+
+    /**
+     * Requests admitted at once after a quiet spell.
+     */
+    public long getBurst() {
+        return burst;
+    }
+
+    /**
+     * Variables whose values key separate buckets; empty for one shared bucket.
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Hash of the bucket that an execution with these variables draws from.
+     */
+    long bucket(Map<String, ?> variables) {
+        long h = seed;
+        for (String key : keys) {
+            Object value = variables != null ? variables.get(key) : null;
+            h = RateLimiter.hash(h, value != null ? value.toString() : "");
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static Duration unit(String word, String expression) {
+        return switch (word) {
+            case "ms", "millisecond", "milliseconds" -> Duration.ofMillis(1);
+            case "s", "sec", "second", "seconds" -> Duration.ofSeconds(1);
+            case "m", "min", "minute", "minutes" -> Duration.ofMinutes(1);
+            case "h", "hr", "hour", "hours" -> Duration.ofHours(1);
+            case "d", "day", "days" -> Duration.ofDays(1);
+            default -> throw new IllegalArgumentException("Unknown rate limit unit '" + word + "': " + expression);
+        };
+    }
+
+    private static long positive(String[] words, int i, String expression) {
+        if (i >= words.length) {
+            throw invalid(expression);
+        }
+        try {
+            long value = Long.parseLong(words[i]);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Expected a positive whole number, not '" + words[i] + "': " + expression);
+    }
+
+    private static IllegalArgumentException invalid(String expression) {
+        return new IllegalArgumentException(
+                "Invalid rate limit, expected '<count>/<unit> [burst <n>] [by <variable>, ...]': " + expression);
+    }
+}
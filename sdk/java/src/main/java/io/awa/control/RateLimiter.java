@@ -0,0 +1,240 @@
+package io.awa.control;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buckets of the {@link RateLimit}s of any number of controls, for any number of keys, in a
+ * fixed amount of memory.
+ * <p>
+ * Each bucket is the single number the generic cell rate algorithm (GCRA) needs: the theoretical
+ * arrival time of the next request. A request is admitted if that time is no further ahead than
+ * the burst allows, and moves it one interval on; this admits exactly what a token bucket of
+ * {@code burst} tokens refilled at the limit's rate would. The time shares one {@code long} with
+ * a 20-bit fingerprint of the bucket's key, so a check is one compare-and-set and neither locks
+ * nor allocates; denials write nothing.
+ * <p>
+ * Buckets live in sets of 8 slots. A bucket whose time has passed is full, exactly as if it had
+ * never been used, so its slot is free for another key without losing anything. Only when all 8
+ * slots of a set hold buckets still refilling does a new key take the one closest to full, which
+ * then starts over full; {@link #getOverflows()} counts those. Size the limiter for the number of
+ * keys active within one burst window: 8 bytes each, so the default of 1M keys takes 8 MB.
+ *
+ * <pre>{@code
+ * RateLimiter limiter = new RateLimiter(1 << 22);
+ * RateLimit perCustomer = RateLimit.parse("100/min by customer_id");
+ * if (!limiter.tryAcquire(perCustomer, variables)) {
+ *     throw new IllegalStateException("Rate limit exceeded: " + perCustomer);
+ * }
+ * }</pre>
+ */
+public final class RateLimiter {
+
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private static final int WAYS = 8;
+    private static final int TIME_BITS = 44;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final AtomicLongArray slots;
+    private final int setMask;
+    private final long epoch = System.nanoTime();
+    private final LongAdder overflows = new LongAdder();
+
+    public RateLimiter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity most buckets held at once, rounded up to a power of two no smaller than 8
+     * @throws IllegalArgumentException if the capacity is not positive or above 2^30
+     */
+    public RateLimiter(int capacity) {
+        if (capacity < 1 || capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAXIMUM_CAPACITY + ": " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(WAYS, capacity));
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicLongArray(size);
+        this.setMask = size / WAYS - 1;
+    }
+
+    /**
+     * Takes a request from the bucket the variables key, by the limit's {@code by} variables.
+     *
+     * @return whether the request is within the limit
+     */
+    public boolean tryAcquire(RateLimit limit, Map<String, ?> variables) {
+        return tryAcquire(limit, limit.bucket(variables), now());
+    }
+
+    /**
+     * Takes a request from the limit's bucket for an explicit key, ignoring its {@code by} variables.
+     *
+     * @return whether the request is within the limit
+     */
+    public boolean tryAcquire(RateLimit limit, String key) {
+        return tryAcquire(limit, hash(limit.seed, key != null ? key : ""), now());
+    }
+
+    boolean tryAcquire(RateLimit limit, long bucket, long now) {
+        long h = mix(bucket);
+        int set = ((int) h & setMask) * WAYS;
+        long fingerprint = h >>> TIME_BITS;
+        if (fingerprint == 0) {
+            fingerprint = 1;
+        }
+        long tag = fingerprint << TIME_BITS;
+        long interval = limit.intervalMicros;
+        long tolerance = limit.toleranceMicros;
+        AtomicLongArray table = slots;
+        while (true) {
+            int victim = -1;
+            long victimSlot = 0;
+            long victimAhead = Long.MAX_VALUE;
+            boolean retry = false;
+            for (int i = set; i < set + WAYS; i++) {
+                long slot = table.get(i);
+                if ((slot & ~TIME_MASK) == tag) {
+                    int result = take(table, i, slot, tag, now, interval, tolerance);
+                    if (result >= 0) {
+                        return result == 1;
+                    }
+                    retry = true;
+                    break;
+                }
+                if (victimAhead > 0) {
+                    long ahead = slot == 0 ? 0 : ahead(slot, now);
+                    if (ahead < victimAhead) {
+                        victim = i;
+                        victimSlot = slot;
+                        victimAhead = ahead;
+                    }
+                }
+            }
+            if (!retry && table.compareAndSet(victim, victimSlot, tag | ((now + interval) & TIME_MASK))) {
+                if (victimAhead > 0) {
+                    overflows.increment();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a request taken from the bucket the variables key, as if it had never been made.
+     * The bucket is left alone if it has refilled since, or was taken by another key.
+     */
+    void release(RateLimit limit, Map<String, ?> variables) {
+        release(limit, limit.bucket(variables), now());
+    }
+
+    void release(RateLimit limit, long bucket, long now) {
+        long h = mix(bucket);
+        int set = ((int) h & setMask) * WAYS;
+        long fingerprint = h >>> TIME_BITS;
+        if (fingerprint == 0) {
+            fingerprint = 1;
+        }
+        long tag = fingerprint << TIME_BITS;
+        AtomicLongArray table = slots;
+        for (int i = set; i < set + WAYS; i++) {
+            long slot = table.get(i);
+            while ((slot & ~TIME_MASK) == tag) {
+                long ahead = ahead(slot, now);
+                if (ahead <= 0 || ahead > limit.toleranceMicros + limit.intervalMicros) {
+                    return;
+                }
+                if (table.compareAndSet(i, slot, tag | ((now + ahead - limit.intervalMicros) & TIME_MASK))) {
+                    return;
+                }
+                slot = table.get(i);
+            }
+        }
+    }
+
+    /**
+     * GCRA on a slot holding this bucket: 1 if admitted, 0 if denied, -1 if the slot was taken by
+     * another key meanwhile.
+     */
+    private int take(AtomicLongArray table, int i, long slot, long tag, long now, long interval, long tolerance) {
+        boolean fresh = false;
+        while (true) {
+            long ahead = ahead(slot, now);
+            if (ahead > tolerance) {
+                if (ahead <= tolerance + interval) {
+                    return 0;
+                }
+                if (!fresh) {
+                    // Another thread may have taken from the bucket since the clock was read
+                    now = Math.max(now, now());
+                    fresh = true;
+                    continue;
+                }
+                ahead = 0;
+            }
+            long next = now + Math.max(ahead, 0) + interval;
+            if (table.compareAndSet(i, slot, tag | (next & TIME_MASK))) {
+                return 1;
+            }
+            slot = table.get(i);
+            if ((slot & ~TIME_MASK) != tag) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * How far the slot's arrival time is ahead of now, in microseconds. Times wrap every 2^44 µs
+     * (203 days); anything further ahead than a legal burst window reads as a bucket long full.
+     */
+    private static long ahead(long slot, long now) {
+        return ((slot - now) << (64 - TIME_BITS)) >> (64 - TIME_BITS);
+    }
+
+    private long now() {
+        return (System.nanoTime() - epoch) / 1000;
+    }
+
+    /**
+     * Keys taken by a new key while their buckets were still refilling, since the limiter was created.
+     */
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    /**
+     * Most buckets held at once.
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Drops every bucket, so every key starts over full.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0);
+        }
+    }
+
+    static long hash(long h, String key) {
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        return (h ^ key.length()) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
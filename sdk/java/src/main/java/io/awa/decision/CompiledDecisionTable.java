@@ -0,0 +1,341 @@
+package io.awa.decision;
+
+import io.awa.model.DecisionNode;
+import io.awa.model.DecisionNode.DecisionRule;
+import io.awa.model.DecisionNode.DecisionTable;
+import io.awa.model.DecisionNode.HitPolicy;
+import io.awa.model.DecisionNode.TableColumn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Decision table of a {@link DecisionNode} compiled for repeated evaluation.
+ * <p>
+ * Input entries are parsed once. Per input column, equality entries go into a hash index,
+ * numeric comparisons and ranges into an {@link IntervalIndex}, and the remaining tests
+ * are kept as predicates. Evaluation intersects the per-column rule bitsets, so its cost
+ * depends on the number of columns and matches rather than on the number of rules.
+ * <p>
+ * Hit policies follow DMN: UNIQUE fails on more than one match, ANY fails when matches
+ * disagree on outputs, PRIORITY ranks matches by the first output column's allowed values,
+ * FIRST takes the first match in rule order, COLLECT and RULE_ORDER return every match.
+ * A table without a hit policy is evaluated as FIRST, like the TypeScript runtime.
+ * Instances are immutable and thread-safe.
+ */
+public final class CompiledDecisionTable {
+
+    private final UUID nodeId;
+    private final UUID defaultOutputEdgeId;
+    private final HitPolicy hitPolicy;
+    private final DecisionRule[] rules;
+    private final String[] inputNames;
+    private final Column[] columns;
+    private final String[] outputNames;
+    private final int[] priority;
+    private final long[] allRules;
+
+    private CompiledDecisionTable(DecisionNode node) {
+        DecisionTable table = node.getDecisionTable();
+        List<DecisionRule> ruleList = table != null && table.getRules() != null
+                ? table.getRules() : Collections.emptyList();
+        List<TableColumn> inputs = table != null && table.getInputs() != null
+                ? table.getInputs() : Collections.emptyList();
+        List<TableColumn> outputs = table != null && table.getOutputs() != null
+                ? table.getOutputs() : Collections.emptyList();
+
+        this.nodeId = node.getId();
+        this.defaultOutputEdgeId = node.getDefaultOutputEdgeId();
+        this.hitPolicy = table != null && table.getHitPolicy() != null ? table.getHitPolicy() : HitPolicy.FIRST;
+        this.rules = ruleList.toArray(new DecisionRule[0]);
+
+        int words = (rules.length + 63) >>> 6;
+        this.allRules = new long[words];
+        for (int r = 0; r < rules.length; r++) {
+            allRules[r >>> 6] |= 1L << r;
+        }
+
+        this.inputNames = new String[inputs.size()];
+        this.columns = new Column[inputs.size()];
+        for (int c = 0; c < inputs.size(); c++) {
+            inputNames[c] = inputs.get(c).getName();
+            columns[c] = compileColumn(c, words);
+        }
+
+        this.outputNames = new String[outputs.size()];
+        for (int c = 0; c < outputs.size(); c++) {
+            outputNames[c] = outputs.get(c).getName();
+        }
+        this.priority = hitPolicy == HitPolicy.PRIORITY ? priorities(outputs) : null;
+    }
+
+    /**
+     * Compiles the decision table of the node.
+     *
+     * @throws IllegalArgumentException if an input entry cannot be parsed
+     */
+    public static CompiledDecisionTable compile(DecisionNode node) {
+        return new CompiledDecisionTable(node);
+    }
+
+    public UUID getNodeId() {
+        return nodeId;
+    }
+
+    public HitPolicy getHitPolicy() {
+        return hitPolicy;
+    }
+
+    public int ruleCount() {
+        return rules.length;
+    }
+
+    /**
+     * Evaluates the table, reading each input column from the variable of the same name.
+     *
+     * @throws IllegalStateException if the matches violate a UNIQUE or ANY hit policy
+     */
+    public DecisionResult evaluate(Map<String, Object> variables) {
+        long[] matches = allRules.clone();
+        long[] column = new long[matches.length];
+        List<Object> keys = new ArrayList<>(2);
+        for (int c = 0; c < columns.length; c++) {
+            Object value = variables.get(inputNames[c]);
+            columns[c].match(value, matches, column, keys);
+            if (!retain(matches, column)) {
+                return noMatch();
+            }
+        }
+        int first = nextRule(matches, 0);
+        if (first < 0) {
+            return noMatch();
+        }
+
+        switch (hitPolicy) {
+            case FIRST:
+                return single(first, List.of(rules[first]));
+            case UNIQUE: {
+                int second = nextRule(matches, first + 1);
+                if (second >= 0) {
+                    throw new IllegalStateException("Decision " + nodeId + " has hit policy UNIQUE but rules "
+                            + (first + 1) + " and " + (second + 1) + " both match");
+                }
+                return single(first, List.of(rules[first]));
+            }
+            case ANY: {
+                List<DecisionRule> matched = matchedRules(matches);
+                for (DecisionRule rule : matched) {
+                    if (!Objects.equals(outputEntries(rule), outputEntries(rules[first]))) {
+                        throw new IllegalStateException("Decision " + nodeId
+                                + " has hit policy ANY but matching rules produce different outputs");
+                    }
+                }
+                return single(first, matched);
+            }
+            case PRIORITY: {
+                int best = first;
+                for (int r = nextRule(matches, first + 1); r >= 0; r = nextRule(matches, r + 1)) {
+                    if (priority[r] < priority[best]) {
+                        best = r;
+                    }
+                }
+                return single(best, matchedRules(matches));
+            }
+            default:
+                return multiple(matchedRules(matches));
+        }
+    }
+
+    private DecisionResult noMatch() {
+        return new DecisionResult(false, defaultOutputEdgeId, Collections.emptyMap(), Collections.emptyList());
+    }
+
+    private DecisionResult single(int rule, List<DecisionRule> matched) {
+        List<Object> entries = outputEntries(rules[rule]);
+        Map<String, Object> outputs = new LinkedHashMap<>(outputNames.length * 2);
+        for (int c = 0; c < outputNames.length; c++) {
+            outputs.put(outputNames[c], c < entries.size() ? entries.get(c) : null);
+        }
+        UUID edge = rules[rule].getOutputEdgeId();
+        return new DecisionResult(true, edge != null ? edge : defaultOutputEdgeId, outputs, matched);
+    }
+
+    private DecisionResult multiple(List<DecisionRule> matched) {
+        Map<String, Object> outputs = new LinkedHashMap<>(outputNames.length * 2);
+        for (int c = 0; c < outputNames.length; c++) {
+            List<Object> values = new ArrayList<>(matched.size());
+            for (DecisionRule rule : matched) {
+                List<Object> entries = outputEntries(rule);
+                values.add(c < entries.size() ? entries.get(c) : null);
+            }
+            outputs.put(outputNames[c], values);
+        }
+        UUID edge = defaultOutputEdgeId;
+        for (DecisionRule rule : matched) {
+            if (rule.getOutputEdgeId() != null) {
+                edge = rule.getOutputEdgeId();
+                break;
+            }
+        }
+        return new DecisionResult(true, edge, outputs, matched);
+    }
+
+    private List<DecisionRule> matchedRules(long[] matches) {
+        List<DecisionRule> matched = new ArrayList<>();
+        for (int r = nextRule(matches, 0); r >= 0; r = nextRule(matches, r + 1)) {
+            matched.add(rules[r]);
+        }
+        return matched;
+    }
+
+    private Column compileColumn(int column, int words) {
+        Column compiled = new Column(words);
+        List<Integer> intervalRules = new ArrayList<>();
+        List<UnaryTest> intervals = new ArrayList<>();
+        List<Integer> predicateRules = new ArrayList<>();
+        List<Predicate<Object>> predicates = new ArrayList<>();
+
+        for (int r = 0; r < rules.length; r++) {
+            List<String> entries = rules[r].getInputEntries();
+            String entry = entries != null && column < entries.size() ? entries.get(column) : null;
+            List<UnaryTest> tests;
+            try {
+                tests = UnaryTest.parse(entry);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Decision " + nodeId + " rule " + (r + 1) + ": " + e.getMessage(), e);
+            }
+            for (UnaryTest test : tests) {
+                switch (test.kind) {
+                    case ANY:
+                        compiled.wildcard[r >>> 6] |= 1L << r;
+                        break;
+                    case EQUALS:
+                        for (Object key : test.keys) {
+                            compiled.equals.computeIfAbsent(key, k -> new long[words])[r >>> 6] |= 1L << r;
+                        }
+                        break;
+                    case INTERVAL:
+                        intervalRules.add(r);
+                        intervals.add(test);
+                        break;
+                    default:
+                        predicateRules.add(r);
+                        predicates.add(test.predicate);
+                }
+            }
+        }
+        compiled.intervals = intervals.isEmpty() ? null : IntervalIndex.build(intervalRules, intervals, words);
+        compiled.predicateRules = predicateRules.stream().mapToInt(Integer::intValue).toArray();
+        @SuppressWarnings("unchecked")
+        Predicate<Object>[] array = (Predicate<Object>[]) predicates.toArray(new Predicate<?>[0]);
+        compiled.predicates = array;
+        return compiled;
+    }
+
+    /**
+     * Rank of each rule for PRIORITY: position of its first output entry among the first
+     * output column's allowed values. Without allowed values every rule ranks equal, so
+     * the first match in rule order wins.
+     */
+    private int[] priorities(List<TableColumn> outputs) {
+        int[] ranks = new int[rules.length];
+        List<Object> allowed = outputs.isEmpty() ? null : outputs.get(0).getAllowedValues();
+        if (allowed == null || allowed.isEmpty()) {
+            return ranks;
+        }
+        for (int r = 0; r < rules.length; r++) {
+            List<Object> entries = outputEntries(rules[r]);
+            int rank = entries.isEmpty() ? -1 : allowed.indexOf(entries.get(0));
+            ranks[r] = rank >= 0 ? rank : Integer.MAX_VALUE;
+        }
+        return ranks;
+    }
+
+    private static List<Object> outputEntries(DecisionRule rule) {
+        return rule.getOutputEntries() != null ? rule.getOutputEntries() : Collections.emptyList();
+    }
+
+    /**
+     * matches &= column; returns whether any rule is left.
+     */
+    private static boolean retain(long[] matches, long[] column) {
+        long any = 0;
+        for (int w = 0; w < matches.length; w++) {
+            matches[w] &= column[w];
+            any |= matches[w];
+        }
+        return any != 0;
+    }
+
+    private static int nextRule(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) {
+            return -1;
+        }
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == bits.length) {
+                return -1;
+            }
+            word = bits[w];
+        }
+    }
+
+    private static final class Column {
+        final long[] wildcard;
+        final Map<Object, long[]> equals = new HashMap<>();
+        IntervalIndex intervals;
+        int[] predicateRules;
+        Predicate<Object>[] predicates;
+
+        Column(int words) {
+            this.wildcard = new long[words];
+        }
+
+        /**
+         * Writes into {@code out} the rules among {@code candidates} whose entry accepts the value.
+         */
+        void match(Object value, long[] candidates, long[] out, List<Object> keys) {
+            System.arraycopy(wildcard, 0, out, 0, out.length);
+            if (!equals.isEmpty()) {
+                keys.clear();
+                UnaryTest.lookupKeys(value, keys);
+                for (int k = 0; k < keys.size(); k++) {
+                    long[] bits = equals.get(keys.get(k));
+                    if (bits != null) {
+                        or(out, bits);
+                    }
+                }
+            }
+            if (intervals != null) {
+                long[] bits = intervals.lookup(UnaryTest.toDouble(value));
+                if (bits != null) {
+                    or(out, bits);
+                }
+            }
+            for (int i = 0; i < predicateRules.length; i++) {
+                int r = predicateRules[i];
+                long bit = 1L << r;
+                if ((candidates[r >>> 6] & bit) != 0 && (out[r >>> 6] & bit) == 0 && predicates[i].test(value)) {
+                    out[r >>> 6] |= bit;
+                }
+            }
+        }
+
+        private static void or(long[] into, long[] bits) {
+            for (int w = 0; w < into.length; w++) {
+                into[w] |= bits[w];
+            }
+        }
+    }
+}
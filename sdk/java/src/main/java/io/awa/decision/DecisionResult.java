@@ -0,0 +1,52 @@
+package io.awa.decision;
+
+import io.awa.model.DecisionNode.DecisionRule;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Result of evaluating a decision table
+ */
+public final class DecisionResult {
+
+    private final boolean matched;
+    private final UUID outputEdgeId;
+    private final Map<String, Object> outputs;
+    private final List<DecisionRule> matchedRules;
+
+    DecisionResult(boolean matched, UUID outputEdgeId, Map<String, Object> outputs, List<DecisionRule> matchedRules) {
+        this.matched = matched;
+        this.outputEdgeId = outputEdgeId;
+        this.outputs = Collections.unmodifiableMap(outputs);
+        this.matchedRules = Collections.unmodifiableList(matchedRules);
+    }
+
+    public boolean isMatched() {
+        return matched;
+    }
+
+    /**
+     * The edge to follow: the selected rule's output edge, else the node's default output edge.
+     */
+    public UUID getOutputEdgeId() {
+        return outputEdgeId;
+    }
+
+    /**
+     * Output values by output column name. Single-hit policies map each column to one value,
+     * COLLECT and RULE_ORDER map each column to the list of values of all matched rules.
+     */
+    public Map<String, Object> getOutputs() {
+        return outputs;
+    }
+
+    /**
+     * All matched rules in rule order; for FIRST only the first match.
+     */
+    public List<DecisionRule> getMatchedRules() {
+        return matchedRules;
+    }
+}
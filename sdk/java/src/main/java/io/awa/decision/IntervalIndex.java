@@ -0,0 +1,70 @@
+package io.awa.decision;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Static stabbing index over the numeric intervals of one decision table column.
+ * <p>
+ * The distinct interval endpoints {@code p0 < p1 < ... < pn-1} split the number line into
+ * {@code 2n + 1} slots: the open gaps between endpoints and the endpoints themselves.
+ * Each slot stores the bitset of rules whose interval covers it, so a lookup is one
+ * binary search plus one array read.
+ */
+final class IntervalIndex {
+
+    private final double[] points;
+    private final long[][] slots;
+
+    private IntervalIndex(double[] points, long[][] slots) {
+        this.points = points;
+        this.slots = slots;
+    }
+
+    /**
+     * @param rules the rule index of each interval
+     * @param tests the interval tests, parallel to {@code rules}
+     */
+    static IntervalIndex build(List<Integer> rules, List<UnaryTest> tests, int words) {
+        double[] endpoints = new double[tests.size() * 2];
+        int count = 0;
+        for (UnaryTest test : tests) {
+            if (!Double.isInfinite(test.low)) {
+                endpoints[count++] = test.low;
+            }
+            if (!Double.isInfinite(test.high)) {
+                endpoints[count++] = test.high;
+            }
+        }
+        double[] points = Arrays.stream(endpoints, 0, count).sorted().distinct().toArray();
+        long[][] slots = new long[points.length * 2 + 1][words];
+
+        for (int i = 0; i < tests.size(); i++) {
+            UnaryTest test = tests.get(i);
+            int first = Double.isInfinite(test.low) ? 0
+                    : pointSlot(points, test.low) + (test.lowInclusive ? 0 : 1);
+            int last = Double.isInfinite(test.high) ? slots.length - 1
+                    : pointSlot(points, test.high) - (test.highInclusive ? 0 : 1);
+            int rule = rules.get(i);
+            for (int slot = first; slot <= last; slot++) {
+                slots[slot][rule >>> 6] |= 1L << rule;
+            }
+        }
+        return new IntervalIndex(points, slots);
+    }
+
+    /**
+     * Returns the bitset of rules whose interval contains the value, or null for NaN.
+     */
+    long[] lookup(double value) {
+        if (Double.isNaN(value)) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, value);
+        return slots[i >= 0 ? 2 * i + 1 : 2 * (-i - 1)];
+    }
+
+    private static int pointSlot(double[] points, double point) {
+        return 2 * Arrays.binarySearch(points, point) + 1;
+    }
+}
@@ -0,0 +1,326 @@
+package io.awa.decision;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * One parsed alternative of a FEEL-like unary test from a decision table input entry.
+ * <p>
+ * Entries are parsed once into tests of four kinds so a compiled table can index them:
+ * wildcards, equality against literal keys, numeric intervals, and any other predicate.
+ * Supported syntax matches the TypeScript evaluator: {@code -}, literals, {@code null},
+ * {@code not null}, comparisons, ranges such as {@code [1..10)}, {@code in (...)},
+ * {@code not in (...)}, {@code contains("x")}, {@code starts with}, {@code ends with} and
+ * {@code matches("re")}; additionally a top-level comma separates alternatives.
+ */
+final class UnaryTest {
+
+    enum Kind {
+        ANY, EQUALS, INTERVAL, PREDICATE
+    }
+
+    /** Equality key for a missing or null input value */
+    static final Object NULL_KEY = new Object() {
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+
+    final Kind kind;
+    final List<Object> keys;
+    final double low;
+    final boolean lowInclusive;
+    final double high;
+    final boolean highInclusive;
+    final Predicate<Object> predicate;
+
+    private UnaryTest(Kind kind, List<Object> keys, double low, boolean lowInclusive, double high,
+                      boolean highInclusive, Predicate<Object> predicate) {
+        this.kind = kind;
+        this.keys = keys;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.high = high;
+        this.highInclusive = highInclusive;
+        this.predicate = predicate;
+    }
+
+    private static UnaryTest any() {
+        return new UnaryTest(Kind.ANY, null, 0, false, 0, false, null);
+    }
+
+    private static UnaryTest equalsAny(List<Object> keys) {
+        return new UnaryTest(Kind.EQUALS, keys, 0, false, 0, false, null);
+    }
+
+    private static UnaryTest interval(double low, boolean lowInclusive, double high, boolean highInclusive) {
+        return new UnaryTest(Kind.INTERVAL, null, low, lowInclusive, high, highInclusive, null);
+    }
+
+    private static UnaryTest predicate(Predicate<Object> predicate) {
+        return new UnaryTest(Kind.PREDICATE, null, 0, false, 0, false, predicate);
+    }
+
+    /**
+     * Parses an input entry into its alternatives; the entry matches if any alternative does.
+     */
+    static List<UnaryTest> parse(String entry) {
+        String expr = entry == null ? "" : entry.trim();
+        List<String> alternatives = splitTopLevel(expr);
+        List<UnaryTest> tests = new ArrayList<>(alternatives.size());
+        for (String alternative : alternatives) {
+            UnaryTest test = parseSingle(alternative.trim());
+            if (test.kind == Kind.ANY) {
+                return List.of(test);
+            }
+            tests.add(test);
+        }
+        return tests;
+    }
+
+    /**
+     * Equality keys an input value can be found under: its number, its text, or itself.
+     */
+    static void lookupKeys(Object value, List<Object> out) {
+        if (value == null) {
+            out.add(NULL_KEY);
+            return;
+        }
+        if (value instanceof Boolean) {
+            out.add(value);
+            return;
+        }
+        double number = toDouble(value);
+        if (!Double.isNaN(number)) {
+            out.add(numberKey(number));
+        }
+        out.add(value instanceof Number ? numberText((Number) value) : String.valueOf(value));
+    }
+
+    static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            return parseNumber(((String) value).trim());
+        }
+        return Double.NaN;
+    }
+
+    private static UnaryTest parseSingle(String expr) {
+        if (expr.isEmpty() || expr.equals("-") || expr.equals("*")) {
+            return any();
+        }
+        if (expr.equals("true") || expr.equals("false")) {
+            return equalsAny(List.of(Boolean.valueOf(expr)));
+        }
+        if (expr.equals("null")) {
+            return equalsAny(List.of(NULL_KEY));
+        }
+        if (expr.equals("not null")) {
+            return predicate(Objects::nonNull);
+        }
+        if (isQuoted(expr)) {
+            return equalsAny(List.of(unquote(expr)));
+        }
+
+        UnaryTest range = parseRange(expr);
+        if (range != null) {
+            return range;
+        }
+
+        String lower = expr.toLowerCase();
+        if (expr.startsWith(">=")) {
+            return interval(number(expr.substring(2)), true, Double.POSITIVE_INFINITY, false);
+        }
+        if (expr.startsWith("<=")) {
+            return interval(Double.NEGATIVE_INFINITY, false, number(expr.substring(2)), true);
+        }
+        if (expr.startsWith("!=") || expr.startsWith("<>")) {
+            List<Object> keys = List.of(literalKey(expr.substring(2).trim()));
+            return predicate(value -> !matchesAny(keys, value));
+        }
+        if (expr.startsWith("==")) {
+            return equalsAny(List.of(literalKey(expr.substring(2).trim())));
+        }
+        if (expr.startsWith(">")) {
+            return interval(number(expr.substring(1)), false, Double.POSITIVE_INFINITY, false);
+        }
+        if (expr.startsWith("<")) {
+            return interval(Double.NEGATIVE_INFINITY, false, number(expr.substring(1)), false);
+        }
+        if (expr.startsWith("=")) {
+            return equalsAny(List.of(literalKey(expr.substring(1).trim())));
+        }
+        if (lower.startsWith("not in")) {
+            List<Object> keys = listKeys(expr, expr.substring(6));
+            return predicate(value -> !matchesAny(keys, value));
+        }
+        if (lower.startsWith("in ") || lower.startsWith("in(")) {
+            return equalsAny(listKeys(expr, expr.substring(2)));
+        }
+        if (lower.startsWith("contains(")) {
+            String part = functionArgument(expr);
+            return predicate(value -> value != null && String.valueOf(value).contains(part));
+        }
+        if (lower.startsWith("starts with ")) {
+            String prefix = unquote(expr.substring(12).trim());
+            return predicate(value -> value != null && String.valueOf(value).startsWith(prefix));
+        }
+        if (lower.startsWith("ends with ")) {
+            String suffix = unquote(expr.substring(10).trim());
+            return predicate(value -> value != null && String.valueOf(value).endsWith(suffix));
+        }
+        if (lower.startsWith("matches(")) {
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(functionArgument(expr));
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid pattern in decision entry: " + expr, e);
+            }
+            return predicate(value -> value != null && pattern.matcher(String.valueOf(value)).find());
+        }
+        return equalsAny(List.of(literalKey(expr)));
+    }
+
+    private static UnaryTest parseRange(String expr) {
+        if (expr.length() < 5) {
+            return null;
+        }
+        char open = expr.charAt(0);
+        char close = expr.charAt(expr.length() - 1);
+        int dots = expr.indexOf("..");
+        if ((open != '[' && open != '(' && open != ']') || (close != ']' && close != ')' && close != '[')
+                || dots < 0) {
+            return null;
+        }
+        double low = number(expr.substring(1, dots));
+        double high = number(expr.substring(dots + 2, expr.length() - 1));
+        return interval(low, open == '[', high, close == ']');
+    }
+
+    private static boolean matchesAny(List<Object> keys, Object value) {
+        List<Object> lookup = new ArrayList<>(2);
+        lookupKeys(value, lookup);
+        for (Object key : lookup) {
+            if (keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An unquoted literal compares as a number when it parses as one, otherwise as text.
+     */
+    private static Object literalKey(String literal) {
+        if (isQuoted(literal)) {
+            return unquote(literal);
+        }
+        double number = parseNumber(literal);
+        return Double.isNaN(number) ? literal : numberKey(number);
+    }
+
+    private static Object numberKey(double number) {
+        // -0.0 and 0.0 are different Double keys
+        return number == 0 ? 0.0d : number;
+    }
+
+    private static List<Object> listKeys(String expr, String rest) {
+        String list = rest.trim();
+        if (!list.startsWith("(") || !list.endsWith(")")) {
+            throw new IllegalArgumentException("Invalid list in decision entry: " + expr);
+        }
+        List<Object> keys = new ArrayList<>();
+        for (String item : splitTopLevel(list.substring(1, list.length() - 1))) {
+            keys.add(literalKey(item.trim()));
+        }
+        return keys;
+    }
+
+    private static String functionArgument(String expr) {
+        int open = expr.indexOf('(');
+        int close = expr.lastIndexOf(')');
+        if (open < 0 || close < open) {
+            throw new IllegalArgumentException("Invalid function in decision entry: " + expr);
+        }
+        return unquote(expr.substring(open + 1, close).trim());
+    }
+
+    private static double number(String text) {
+        double number = parseNumber(text.trim());
+        if (Double.isNaN(number)) {
+            throw new IllegalArgumentException("Expected a number in decision entry: " + text.trim());
+        }
+        return number;
+    }
+
+    private static double parseNumber(String text) {
+        if (text.isEmpty()) {
+            return Double.NaN;
+        }
+        char first = text.charAt(0);
+        if (!(Character.isDigit(first) || first == '-' || first == '+' || first == '.')) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String numberText(Number number) {
+        double d = number.doubleValue();
+        if (d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < 1e15) {
+            return Long.toString((long) d);
+        }
+        return number.toString();
+    }
+
+    private static boolean isQuoted(String text) {
+        if (text.length() < 2) {
+            return false;
+        }
+        char first = text.charAt(0);
+        return (first == '"' || first == '\'') && text.charAt(text.length() - 1) == first;
+    }
+
+    private static String unquote(String text) {
+        return isQuoted(text) ? text.substring(1, text.length() - 1) : text;
+    }
+
+    /**
+     * Splits on commas that are not inside quotes, parentheses or brackets.
+     */
+    private static List<String> splitTopLevel(String text) {
+        List<String> parts = new ArrayList<>(1);
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                depth--;
+            } else if (c == ',' && depth <= 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(text.substring(start));
+        return parts;
+    }
+}
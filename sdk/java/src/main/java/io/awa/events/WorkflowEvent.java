@@ -0,0 +1,68 @@
+package io.awa.events;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.awa.model.ActorType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * WorkflowEvent - execution event for workflow streaming (spec/avro/event.avsc)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkflowEvent {
+
+    @JsonProperty("event_id")
+    private UUID eventId;
+
+    @JsonProperty("event_type")
+    private WorkflowEventType eventType;
+
+    @JsonProperty("workflow_id")
+    private UUID workflowId;
+
+    @JsonProperty("workflow_instance_id")
+    private UUID workflowInstanceId;
+
+    @JsonProperty("activity_id")
+    private UUID activityId;
+
+    @JsonProperty("context_id")
+    private UUID contextId;
+
+    @JsonProperty("decision_node_id")
+    private UUID decisionNodeId;
+
+    @JsonProperty("actor_id")
+    private String actorId;
+
+    @JsonProperty("actor_type")
+    private ActorType actorType;
+
+    /** Event-specific data as JSON */
+    private String payload;
+
+    @JsonProperty("error_message")
+    private String errorMessage;
+
+    @JsonProperty("error_code")
+    private String errorCode;
+
+    @JsonProperty("correlation_id")
+    private String correlationId;
+
+    @JsonProperty("parent_event_id")
+    private UUID parentEventId;
+
+    /** Epoch milliseconds */
+    private long timestamp;
+
+    private Map<String, String> metadata;
+}
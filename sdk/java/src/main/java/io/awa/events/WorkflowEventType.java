@@ -0,0 +1,24 @@
+package io.awa.events;
+
+/**
+ * Workflow execution event types, mirroring spec/avro/event.avsc
+ */
+public enum WorkflowEventType {
+    WORKFLOW_CREATED,
+    WORKFLOW_STARTED,
+    WORKFLOW_PAUSED,
+    WORKFLOW_RESUMED,
+    WORKFLOW_COMPLETED,
+    WORKFLOW_FAILED,
+    WORKFLOW_CANCELLED,
+    ACTIVITY_STARTED,
+    ACTIVITY_COMPLETED,
+    ACTIVITY_FAILED,
+    ACTIVITY_SKIPPED,
+    CONTEXT_CREATED,
+    CONTEXT_UPDATED,
+    CONTEXT_DELETED,
+    DECISION_EVALUATED,
+    SLA_WARNING,
+    SLA_BREACHED
+}
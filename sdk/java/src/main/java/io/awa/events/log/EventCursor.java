@@ -0,0 +1,265 @@
+package io.awa.events.log;
+
+import io.awa.events.WorkflowEvent;
+import io.awa.events.WorkflowEventType;
+import io.awa.model.ActorType;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.awa.events.log.EventRecords.*;
+
+/**
+ * Flyweight over the records of an {@link EventLog}.
+ * <p>
+ * The cursor reads fields in place from the mapped segment. Sequence, timestamp, types and
+ * id comparisons allocate nothing; methods returning a {@link UUID}, a String or an event
+ * materialize them. When {@link #next()} returns false the cursor is at the end of the log;
+ * calling it again later picks up events appended since. Not thread-safe; use one cursor
+ * per reader thread.
+ */
+public final class EventCursor {
+
+    private static final WorkflowEventType[] EVENT_TYPES = WorkflowEventType.values();
+    private static final ActorType[] ACTOR_TYPES = ActorType.values();
+
+    private final List<Segment> segments;
+    private final int[] stringOffsets = new int[STRING_COUNT + 1];
+
+    private int segmentIndex;
+    private Segment segment;
+    private ByteBuffer buffer;
+    private int nextOffset;
+    private int record = -1;
+    private int stringsResolved;
+
+    EventCursor(List<Segment> segments, int segmentIndex) {
+        this.segments = segments;
+        this.segmentIndex = segmentIndex;
+        this.segment = segments.get(segmentIndex);
+        this.buffer = segment.buffer;
+        this.nextOffset = SEGMENT_HEADER;
+    }
+
+    /**
+     * Moves onto the next event.
+     *
+     * @return false at the end of the log
+     * @throws IllegalStateException if the segment holds a corrupt record
+     */
+    public boolean next() {
+        while (true) {
+            int length = segment.lengthAt(nextOffset);
+            if (length == 0) {
+                if (segmentIndex + 1 >= segments.size()) {
+                    return false;
+                }
+                // The writer creates the next segment only after its last append to this one,
+                // so a record that landed in between is visible now
+                length = segment.lengthAt(nextOffset);
+                if (length == 0) {
+                    segment = segments.get(++segmentIndex);
+                    buffer = segment.buffer;
+                    nextOffset = SEGMENT_HEADER;
+                    continue;
+                }
+            }
+            if (length < STRINGS || nextOffset + length > segment.size) {
+                throw new IllegalStateException("Corrupt event log record at offset " + nextOffset
+                        + " of " + segment.path);
+            }
+            record = nextOffset;
+            nextOffset += length;
+            stringsResolved = 0;
+            return true;
+        }
+    }
+
+    /**
+     * Advances until the next event is the one with the given sequence, or the end of the log.
+     */
+    void skipTo(long sequence) {
+        while (segment.lengthAt(nextOffset) > 0 && buffer.getLong(nextOffset + SEQUENCE) < sequence) {
+            next();
+        }
+    }
+
+    public long sequence() {
+        return buffer.getLong(current() + SEQUENCE);
+    }
+
+    /**
+     * Epoch milliseconds.
+     */
+    public long timestamp() {
+        return buffer.getLong(current() + TIMESTAMP);
+    }
+
+    public WorkflowEventType eventType() {
+        return EVENT_TYPES[buffer.get(current() + EVENT_TYPE)];
+    }
+
+    public ActorType actorType() {
+        byte ordinal = buffer.get(current() + ACTOR_TYPE);
+        return ordinal >= 0 ? ACTOR_TYPES[ordinal] : null;
+    }
+
+    public boolean isWorkflow(UUID workflowId) {
+        return uuidEquals(WORKFLOW_ID, workflowId);
+    }
+
+    public boolean isWorkflowInstance(UUID instanceId) {
+        return uuidEquals(INSTANCE_ID, instanceId);
+    }
+
+    public boolean isActivity(UUID activityId) {
+        return has(HAS_ACTIVITY_ID) && uuidEquals(ACTIVITY_ID, activityId);
+    }
+
+    public boolean isContext(UUID contextId) {
+        return has(HAS_CONTEXT_ID) && uuidEquals(CONTEXT_ID, contextId);
+    }
+
+    public UUID eventId() {
+        return uuid(EVENT_ID);
+    }
+
+    public UUID workflowId() {
+        return uuid(WORKFLOW_ID);
+    }
+
+    public UUID workflowInstanceId() {
+        return uuid(INSTANCE_ID);
+    }
+
+    public UUID activityId() {
+        return has(HAS_ACTIVITY_ID) ? uuid(ACTIVITY_ID) : null;
+    }
+
+    public UUID contextId() {
+        return has(HAS_CONTEXT_ID) ? uuid(CONTEXT_ID) : null;
+    }
+
+    public UUID decisionNodeId() {
+        return has(HAS_DECISION_NODE_ID) ? uuid(DECISION_NODE_ID) : null;
+    }
+
+    public UUID parentEventId() {
+        return has(HAS_PARENT_EVENT_ID) ? uuid(PARENT_EVENT_ID) : null;
+    }
+
+    public String actorId() {
+        return getString(buffer, stringOffset(0));
+    }
+
+    public String payload() {
+        return getString(buffer, stringOffset(1));
+    }
+
+    /**
+     * UTF-8 length of the payload, -1 if there is none.
+     */
+    public int payloadLength() {
+        return buffer.getInt(stringOffset(1));
+    }
+
+    public String errorMessage() {
+        return getString(buffer, stringOffset(2));
+    }
+
+    public String errorCode() {
+        return getString(buffer, stringOffset(3));
+    }
+
+    public String correlationId() {
+        return getString(buffer, stringOffset(4));
+    }
+
+    public Map<String, String> metadata() {
+        int offset = stringOffset(STRING_COUNT);
+        int count = buffer.getInt(offset);
+        if (count < 0) {
+            return null;
+        }
+        Map<String, String> metadata = new HashMap<>(count * 2);
+        offset += 4;
+        for (int i = 0; i < count; i++) {
+            String key = getString(buffer, offset);
+            offset = skipString(buffer, offset);
+            metadata.put(key, getString(buffer, offset));
+            offset = skipString(buffer, offset);
+        }
+        return metadata;
+    }
+
+    /**
+     * Materializes the current event.
+     */
+    public WorkflowEvent toEvent() {
+        return readInto(new WorkflowEvent());
+    }
+
+    /**
+     * Copies the current event into {@code event}, replacing all of its fields.
+     */
+    public WorkflowEvent readInto(WorkflowEvent event) {
+        event.setEventId(eventId());
+        event.setEventType(eventType());
+        event.setWorkflowId(workflowId());
+        event.setWorkflowInstanceId(workflowInstanceId());
+        event.setActivityId(activityId());
+        event.setContextId(contextId());
+        event.setDecisionNodeId(decisionNodeId());
+        event.setActorId(actorId());
+        event.setActorType(actorType());
+        event.setPayload(payload());
+        event.setErrorMessage(errorMessage());
+        event.setErrorCode(errorCode());
+        event.setCorrelationId(correlationId());
+        event.setParentEventId(parentEventId());
+        event.setTimestamp(timestamp());
+        event.setMetadata(metadata());
+        return event;
+    }
+
+    private int current() {
+        if (record < 0) {
+            throw new IllegalStateException("Call next() before reading an event");
+        }
+        return record;
+    }
+
+    private boolean has(short flag) {
+        return (buffer.getShort(current() + PRESENCE) & flag) != 0;
+    }
+
+    private boolean uuidEquals(int field, UUID id) {
+        int offset = current() + field;
+        return id != null && buffer.getLong(offset) == id.getMostSignificantBits()
+                && buffer.getLong(offset + 8) == id.getLeastSignificantBits();
+    }
+
+    private UUID uuid(int field) {
+        int offset = current() + field;
+        return new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+    }
+
+    /**
+     * Offset of string field {@code index}, or of the metadata for {@link EventRecords#STRING_COUNT};
+     * resolved lazily since strings are variable-length.
+     */
+    private int stringOffset(int index) {
+        if (stringsResolved == 0) {
+            stringOffsets[0] = current() + STRINGS;
+            stringsResolved = 1;
+        }
+        while (stringsResolved <= index) {
+            stringOffsets[stringsResolved] = skipString(buffer, stringOffsets[stringsResolved - 1]);
+            stringsResolved++;
+        }
+        return stringOffsets[index];
+    }
+}
@@ -0,0 +1,278 @@
+package io.awa.events.log;
+
+import io.awa.events.WorkflowEvent;
+import io.awa.model.ActorType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import static io.awa.events.log.EventRecords.*;
+
+/**
+ * Append-only log of {@link WorkflowEvent}s in memory-mapped segment files.
+ * <p>
+ * Each event becomes one fixed-layout binary record (see {@link EventRecords}) and gets
+ * the next sequence number, starting at 0. Appending writes straight into the mapped
+ * segment and allocates nothing for events whose metadata is null or a {@link java.util.HashMap}.
+ * A segment that cannot take the next record is closed and a new one named after the
+ * record's sequence is created, so the log can be replayed from any sequence with
+ * {@link #cursor(long)}, for example to rebuild instance state or an
+ * {@link io.awa.model.SyncPattern#EVENT_SOURCING} context.
+ * <p>
+ * Appends are serialized; cursors may read concurrently with appends, including from other
+ * threads. Records reach the page cache immediately, and the disk on {@link #flush()},
+ * at segment rollover, and on {@link #close()}.
+ *
+ * <pre>{@code
+ * try (EventLog log = EventLog.open(Path.of("events"))) {
+ *     engine.listener(log::append);
+ *     ...
+ *     EventCursor cursor = log.cursor();
+ *     while (cursor.next()) {
+ *         if (cursor.isWorkflowInstance(instanceId)) {
+ *             apply(cursor.eventType(), cursor.payload());
+ *         }
+ *     }
+ * }
+ * }</pre>
+ */
+public final class EventLog implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final int MIN_SEGMENT_SIZE = 4096;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<Segment> segments;
+    private final BiConsumer<String, String> metadataSizer = this::sizeMetadataEntry;
+    private final BiConsumer<String, String> metadataWriter = this::putMetadataEntry;
+
+    private Segment active;
+    private int position;
+    private volatile long nextSequence;
+    private volatile boolean closed;
+    private int metadataCursor;
+
+    private EventLog(Path directory, int segmentSize, List<Segment> segments, int position, long nextSequence) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segments = new CopyOnWriteArrayList<>(segments);
+        this.active = segments.get(segments.size() - 1);
+        this.position = position;
+        this.nextSequence = nextSequence;
+    }
+
+    /**
+     * Opens the log in the directory with 64 MiB segments, creating it if needed.
+     */
+    public static EventLog open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the log in the directory, creating it if needed. Existing segments keep their size;
+     * new segments get {@code segmentSize} bytes, which also bounds the size of one record.
+     *
+     * @throws IllegalArgumentException if the segment size is below {@link #MIN_SEGMENT_SIZE}
+     *                                  or not a multiple of 8
+     */
+    public static EventLog open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE || segmentSize % ALIGNMENT != 0) {
+            throw new IllegalArgumentException("Segment size must be a multiple of " + ALIGNMENT
+                    + " and at least " + MIN_SEGMENT_SIZE + ": " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files.filter(p -> p.getFileName().toString().endsWith(".log"))
+                    .sorted()::iterator) {
+                segments.add(Segment.open(path));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(Segment.create(directory, 0, segmentSize));
+            return new EventLog(directory, segmentSize, segments, SEGMENT_HEADER, 0);
+        }
+
+        // Recover the end of the last segment: records are committed by their length word,
+        // so the first zero length, or a record out of sequence, marks the end.
+        Segment last = segments.get(segments.size() - 1);
+        int offset = SEGMENT_HEADER;
+        long sequence = last.baseSequence;
+        while (true) {
+            int length = last.lengthAt(offset);
+            if (length < STRINGS || offset + length > last.size
+                    || last.buffer.getLong(offset + SEQUENCE) != sequence) {
+                break;
+            }
+            offset += length;
+            sequence++;
+        }
+        return new EventLog(directory, segmentSize, segments, offset, sequence);
+    }
+
+    /**
+     * Appends the event.
+     *
+     * @return the event's sequence in the log
+     * @throws IllegalArgumentException if the event type or a required id is missing,
+     *                                  or the record does not fit in a segment
+     * @throws IllegalStateException    if the log is closed
+     * @throws UncheckedIOException if a new segment cannot be created
+     */
+    public synchronized long append(WorkflowEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Event log is closed");
+        }
+        if (event.getEventType() == null || event.getEventId() == null || event.getWorkflowId() == null
+                || event.getWorkflowInstanceId() == null) {
+            throw new IllegalArgumentException(
+                    "Event type, event id, workflow id and workflow instance id are required");
+        }
+
+        int size = STRINGS + sizeOf(event.getActorId()) + sizeOf(event.getPayload())
+                + sizeOf(event.getErrorMessage()) + sizeOf(event.getErrorCode()) + sizeOf(event.getCorrelationId())
+                + 4;
+        Map<String, String> metadata = event.getMetadata();
+        if (metadata != null) {
+            metadataCursor = 0;
+            metadata.forEach(metadataSizer);
+            size += metadataCursor;
+        }
+        size = align(size);
+        if (position + size > active.size) {
+            if (size > segmentSize - SEGMENT_HEADER) {
+                throw new IllegalArgumentException("Event of " + size + " bytes does not fit in a segment of "
+                        + segmentSize + " bytes");
+            }
+            roll();
+        }
+
+        long sequence = nextSequence;
+        ByteBuffer buffer = active.buffer;
+        int record = position;
+        ActorType actorType = event.getActorType();
+        buffer.put(record + EVENT_TYPE, (byte) event.getEventType().ordinal());
+        buffer.put(record + ACTOR_TYPE, (byte) (actorType != null ? actorType.ordinal() : -1));
+        buffer.putShort(record + PRESENCE, (short) ((event.getActivityId() != null ? HAS_ACTIVITY_ID : 0)
+                | (event.getContextId() != null ? HAS_CONTEXT_ID : 0)
+                | (event.getDecisionNodeId() != null ? HAS_DECISION_NODE_ID : 0)
+                | (event.getParentEventId() != null ? HAS_PARENT_EVENT_ID : 0)));
+        buffer.putLong(record + SEQUENCE, sequence);
+        buffer.putLong(record + TIMESTAMP, event.getTimestamp());
+        putUuid(buffer, record + EVENT_ID, event.getEventId());
+        putUuid(buffer, record + WORKFLOW_ID, event.getWorkflowId());
+        putUuid(buffer, record + INSTANCE_ID, event.getWorkflowInstanceId());
+        putUuid(buffer, record + ACTIVITY_ID, event.getActivityId());
+        putUuid(buffer, record + CONTEXT_ID, event.getContextId());
+        putUuid(buffer, record + DECISION_NODE_ID, event.getDecisionNodeId());
+        putUuid(buffer, record + PARENT_EVENT_ID, event.getParentEventId());
+
+        int offset = record + STRINGS;
+        offset = putString(buffer, offset, event.getActorId());
+        offset = putString(buffer, offset, event.getPayload());
+        offset = putString(buffer, offset, event.getErrorMessage());
+        offset = putString(buffer, offset, event.getErrorCode());
+        offset = putString(buffer, offset, event.getCorrelationId());
+        if (metadata == null) {
+            buffer.putInt(offset, -1);
+        } else {
+            buffer.putInt(offset, metadata.size());
+            metadataCursor = offset + 4;
+            metadata.forEach(metadataWriter);
+        }
+
+        // Clear the next length word before publishing, so readers never mistake stale bytes for a record
+        if (record + size + 4 <= active.size) {
+            buffer.putInt(record + size, 0);
+        }
+        publishLength(buffer, record, size);
+        position = record + size;
+        nextSequence = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * Sequence the next appended event will get, which is also the number of events in the log.
+     */
+    public long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * A cursor before the first event of the log.
+     */
+    public EventCursor cursor() {
+        return cursor(0);
+    }
+
+    /**
+     * A cursor before the event with the given sequence; {@link EventCursor#next()} moves onto it.
+     * A sequence beyond the end waits for that event to be appended.
+     */
+    public EventCursor cursor(long fromSequence) {
+        int index = 0;
+        while (index + 1 < segments.size() && segments.get(index + 1).baseSequence <= fromSequence) {
+            index++;
+        }
+        EventCursor cursor = new EventCursor(segments, index);
+        cursor.skipTo(fromSequence);
+        return cursor;
+    }
+
+    /**
+     * Forces the appended records of the active segment to disk.
+     */
+    public synchronized void flush() {
+        active.buffer.force();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            active.buffer.force();
+        }
+    }
+
+    private void roll() {
+        active.buffer.force();
+        Segment next;
+        try {
+            next = Segment.create(directory, nextSequence, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create event log segment in " + directory, e);
+        }
+        segments.add(next);
+        active = next;
+        position = SEGMENT_HEADER;
+    }
+
+    private void sizeMetadataEntry(String key, String value) {
+        metadataCursor += sizeOf(key) + sizeOf(value);
+    }
+
+    private void putMetadataEntry(String key, String value) {
+        metadataCursor = putString(active.buffer, metadataCursor, key);
+        metadataCursor = putString(active.buffer, metadataCursor, value);
+    }
+
+    private static void putUuid(ByteBuffer buffer, int offset, UUID id) {
+        buffer.putLong(offset, id != null ? id.getMostSignificantBits() : 0L);
+        buffer.putLong(offset + 8, id != null ? id.getLeastSignificantBits() : 0L);
+    }
+}
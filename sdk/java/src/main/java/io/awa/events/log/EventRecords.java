@@ -0,0 +1,166 @@
+package io.awa.events.log;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary layout of an event log record, little-endian, 8-byte aligned:
+ * <pre>
+ *   0  int    record length, written last (0 marks the end of the written region)
+ *   4  byte   event type ordinal (-1 for none)
+ *   5  byte   actor type ordinal (-1 for none)
+ *   6  short  presence bits of the optional UUIDs
+ *   8  long   sequence
+ *  16  long   timestamp
+ *  24  7 x (long msb, long lsb)  event, workflow, instance, activity, context,
+ *                                decision node and parent event ids
+ * 136  strings actor id, payload, error message, error code, correlation id,
+ *              each an int UTF-8 length (-1 for null) and its bytes
+ *      int    metadata entry count (-1 for null), then key and value strings
+ * </pre>
+ */
+final class EventRecords {
+
+    static final int LENGTH = 0;
+    static final int EVENT_TYPE = 4;
+    static final int ACTOR_TYPE = 5;
+    static final int PRESENCE = 6;
+    static final int SEQUENCE = 8;
+    static final int TIMESTAMP = 16;
+    static final int EVENT_ID = 24;
+    static final int WORKFLOW_ID = 40;
+    static final int INSTANCE_ID = 56;
+    static final int ACTIVITY_ID = 72;
+    static final int CONTEXT_ID = 88;
+    static final int DECISION_NODE_ID = 104;
+    static final int PARENT_EVENT_ID = 120;
+    static final int STRINGS = 136;
+    static final int STRING_COUNT = 5;
+
+    static final short HAS_ACTIVITY_ID = 1;
+    static final short HAS_CONTEXT_ID = 1 << 1;
+    static final short HAS_DECISION_NODE_ID = 1 << 2;
+    static final short HAS_PARENT_EVENT_ID = 1 << 3;
+
+    static final int ALIGNMENT = 8;
+
+    /**
+     * Segment header: magic, format version, base sequence.
+     */
+    static final int MAGIC = 0x4C415741; // "AWAL"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER = 16;
+
+    /**
+     * Ordered access to the length word, so a reader that sees a non-zero length also sees the record.
+     */
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private EventRecords() {
+    }
+
+    static void publishLength(ByteBuffer buffer, int offset, int length) {
+        INT.setRelease(buffer, offset, length);
+    }
+
+    static int readLength(ByteBuffer buffer, int offset) {
+        return (int) INT.getAcquire(buffer, offset);
+    }
+
+    static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Encoded size of a string field: length prefix plus UTF-8 bytes.
+     */
+    static int sizeOf(String value) {
+        return 4 + (value != null ? utf8Length(value) : 0);
+    }
+
+    /**
+     * UTF-8 length without encoding; unpaired surrogates count as one byte, see {@link #putString}.
+     */
+    static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string without allocating; unpaired surrogates become '?'.
+     *
+     * @return the offset after the string
+     */
+    static int putString(ByteBuffer buffer, int offset, String value) {
+        if (value == null) {
+            buffer.putInt(offset, -1);
+            return offset + 4;
+        }
+        int start = offset + 4;
+        int position = start;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put(position++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.put(position++, (byte) (0xC0 | (c >> 6)));
+                buffer.put(position++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put(position++, (byte) (0xF0 | (codePoint >> 18)));
+                buffer.put(position++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put(position++, (byte) '?');
+            } else {
+                buffer.put(position++, (byte) (0xE0 | (c >> 12)));
+                buffer.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        buffer.putInt(offset, position - start);
+        return position;
+    }
+
+    /**
+     * Reads the string at the offset, or null.
+     */
+    static String getString(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Offset after the string at the offset.
+     */
+    static int skipString(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset);
+        return offset + 4 + Math.max(length, 0);
+    }
+}
@@ -0,0 +1,73 @@
+package io.awa.events.log;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One memory-mapped file of the log, named after the sequence of its first record.
+ */
+final class Segment {
+
+    final long baseSequence;
+    final Path path;
+    final MappedByteBuffer buffer;
+    final int size;
+
+    private Segment(long baseSequence, Path path, MappedByteBuffer buffer) {
+        this.baseSequence = baseSequence;
+        this.path = path;
+        this.buffer = buffer;
+        this.size = buffer.capacity();
+    }
+
+    static String fileName(long baseSequence) {
+        return String.format("%020d.log", baseSequence);
+    }
+
+    static Segment create(Path directory, long baseSequence, int size) throws IOException {
+        Path path = directory.resolve(fileName(baseSequence));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, EventRecords.MAGIC);
+        buffer.putInt(4, EventRecords.VERSION);
+        buffer.putLong(8, baseSequence);
+        return new Segment(baseSequence, path, buffer);
+    }
+
+    /**
+     * @throws IOException if the file is not a segment of this format
+     */
+    static Segment open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < EventRecords.SEGMENT_HEADER || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an event log segment: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != EventRecords.MAGIC) {
+            throw new IOException("Not an event log segment: " + path);
+        }
+        if (buffer.getInt(4) != EventRecords.VERSION) {
+            throw new IOException("Unsupported event log version " + buffer.getInt(4) + " in " + path);
+        }
+        return new Segment(buffer.getLong(8), path, buffer);
+    }
+
+    /**
+     * Length of the record at the offset, 0 if none has been written there yet.
+     */
+    int lengthAt(int offset) {
+        return offset + 4 <= size ? EventRecords.readLength(buffer, offset) : 0;
+    }
+}
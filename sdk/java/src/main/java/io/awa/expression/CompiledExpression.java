@@ -0,0 +1,21 @@
+package io.awa.expression;
+
+/**
+ * An expression compiled by {@link ExpressionCompiler} into a tree of closures.
+ * Instances are immutable and thread-safe.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+    /**
+     * Evaluates to a Boolean, Double, String, List or a variable value; never throws for missing variables.
+     */
+    Object evaluate(VariableResolver variables);
+
+    /**
+     * Evaluates the expression as a condition, using the same truthiness as the interpreted evaluator.
+     */
+    default boolean test(VariableResolver variables) {
+        return Values.isTruthy(evaluate(variables));
+    }
+}
@@ -0,0 +1,705 @@
+package io.awa.expression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles edge condition expressions into closure trees.
+ * <p>
+ * The language is a superset of what the interpreted condition evaluators accept:
+ * <pre>
+ *   risk_score &lt; 50 &amp;&amp; (approved == true || tier in ['gold', 'platinum'])
+ *   order.total * 1.2 &gt;= limit and not blocked
+ * </pre>
+ * Literals are numbers, quoted strings, {@code true}, {@code false} and {@code null};
+ * identifiers read variables, with {@code .name} or {@code .0} stepping into maps and lists.
+ * Operators by increasing precedence: {@code || or}, {@code && and}, {@code not},
+ * comparisons ({@code == != < <= > >= in}, {@code not in}), {@code + -}, {@code * / %},
+ * unary {@code - !}. Equality is loose and ordering is numeric, as in the interpreted
+ * evaluators.
+ * <p>
+ * For compatibility with them, the right of a comparison may also be unquoted text:
+ * <ul>
+ *     <li>an undefined bare identifier compares as text, so {@code status == approved} still works;</li>
+ *     <li>a run of characters without spaces that is not a single literal or a variable path,
+ *     such as {@code 2024-01-01}, {@code in-progress} or {@code a@b.com}, is text, so arithmetic
+ *     there needs spaces or parentheses: {@code total == (price*qty)};</li>
+ *     <li>in a condition of the interpreted form {@code name op rest}, a {@code rest} that does
+ *     not parse as one operand, such as {@code hello world}, is the text of the whole rest,
+ *     unquoted.</li>
+ * </ul>
+ * <p>
+ * Parsing, literal conversion and constant subexpressions are resolved at compile time.
+ */
+public final class ExpressionCompiler {
+
+    private static final VariableResolver NO_VARIABLES = name -> null;
+    private static final Pattern NUMBER = Pattern.compile("(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    private static final Pattern WORD = Pattern.compile("\\w+");
+    private static final String WORD_BREAKS = "()[],'\"&|<>=!";
+
+    private final String source;
+    private final List<Token> tokens;
+    private int pos;
+
+    private ExpressionCompiler(String source) {
+        this.source = source;
+        this.tokens = tokenize(source);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static CompiledExpression compile(String source) {
+        if (source == null || source.isBlank()) {
+            return variables -> Boolean.TRUE;
+        }
+        ExpressionCompiler compiler = new ExpressionCompiler(source);
+        Node node = compiler.parseOr();
+        if (compiler.peek().type != TokenType.END) {
+            throw compiler.error(compiler.peek().type == TokenType.INVALID
+                    ? compiler.peek().error : "Unexpected '" + compiler.peek().text + "'");
+        }
+        return node.expression;
+    }
+
+    // Parser
+
+    private Node parseOr() {
+        Node left = parseAnd();
+        while (matchOperator("||") || matchKeyword("or")) {
+            Node right = parseAnd();
+            CompiledExpression l = left.expression;
+            CompiledExpression r = right.expression;
+            left = fold(vars -> l.test(vars) || r.test(vars), left, right);
+        }
+        return left;
+    }
+
+    private Node parseAnd() {
+        Node left = parseNot();
+        while (matchOperator("&&") || matchKeyword("and")) {
+            Node right = parseNot();
+            CompiledExpression l = left.expression;
+            CompiledExpression r = right.expression;
+            left = fold(vars -> l.test(vars) && r.test(vars), left, right);
+        }
+        return left;
+    }
+
+    private Node parseNot() {
+        if (peekKeyword("not") && !peekKeyword(1, "in")) {
+            pos++;
+            Node operand = parseNot();
+            CompiledExpression e = operand.expression;
+            return fold(vars -> !e.test(vars), operand);
+        }
+        return parseComparison();
+    }
+
+    private Node parseComparison() {
+        Node left = parseAdditive();
+        Token token = peek();
+        if (token.type == TokenType.OPERATOR) {
+            switch (token.text) {
+                case "==":
+                case "!=": {
+                    pos++;
+                    Node right = comparand();
+                    CompiledExpression equality = equality(left, right);
+                    return token.text.equals("==")
+                            ? fold(equality, left, right)
+                            : fold(vars -> !(Boolean) equality.evaluate(vars), left, right);
+                }
+                case "<":
+                case "<=":
+                case ">":
+                case ">=":
+                    pos++;
+                    return ordering(token.text, left, comparand());
+                default:
+                    return left;
+            }
+        }
+        if (matchKeyword("in")) {
+            return membership(left, parseAdditive(), false);
+        }
+        if (peekKeyword("not") && peekKeyword(1, "in")) {
+            pos += 2;
+            return membership(left, parseAdditive(), true);
+        }
+        return left;
+    }
+
+    /**
+     * Parses the right of a comparison, reading it as text where the interpreted evaluators do.
+     */
+    private Node comparand() {
+        int start = pos;
+        Node right = word();
+        IllegalArgumentException failure = null;
+        if (right == null) {
+            try {
+                right = parseAdditive();
+            } catch (IllegalArgumentException e) {
+                failure = e;
+            }
+        }
+        boolean legacy = isLegacyRest(start);
+        if ((failure != null || !atComparisonEnd(legacy)) && legacy) {
+            pos = tokens.size() - 1;
+            return Node.constant(unquote(source.substring(tokens.get(start).position).trim()));
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return right;
+    }
+
+    /**
+     * Reads an unspaced run such as {@code 2024-01-01} or {@code 1.2.3} as text, or returns null
+     * if the run is a single literal, a variable or a variable path.
+     */
+    private Node word() {
+        Token first = peek();
+        int from = first.position;
+        int to = from;
+        while (to < source.length() && !Character.isWhitespace(source.charAt(to))
+                && WORD_BREAKS.indexOf(source.charAt(to)) < 0) {
+            to++;
+        }
+        if (to == from) {
+            return null;
+        }
+        int last = pos;
+        while (tokens.get(last).type != TokenType.END && tokens.get(last).end <= to) {
+            last++;
+        }
+        if (last == pos + 1 && first.type != TokenType.INVALID || isPath(pos, last)) {
+            return null;
+        }
+        pos = last;
+        return Node.constant(source.substring(from, to));
+    }
+
+    private boolean isPath(int from, int to) {
+        if (tokens.get(from).type != TokenType.IDENTIFIER) {
+            return false;
+        }
+        for (int i = from + 1; i < to; i += 2) {
+            Token step = i + 1 < to ? tokens.get(i + 1) : null;
+            if (!tokens.get(i).text.equals(".") || tokens.get(i).type != TokenType.OPERATOR || step == null
+                    || step.type != TokenType.IDENTIFIER && step.type != TokenType.NUMBER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the comparison may end here; at the top level a closing bracket or comma may not.
+     */
+    private boolean atComparisonEnd(boolean topLevel) {
+        Token token = peek();
+        switch (token.type) {
+            case END:
+                return true;
+            case OPERATOR:
+                return token.text.equals("&&") || token.text.equals("||") || !topLevel
+                        && (token.text.equals(")") || token.text.equals("]") || token.text.equals(","));
+            case IDENTIFIER:
+                return token.text.equals("and") || token.text.equals("or");
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Whether the comparison starting at this token is the whole condition in the interpreted
+     * form {@code name op rest}, where the interpreted evaluators take {@code rest} as text.
+     */
+    private boolean isLegacyRest(int start) {
+        return start == 2 && tokens.get(start).type != TokenType.END
+                && tokens.get(0).type == TokenType.IDENTIFIER && WORD.matcher(tokens.get(0).text).matches();
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2) {
+            char first = value.charAt(0);
+            char last = value.charAt(value.length() - 1);
+            if ((first == '"' || first == '\'') && first == last) {
+                return value.substring(1, value.length() - 1);
+            }
+        }
+        return value;
+    }
+
+    private Node parseAdditive() {
+        Node left = parseMultiplicative();
+        while (true) {
+            if (matchOperator("+")) {
+                Node right = parseMultiplicative();
+                CompiledExpression l = left.expression;
+                CompiledExpression r = right.expression;
+                left = fold(vars -> plus(l.evaluate(vars), r.evaluate(vars)), left, right);
+            } else if (matchOperator("-")) {
+                left = arithmetic('-', left, parseMultiplicative());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node parseMultiplicative() {
+        Node left = parseUnary();
+        while (true) {
+            if (matchOperator("*")) {
+                left = arithmetic('*', left, parseUnary());
+            } else if (matchOperator("/")) {
+                left = arithmetic('/', left, parseUnary());
+            } else if (matchOperator("%")) {
+                left = arithmetic('%', left, parseUnary());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node parseUnary() {
+        if (matchOperator("-")) {
+            Node operand = parseUnary();
+            CompiledExpression e = operand.expression;
+            return fold(vars -> -Values.toNumber(e.evaluate(vars)), operand);
+        }
+        if (matchOperator("!")) {
+            Node operand = parseUnary();
+            CompiledExpression e = operand.expression;
+            return fold(vars -> !e.test(vars), operand);
+        }
+        return parsePrimary();
+    }
+
+    private Node parsePrimary() {
+        Token token = peek();
+        switch (token.type) {
+            case NUMBER:
+                pos++;
+                return Node.constant(Double.parseDouble(token.text));
+            case STRING:
+                pos++;
+                return Node.constant(token.text);
+            case IDENTIFIER:
+                pos++;
+                switch (token.text) {
+                    case "true":
+                        return Node.constant(Boolean.TRUE);
+                    case "false":
+                        return Node.constant(Boolean.FALSE);
+                    case "null":
+                        return Node.constant(null);
+                    default:
+                        return variable(token.text);
+                }
+            case OPERATOR:
+                if (matchOperator("(")) {
+                    Node inner = parseOr();
+                    expectOperator(")");
+                    return inner;
+                }
+                if (matchOperator("[")) {
+                    return list();
+                }
+                throw error("Unexpected '" + token.text + "'");
+            case INVALID:
+                throw error(token.error);
+            default:
+                throw error("Unexpected end of expression");
+        }
+    }
+
+    private Node variable(String root) {
+        List<String> path = new ArrayList<>();
+        while (matchOperator(".")) {
+            Token step = peek();
+            if (step.type != TokenType.IDENTIFIER && step.type != TokenType.NUMBER) {
+                throw error("Expected a name after '.'");
+            }
+            pos++;
+            path.add(step.text);
+        }
+        if (path.isEmpty()) {
+            return new Node(vars -> vars.resolve(root), false, null, root);
+        }
+        String[] steps = path.toArray(new String[0]);
+        return new Node(vars -> {
+            Object value = vars.resolve(root);
+            for (int i = 0; i < steps.length && value != null; i++) {
+                value = Values.member(value, steps[i]);
+            }
+            return value;
+        }, false, null, root, root + "." + String.join(".", steps));
+    }
+
+    private Node list() {
+        List<Node> items = new ArrayList<>();
+        if (!matchOperator("]")) {
+            do {
+                items.add(parseOr());
+            } while (matchOperator(","));
+            expectOperator("]");
+        }
+        CompiledExpression[] elements = new CompiledExpression[items.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = items.get(i).expression;
+        }
+        return fold(vars -> {
+            List<Object> values = new ArrayList<>(elements.length);
+            for (CompiledExpression element : elements) {
+                values.add(element.evaluate(vars));
+            }
+            return Collections.unmodifiableList(values);
+        }, items.toArray(new Node[0]));
+    }
+
+    // Operators
+
+    /**
+     * Returns an expression evaluating to Boolean equality of the operands.
+     */
+    private static CompiledExpression equality(Node left, Node right) {
+        CompiledExpression l = left.expression;
+        if (right.bareName != null) {
+            // Legacy form: a bare word or path on the right whose variable is undefined is a text literal
+            String name = right.bareName;
+            String text = right.text;
+            CompiledExpression r = right.expression;
+            return vars -> Values.looselyEquals(l.evaluate(vars), vars.isDefined(name) ? r.evaluate(vars) : text);
+        }
+        if (right.constant) {
+            Object constant = right.value;
+            if (constant == null) {
+                return vars -> l.evaluate(vars) == null;
+            }
+            if (constant instanceof Boolean) {
+                return vars -> {
+                    Object value = l.evaluate(vars);
+                    return value instanceof Boolean ? value.equals(constant) : Values.looselyEquals(value, constant);
+                };
+            }
+            double number = Values.toNumber(constant);
+            String text = Values.text(constant);
+            return vars -> {
+                Object value = l.evaluate(vars);
+                if (value == null) {
+                    return Boolean.FALSE;
+                }
+                if (!Double.isNaN(number) && !(value instanceof Boolean)) {
+                    double actual = Values.toNumber(value);
+                    if (!Double.isNaN(actual)) {
+                        return actual == number;
+                    }
+                }
+                return Values.text(value).equals(text);
+            };
+        }
+        CompiledExpression r = right.expression;
+        return vars -> Values.looselyEquals(l.evaluate(vars), r.evaluate(vars));
+    }
+
+    private static Node ordering(String op, Node left, Node right) {
+        CompiledExpression l = left.expression;
+        CompiledExpression expression;
+        if (right.constant) {
+            double c = Values.toNumber(right.value);
+            switch (op) {
+                case "<":
+                    expression = vars -> Values.toNumber(l.evaluate(vars)) < c;
+                    break;
+                case "<=":
+                    expression = vars -> Values.toNumber(l.evaluate(vars)) <= c;
+                    break;
+                case ">":
+                    expression = vars -> Values.toNumber(l.evaluate(vars)) > c;
+                    break;
+                default:
+                    expression = vars -> Values.toNumber(l.evaluate(vars)) >= c;
+            }
+        } else {
+            CompiledExpression r = right.expression;
+            switch (op) {
+                case "<":
+                    expression = vars -> Values.toNumber(l.evaluate(vars)) < Values.toNumber(r.evaluate(vars));
+                    break;
+                case "<=":
+                    expression = vars -> Values.toNumber(l.evaluate(vars)) <= Values.toNumber(r.evaluate(vars));
+                    break;
+                case ">":
+                    expression = vars -> Values.toNumber(l.evaluate(vars)) > Values.toNumber(r.evaluate(vars));
+                    break;
+                default:
+                    expression = vars -> Values.toNumber(l.evaluate(vars)) >= Values.toNumber(r.evaluate(vars));
+            }
+        }
+        // Comparisons against NaN are false, so non-numeric operands never order
+        return fold(expression, left, right);
+    }
+
+    private static Node membership(Node left, Node right, boolean negated) {
+        CompiledExpression l = left.expression;
+        CompiledExpression r = right.expression;
+        return fold(vars -> {
+            Object value = l.evaluate(vars);
+            Object container = r.evaluate(vars);
+            boolean found = false;
+            if (container instanceof Collection) {
+                for (Object item : (Collection<?>) container) {
+                    if (Values.looselyEquals(value, item)) {
+                        found = true;
+                        break;
+                    }
+                }
+            } else if (container instanceof String && value != null) {
+                found = ((String) container).contains(Values.text(value));
+            }
+            return found != negated;
+        }, left, right);
+    }
+
+    private static Node arithmetic(char op, Node left, Node right) {
+        CompiledExpression l = left.expression;
+        CompiledExpression r = right.expression;
+        CompiledExpression expression;
+        switch (op) {
+            case '-':
+                expression = vars -> Values.toNumber(l.evaluate(vars)) - Values.toNumber(r.evaluate(vars));
+                break;
+            case '*':
+                expression = vars -> Values.toNumber(l.evaluate(vars)) * Values.toNumber(r.evaluate(vars));
+                break;
+            case '/':
+                expression = vars -> Values.toNumber(l.evaluate(vars)) / Values.toNumber(r.evaluate(vars));
+                break;
+            default:
+                expression = vars -> Values.toNumber(l.evaluate(vars)) % Values.toNumber(r.evaluate(vars));
+        }
+        return fold(expression, left, right);
+    }
+
+    private static Object plus(Object a, Object b) {
+        double x = Values.toNumber(a);
+        double y = Values.toNumber(b);
+        if (!Double.isNaN(x) && !Double.isNaN(y) && !(a instanceof String && b instanceof String)) {
+            return x + y;
+        }
+        return Values.text(a) + Values.text(b);
+    }
+
+    /**
+     * Evaluates the expression once at compile time when all operands are constants.
+     */
+    private static Node fold(CompiledExpression expression, Node... operands) {
+        for (Node operand : operands) {
+            if (!operand.constant) {
+                return new Node(expression, false, null, null);
+            }
+        }
+        return Node.constant(expression.evaluate(NO_VARIABLES));
+    }
+
+    // Tokens
+
+    private Token peek() {
+        return tokens.get(pos);
+    }
+
+    private boolean matchOperator(String text) {
+        Token token = peek();
+        if (token.type == TokenType.OPERATOR && token.text.equals(text)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectOperator(String text) {
+        if (!matchOperator(text)) {
+            throw error("Expected '" + text + "'");
+        }
+    }
+
+    private boolean matchKeyword(String keyword) {
+        if (peekKeyword(keyword)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean peekKeyword(String keyword) {
+        return peekKeyword(0, keyword);
+    }
+
+    private boolean peekKeyword(int offset, String keyword) {
+        int i = Math.min(pos + offset, tokens.size() - 1);
+        Token token = tokens.get(i);
+        return token.type == TokenType.IDENTIFIER && token.text.equals(keyword);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + peek().position + " in condition: " + source);
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int n = source.length();
+        while (i < n) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < n && Character.isDigit(source.charAt(i + 1))
+                    && !afterOperand(tokens))) {
+                int start = i;
+                while (i < n && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.'
+                        && !afterPathStep(tokens))) {
+                    i++;
+                }
+                if (i < n && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+                    i++;
+                    if (i < n && (source.charAt(i) == '+' || source.charAt(i) == '-')) {
+                        i++;
+                    }
+                    while (i < n && Character.isDigit(source.charAt(i))) {
+                        i++;
+                    }
+                }
+                String number = source.substring(start, i);
+                if (NUMBER.matcher(number).matches()) {
+                    tokens.add(new Token(TokenType.NUMBER, number, start, i));
+                } else {
+                    tokens.add(new Token(TokenType.INVALID, number, start, i, "Malformed number '" + number + "'"));
+                }
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_'
+                        || source.charAt(i) == '$')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.IDENTIFIER, source.substring(start, i), start, i));
+            } else if (c == '"' || c == '\'') {
+                int start = i++;
+                StringBuilder text = new StringBuilder();
+                while (i < n && source.charAt(i) != c) {
+                    char ch = source.charAt(i++);
+                    if (ch == '\\' && i < n) {
+                        ch = source.charAt(i++);
+                    }
+                    text.append(ch);
+                }
+                if (i >= n) {
+                    tokens.add(new Token(TokenType.INVALID, source.substring(start), start, n, "Unterminated string"));
+                    break;
+                }
+                i++;
+                tokens.add(new Token(TokenType.STRING, text.toString(), start, i));
+            } else {
+                String two = i + 1 < n ? source.substring(i, i + 2) : "";
+                if (two.equals("==") || two.equals("!=") || two.equals("<=") || two.equals(">=")
+                        || two.equals("&&") || two.equals("||")) {
+                    tokens.add(new Token(TokenType.OPERATOR, two, i, i + 2));
+                    i += 2;
+                } else if ("<>!+-*/%()[],.".indexOf(c) >= 0) {
+                    tokens.add(new Token(TokenType.OPERATOR, String.valueOf(c), i, i + 1));
+                    i++;
+                } else {
+                    tokens.add(new Token(TokenType.INVALID, String.valueOf(c), i, i + 1, "Unexpected '" + c + "'"));
+                    i++;
+                }
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", n, n));
+        return tokens;
+    }
+
+    /**
+     * Whether a '.' here steps into the preceding operand rather than starting a decimal.
+     */
+    private static boolean afterOperand(List<Token> tokens) {
+        if (tokens.isEmpty()) {
+            return false;
+        }
+        Token last = tokens.get(tokens.size() - 1);
+        return last.type == TokenType.IDENTIFIER || last.type == TokenType.NUMBER || last.type == TokenType.STRING
+                || last.text.equals(")") || last.text.equals("]");
+    }
+
+    /**
+     * Whether the last token is the '.' of a path step, where digits form an index rather than a decimal.
+     */
+    private static boolean afterPathStep(List<Token> tokens) {
+        if (tokens.isEmpty()) {
+            return false;
+        }
+        Token last = tokens.get(tokens.size() - 1);
+        return last.type == TokenType.OPERATOR && last.text.equals(".");
+    }
+
+    private enum TokenType {
+        NUMBER, STRING, IDENTIFIER, OPERATOR, INVALID, END
+    }
+
+    /**
+     * A token spanning {@code position..end} of the source; invalid tokens carry the error they
+     * raise once parsed, so the right of a comparison can still be read as text.
+     */
+    private static final class Token {
+        final TokenType type;
+        final String text;
+        final int position;
+        final int end;
+        final String error;
+
+        Token(TokenType type, String text, int position, int end) {
+            this(type, text, position, end, null);
+        }
+
+        Token(TokenType type, String text, int position, int end, String error) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+            this.end = end;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A compiled subexpression; constants carry their value, variables and paths the name of
+     * their variable and their source text.
+     */
+    private static final class Node {
+        final CompiledExpression expression;
+        final boolean constant;
+        final Object value;
+        final String bareName;
+        final String text;
+
+        Node(CompiledExpression expression, boolean constant, Object value, String bareName) {
+            this(expression, constant, value, bareName, bareName);
+        }
+
+        Node(CompiledExpression expression, boolean constant, Object value, String bareName, String text) {
+            this.expression = expression;
+            this.constant = constant;
+            this.value = value;
+            this.bareName = bareName;
+            this.text = text;
+        }
+
+        static Node constant(Object value) {
+            return new Node(vars -> value, true, value, null);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.awa.expression;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Value coercions shared by compiled expressions, loose in the same way as the interpreted evaluator
+ */
+final class Values {
+
+    private Values() {
+    }
+
+    static boolean isTruthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        if (value instanceof String) {
+            return !((String) value).isEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * Numbers and numeric strings as double, anything else as NaN.
+     */
+    static double toNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (text.isEmpty()) {
+                return Double.NaN;
+            }
+            char first = text.charAt(0);
+            if (!(Character.isDigit(first) || first == '-' || first == '+' || first == '.')) {
+                return Double.NaN;
+            }
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Loose equality: null only equals null, booleans compare as booleans, values that are both
+     * numeric compare as numbers, anything else compares by its text.
+     */
+    static boolean looselyEquals(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a instanceof Boolean && b instanceof Boolean) {
+            return a.equals(b);
+        }
+        double x = toNumber(a);
+        double y = toNumber(b);
+        if (!Double.isNaN(x) && !Double.isNaN(y)) {
+            return x == y;
+        }
+        return text(a).equals(text(b));
+    }
+
+    static String text(Object value) {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < 1e15) {
+                return Long.toString((long) d);
+            }
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * Steps into a map by key or a list by index; null when the step does not apply.
+     */
+    static Object member(Object target, String key) {
+        if (target instanceof Map) {
+            return ((Map<?, ?>) target).get(key);
+        }
+        if (target instanceof List) {
+            List<?> list = (List<?>) target;
+            double index = toNumber(key);
+            if (index >= 0 && index < list.size() && index == Math.rint(index)) {
+                return list.get((int) index);
+            }
+        }
+        return null;
+    }
+}
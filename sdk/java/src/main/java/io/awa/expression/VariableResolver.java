@@ -0,0 +1,36 @@
+package io.awa.expression;
+
+import java.util.Map;
+
+/**
+ * Supplies variable values to a {@link CompiledExpression}
+ */
+@FunctionalInterface
+public interface VariableResolver {
+
+    /**
+     * Returns the value of a top-level variable, or null if it is not defined.
+     */
+    Object resolve(String name);
+
+    /**
+     * Whether the variable is defined, even if its value is null.
+     */
+    default boolean isDefined(String name) {
+        return resolve(name) != null;
+    }
+
+    static VariableResolver of(Map<String, ?> variables) {
+        return new VariableResolver() {
+            @Override
+            public Object resolve(String name) {
+                return variables.get(name);
+            }
+
+            @Override
+            public boolean isDefined(String name) {
+                return variables.containsKey(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,329 @@
+package io.awa.graph;
+
+import io.awa.ids.IdRegistry;
+import io.awa.model.Activity;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+import io.awa.model.NodeType;
+import io.awa.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable, indexed view over the node/edge structure of a {@link Workflow}.
+ * <p>
+ * Node UUIDs (activities, events and decision nodes) are interned into dense
+ * int ids {@code 0..nodeCount()-1} in declaration order by an {@link IdRegistry}, and
+ * edges keep their list position as their int id. Forward and reverse adjacency are stored in
+ * CSR form (offset array + packed edge ids), so successor and predecessor
+ * lookups are O(1) array reads with no allocation.
+ * <p>
+ * Edge endpoints that are not declared in the workflow are still interned so
+ * the graph stays traversable; {@link #isDeclared(int)} reports them.
+ * The view is a snapshot: later changes to the workflow are not reflected.
+ */
+public final class WorkflowGraph {
+
+    private final UUID workflowId;
+    private final UUID[] nodeIds;
+    private final NodeType[] nodeTypes;
+    private final Object[] nodes;
+    private final IdRegistry nodeIndex;
+
+    private final Edge[] edges;
+    private final IdRegistry edgeIndex;
+    private final int[] edgeByKey;
+    private final int[] edgeSource;
+    private final int[] edgeTarget;
+
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    private WorkflowGraph(Builder b) {
+        int n = b.ids.size();
+        int m = b.edges.size();
+        this.workflowId = b.workflowId;
+        this.nodeIds = b.ids.toArray(new UUID[0]);
+        this.nodeTypes = b.types.toArray(new NodeType[0]);
+        this.nodes = b.nodes.toArray();
+        this.nodeIndex = b.index;
+        this.edges = b.edges.toArray(new Edge[0]);
+        this.edgeSource = b.edgeSource;
+        this.edgeTarget = b.edgeTarget;
+
+        // Edge ids may be missing or repeated, so registry ids map to the first edge carrying them
+        IdRegistry edgeIdx = new IdRegistry(m);
+        int[] byKey = new int[m];
+        for (int e = 0; e < m; e++) {
+            if (edges[e].getId() != null) {
+                int size = edgeIdx.size();
+                int key = edgeIdx.intern(edges[e].getId());
+                if (edgeIdx.size() > size) {
+                    byKey[key] = e;
+                }
+            }
+        }
+        this.edgeIndex = edgeIdx;
+        this.edgeByKey = byKey;
+
+        this.outOffsets = new int[n + 1];
+        this.inOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            outOffsets[edgeSource[e] + 1]++;
+            inOffsets[edgeTarget[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        this.outEdges = new int[m];
+        this.inEdges = new int[m];
+        int[] outFill = new int[n];
+        int[] inFill = new int[n];
+        // Edges are placed in ascending id order, so adjacency preserves declaration order
+        for (int e = 0; e < m; e++) {
+            int s = edgeSource[e];
+            int t = edgeTarget[e];
+            outEdges[outOffsets[s] + outFill[s]++] = e;
+            inEdges[inOffsets[t] + inFill[t]++] = e;
+        }
+    }
+
+    /**
+     * Compiles the graph of the given workflow.
+     */
+    public static WorkflowGraph of(Workflow workflow) {
+        Builder b = new Builder(workflow.getId());
+        if (workflow.getActivities() != null) {
+            for (Activity a : workflow.getActivities()) {
+                b.declare(a.getId(), NodeType.ACTIVITY, a);
+            }
+        }
+        if (workflow.getEvents() != null) {
+            for (Event ev : workflow.getEvents()) {
+                b.declare(ev.getId(), NodeType.EVENT, ev);
+            }
+        }
+        if (workflow.getDecisionNodes() != null) {
+            for (DecisionNode d : workflow.getDecisionNodes()) {
+                b.declare(d.getId(), NodeType.DECISION, d);
+            }
+        }
+        List<Edge> edges = workflow.getEdges() != null ? workflow.getEdges() : Collections.emptyList();
+        b.edgeSource = new int[edges.size()];
+        b.edgeTarget = new int[edges.size()];
+        for (Edge edge : edges) {
+            b.edge(edge);
+        }
+        return new WorkflowGraph(b);
+    }
+
+    public UUID getWorkflowId() {
+        return workflowId;
+    }
+
+    // Nodes
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    /**
+     * Returns the dense id of a node, or -1 if the UUID is not part of the graph.
+     */
+    public int indexOf(UUID nodeId) {
+        return nodeIndex.indexOf(nodeId);
+    }
+
+    public UUID nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    /**
+     * Returns the node type, or null for an undeclared node whose referencing edges carry no type.
+     */
+    public NodeType nodeType(int node) {
+        return nodeTypes[node];
+    }
+
+    /**
+     * Whether the node is declared in the workflow, as opposed to only referenced by an edge.
+     */
+    public boolean isDeclared(int node) {
+        return nodes[node] != null;
+    }
+
+    public Activity activity(int node) {
+        return nodes[node] instanceof Activity ? (Activity) nodes[node] : null;
+    }
+
+    public Event event(int node) {
+        return nodes[node] instanceof Event ? (Event) nodes[node] : null;
+    }
+
+    public DecisionNode decisionNode(int node) {
+        return nodes[node] instanceof DecisionNode ? (DecisionNode) nodes[node] : null;
+    }
+
+    // Edges
+
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * Returns the int id of an edge, or -1 if the UUID is not an edge of the graph.
+     */
+    public int edgeIndexOf(UUID edgeId) {
+        int key = edgeIndex.indexOf(edgeId);
+        return key >= 0 ? edgeByKey[key] : -1;
+    }
+
+    public Edge edge(int edge) {
+        return edges[edge];
+    }
+
+    public int source(int edge) {
+        return edgeSource[edge];
+    }
+
+    public int target(int edge) {
+        return edgeTarget[edge];
+    }
+
+    // Adjacency
+
+    public int outDegree(int node) {
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    /**
+     * Returns the k-th outgoing edge id of the node, in edge declaration order.
+     */
+    public int outEdge(int node, int k) {
+        return outEdges[outOffsets[node] + k];
+    }
+
+    public int successor(int node, int k) {
+        return edgeTarget[outEdge(node, k)];
+    }
+
+    public int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    /**
+     * Returns the k-th incoming edge id of the node, in edge declaration order.
+     */
+    public int inEdge(int node, int k) {
+        return inEdges[inOffsets[node] + k];
+    }
+
+    public int predecessor(int node, int k) {
+        return edgeSource[inEdge(node, k)];
+    }
+
+    /**
+     * Returns the outgoing edges of a node by UUID, empty if the node is unknown.
+     */
+    public List<Edge> outgoing(UUID nodeId) {
+        int node = indexOf(nodeId);
+        if (node < 0) {
+            return Collections.emptyList();
+        }
+        List<Edge> result = new ArrayList<>(outDegree(node));
+        for (int i = outOffsets[node]; i < outOffsets[node + 1]; i++) {
+            result.add(edges[outEdges[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the incoming edges of a node by UUID, empty if the node is unknown.
+     */
+    public List<Edge> incoming(UUID nodeId) {
+        int node = indexOf(nodeId);
+        if (node < 0) {
+            return Collections.emptyList();
+        }
+        List<Edge> result = new ArrayList<>(inDegree(node));
+        for (int i = inOffsets[node]; i < inOffsets[node + 1]; i++) {
+            result.add(edges[inEdges[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the declared nodes with no incoming edges, in id order.
+     */
+    public int[] entryNodes() {
+        int count = 0;
+        for (int i = 0; i < nodeIds.length; i++) {
+            if (isDeclared(i) && inDegree(i) == 0) {
+                count++;
+            }
+        }
+        int[] result = new int[count];
+        int k = 0;
+        for (int i = 0; i < nodeIds.length; i++) {
+            if (isDeclared(i) && inDegree(i) == 0) {
+                result[k++] = i;
+            }
+        }
+        return result;
+    }
+
+    private static final class Builder {
+        private final UUID workflowId;
+        private final List<UUID> ids = new ArrayList<>();
+        private final List<NodeType> types = new ArrayList<>();
+        private final List<Object> nodes = new ArrayList<>();
+        private final IdRegistry index = new IdRegistry();
+        private final List<Edge> edges = new ArrayList<>();
+        private int[] edgeSource;
+        private int[] edgeTarget;
+
+        private Builder(UUID workflowId) {
+            this.workflowId = workflowId;
+        }
+
+        private void declare(UUID id, NodeType type, Object node) {
+            if (id == null) {
+                throw new IllegalArgumentException("Workflow node without id: " + type.getValue());
+            }
+            if (index.intern(id) != ids.size()) {
+                throw new IllegalArgumentException("Duplicate node id: " + id);
+            }
+            ids.add(id);
+            types.add(type);
+            nodes.add(node);
+        }
+
+        private int reference(UUID id, NodeType type) {
+            if (id == null) {
+                throw new IllegalArgumentException("Edge endpoint without id");
+            }
+            int node = index.intern(id);
+            if (node < ids.size()) {
+                return node;
+            }
+            ids.add(id);
+            types.add(type);
+            nodes.add(null);
+            return node;
+        }
+
+        private void edge(Edge edge) {
+            int e = edges.size();
+            edgeSource[e] = reference(edge.getSourceId(), edge.getSourceType());
+            edgeTarget[e] = reference(edge.getTargetId(), edge.getTargetType());
+            edges.add(edge);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package io.awa.ids;
+
+import io.awa.model.AccessRight;
+import io.awa.model.Activity;
+import io.awa.model.Context;
+import io.awa.model.ContextBinding;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+import io.awa.model.Workflow;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Interns UUIDs into dense int ids {@code 0..size()-1}, in the order they are first seen.
+ * <p>
+ * Lookups hash the two halves of the UUID into an open-addressing table of ints and compare
+ * against parallel {@code long} arrays, so they neither box nor follow a pointer per probe as
+ * {@code HashMap<UUID, Integer>} does. Ids are never reused. Interning is not thread-safe;
+ * once a registry is no longer interned into, any number of threads may read it.
+ */
+public final class IdRegistry {
+
+    private static final int EMPTY = -1;
+
+    private UUID[] uuids;
+    private long[] most;
+    private long[] least;
+    private int[] table;
+    private int size;
+
+    public IdRegistry() {
+        this(16);
+    }
+
+    public IdRegistry(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        int capacity = Math.max(expectedSize, 4);
+        this.uuids = new UUID[capacity];
+        this.most = new long[capacity];
+        this.least = new long[capacity];
+        this.table = new int[tableSize(capacity)];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * Interns the ids of every activity, event, decision node, edge and context of the workflow,
+     * then of the activities' context bindings and access rights, skipping null ids.
+     */
+    public static IdRegistry of(Workflow workflow) {
+        List<Activity> activities = orEmpty(workflow.getActivities());
+        IdRegistry registry = new IdRegistry(activities.size() * 2 + orEmpty(workflow.getEdges()).size());
+        for (Activity activity : activities) {
+            registry.internIfPresent(activity.getId());
+        }
+        for (Event event : orEmpty(workflow.getEvents())) {
+            registry.internIfPresent(event.getId());
+        }
+        for (DecisionNode decision : orEmpty(workflow.getDecisionNodes())) {
+            registry.internIfPresent(decision.getId());
+        }
+        for (Edge edge : orEmpty(workflow.getEdges())) {
+            registry.internIfPresent(edge.getId());
+        }
+        for (Context context : orEmpty(workflow.getContexts())) {
+            registry.internIfPresent(context.getId());
+        }
+        for (Activity activity : activities) {
+            for (ContextBinding binding : orEmpty(activity.getContextBindings())) {
+                registry.internIfPresent(binding.getId());
+            }
+            for (AccessRight right : orEmpty(activity.getAccessRights())) {
+                registry.internIfPresent(right.getId());
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Returns the id of the UUID, giving it the next id if it has none yet.
+     *
+     * @throws IllegalArgumentException if the UUID is null
+     */
+    public int intern(UUID uuid) {
+        if (uuid == null) {
+            throw new IllegalArgumentException("Cannot intern a null id");
+        }
+        long hi = uuid.getMostSignificantBits();
+        long lo = uuid.getLeastSignificantBits();
+        int mask = table.length - 1;
+        int slot = hash(hi, lo) & mask;
+        for (int id; (id = table[slot]) != EMPTY; slot = (slot + 1) & mask) {
+            if (most[id] == hi && least[id] == lo) {
+                return id;
+            }
+        }
+        int id = size;
+        if (id == uuids.length) {
+            int capacity = Math.max(4, id << 1);
+            uuids = Arrays.copyOf(uuids, capacity);
+            most = Arrays.copyOf(most, capacity);
+            least = Arrays.copyOf(least, capacity);
+        }
+        uuids[id] = uuid;
+        most[id] = hi;
+        least[id] = lo;
+        size = id + 1;
+        if (tableSize(size) > table.length) {
+            rehash(tableSize(size));
+        } else {
+            table[slot] = id;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the id of the UUID, or -1 if it is null or not interned.
+     */
+    public int indexOf(UUID uuid) {
+        return uuid != null ? indexOf(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) : -1;
+    }
+
+    /**
+     * Returns the id of the UUID with the given halves, or -1 if it is not interned; lets callers
+     * holding raw bits, such as an event log record, look ids up without creating a UUID.
+     */
+    public int indexOf(long mostSigBits, long leastSigBits) {
+        int[] t = table;
+        int mask = t.length - 1;
+        for (int slot = hash(mostSigBits, leastSigBits) & mask, id; (id = t[slot]) != EMPTY;
+             slot = (slot + 1) & mask) {
+            if (most[id] == mostSigBits && least[id] == leastSigBits) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(UUID uuid) {
+        return indexOf(uuid) >= 0;
+    }
+
+    /**
+     * Returns the UUID interned as {@code id}.
+     *
+     * @throws IndexOutOfBoundsException if no UUID has that id
+     */
+    public UUID uuid(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No id " + id + " in a registry of " + size);
+        }
+        return uuids[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int length) {
+        int[] t = new int[length];
+        Arrays.fill(t, EMPTY);
+        int mask = length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(most[id], least[id]) & mask;
+            while (t[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            t[slot] = id;
+        }
+        table = t;
+    }
+
+    private void internIfPresent(UUID uuid) {
+        if (uuid != null) {
+            intern(uuid);
+        }
+    }
+
+    /**
+     * Smallest power of two keeping the load factor at or below one half.
+     */
+    static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(entries, 2) * 2 - 1) << 1;
+    }
+
+    static int hash(long hi, long lo) {
+        long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : List.of();
+    }
+}
@@ -0,0 +1,170 @@
+package io.awa.ids;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Open-addressing map from non-negative int keys, such as {@link IdRegistry} ids, to objects.
+ * <p>
+ * Keys live unboxed in an int array with linear probing, and removal shifts the following
+ * entries back instead of leaving tombstones, so lookups stay short under churn. Null values
+ * are not allowed; {@link #get(int)} returns null for a missing key. Not thread-safe.
+ */
+public final class IntObjectMap<V> {
+
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    public IntObjectMap() {
+        this(8);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        allocate(IdRegistry.tableSize(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int[] k = keys;
+        int mask = k.length - 1;
+        for (int slot = mix(key) & mask; k[slot] != FREE; slot = (slot + 1) & mask) {
+            if (k[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return the previous value, or null
+     * @throws IllegalArgumentException if the key is negative or the value null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key must not be negative: " + key);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        for (; keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the key.
+     *
+     * @return the removed value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Calls the action with every key, in table order.
+     */
+    public void forEachKey(IntConsumer action) {
+        int[] k = keys;
+        for (int slot = 0; slot < k.length; slot++) {
+            if (k[slot] != FREE) {
+                action.accept(k[slot]);
+            }
+        }
+    }
+
+    /**
+     * Closes the gap at {@code slot} by moving back each following entry whose probe
+     * sequence passes through it.
+     */
+    private void shiftBack(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = FREE;
+        values[gap] = null;
+    }
+
+    private void rehash(int length) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(length);
+        int mask = length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int length) {
+        keys = new int[length];
+        values = new Object[length];
+        Arrays.fill(keys, FREE);
+    }
+
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,144 @@
+package io.awa.ids;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Open-addressing set of non-negative ints, such as {@link IdRegistry} ids, stored unboxed.
+ * Removal shifts following entries back instead of leaving tombstones. Not thread-safe.
+ */
+public final class IntSet {
+
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int size;
+
+    public IntSet() {
+        this(4);
+    }
+
+    public IntSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        keys = empty(IdRegistry.tableSize(expectedSize));
+    }
+
+    public boolean contains(int value) {
+        int[] k = keys;
+        int mask = k.length - 1;
+        for (int slot = IntObjectMap.mix(value) & mask; k[slot] != FREE; slot = (slot + 1) & mask) {
+            if (k[slot] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the value.
+     *
+     * @return false if it was already present
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public boolean add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        int mask = keys.length - 1;
+        int slot = IntObjectMap.mix(value) & mask;
+        for (; keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == value) {
+                return false;
+            }
+        }
+        keys[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the value.
+     *
+     * @return false if it was absent
+     */
+    public boolean remove(int value) {
+        int mask = keys.length - 1;
+        for (int slot = IntObjectMap.mix(value) & mask; keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == value) {
+                int gap = slot;
+                for (int next = (gap + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+                    int home = IntObjectMap.mix(keys[next]) & mask;
+                    if (((next - home) & mask) >= ((next - gap) & mask)) {
+                        keys[gap] = keys[next];
+                        gap = next;
+                    }
+                }
+                keys[gap] = FREE;
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    /**
+     * Calls the action with every value, in table order.
+     */
+    public void forEach(IntConsumer action) {
+        int[] k = keys;
+        for (int slot = 0; slot < k.length; slot++) {
+            if (k[slot] != FREE) {
+                action.accept(k[slot]);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != FREE) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void rehash(int length) {
+        int[] old = keys;
+        keys = empty(length);
+        int mask = length - 1;
+        for (int key : old) {
+            if (key != FREE) {
+                int slot = IntObjectMap.mix(key) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private static int[] empty(int length) {
+        int[] keys = new int[length];
+        Arrays.fill(keys, FREE);
+        return keys;
+    }
+}
@@ -0,0 +1,86 @@
+package io.awa.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A heavy field skipped by {@link WorkflowStreamReader} in {@link HeavyFields#DEFER} mode.
+ * Only its byte range in the source file is kept; the value is read back on demand.
+ */
+public final class DeferredField {
+
+    private final Path source;
+    private final ObjectMapper mapper;
+    private final String path;
+    private final long start;
+    private final long end;
+
+    DeferredField(Path source, ObjectMapper mapper, String path, long start, long end) {
+        this.source = source;
+        this.mapper = mapper;
+        this.path = path;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Location of the field within its element, e.g. {@code programs/0/code} or {@code schema}.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Size of the raw JSON value in bytes, possibly including trailing whitespace.
+     */
+    public long length() {
+        return end - start;
+    }
+
+    /**
+     * Reads the raw JSON text of the value from the source file.
+     */
+    public String raw() throws IOException {
+        return new String(bytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the value from the source file and binds it to the given type.
+     */
+    public <T> T read(Class<T> type) throws IOException {
+        return mapper.readValue(bytes(), type);
+    }
+
+    private byte[] bytes() throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Deferred field too large to materialize: " + path);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("Source file shrank while reading deferred field " + path);
+                }
+            }
+        }
+        // The recorded range runs up to the next token, so drop a trailing separator
+        int length = buffer.position();
+        byte[] raw = buffer.array();
+        while (length > 0 && (raw[length - 1] == ',' || Character.isWhitespace(raw[length - 1]))) {
+            length--;
+        }
+        return length == raw.length ? raw : Arrays.copyOf(raw, length);
+    }
+
+    @Override
+    public String toString() {
+        return "DeferredField{" + path + " @" + start + ".." + end + "}";
+    }
+}
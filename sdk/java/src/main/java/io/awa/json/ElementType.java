@@ -0,0 +1,46 @@
+package io.awa.json;
+
+import io.awa.model.Activity;
+import io.awa.model.Context;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+
+/**
+ * Workflow collections streamed element by element by {@link WorkflowStreamReader}
+ */
+public enum ElementType {
+    ACTIVITY("activities", Activity.class),
+    EDGE("edges", Edge.class),
+    CONTEXT("contexts", Context.class),
+    EVENT("events", Event.class),
+    DECISION_NODE("decision_nodes", DecisionNode.class);
+
+    private final String field;
+    private final Class<?> modelType;
+
+    ElementType(String field, Class<?> modelType) {
+        this.field = field;
+        this.modelType = modelType;
+    }
+
+    /**
+     * Name of the workflow document field holding this collection.
+     */
+    public String getField() {
+        return field;
+    }
+
+    public Class<?> getModelType() {
+        return modelType;
+    }
+
+    static ElementType fromField(String field) {
+        for (ElementType type : values()) {
+            if (type.field.equals(field)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,14 @@
+package io.awa.json;
+
+/**
+ * How {@link WorkflowStreamReader} handles the potentially huge fields {@code Program.code},
+ * {@code DataObject.schema}, {@code Context.schema} and {@code Context.initial_value}
+ */
+public enum HeavyFields {
+    /** Bind them like any other field */
+    INCLUDE,
+    /** Skip them without buffering; they stay null */
+    SKIP,
+    /** Skip them and record where they are, to load on access through {@link DeferredField} */
+    DEFER
+}
@@ -0,0 +1,85 @@
+package io.awa.json;
+
+import io.awa.model.Activity;
+import io.awa.model.Context;
+import io.awa.model.DataObject;
+import io.awa.model.Program;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One activity, edge, context, event or decision node read by {@link WorkflowStreamReader},
+ * with the heavy fields that were deferred while reading it.
+ */
+public final class StreamedElement {
+
+    private final ElementType type;
+    private final Object value;
+    private final List<DeferredField> deferred;
+
+    StreamedElement(ElementType type, Object value, List<DeferredField> deferred) {
+        this.type = type;
+        this.value = value;
+        this.deferred = deferred.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(deferred);
+    }
+
+    public ElementType getType() {
+        return type;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the value as the given model type.
+     *
+     * @throws ClassCastException if the element is of another type
+     */
+    public <T> T as(Class<T> modelType) {
+        return modelType.cast(value);
+    }
+
+    public List<DeferredField> getDeferred() {
+        return deferred;
+    }
+
+    /**
+     * Reads every deferred field back from the source and sets it on the element.
+     *
+     * @return the element value, now complete
+     */
+    @SuppressWarnings("unchecked")
+    public Object materialize() throws IOException {
+        for (DeferredField field : deferred) {
+            String[] path = field.getPath().split("/");
+            if (value instanceof Context) {
+                Context context = (Context) value;
+                if (path[0].equals("schema")) {
+                    context.setSchema(field.read(Map.class));
+                } else {
+                    context.setInitialValue(field.read(Object.class));
+                }
+            } else if (value instanceof Activity) {
+                Activity activity = (Activity) value;
+                int index = Integer.parseInt(path[1]);
+                if (path[0].equals("programs")) {
+                    Program program = activity.getPrograms().get(index);
+                    program.setCode(field.read(String.class));
+                } else {
+                    List<DataObject> objects = path[0].equals("inputs") ? activity.getInputs() : activity.getOutputs();
+                    objects.get(index).setSchema(field.read(Map.class));
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamedElement{" + type + ", deferred=" + deferred.size() + "}";
+    }
+}
@@ -0,0 +1,235 @@
+package io.awa.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.awa.model.Workflow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An open workflow document being read element by element.
+ * <p>
+ * Only the current element and the workflow's own scalar fields are held in memory.
+ * Not thread-safe; close it to release the underlying input.
+ */
+public final class WorkflowStream implements AutoCloseable {
+
+    private final JsonParser parser;
+    private final ObjectMapper mapper;
+    private final HeavyFields heavyFields;
+    private final Path source;
+    private final TokenBuffer header;
+
+    private ElementType current;
+    private int depth;
+    private boolean finished;
+    private Workflow headerValue;
+
+    WorkflowStream(JsonParser parser, ObjectMapper mapper, HeavyFields heavyFields, Path source) {
+        this.parser = parser;
+        this.mapper = mapper;
+        this.heavyFields = heavyFields;
+        this.source = source;
+        this.header = new TokenBuffer(parser);
+    }
+
+    /**
+     * Reads the next element, or returns null at the end of the document.
+     */
+    public StreamedElement next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (depth == 0) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Workflow document must be a JSON object");
+            }
+            header.writeStartObject();
+            depth = 1;
+        }
+        while (true) {
+            if (current != null) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    return readElement(current);
+                }
+                if (token == JsonToken.END_ARRAY) {
+                    current = null;
+                    continue;
+                }
+                // null or scalar entries are not elements
+                parser.skipChildren();
+                continue;
+            }
+
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_OBJECT) {
+                if (--depth == 0) {
+                    finish();
+                    return null;
+                }
+                continue;
+            }
+            if (token != JsonToken.FIELD_NAME) {
+                throw new IOException("Malformed workflow document at " + parser.getTokenLocation());
+            }
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            ElementType type = ElementType.fromField(name);
+            if (type != null && value == JsonToken.START_ARRAY) {
+                current = type;
+            } else if (name.equals("workflow") && value == JsonToken.START_OBJECT && depth == 1) {
+                // Wrapped documents: {"workflow": {...}}
+                depth++;
+            } else if (type != null && value == JsonToken.VALUE_NULL) {
+                // An explicit null collection has no elements
+            } else {
+                header.writeFieldName(name);
+                header.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /**
+     * Streams the remaining elements; closing the stream closes this reader.
+     */
+    public Stream<StreamedElement> elements() {
+        Spliterator<StreamedElement> spliterator = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super StreamedElement> action) {
+                StreamedElement element;
+                try {
+                    element = next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (element == null) {
+                    return false;
+                }
+                action.accept(element);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * The workflow without its collections, bound from the fields seen so far.
+     * Complete once {@link #next()} has returned null, since JSON fields may come in any order.
+     */
+    public Workflow header() throws IOException {
+        if (headerValue != null) {
+            return headerValue;
+        }
+        TokenBuffer copy = new TokenBuffer(parser);
+        copy.append(header);
+        if (!finished) {
+            copy.writeEndObject();
+        }
+        return mapper.readValue(copy.asParser(), Workflow.class);
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void finish() throws IOException {
+        finished = true;
+        header.writeEndObject();
+        headerValue = mapper.readValue(header.asParser(), Workflow.class);
+    }
+
+    private StreamedElement readElement(ElementType type) throws IOException {
+        List<DeferredField> deferred = new ArrayList<>(0);
+        Object value;
+        if (heavyFields == HeavyFields.INCLUDE || (type != ElementType.ACTIVITY && type != ElementType.CONTEXT)) {
+            value = mapper.readValue(parser, type.getModelType());
+        } else {
+            TokenBuffer buffer = new TokenBuffer(parser);
+            copyObject(type, null, "", buffer, deferred);
+            value = mapper.readValue(buffer.asParser(), type.getModelType());
+        }
+        return new StreamedElement(type, value, deferred);
+    }
+
+    /**
+     * Copies the object at the current START_OBJECT into the buffer, leaving out heavy fields.
+     *
+     * @param container the activity collection the object belongs to, or null for the element itself
+     */
+    private void copyObject(ElementType type, String container, String prefix, TokenBuffer buffer,
+                            List<DeferredField> deferred) throws IOException {
+        buffer.writeStartObject();
+        JsonToken token = parser.nextToken();
+        while (token == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (isHeavy(type, container, name)) {
+                token = skip(prefix + name, deferred);
+                continue;
+            }
+            buffer.writeFieldName(name);
+            if (container == null && type == ElementType.ACTIVITY && value == JsonToken.START_ARRAY
+                    && (name.equals("programs") || name.equals("inputs") || name.equals("outputs"))) {
+                buffer.writeStartArray();
+                int index = 0;
+                for (JsonToken item = parser.nextToken(); item != JsonToken.END_ARRAY; item = parser.nextToken()) {
+                    if (item == JsonToken.START_OBJECT) {
+                        copyObject(type, name, name + "/" + index + "/", buffer, deferred);
+                    } else {
+                        buffer.copyCurrentStructure(parser);
+                    }
+                    index++;
+                }
+                buffer.writeEndArray();
+            } else {
+                buffer.copyCurrentStructure(parser);
+            }
+            token = parser.nextToken();
+        }
+        buffer.writeEndObject();
+    }
+
+    private static boolean isHeavy(ElementType type, String container, String name) {
+        if (type == ElementType.CONTEXT) {
+            return container == null && (name.equals("schema") || name.equals("initial_value"));
+        }
+        if (container == null) {
+            return false;
+        }
+        return container.equals("programs") ? name.equals("code") : name.equals("schema");
+    }
+
+    /**
+     * Skips the value at the current token without buffering it, recording its range in DEFER mode.
+     *
+     * @return the token after the value
+     */
+    private JsonToken skip(String path, List<DeferredField> deferred) throws IOException {
+        long start = parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        // Advancing past an unread string skips it without materializing its text
+        JsonToken next = parser.nextToken();
+        if (heavyFields == HeavyFields.DEFER) {
+            deferred.add(new DeferredField(source, mapper, path, start, parser.getTokenLocation().getByteOffset()));
+        }
+        return next;
+    }
+}
@@ -0,0 +1,95 @@
+package io.awa.json;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.awa.model.Workflow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Reads workflow documents with a streaming {@link com.fasterxml.jackson.core.JsonParser},
+ * handing out activities, edges, contexts, events and decision nodes one at a time instead
+ * of binding the whole {@link Workflow}. Memory use is bounded by the largest single element,
+ * and with {@link HeavyFields#SKIP} or {@link HeavyFields#DEFER} embedded program code and
+ * schemas do not count towards it.
+ * <pre>
+ * WorkflowStreamReader reader = new WorkflowStreamReader().heavyFields(HeavyFields.DEFER);
+ * Workflow header = reader.read(path, element -&gt; index(element));
+ * </pre>
+ */
+public class WorkflowStreamReader {
+
+    private final ObjectMapper mapper;
+    private HeavyFields heavyFields = HeavyFields.INCLUDE;
+
+    public WorkflowStreamReader() {
+        this(defaultMapper());
+    }
+
+    public WorkflowStreamReader(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Mapper accepting AWA documents as written by the other SDKs: lower-case enum values,
+     * ISO dates, and fields the Java model does not declare.
+     */
+    public static ObjectMapper defaultMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    public WorkflowStreamReader heavyFields(HeavyFields heavyFields) {
+        this.heavyFields = heavyFields;
+        return this;
+    }
+
+    /**
+     * Opens a workflow file. Deferred heavy fields are read back from this file.
+     */
+    public WorkflowStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            return new WorkflowStream(mapper.getFactory().createParser(in), mapper, heavyFields, file);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a workflow document from a stream, which is closed with the returned reader.
+     *
+     * @throws IllegalStateException in {@link HeavyFields#DEFER} mode, which needs a file to read back from
+     */
+    public WorkflowStream open(InputStream in) throws IOException {
+        if (heavyFields == HeavyFields.DEFER) {
+            throw new IllegalStateException("Deferred heavy fields require a file source");
+        }
+        return new WorkflowStream(mapper.getFactory().createParser(in), mapper, heavyFields, null);
+    }
+
+    /**
+     * Reads a whole file, passing every element to the consumer in document order.
+     *
+     * @return the workflow without its collections
+     */
+    public Workflow read(Path file, Consumer<StreamedElement> consumer) throws IOException {
+        try (WorkflowStream stream = open(file)) {
+            for (StreamedElement element = stream.next(); element != null; element = stream.next()) {
+                consumer.accept(element);
+            }
+            return stream.header();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package io.awa.layout;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * A static R-tree over axis-aligned boxes, for finding the boxes at a point or in a region in
+ * O(log n) instead of testing them all.
+ * <p>
+ * The tree is bulk-loaded with Sort-Tile-Recursive packing (Leutenegger et al., 1997): each level
+ * is sorted by centre x, cut into vertical slices, sorted by centre y within a slice and grouped
+ * {@link #FANOUT} at a time. Tree nodes are kept in flat arrays, and every node's children are a
+ * run of {@code children}. Queries may grow each box by a margin, and are safe from several
+ * threads; each thread needs its own {@link #stack()}.
+ */
+final class BoxTree {
+
+    static final int FANOUT = 16;
+
+    /** {@link #classify} result for a point clear of every box and margin. */
+    static final int CLEAR = 0;
+    /** {@link #classify} result for a point within the margin of a box. */
+    static final int NEAR = 1;
+    /** {@link #classify} result for a point inside a box. */
+    static final int INSIDE = 2;
+
+    private final double[] boxMinX;
+    private final double[] boxMinY;
+    private final double[] boxMaxX;
+    private final double[] boxMaxY;
+
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final int[] first;
+    private final int[] end;
+    private final int[] children;
+    private final int leaves;
+    private final int root;
+    private final int height;
+
+    /**
+     * A tree over the given boxes, those among the ids into the coordinate arrays.
+     */
+    BoxTree(double[] boxMinX, double[] boxMinY, double[] boxMaxX, double[] boxMaxY, int[] boxes) {
+        this.boxMinX = boxMinX;
+        this.boxMinY = boxMinY;
+        this.boxMaxX = boxMaxX;
+        this.boxMaxY = boxMaxY;
+        int capacity = 0;
+        int levels = 0;
+        int size = boxes.length;
+        do {
+            size = (size + FANOUT - 1) / FANOUT;
+            capacity += size;
+            levels++;
+        } while (size > 1);
+        this.minX = new double[capacity];
+        this.minY = new double[capacity];
+        this.maxX = new double[capacity];
+        this.maxY = new double[capacity];
+        this.first = new int[capacity];
+        this.end = new int[capacity];
+        this.children = new int[boxes.length + capacity];
+        this.height = levels;
+
+        int nodes = 0;
+        int filled = 0;
+        int[] level = boxes.clone();
+        boolean items = true;
+        int leafNodes = 0;
+        while (level.length > 0) {
+            level = tile(level, items);
+            System.arraycopy(level, 0, children, filled, level.length);
+            int parents = (level.length + FANOUT - 1) / FANOUT;
+            int[] next = new int[parents];
+            for (int p = 0; p < parents; p++) {
+                int node = nodes++;
+                first[node] = filled + p * FANOUT;
+                end[node] = filled + Math.min(level.length, (p + 1) * FANOUT);
+                minX[node] = Double.POSITIVE_INFINITY;
+                minY[node] = Double.POSITIVE_INFINITY;
+                maxX[node] = Double.NEGATIVE_INFINITY;
+                maxY[node] = Double.NEGATIVE_INFINITY;
+                for (int k = first[node]; k < end[node]; k++) {
+                    int c = children[k];
+                    minX[node] = Math.min(minX[node], items ? boxMinX[c] : minX[c]);
+                    minY[node] = Math.min(minY[node], items ? boxMinY[c] : minY[c]);
+                    maxX[node] = Math.max(maxX[node], items ? boxMaxX[c] : maxX[c]);
+                    maxY[node] = Math.max(maxY[node], items ? boxMaxY[c] : maxY[c]);
+                }
+                next[p] = node;
+            }
+            filled += level.length;
+            if (items) {
+                leafNodes = nodes;
+            }
+            items = false;
+            level = parents > 1 ? next : new int[0];
+        }
+        this.leaves = leafNodes;
+        this.root = nodes - 1;
+    }
+
+    /**
+     * Orders the entries of one level so that consecutive runs of {@link #FANOUT} are close together.
+     */
+    private int[] tile(int[] level, boolean items) {
+        double[] centerX = new double[level.length];
+        double[] centerY = new double[level.length];
+        for (int i = 0; i < level.length; i++) {
+            int c = level[i];
+            centerX[i] = items ? boxMinX[c] + boxMaxX[c] : minX[c] + maxX[c];
+            centerY[i] = items ? boxMinY[c] + boxMaxY[c] : minY[c] + maxY[c];
+        }
+        int parents = (level.length + FANOUT - 1) / FANOUT;
+        int slice = (int) Math.ceil(Math.sqrt(parents)) * FANOUT;
+        int[] byX = IntStream.range(0, level.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> centerX[i]))
+                .mapToInt(Integer::intValue).toArray();
+        int[] tiled = new int[level.length];
+        for (int from = 0; from < level.length; from += slice) {
+            int to = Math.min(level.length, from + slice);
+            int[] byY = IntStream.range(from, to).map(i -> byX[i]).boxed()
+                    .sorted(Comparator.comparingDouble(i -> centerY[i]))
+                    .mapToInt(Integer::intValue).toArray();
+            for (int i = 0; i < byY.length; i++) {
+                tiled[from + i] = level[byY[i]];
+            }
+        }
+        return tiled;
+    }
+
+    /**
+     * A traversal stack large enough for the queries; one per thread.
+     */
+    int[] stack() {
+        return new int[FANOUT * height + 1];
+    }
+
+    /**
+     * Whether the point is strictly inside a box grown by {@code clearance} on every side, strictly
+     * inside a box grown by the larger {@code margin}, or clear of both. Points on a border count
+     * as outside.
+     *
+     * @return {@link #INSIDE}, {@link #NEAR} or {@link #CLEAR}
+     */
+    int classify(double px, double py, double clearance, double margin, int[] stack) {
+        if (root < 0) {
+            return CLEAR;
+        }
+        int result = CLEAR;
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (px <= minX[node] - margin || px >= maxX[node] + margin
+                    || py <= minY[node] - margin || py >= maxY[node] + margin) {
+                continue;
+            }
+            if (node >= leaves) {
+                for (int k = first[node]; k < end[node]; k++) {
+                    stack[top++] = children[k];
+                }
+                continue;
+            }
+            for (int k = first[node]; k < end[node]; k++) {
+                int b = children[k];
+                if (px > boxMinX[b] - margin && px < boxMaxX[b] + margin
+                        && py > boxMinY[b] - margin && py < boxMaxY[b] + margin) {
+                    if (px > boxMinX[b] - clearance && px < boxMaxX[b] + clearance
+                            && py > boxMinY[b] - clearance && py < boxMaxY[b] + clearance) {
+                        return INSIDE;
+                    }
+                    result = NEAR;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes into {@code out} the boxes that, grown by {@code margin}, meet the region, borders
+     * included.
+     *
+     * @param out room for every box in the tree
+     * @return how many were written
+     */
+    int overlapping(double regionMinX, double regionMinY, double regionMaxX, double regionMaxY, double margin,
+                    int[] stack, int[] out) {
+        if (root < 0) {
+            return 0;
+        }
+        int count = 0;
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (regionMaxX < minX[node] - margin || regionMinX > maxX[node] + margin
+                    || regionMaxY < minY[node] - margin || regionMinY > maxY[node] + margin) {
+                continue;
+            }
+            for (int k = first[node]; k < end[node]; k++) {
+                int c = children[k];
+                if (node >= leaves) {
+                    stack[top++] = c;
+                } else if (regionMaxX >= boxMinX[c] - margin && regionMinX <= boxMaxX[c] + margin
+                        && regionMaxY >= boxMinY[c] - margin && regionMinY <= boxMaxY[c] + margin) {
+                    out[count++] = c;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,120 @@
+package io.awa.layout;
+
+import io.awa.graph.WorkflowGraph;
+
+import java.util.Arrays;
+
+/**
+ * The weakly connected components of a {@link WorkflowGraph}'s declared nodes, in the order of
+ * their first node. Self-loops and edges to undeclared nodes belong to no component.
+ */
+final class Components {
+
+    private final int[][] nodes;
+    private final int[][] edges;
+    private final int[] local;
+
+    private Components(int[][] nodes, int[][] edges, int[] local) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.local = local;
+    }
+
+    static Components of(WorkflowGraph graph) {
+        int n = graph.nodeCount();
+        int[] parent = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (isLaidOut(graph, e)) {
+                int a = find(parent, graph.source(e));
+                int b = find(parent, graph.target(e));
+                if (a != b) {
+                    // The smaller index becomes the root, so components are numbered by their first node
+                    parent[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+        int[] component = new int[n];
+        int[] nodeCounts = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (!graph.isDeclared(v)) {
+                component[v] = -1;
+                continue;
+            }
+            int root = find(parent, v);
+            component[v] = root == v ? count++ : component[root];
+            nodeCounts[component[v]]++;
+        }
+        int[] edgeCounts = new int[count];
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (isLaidOut(graph, e)) {
+                edgeCounts[component[graph.source(e)]]++;
+            }
+        }
+        int[][] nodes = new int[count][];
+        int[][] edges = new int[count][];
+        for (int c = 0; c < count; c++) {
+            nodes[c] = new int[nodeCounts[c]];
+            edges[c] = new int[edgeCounts[c]];
+        }
+        int[] local = new int[n];
+        Arrays.fill(local, -1);
+        Arrays.fill(nodeCounts, 0);
+        for (int v = 0; v < n; v++) {
+            if (component[v] >= 0) {
+                local[v] = nodeCounts[component[v]]++;
+                nodes[component[v]][local[v]] = v;
+            }
+        }
+        Arrays.fill(edgeCounts, 0);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (isLaidOut(graph, e)) {
+                int c = component[graph.source(e)];
+                edges[c][edgeCounts[c]++] = e;
+            }
+        }
+        return new Components(nodes, edges, local);
+    }
+
+    static boolean isLaidOut(WorkflowGraph graph, int edge) {
+        int source = graph.source(edge);
+        int target = graph.target(edge);
+        return source != target && graph.isDeclared(source) && graph.isDeclared(target);
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    int count() {
+        return nodes.length;
+    }
+
+    /**
+     * The graph node ids of a component, ascending.
+     */
+    int[] nodes(int component) {
+        return nodes[component];
+    }
+
+    /**
+     * The graph edge ids of a component, ascending.
+     */
+    int[] edges(int component) {
+        return edges[component];
+    }
+
+    /**
+     * A node's position in its component's node list, or -1 if it is in none.
+     */
+    int local(int node) {
+        return local[node];
+    }
+}
@@ -0,0 +1,66 @@
+package io.awa.layout;
+
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Routes computed by {@link OrthogonalRouter} for the edges of a {@link io.awa.graph.WorkflowGraph},
+ * indexed by the graph's int edge ids.
+ * <p>
+ * A route runs from the port on the source node's border to the port on the target's, both
+ * included, and every segment is horizontal or vertical. Edges with an end that has no position
+ * are not routed.
+ */
+public final class EdgeRoutes {
+
+    private static final double[] NO_POINTS = new double[0];
+
+    private final double[][] points;
+
+    EdgeRoutes(double[][] points) {
+        this.points = points;
+    }
+
+    public int edgeCount() {
+        return points.length;
+    }
+
+    public boolean isRouted(int edge) {
+        return points[edge] != null;
+    }
+
+    public int pointCount(int edge) {
+        return route(edge).length / 2;
+    }
+
+    public double x(int edge, int k) {
+        return route(edge)[2 * k];
+    }
+
+    public double y(int edge, int k) {
+        return route(edge)[2 * k + 1];
+    }
+
+    /**
+     * The points of a route as a new list; empty if the edge is not routed.
+     */
+    public List<Vector2D> points(int edge) {
+        double[] route = route(edge);
+        if (route.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Vector2D> result = new ArrayList<>(route.length / 2);
+        for (int i = 0; i < route.length; i += 2) {
+            result.add(new Vector2D(route[i], route[i + 1]));
+        }
+        return result;
+    }
+
+    private double[] route(int edge) {
+        double[] route = points[edge];
+        return route != null ? route : NO_POINTS;
+    }
+}
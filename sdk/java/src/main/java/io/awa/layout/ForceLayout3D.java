@@ -0,0 +1,463 @@
+package io.awa.layout;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.model.Workflow;
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.model.visualization.VisualizationConfig.NodePosition3D;
+import io.awa.model.visualization.VisualizationConfig.Quaternion;
+import io.awa.model.visualization.VisualizationConfig.Vector3D;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lays out the nodes of a workflow in space with forces, for the 3D views.
+ * <p>
+ * Uses the spring-electrical model of Hu, "Efficient and High Quality Force-Directed Graph
+ * Drawing" (2005): edges pull their ends together with {@code d²/K} and every pair of nodes
+ * pushes apart with {@code 0.2·K²/d}, where {@code K} is the edge length. Repulsion is summed
+ * over a Barnes-Hut {@link Octree}, in O(n log n) per iteration, and on the pool in parallel
+ * once there are {@link #DEFAULT_PARALLEL_THRESHOLD} nodes. A weak pull towards the centroid keeps
+ * disconnected parts together.
+ * <p>
+ * Each iteration moves every node along its force, by at most one step. The step grows after
+ * five iterations that lower the energy and shrinks after one that raises it, and the layout
+ * stops once the mean move falls under {@code tolerance·K}. Nodes that already have a 3D position
+ * start from it with a small step that does not grow, so laying out again after an edit settles
+ * quickly without scattering the scene; new nodes start next to their placed neighbours.
+ *
+ * <pre>{@code
+ * new ForceLayout3D().rotations(true).layout(workflow, visualization);   // fills node_positions_3d
+ * }</pre>
+ */
+public final class ForceLayout3D {
+
+    public static final double DEFAULT_EDGE_LENGTH = 4;
+    public static final double DEFAULT_THETA = 0.8;
+    public static final double DEFAULT_TOLERANCE = 0.01;
+    public static final int DEFAULT_MAX_ITERATIONS = 500;
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 2048;
+
+    private static final double REPULSION = 0.2;
+    private static final double GRAVITY = 0.01;
+    private static final double COOLING = 0.9;
+    private static final int PROGRESS_STEPS = 5;
+    private static final double WARM_STEP = 0.03;
+
+    private double edgeLength = DEFAULT_EDGE_LENGTH;
+    private double theta = DEFAULT_THETA;
+    private double tolerance = DEFAULT_TOLERANCE;
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private long seed = 42;
+    private boolean rotations;
+
+    /**
+     * Sets the natural edge length {@code K}, in scene units.
+     */
+    public ForceLayout3D edgeLength(double edgeLength) {
+        if (!(edgeLength > 0)) {
+            throw new IllegalArgumentException("Edge length must be positive: " + edgeLength);
+        }
+        this.edgeLength = edgeLength;
+        return this;
+    }
+
+    /**
+     * Sets the Barnes-Hut opening angle: cells narrower than {@code theta} times their distance
+     * count as one mass. 0 sums every pair exactly.
+     */
+    public ForceLayout3D theta(double theta) {
+        if (!(theta >= 0)) {
+            throw new IllegalArgumentException("Theta must not be negative: " + theta);
+        }
+        this.theta = theta;
+        return this;
+    }
+
+    /**
+     * Sets the mean move, as a fraction of the edge length, under which the layout has converged.
+     */
+    public ForceLayout3D tolerance(double tolerance) {
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        }
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public ForceLayout3D maxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Max iterations must be positive: " + maxIterations);
+        }
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    /**
+     * Sets the pool forces are summed on; the common pool by default.
+     */
+    public ForceLayout3D pool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool is required");
+        }
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the node count from which forces are summed in parallel; smaller graphs use the calling thread.
+     */
+    public ForceLayout3D parallelThreshold(int nodes) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + nodes);
+        }
+        this.parallelThreshold = nodes;
+        return this;
+    }
+
+    /**
+     * Sets the seed for the starting positions of nodes without one; layouts with the same seed are reproducible.
+     */
+    public ForceLayout3D seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets whether {@link #layout(Workflow, VisualizationConfig)} also turns each node's x axis
+     * towards the flow: away from its predecessors and towards its successors.
+     */
+    public ForceLayout3D rotations(boolean rotations) {
+        this.rotations = rotations;
+        return this;
+    }
+
+    /**
+     * Lays out the workflow and writes the result into the visualization: every node gets a
+     * {@code NodePosition3D}, added if missing, and with {@link #rotations(boolean)} a rotation.
+     * Positions already set are where the layout starts from.
+     */
+    public SpatialLayout layout(Workflow workflow, VisualizationConfig visualization) {
+        WorkflowGraph graph = WorkflowGraph.of(workflow);
+        if (visualization.getNodePositions3d() == null) {
+            visualization.setNodePositions3d(new ArrayList<>());
+        }
+        Map<UUID, NodePosition3D> positions = new HashMap<>();
+        for (NodePosition3D position : visualization.getNodePositions3d()) {
+            if (position.getNodeId() != null) {
+                positions.putIfAbsent(position.getNodeId(), position);
+            }
+        }
+        int n = graph.nodeCount();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        boolean[] known = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            NodePosition3D position = graph.isDeclared(v) ? positions.get(graph.nodeId(v)) : null;
+            if (position != null && position.getPosition() != null) {
+                x[v] = position.getPosition().getX();
+                y[v] = position.getPosition().getY();
+                z[v] = position.getPosition().getZ();
+                known[v] = true;
+            }
+        }
+
+        SpatialLayout result = new Run(graph, x, y, z, known).run();
+
+        for (int v = 0; v < n; v++) {
+            if (!result.isPlaced(v)) {
+                continue;
+            }
+            NodePosition3D position = positions.get(graph.nodeId(v));
+            if (position == null) {
+                position = new NodePosition3D();
+                position.setNodeId(graph.nodeId(v));
+                position.setNodeType(graph.nodeType(v));
+                visualization.getNodePositions3d().add(position);
+            }
+            position.setPosition(new Vector3D(x[v], y[v], z[v]));
+            if (rotations) {
+                position.setRotation(facing(graph, x, y, z, v));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lays out a graph from scratch.
+     */
+    public SpatialLayout layout(WorkflowGraph graph) {
+        int n = graph.nodeCount();
+        return new Run(graph, new double[n], new double[n], new double[n], new boolean[n]).run();
+    }
+
+    /**
+     * The rotation taking the x axis onto the node's mean flow direction; identity if it has none.
+     */
+    private static Quaternion facing(WorkflowGraph graph, double[] x, double[] y, double[] z, int v) {
+        double dx = 0;
+        double dy = 0;
+        double dz = 0;
+        for (int k = 0; k < graph.outDegree(v) + graph.inDegree(v); k++) {
+            boolean out = k < graph.outDegree(v);
+            int w = out ? graph.successor(v, k) : graph.predecessor(v, k - graph.outDegree(v));
+            if (w == v || !graph.isDeclared(w)) {
+                continue;
+            }
+            double ex = x[w] - x[v];
+            double ey = y[w] - y[v];
+            double ez = z[w] - z[v];
+            double length = Math.sqrt(ex * ex + ey * ey + ez * ez);
+            if (length > 0) {
+                double sign = out ? 1 : -1;
+                dx += sign * ex / length;
+                dy += sign * ey / length;
+                dz += sign * ez / length;
+            }
+        }
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (length < 1e-9) {
+            return new Quaternion();
+        }
+        dx /= length;
+        dy /= length;
+        dz /= length;
+        if (dx < -1 + 1e-9) {
+            return new Quaternion(0, 1, 0, 0);
+        }
+        // Half-way quaternion between x and d: (x × d, 1 + x·d), normalized
+        double w = 1 + dx;
+        double norm = Math.sqrt(dz * dz + dy * dy + w * w);
+        return new Quaternion(0, -dz / norm, dy / norm, w / norm);
+    }
+
+    /**
+     * One layout; positions are updated in place.
+     */
+    private final class Run {
+
+        private final WorkflowGraph graph;
+        private final double[] x;
+        private final double[] y;
+        private final double[] z;
+        private final double[] fx;
+        private final double[] fy;
+        private final double[] fz;
+        private final boolean[] placed;
+        private final int[] bodies;
+        private final int[] neighbourOffsets;
+        private final int[] neighbours;
+        private final Octree tree;
+        private double centroidX;
+        private double centroidY;
+        private double centroidZ;
+        private boolean warm;
+
+        Run(WorkflowGraph graph, double[] x, double[] y, double[] z, boolean[] known) {
+            this.graph = graph;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            int n = graph.nodeCount();
+            this.fx = new double[n];
+            this.fy = new double[n];
+            this.fz = new double[n];
+            this.placed = new boolean[n];
+            int count = 0;
+            for (int v = 0; v < n; v++) {
+                placed[v] = graph.isDeclared(v);
+                count += placed[v] ? 1 : 0;
+            }
+            this.bodies = new int[count];
+            this.neighbourOffsets = new int[n + 1];
+            for (int v = 0, i = 0; v < n; v++) {
+                if (placed[v]) {
+                    bodies[i++] = v;
+                }
+            }
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                if (Components.isLaidOut(graph, e)) {
+                    neighbourOffsets[graph.source(e) + 1]++;
+                    neighbourOffsets[graph.target(e) + 1]++;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                neighbourOffsets[v + 1] += neighbourOffsets[v];
+            }
+            this.neighbours = new int[neighbourOffsets[n]];
+            int[] fill = neighbourOffsets.clone();
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                if (Components.isLaidOut(graph, e)) {
+                    neighbours[fill[graph.source(e)]++] = graph.target(e);
+                    neighbours[fill[graph.target(e)]++] = graph.source(e);
+                }
+            }
+            this.tree = new Octree(x, y, z);
+            start(known);
+        }
+
+        /**
+         * Puts nodes without a position next to the ones placed before them, or anywhere in a
+         * cube that fits the graph.
+         */
+        private void start(boolean[] known) {
+            int given = 0;
+            for (int v : bodies) {
+                given += known[v] ? 1 : 0;
+            }
+            warm = 2 * given > bodies.length;
+            Random random = new Random(seed);
+            double side = edgeLength * Math.cbrt(Math.max(1, bodies.length));
+            boolean[] ready = known.clone();
+            for (int v : bodies) {
+                if (ready[v]) {
+                    continue;
+                }
+                double sx = 0;
+                double sy = 0;
+                double sz = 0;
+                int count = 0;
+                for (int k = neighbourOffsets[v]; k < neighbourOffsets[v + 1]; k++) {
+                    int w = neighbours[k];
+                    if (ready[w]) {
+                        sx += x[w];
+                        sy += y[w];
+                        sz += z[w];
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    x[v] = sx / count + (random.nextDouble() - 0.5) * edgeLength;
+                    y[v] = sy / count + (random.nextDouble() - 0.5) * edgeLength;
+                    z[v] = sz / count + (random.nextDouble() - 0.5) * edgeLength;
+                } else {
+                    x[v] = (random.nextDouble() - 0.5) * side;
+                    y[v] = (random.nextDouble() - 0.5) * side;
+                    z[v] = (random.nextDouble() - 0.5) * side;
+                }
+                ready[v] = true;
+            }
+        }
+
+        SpatialLayout run() {
+            int count = bodies.length;
+            if (count == 0) {
+                return new SpatialLayout(x, y, z, placed, 0, true);
+            }
+            // Starting mostly from given positions, small steps that never grow keep what is there
+            double step = warm ? WARM_STEP * edgeLength : edgeLength;
+            double maxStep = warm ? step : Double.POSITIVE_INFINITY;
+            double energy0 = Double.POSITIVE_INFINITY;
+            int progress = 0;
+            int iteration = 0;
+            boolean converged = false;
+            while (iteration < maxIterations && !converged) {
+                tree.build(bodies, count);
+                centroidX = 0;
+                centroidY = 0;
+                centroidZ = 0;
+                for (int v : bodies) {
+                    centroidX += x[v];
+                    centroidY += y[v];
+                    centroidZ += z[v];
+                }
+                centroidX /= count;
+                centroidY /= count;
+                centroidZ /= count;
+
+                double energy = forces();
+                double moved = 0;
+                for (int v : bodies) {
+                    double f = Math.sqrt(fx[v] * fx[v] + fy[v] * fy[v] + fz[v] * fz[v]);
+                    if (f > 0) {
+                        double scale = Math.min(step, f) / f;
+                        x[v] += fx[v] * scale;
+                        y[v] += fy[v] * scale;
+                        z[v] += fz[v] * scale;
+                        moved += f * scale;
+                    }
+                }
+                if (energy < energy0) {
+                    if (++progress >= PROGRESS_STEPS) {
+                        progress = 0;
+                        step = Math.min(maxStep, step / COOLING);
+                    }
+                } else {
+                    progress = 0;
+                    step *= COOLING;
+                }
+                energy0 = energy;
+                iteration++;
+                converged = moved / count < tolerance * edgeLength;
+            }
+            return new SpatialLayout(x, y, z, placed, iteration, converged);
+        }
+
+        /**
+         * Sums the forces on every node, in parallel chunks for large graphs.
+         *
+         * @return the energy, the sum of the squared forces
+         */
+        private double forces() {
+            int count = bodies.length;
+            int chunks = count < parallelThreshold ? 1 : Math.min(count / 256 + 1, 4 * pool.getParallelism());
+            if (chunks <= 1) {
+                return forces(0, count);
+            }
+            List<ForkJoinTask<Double>> tasks = new ArrayList<>(chunks);
+            int size = (count + chunks - 1) / chunks;
+            for (int from = 0; from < count; from += size) {
+                int start = from;
+                int end = Math.min(count, from + size);
+                tasks.add(pool.submit(() -> forces(start, end)));
+            }
+            double energy = 0;
+            for (ForkJoinTask<Double> task : tasks) {
+                energy += task.join();
+            }
+            return energy;
+        }
+
+        private double forces(int from, int to) {
+            int[] stack = Octree.stack();
+            double[] force = new double[3];
+            double strength = REPULSION * edgeLength * edgeLength;
+            double energy = 0;
+            for (int i = from; i < to; i++) {
+                int v = bodies[i];
+                force[0] = 0;
+                force[1] = 0;
+                force[2] = 0;
+                tree.repulsion(v, strength, theta, stack, force);
+                for (int k = neighbourOffsets[v]; k < neighbourOffsets[v + 1]; k++) {
+                    int w = neighbours[k];
+                    double dx = x[w] - x[v];
+                    double dy = y[w] - y[v];
+                    double dz = z[w] - z[v];
+                    double pull = Math.sqrt(dx * dx + dy * dy + dz * dz) / edgeLength;
+                    force[0] += dx * pull;
+                    force[1] += dy * pull;
+                    force[2] += dz * pull;
+                }
+                double dx = centroidX - x[v];
+                double dy = centroidY - y[v];
+                double dz = centroidZ - z[v];
+                double pull = GRAVITY * Math.sqrt(dx * dx + dy * dy + dz * dz) / edgeLength;
+                fx[v] = force[0] + dx * pull;
+                fy[v] = force[1] + dy * pull;
+                fz[v] = force[2] + dz * pull;
+                energy += fx[v] * fx[v] + fy[v] * fy[v] + fz[v] * fz[v];
+            }
+            return energy;
+        }
+    }
+}
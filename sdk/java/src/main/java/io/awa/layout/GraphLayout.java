@@ -0,0 +1,119 @@
+package io.awa.layout;
+
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Positions computed by {@link LayeredLayout} for the nodes and edges of a
+ * {@link io.awa.graph.WorkflowGraph}, indexed by the graph's int node and edge ids.
+ * <p>
+ * Node coordinates are the top-left corner, as in {@code NodePosition2D}. Bend points run from
+ * the edge's source to its target and exclude the end nodes themselves; an edge between
+ * neighbouring ranks has none. Nodes that are only referenced by edges are not placed.
+ */
+public final class GraphLayout {
+
+    private static final double[] NO_POINTS = new double[0];
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] width;
+    private final double[] height;
+    private final int[] rank;
+    private final double[][] bendPoints;
+    private final double totalWidth;
+    private final double totalHeight;
+
+    GraphLayout(double[] x, double[] y, double[] width, double[] height, int[] rank, double[][] bendPoints,
+                double totalWidth, double totalHeight) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.rank = rank;
+        this.bendPoints = bendPoints;
+        this.totalWidth = totalWidth;
+        this.totalHeight = totalHeight;
+    }
+
+    public int nodeCount() {
+        return x.length;
+    }
+
+    public boolean isPlaced(int node) {
+        return rank[node] >= 0;
+    }
+
+    public double x(int node) {
+        return x[node];
+    }
+
+    public double y(int node) {
+        return y[node];
+    }
+
+    public double width(int node) {
+        return width[node];
+    }
+
+    public double height(int node) {
+        return height[node];
+    }
+
+    /**
+     * The layer of the node within its connected component, from 0 at the sources; -1 if not placed.
+     */
+    public int rank(int node) {
+        return rank[node];
+    }
+
+    public int edgeCount() {
+        return bendPoints.length;
+    }
+
+    public int bendPointCount(int edge) {
+        return points(edge).length / 2;
+    }
+
+    public double bendX(int edge, int k) {
+        return points(edge)[2 * k];
+    }
+
+    public double bendY(int edge, int k) {
+        return points(edge)[2 * k + 1];
+    }
+
+    /**
+     * The bend points of an edge as a new list.
+     */
+    public List<Vector2D> bendPoints(int edge) {
+        double[] points = points(edge);
+        if (points.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Vector2D> result = new ArrayList<>(points.length / 2);
+        for (int i = 0; i < points.length; i += 2) {
+            result.add(new Vector2D(points[i], points[i + 1]));
+        }
+        return result;
+    }
+
+    /**
+     * Width of the bounding box of all nodes and bend points, which starts at the origin.
+     */
+    public double getWidth() {
+        return totalWidth;
+    }
+
+    public double getHeight() {
+        return totalHeight;
+    }
+
+    private double[] points(int edge) {
+        double[] points = bendPoints[edge];
+        return points != null ? points : NO_POINTS;
+    }
+}
@@ -0,0 +1,1006 @@
+package io.awa.layout;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.model.Workflow;
+import io.awa.model.visualization.LaneOrientation;
+import io.awa.model.visualization.LayoutDirection;
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.model.visualization.VisualizationConfig.AutoLayoutConfig;
+import io.awa.model.visualization.VisualizationConfig.EdgeRouting;
+import io.awa.model.visualization.VisualizationConfig.Lane;
+import io.awa.model.visualization.VisualizationConfig.NodePosition2D;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+import io.awa.visualization.VisualizationChange;
+import io.awa.visualization.VisualizationDelta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Updates a {@link LayeredLayout} after the workflow changed, moving as little of it as possible.
+ * <p>
+ * Nodes that already have a position are pinned, and their ranks are read back from the
+ * positions: nodes that overlap along the flow share a rank. Only the affected region is laid out
+ * again:
+ * <ol>
+ *     <li>new nodes are ranked just after their placed predecessors, or else just before their
+ *     placed successors; new components are laid out in full and put beside the drawing;</li>
+ *     <li>a new or changed edge that runs against the flow pushes its target, and whatever follows
+ *     it, down the flow, unless that would close a cycle, in which case it stays a back edge;</li>
+ *     <li>each rank that gains nodes is spread with the least weighted squared movement that
+ *     restores node spacing, pinned nodes weighing eight times as much as the others. New nodes
+ *     aim for the mean of their placed neighbours;</li>
+ *     <li>edges at nodes that moved are routed through the gaps of the ranks they cross.</li>
+ * </ol>
+ * Ranks without new nodes are left as they are. When {@code respectLanes} is set, and lanes run
+ * along the flow (horizontal lanes for {@code LR} and {@code RL}, vertical ones for {@code TB}
+ * and {@code BT}), nodes listed in a lane's {@code node_ids} aim for the band its placed nodes
+ * span, and lanes stay in {@code order_index} order within each rank.
+ * <p>
+ * Work beyond reading the positions is proportional to the ranks that change, not the workflow,
+ * except that a node pushed down the flow takes its descendants with it.
+ *
+ * <pre>{@code
+ * WorkflowPatch patch = new WorkflowDiff().diff(previous, workflow);
+ * VisualizationDelta delta = new IncrementalLayout().relayout(workflow, visualization, patch.changedIds());
+ * }</pre>
+ */
+public final class IncrementalLayout {
+
+    private static final double PINNED_WEIGHT = 8;
+    private static final double EPSILON = 1e-6;
+
+    private AutoLayoutConfig config = new AutoLayoutConfig();
+
+    /**
+     * Sets the configuration used when the visualization has no {@code auto_layout} of its own.
+     */
+    public IncrementalLayout config(AutoLayoutConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Layout config is required");
+        }
+        this.config = config;
+        return this;
+    }
+
+    /**
+     * Lays out what changed in the workflow since the visualization's positions were computed, and
+     * writes the result into the visualization: new nodes get a {@code NodePosition2D}, and edges at
+     * nodes that moved, or listed as changed, get new control points. Positions and routings of
+     * removed nodes and edges listed as changed are dropped.
+     *
+     * @param changedIds ids of the nodes and edges added, removed or modified since the positions
+     *                   were laid out, such as {@code WorkflowPatch.changedIds()}; nodes without a
+     *                   position are laid out whether listed or not
+     * @return the changes made, ready to stream as a {@code VISUALIZATION_PATCHED} event
+     * @throws IllegalArgumentException if changedIds is null, or the layout config has an unknown {@code align}
+     */
+    public VisualizationDelta relayout(Workflow workflow, VisualizationConfig visualization, Collection<UUID> changedIds) {
+        if (changedIds == null) {
+            throw new IllegalArgumentException("Changed ids are required");
+        }
+        AutoLayoutConfig effective = visualization.getAutoLayout() != null ? visualization.getAutoLayout() : config;
+        WorkflowGraph graph = WorkflowGraph.of(workflow);
+        if (visualization.getNodePositions2d() == null) {
+            visualization.setNodePositions2d(new ArrayList<>());
+        }
+        if (visualization.getEdgeRoutings() == null) {
+            visualization.setEdgeRoutings(new ArrayList<>());
+        }
+        Set<UUID> changed = new HashSet<>(changedIds);
+        VisualizationDelta delta = VisualizationDelta.builder().visualizationId(visualization.getId()).build();
+        removeStale(graph, visualization, changed, delta.getChanges());
+        new Pass(graph, visualization, changed, effective).run(delta.getChanges());
+        return delta;
+    }
+
+    private static void removeStale(WorkflowGraph graph, VisualizationConfig visualization, Set<UUID> changed,
+                                    List<VisualizationChange> changes) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (Iterator<NodePosition2D> it = visualization.getNodePositions2d().iterator(); it.hasNext(); ) {
+            UUID nodeId = it.next().getNodeId();
+            if (nodeId != null && changed.contains(nodeId)) {
+                int v = graph.indexOf(nodeId);
+                if (v < 0 || !graph.isDeclared(v)) {
+                    it.remove();
+                    changes.add(VisualizationChange.nodeRemoved2d(nodeId));
+                }
+            }
+        }
+        for (Iterator<EdgeRouting> it = visualization.getEdgeRoutings().iterator(); it.hasNext(); ) {
+            UUID edgeId = it.next().getEdgeId();
+            if (edgeId != null && changed.contains(edgeId) && graph.edgeIndexOf(edgeId) < 0) {
+                it.remove();
+                changes.add(VisualizationChange.edgeRoutingRemoved(edgeId));
+            }
+        }
+    }
+
+    /**
+     * One relayout. Coordinates are of node centres, in the flow's frame: {@code flow} grows from
+     * rank to rank and {@code along} runs within a rank.
+     */
+    private static final class Pass {
+
+        private static final int NONE = Integer.MIN_VALUE;
+        private static final byte PINNED = 1;
+        private static final byte ATTACHED = 2;
+        private static final byte DETACHED = 3;
+
+        private final WorkflowGraph graph;
+        private final VisualizationConfig visualization;
+        private final AutoLayoutConfig cfg;
+        private final LayoutDirection direction;
+        private final boolean horizontal;
+        private final int n;
+        private final int m;
+        private final Map<UUID, NodePosition2D> positions = new HashMap<>();
+
+        private final double[] width;
+        private final double[] height;
+        private final double[] breadth;
+        private final double[] depth;
+        private final double[] flow;
+        private final double[] along;
+        private final int[] rank;
+        private final byte[] kind;
+        private final boolean[] moving;
+        private final boolean[] slid;
+        private final boolean[] laidOut;
+        private final boolean[] changedEdge;
+        private final boolean[] reversed;
+        private final boolean[] dropped;
+        private final int[] lane;
+        private int[] pinnedRank;
+
+        private int bandCount;
+        private double[] pinnedLo;
+        private double[] pinnedHi;
+        private int[] bandStart;
+        private int[] bandMembers;
+
+        private int minRank;
+        private double[] lo;
+        private double[] hi;
+        private int[][] sortedBands;
+        private double[] stripeLo;
+        private double[] stripeHi;
+
+        private Pass(WorkflowGraph graph, VisualizationConfig visualization, Set<UUID> changed, AutoLayoutConfig cfg) {
+            this.graph = graph;
+            this.visualization = visualization;
+            this.cfg = cfg;
+            this.direction = cfg.getDirection() != null ? cfg.getDirection() : LayoutDirection.LR;
+            this.horizontal = direction == LayoutDirection.LR || direction == LayoutDirection.RL;
+            this.n = graph.nodeCount();
+            this.m = graph.edgeCount();
+            for (NodePosition2D position : visualization.getNodePositions2d()) {
+                if (position.getNodeId() != null) {
+                    positions.putIfAbsent(position.getNodeId(), position);
+                }
+            }
+            width = new double[n];
+            height = new double[n];
+            breadth = new double[n];
+            depth = new double[n];
+            flow = new double[n];
+            along = new double[n];
+            rank = new int[n];
+            kind = new byte[n];
+            moving = new boolean[n];
+            slid = new boolean[n];
+            lane = new int[n];
+            laidOut = new boolean[m];
+            changedEdge = new boolean[m];
+            reversed = new boolean[m];
+            dropped = new boolean[m];
+            for (int e = 0; e < m; e++) {
+                laidOut[e] = Components.isLaidOut(graph, e);
+                UUID edgeId = graph.edge(e).getId();
+                changedEdge[e] = edgeId != null && changed.contains(edgeId);
+            }
+        }
+
+        void run(List<VisualizationChange> changes) {
+            readPositions();
+            readBands();
+            Components components = classify();
+            if (components != null) {
+                rankAttached();
+                placeDetached(components);
+            }
+            push();
+            buildBands();
+            readLanes();
+            aimAttached();
+            spreadBands();
+            write(changes);
+        }
+
+        private void readPositions() {
+            Arrays.fill(rank, NONE);
+            Arrays.fill(lane, -1);
+            for (int v = 0; v < n; v++) {
+                NodePosition2D position = graph.isDeclared(v) ? positions.get(graph.nodeId(v)) : null;
+                width[v] = position != null && position.getWidth() != null
+                        ? position.getWidth() : LayeredLayout.DEFAULT_NODE_WIDTH;
+                height[v] = position != null && position.getHeight() != null
+                        ? position.getHeight() : LayeredLayout.DEFAULT_NODE_HEIGHT;
+                breadth[v] = horizontal ? height[v] : width[v];
+                depth[v] = horizontal ? width[v] : height[v];
+                if (position != null && position.getPosition() != null) {
+                    kind[v] = PINNED;
+                    double cx = position.getPosition().getX() + width[v] / 2;
+                    double cy = position.getPosition().getY() + height[v] / 2;
+                    flow[v] = switch (direction) {
+                        case LR -> cx;
+                        case RL -> -cx;
+                        case TB -> cy;
+                        case BT -> -cy;
+                    };
+                    along[v] = horizontal ? cy : cx;
+                }
+            }
+        }
+
+        /**
+         * Groups the pinned nodes into ranks: runs of nodes whose extents along the flow overlap.
+         */
+        private void readBands() {
+            bandMembers = IntStream.range(0, n).filter(v -> kind[v] == PINNED).boxed()
+                    .sorted(Comparator.comparingDouble(v -> flow[v] - depth[v] / 2))
+                    .mapToInt(Integer::intValue).toArray();
+            int count = bandMembers.length;
+            pinnedLo = new double[count];
+            pinnedHi = new double[count];
+            bandStart = new int[count + 1];
+            int b = -1;
+            for (int i = 0; i < count; i++) {
+                int v = bandMembers[i];
+                double start = flow[v] - depth[v] / 2;
+                double end = flow[v] + depth[v] / 2;
+                if (b < 0 || start >= pinnedHi[b]) {
+                    b++;
+                    pinnedLo[b] = start;
+                    pinnedHi[b] = end;
+                    bandStart[b] = i;
+                } else {
+                    pinnedHi[b] = Math.max(pinnedHi[b], end);
+                }
+                rank[v] = b;
+            }
+            bandCount = b + 1;
+            bandStart[bandCount] = count;
+            pinnedRank = rank.clone();
+        }
+
+        /**
+         * Marks unplaced nodes as attached to placed ones or in components of their own.
+         *
+         * @return the components, or null if every declared node is placed
+         */
+        private Components classify() {
+            boolean unplaced = false;
+            for (int v = 0; v < n && !unplaced; v++) {
+                unplaced = graph.isDeclared(v) && kind[v] != PINNED;
+            }
+            if (!unplaced) {
+                return null;
+            }
+            Components components = Components.of(graph);
+            for (int c = 0; c < components.count(); c++) {
+                int[] nodes = components.nodes(c);
+                boolean anchored = false;
+                for (int v : nodes) {
+                    anchored |= kind[v] == PINNED;
+                }
+                for (int v : nodes) {
+                    if (kind[v] != PINNED) {
+                        kind[v] = anchored ? ATTACHED : DETACHED;
+                        moving[v] = true;
+                    }
+                }
+            }
+            return components;
+        }
+
+        /**
+         * Ranks new nodes next to placed ones: after their ranked predecessors or, failing those,
+         * before their ranked successors, repeating until every one is reached. Cycles among new
+         * nodes are broken first.
+         */
+        private void rankAttached() {
+            int[] local = new int[n];
+            Arrays.fill(local, -1);
+            int k = 0;
+            for (int v = 0; v < n; v++) {
+                if (kind[v] == ATTACHED) {
+                    local[v] = k++;
+                }
+            }
+            int[] nodes = new int[k];
+            for (int v = 0; v < n; v++) {
+                if (local[v] >= 0) {
+                    nodes[local[v]] = v;
+                }
+            }
+            int count = 0;
+            int[] edges = new int[m];
+            for (int e = 0; e < m; e++) {
+                if (laidOut[e] && kind[graph.source(e)] == ATTACHED && kind[graph.target(e)] == ATTACHED) {
+                    edges[count++] = e;
+                }
+            }
+            int[] tail = new int[count];
+            int[] head = new int[count];
+            for (int i = 0; i < count; i++) {
+                tail[i] = local[graph.source(edges[i])];
+                head[i] = local[graph.target(edges[i])];
+            }
+            boolean[] back = LayeredLayout.breakCycles(k, tail, head);
+            int[] inDegree = new int[k];
+            for (int i = 0; i < count; i++) {
+                reversed[edges[i]] = back[i];
+                inDegree[back[i] ? tail[i] : head[i]]++;
+            }
+
+            int[] order = new int[k];
+            int ordered = 0;
+            for (int i = 0; i < k; i++) {
+                if (inDegree[i] == 0) {
+                    order[ordered++] = nodes[i];
+                }
+            }
+            for (int i = 0; i < ordered; i++) {
+                int v = order[i];
+                for (int j = 0, degree = degree(v); j < degree; j++) {
+                    int e = incident(v, j);
+                    if (laidOut[e] && tailOf(e) == v && kind[headOf(e)] == ATTACHED && --inDegree[local[headOf(e)]] == 0) {
+                        order[ordered++] = headOf(e);
+                    }
+                }
+            }
+
+            boolean progress = true;
+            while (progress) {
+                progress = false;
+                for (int v : order) {
+                    if (rank[v] == NONE) {
+                        int r = NONE;
+                        for (int j = 0, degree = degree(v); j < degree; j++) {
+                            int e = incident(v, j);
+                            if (laidOut[e] && headOf(e) == v && rank[tailOf(e)] != NONE) {
+                                r = Math.max(r, rank[tailOf(e)] + 1);
+                            }
+                        }
+                        rank[v] = r;
+                        progress |= r != NONE;
+                    }
+                }
+                for (int i = k - 1; i >= 0; i--) {
+                    int v = order[i];
+                    if (rank[v] == NONE) {
+                        int r = Integer.MAX_VALUE;
+                        for (int j = 0, degree = degree(v); j < degree; j++) {
+                            int e = incident(v, j);
+                            if (laidOut[e] && tailOf(e) == v && rank[headOf(e)] != NONE) {
+                                r = Math.min(r, rank[headOf(e)] - 1);
+                            }
+                        }
+                        if (r != Integer.MAX_VALUE) {
+                            rank[v] = r;
+                            progress = true;
+                        }
+                    }
+                }
+            }
+            for (int v : order) {
+                if (rank[v] == NONE) {
+                    rank[v] = 0;
+                }
+            }
+        }
+
+        /**
+         * Lays out components without placed nodes in full, and puts them after the drawing along the ranks.
+         */
+        private void placeDetached(Components components) {
+            double end = -cfg.getNodeSpacing();
+            for (int v = 0; v < n; v++) {
+                if (kind[v] == PINNED) {
+                    end = Math.max(end, along[v] + breadth[v] / 2);
+                }
+            }
+            for (int c = 0; c < components.count(); c++) {
+                int[] nodes = components.nodes(c);
+                if (kind[nodes[0]] != DETACHED) {
+                    continue;
+                }
+                LayeredLayout.Placed placed = LayeredLayout.layoutComponent(
+                        graph, components, c, width, height, cfg, direction);
+                double start = end + cfg.getNodeSpacing();
+                for (int i = 0; i < nodes.length; i++) {
+                    rank[nodes[i]] = placed.rank[i];
+                    along[nodes[i]] = start + (horizontal ? placed.centerY[i] : placed.centerX[i]);
+                }
+                end = start + (horizontal ? placed.height : placed.width);
+            }
+        }
+
+        /**
+         * Pushes the targets of edges that now run against the flow, and everything that follows
+         * them, down the flow. An edge whose push would come back round to its own source closes a
+         * cycle; it is dropped, and the push is tried again without it.
+         */
+        private void push() {
+            int[] candidates = new int[m];
+            int count = 0;
+            for (int e = 0; e < m; e++) {
+                if (!laidOut[e]) {
+                    continue;
+                }
+                int s = graph.source(e);
+                int t = graph.target(e);
+                if (kind[t] == PINNED && rank[s] >= rank[t] && (kind[s] == ATTACHED || kind[s] == PINNED && changedEdge[e])) {
+                    candidates[count++] = e;
+                }
+            }
+            if (count == 0) {
+                return;
+            }
+            int[] mark = new int[n];
+            int[] reached = new int[n];
+            int[] inDegree = new int[n];
+            int[] order = new int[n];
+            for (int round = 1; ; round++) {
+                int size = 0;
+                for (int i = 0; i < count; i++) {
+                    int t = graph.target(candidates[i]);
+                    if (!dropped[candidates[i]] && mark[t] != round) {
+                        mark[t] = round;
+                        reached[size++] = t;
+                    }
+                }
+                for (int i = 0; i < size; i++) {
+                    int u = reached[i];
+                    inDegree[u] = 0;
+                    for (int j = 0, degree = degree(u); j < degree; j++) {
+                        int e = incident(u, j);
+                        if (tailOf(e) == u && isConstraint(e) && mark[headOf(e)] != round) {
+                            mark[headOf(e)] = round;
+                            reached[size++] = headOf(e);
+                        }
+                    }
+                }
+                for (int i = 0; i < size; i++) {
+                    int u = reached[i];
+                    for (int j = 0, degree = degree(u); j < degree; j++) {
+                        int e = incident(u, j);
+                        if (tailOf(e) == u && isConstraint(e)) {
+                            inDegree[headOf(e)]++;
+                        }
+                    }
+                }
+                int ordered = 0;
+                for (int i = 0; i < size; i++) {
+                    if (inDegree[reached[i]] == 0) {
+                        order[ordered++] = reached[i];
+                    }
+                }
+                for (int i = 0; i < ordered; i++) {
+                    int u = order[i];
+                    for (int j = 0, degree = degree(u); j < degree; j++) {
+                        int e = incident(u, j);
+                        if (tailOf(e) == u && isConstraint(e) && --inDegree[headOf(e)] == 0) {
+                            order[ordered++] = headOf(e);
+                        }
+                    }
+                }
+                if (ordered < size) {
+                    // Every cycle runs through a candidate, whose source is then left unordered
+                    int cyclic = -1;
+                    for (int i = 0; i < count && cyclic < 0; i++) {
+                        int s = graph.source(candidates[i]);
+                        if (!dropped[candidates[i]] && mark[s] == round && inDegree[s] > 0) {
+                            cyclic = candidates[i];
+                        }
+                    }
+                    if (cyclic < 0) {
+                        throw new IllegalStateException("Ranking constraints have a cycle without a new edge");
+                    }
+                    dropped[cyclic] = true;
+                    continue;
+                }
+                for (int i = 0; i < count; i++) {
+                    int e = candidates[i];
+                    if (!dropped[e] && mark[graph.source(e)] != round) {
+                        rank[graph.target(e)] = Math.max(rank[graph.target(e)], rank[graph.source(e)] + 1);
+                    }
+                }
+                for (int i = 0; i < ordered; i++) {
+                    int u = order[i];
+                    for (int j = 0, degree = degree(u); j < degree; j++) {
+                        int e = incident(u, j);
+                        if (tailOf(e) == u && isConstraint(e)) {
+                            rank[headOf(e)] = Math.max(rank[headOf(e)], rank[u] + 1);
+                        }
+                    }
+                }
+                break;
+            }
+            for (int v = 0; v < n; v++) {
+                if (kind[v] == PINNED && rank[v] != pinnedRank[v]) {
+                    moving[v] = true;
+                }
+            }
+        }
+
+        /**
+         * Whether an edge keeps its target after its source: edges among new nodes as oriented,
+         * edges into new nodes, new edges out of them unless dropped, and edges between pinned
+         * nodes that already ran with the flow or changed and were not dropped.
+         */
+        private boolean isConstraint(int e) {
+            if (!laidOut[e]) {
+                return false;
+            }
+            byte source = kind[graph.source(e)];
+            byte target = kind[graph.target(e)];
+            if (source == DETACHED || target == DETACHED) {
+                return false;
+            }
+            if (source == ATTACHED) {
+                return target == ATTACHED || !dropped[e];
+            }
+            if (target == ATTACHED) {
+                return true;
+            }
+            return pinnedRank[graph.source(e)] < pinnedRank[graph.target(e)] || changedEdge[e] && !dropped[e];
+        }
+
+        /**
+         * Extends the ranks read from the positions with the ones nodes were moved to, stacked
+         * {@code rankSpacing} apart before and after them.
+         */
+        private void buildBands() {
+            minRank = 0;
+            int maxRank = bandCount - 1;
+            for (int v = 0; v < n; v++) {
+                if (moving[v]) {
+                    minRank = Math.min(minRank, rank[v]);
+                    maxRank = Math.max(maxRank, rank[v]);
+                }
+            }
+            int size = maxRank - minRank + 1;
+            lo = new double[size];
+            hi = new double[size];
+            double[] deepest = new double[size];
+            for (int v = 0; v < n; v++) {
+                if (moving[v]) {
+                    deepest[rank[v] - minRank] = Math.max(deepest[rank[v] - minRank], depth[v]);
+                }
+            }
+            int first = bandCount;
+            if (bandCount == 0 && size > 0) {
+                hi[0] = deepest[0];
+                first = 1;
+            }
+            for (int r = 0; r < bandCount; r++) {
+                lo[r - minRank] = pinnedLo[r];
+                hi[r - minRank] = pinnedHi[r];
+            }
+            for (int r = first; r <= maxRank; r++) {
+                lo[r - minRank] = hi[r - 1 - minRank] + cfg.getRankSpacing();
+                hi[r - minRank] = lo[r - minRank] + deepest[r - minRank];
+            }
+            for (int r = -1; r >= minRank; r--) {
+                hi[r - minRank] = lo[r + 1 - minRank] - cfg.getRankSpacing();
+                lo[r - minRank] = hi[r - minRank] - deepest[r - minRank];
+            }
+            for (int v = 0; v < n; v++) {
+                if (moving[v]) {
+                    flow[v] = (lo[rank[v] - minRank] + hi[rank[v] - minRank]) / 2;
+                }
+            }
+            sortedBands = new int[size][];
+        }
+
+        /**
+         * Assigns nodes to the lanes that run along the flow, and reads each lane's band from its
+         * pinned nodes. Lanes without any follow the previous lane, or precede the next.
+         */
+        private void readLanes() {
+            List<Lane> lanes = visualization.getLanes();
+            if (!cfg.isRespectLanes() || lanes == null || lanes.isEmpty()) {
+                return;
+            }
+            LaneOrientation across = horizontal ? LaneOrientation.HORIZONTAL : LaneOrientation.VERTICAL;
+            List<Lane> ordered = lanes.stream()
+                    .filter(l -> (l.getOrientation() != null ? l.getOrientation() : LaneOrientation.HORIZONTAL) == across)
+                    .sorted(Comparator.comparing(Lane::getOrderIndex, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .toList();
+            int count = ordered.size();
+            if (count == 0) {
+                return;
+            }
+            double[] stripeLo = new double[count];
+            double[] stripeHi = new double[count];
+            Arrays.fill(stripeLo, Double.POSITIVE_INFINITY);
+            Arrays.fill(stripeHi, Double.NEGATIVE_INFINITY);
+            for (int l = 0; l < count; l++) {
+                List<UUID> nodeIds = ordered.get(l).getNodeIds();
+                if (nodeIds == null) {
+                    continue;
+                }
+                for (UUID nodeId : nodeIds) {
+                    int v = nodeId != null ? graph.indexOf(nodeId) : -1;
+                    if (v >= 0 && graph.isDeclared(v) && lane[v] < 0) {
+                        lane[v] = l;
+                        if (kind[v] == PINNED) {
+                            stripeLo[l] = Math.min(stripeLo[l], along[v] - breadth[v] / 2);
+                            stripeHi[l] = Math.max(stripeHi[l], along[v] + breadth[v] / 2);
+                        }
+                    }
+                }
+            }
+            double previous = Double.NaN;
+            for (int l = 0; l < count; l++) {
+                if (stripeLo[l] <= stripeHi[l]) {
+                    previous = stripeHi[l];
+                } else if (!Double.isNaN(previous)) {
+                    stripeLo[l] = stripeHi[l] = previous + cfg.getNodeSpacing();
+                    previous = stripeHi[l];
+                }
+            }
+            double next = Double.NaN;
+            for (int l = count - 1; l >= 0; l--) {
+                if (stripeLo[l] <= stripeHi[l]) {
+                    next = stripeLo[l];
+                } else {
+                    // Only lanes before every placed one remain; with none placed, lanes start at 0
+                    double at = Double.isNaN(next) ? (count - 1 - l) * cfg.getNodeSpacing() : next - cfg.getNodeSpacing();
+                    stripeLo[l] = stripeHi[l] = at;
+                    next = at;
+                }
+            }
+            this.stripeLo = stripeLo;
+            this.stripeHi = stripeHi;
+        }
+
+        /**
+         * Aims new attached nodes at the mean of their placed neighbours, from the first rank down,
+         * then the ones still without placed neighbours from the last rank up; then keeps every
+         * moving node within its lane.
+         */
+        private void aimAttached() {
+            int[] nodes = IntStream.range(0, n).filter(v -> kind[v] == ATTACHED).boxed()
+                    .sorted(Comparator.comparingInt(v -> rank[v])).mapToInt(Integer::intValue).toArray();
+            boolean[] aimed = new boolean[n];
+            for (int v = 0; v < n; v++) {
+                aimed[v] = kind[v] == PINNED || kind[v] == DETACHED;
+            }
+            int pending = 0;
+            for (int v : nodes) {
+                if (!aim(v, aimed)) {
+                    nodes[pending++] = v;
+                }
+            }
+            for (int i = pending - 1; i >= 0; i--) {
+                if (!aim(nodes[i], aimed)) {
+                    along[nodes[i]] = 0;
+                    aimed[nodes[i]] = true;
+                }
+            }
+            if (stripeLo == null) {
+                return;
+            }
+            for (int v = 0; v < n; v++) {
+                if (moving[v] && lane[v] >= 0) {
+                    double low = stripeLo[lane[v]] + breadth[v] / 2;
+                    double high = Math.max(low, stripeHi[lane[v]] - breadth[v] / 2);
+                    along[v] = Math.min(Math.max(along[v], low), high);
+                }
+            }
+        }
+
+        private boolean aim(int v, boolean[] aimed) {
+            double sum = 0;
+            int count = 0;
+            for (int j = 0, degree = degree(v); j < degree; j++) {
+                int e = incident(v, j);
+                if (laidOut[e]) {
+                    int w = graph.source(e) == v ? graph.target(e) : graph.source(e);
+                    if (aimed[w]) {
+                        sum += along[w];
+                        count++;
+                    }
+                }
+            }
+            if (count == 0) {
+                return false;
+            }
+            along[v] = sum / count;
+            aimed[v] = true;
+            return true;
+        }
+
+        /**
+         * Spreads every rank that gained nodes by weighted isotonic regression: with each node's
+         * offset from the first taken out, the positions must not decrease, and pooling adjacent
+         * violators finds the ones closest to where the nodes aim in linear time.
+         */
+        private void spreadBands() {
+            int size = lo.length;
+            int[] offsets = new int[size + 1];
+            for (int v = 0; v < n; v++) {
+                if (moving[v]) {
+                    offsets[rank[v] - minRank + 1]++;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] arrivals = new int[offsets[size]];
+            int[] fill = Arrays.copyOf(offsets, size);
+            for (int v = 0; v < n; v++) {
+                if (moving[v]) {
+                    arrivals[fill[rank[v] - minRank]++] = v;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (offsets[i] == offsets[i + 1]) {
+                    continue;
+                }
+                int r = i + minRank;
+                int stayed = 0;
+                int[] items = new int[offsets[i + 1] - offsets[i] + (r >= 0 && r < bandCount ? bandStart[r + 1] - bandStart[r] : 0)];
+                if (r >= 0 && r < bandCount) {
+                    for (int k = bandStart[r]; k < bandStart[r + 1]; k++) {
+                        if (!moving[bandMembers[k]]) {
+                            items[stayed++] = bandMembers[k];
+                        }
+                    }
+                }
+                int total = stayed;
+                for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                    items[total++] = arrivals[k];
+                }
+                items = sortByAlong(Arrays.copyOf(items, total));
+                spread(items);
+                sortedBands[i] = items;
+            }
+        }
+
+        private void spread(int[] items) {
+            int k = items.length;
+            double[] offset = new double[k];
+            for (int i = 1; i < k; i++) {
+                offset[i] = offset[i - 1] + breadth[items[i - 1]] / 2 + cfg.getNodeSpacing() + breadth[items[i]] / 2;
+            }
+            double[] weight = new double[k];
+            double[] sum = new double[k];
+            int[] end = new int[k];
+            int blocks = 0;
+            for (int i = 0; i < k; i++) {
+                double w = moving[items[i]] ? 1 : PINNED_WEIGHT;
+                weight[blocks] = w;
+                sum[blocks] = w * (along[items[i]] - offset[i]);
+                end[blocks++] = i + 1;
+                while (blocks > 1 && sum[blocks - 2] / weight[blocks - 2] > sum[blocks - 1] / weight[blocks - 1]) {
+                    weight[blocks - 2] += weight[blocks - 1];
+                    sum[blocks - 2] += sum[blocks - 1];
+                    end[blocks - 2] = end[blocks - 1];
+                    blocks--;
+                }
+            }
+            for (int b = 0, i = 0; b < blocks; b++) {
+                double mean = sum[b] / weight[b];
+                for (; i < end[b]; i++) {
+                    int v = items[i];
+                    double x = mean + offset[i];
+                    if (moving[v]) {
+                        along[v] = x;
+                    } else if (Math.abs(x - along[v]) > EPSILON) {
+                        along[v] = x;
+                        slid[v] = true;
+                    }
+                }
+            }
+        }
+
+        private int[] sortByAlong(int[] items) {
+            return IntStream.of(items).boxed()
+                    .sorted(Comparator.<Integer>comparingDouble(v -> along[v]).thenComparingInt(v -> moving[v] ? 1 : 0))
+                    .mapToInt(Integer::intValue).toArray();
+        }
+
+        private int[] sortedBand(int r) {
+            int i = r - minRank;
+            if (sortedBands[i] == null) {
+                sortedBands[i] = r >= 0 && r < bandCount
+                        ? sortByAlong(Arrays.stream(bandMembers, bandStart[r], bandStart[r + 1])
+                        .filter(v -> !moving[v]).toArray())
+                        : new int[0];
+            }
+            return sortedBands[i];
+        }
+
+        private void write(List<VisualizationChange> changes) {
+            for (int v = 0; v < n; v++) {
+                if (moving[v] || slid[v]) {
+                    writeNode(v, changes);
+                }
+            }
+            Map<UUID, EdgeRouting> routings = new HashMap<>();
+            for (EdgeRouting routing : visualization.getEdgeRoutings()) {
+                if (routing.getEdgeId() != null) {
+                    routings.putIfAbsent(routing.getEdgeId(), routing);
+                }
+            }
+            for (int e = 0; e < m; e++) {
+                UUID edgeId = graph.edge(e).getId();
+                if (edgeId == null || !laidOut[e]) {
+                    continue;
+                }
+                int s = graph.source(e);
+                int t = graph.target(e);
+                if (!(changedEdge[e] || moving[s] || moving[t] || slid[s] || slid[t])) {
+                    continue;
+                }
+                List<Vector2D> points = route(s, t);
+                EdgeRouting routing = routings.get(edgeId);
+                if (routing != null && samePoints(routing.getControlPoints2d(), points)) {
+                    continue;
+                }
+                if (routing == null) {
+                    routing = new EdgeRouting();
+                    routing.setEdgeId(edgeId);
+                    routings.put(edgeId, routing);
+                    visualization.getEdgeRoutings().add(routing);
+                }
+                routing.setControlPoints2d(points);
+                changes.add(VisualizationChange.edgeRouted(edgeId, null, new ArrayList<>(points)));
+            }
+        }
+
+        private void writeNode(int v, List<VisualizationChange> changes) {
+            UUID nodeId = graph.nodeId(v);
+            NodePosition2D position = positions.get(nodeId);
+            boolean added = position == null;
+            if (added) {
+                position = new NodePosition2D();
+                position.setNodeId(nodeId);
+                position.setNodeType(graph.nodeType(v));
+                positions.put(nodeId, position);
+                visualization.getNodePositions2d().add(position);
+            }
+            boolean sized = position.getWidth() == null || position.getHeight() == null;
+            double x = x(flow[v], along[v]) - width[v] / 2;
+            double y = y(flow[v], along[v]) - height[v] / 2;
+            position.setPosition(new Vector2D(x, y));
+            position.setWidth(width[v]);
+            position.setHeight(height[v]);
+            VisualizationChange change = VisualizationChange.nodeMoved2d(nodeId, x, y);
+            if (added) {
+                change.setNodeType(graph.nodeType(v));
+            }
+            if (sized) {
+                change.setWidth(width[v]);
+                change.setHeight(height[v]);
+            }
+            changes.add(change);
+        }
+
+        /**
+         * Bend points from source to target, one in each rank in between, where the straight line
+         * between the ends crosses it or, if a node is in the way, just beside that node.
+         */
+        private List<Vector2D> route(int s, int t) {
+            int from = rank[s];
+            int to = rank[t];
+            List<Vector2D> points = new ArrayList<>(Math.max(0, Math.abs(to - from) - 1));
+            int step = to > from ? 1 : -1;
+            for (int r = from + step; Math.abs(to - from) > 1 && r != to; r += step) {
+                double a = throughGap(r, along[s] + (along[t] - along[s]) * (r - from) / (double) (to - from));
+                double f = (lo[r - minRank] + hi[r - minRank]) / 2;
+                points.add(new Vector2D(x(f, a), y(f, a)));
+            }
+            return points;
+        }
+
+        private double throughGap(int r, double desired) {
+            int[] items = sortedBand(r);
+            int k = items.length;
+            int low = 0;
+            int high = k;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (along[items[mid]] < desired) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            int blocking = low < k && start(items[low]) < desired ? low
+                    : low > 0 && end(items[low - 1]) > desired ? low - 1 : -1;
+            if (blocking < 0) {
+                return desired;
+            }
+            double right = end(items[blocking]);
+            for (int i = blocking + 1; i < k && start(items[i]) < right; i++) {
+                right = Math.max(right, end(items[i]));
+            }
+            double left = start(items[blocking]);
+            for (int i = blocking - 1; i >= 0 && end(items[i]) > left; i--) {
+                left = Math.min(left, start(items[i]));
+            }
+            return desired - left <= right - desired ? left : right;
+        }
+
+        private double start(int v) {
+            return along[v] - breadth[v] / 2 - cfg.getEdgeSpacing();
+        }
+
+        private double end(int v) {
+            return along[v] + breadth[v] / 2 + cfg.getEdgeSpacing();
+        }
+
+        private double x(double f, double a) {
+            return switch (direction) {
+                case LR -> f;
+                case RL -> -f;
+                case TB, BT -> a;
+            };
+        }
+
+        private double y(double f, double a) {
+            return switch (direction) {
+                case LR, RL -> a;
+                case TB -> f;
+                case BT -> -f;
+            };
+        }
+
+        private int degree(int v) {
+            return graph.outDegree(v) + graph.inDegree(v);
+        }
+
+        private int incident(int v, int j) {
+            int out = graph.outDegree(v);
+            return j < out ? graph.outEdge(v, j) : graph.inEdge(v, j - out);
+        }
+
+        private int tailOf(int e) {
+            return reversed[e] ? graph.target(e) : graph.source(e);
+        }
+
+        private int headOf(int e) {
+            return reversed[e] ? graph.source(e) : graph.target(e);
+        }
+
+        private static boolean samePoints(List<Vector2D> a, List<Vector2D> b) {
+            int size = a != null ? a.size() : 0;
+            if (size != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (a.get(i).getX() != b.get(i).getX() || a.get(i).getY() != b.get(i).getY()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.awa.layout;
+
+/**
+ * A ranked acyclic graph in which every edge spans one rank: an edge spanning several ranks is
+ * split by dummy nodes, one per rank it crosses, so ordering and placement treat it like a chain of
+ * thin nodes. Real nodes are {@code 0..realCount-1}, dummies follow. Adjacency towards the previous
+ * and the next rank is kept in CSR form, with an entry per edge, so parallel edges weigh double.
+ * <p>
+ * {@link #layers} holds the order of the nodes within each rank; {@link #pos} is its inverse.
+ */
+final class LayerGraph {
+
+    final int realCount;
+    final int size;
+    final int maxRank;
+    final int[] rank;
+    /**
+     * Extent along the rank, and across it; zero for dummies.
+     */
+    final double[] breadth;
+    final double[] depth;
+
+    final int[] upOffsets;
+    final int[] up;
+    final int[] downOffsets;
+    final int[] down;
+
+    /**
+     * First dummy of each input edge, and how many follow rank by rank from its tail.
+     */
+    final int[] chainStart;
+    final int[] chainLength;
+
+    int[][] layers;
+    final int[] pos;
+
+    /**
+     * @param tail  edge tails, all at a lower rank than their heads
+     * @param ranks ranks of the real nodes, from 0
+     */
+    LayerGraph(int realCount, double[] breadth, double[] depth, int[] tail, int[] head, int[] ranks) {
+        int m = tail.length;
+        int dummies = 0;
+        int top = 0;
+        for (int v = 0; v < realCount; v++) {
+            top = Math.max(top, ranks[v]);
+        }
+        for (int e = 0; e < m; e++) {
+            int span = ranks[head[e]] - ranks[tail[e]];
+            if (span < 1) {
+                throw new IllegalArgumentException("Edge " + e + " does not point to a higher rank");
+            }
+            dummies += span - 1;
+        }
+        this.realCount = realCount;
+        this.size = realCount + dummies;
+        this.maxRank = top;
+        this.rank = new int[size];
+        this.breadth = new double[size];
+        this.depth = new double[size];
+        System.arraycopy(ranks, 0, rank, 0, realCount);
+        System.arraycopy(breadth, 0, this.breadth, 0, realCount);
+        System.arraycopy(depth, 0, this.depth, 0, realCount);
+
+        this.chainStart = new int[m];
+        this.chainLength = new int[m];
+        int segments = m + dummies;
+        int[] upper = new int[segments];
+        int[] lower = new int[segments];
+        int next = realCount;
+        int s = 0;
+        for (int e = 0; e < m; e++) {
+            int span = ranks[head[e]] - ranks[tail[e]];
+            chainStart[e] = next;
+            chainLength[e] = span - 1;
+            int previous = tail[e];
+            for (int k = 1; k < span; k++) {
+                int dummy = next++;
+                rank[dummy] = ranks[tail[e]] + k;
+                upper[s] = previous;
+                lower[s++] = dummy;
+                previous = dummy;
+            }
+            upper[s] = previous;
+            lower[s++] = head[e];
+        }
+
+        this.downOffsets = new int[size + 1];
+        this.upOffsets = new int[size + 1];
+        for (int i = 0; i < segments; i++) {
+            downOffsets[upper[i] + 1]++;
+            upOffsets[lower[i] + 1]++;
+        }
+        for (int v = 0; v < size; v++) {
+            downOffsets[v + 1] += downOffsets[v];
+            upOffsets[v + 1] += upOffsets[v];
+        }
+        this.down = new int[segments];
+        this.up = new int[segments];
+        int[] downFill = new int[size];
+        int[] upFill = new int[size];
+        for (int i = 0; i < segments; i++) {
+            down[downOffsets[upper[i]] + downFill[upper[i]]++] = lower[i];
+            up[upOffsets[lower[i]] + upFill[lower[i]]++] = upper[i];
+        }
+
+        this.pos = new int[size];
+        this.layers = initialOrder();
+    }
+
+    boolean isDummy(int v) {
+        return v >= realCount;
+    }
+
+    /**
+     * Orders each rank by a depth-first walk down from the nodes in rank order, which keeps
+     * the nodes of one branch together and starts crossing reduction from a sensible order.
+     */
+    private int[][] initialOrder() {
+        int[] counts = new int[maxRank + 1];
+        for (int v = 0; v < size; v++) {
+            counts[rank[v]]++;
+        }
+        int[][] order = new int[maxRank + 1][];
+        for (int r = 0; r <= maxRank; r++) {
+            order[r] = new int[counts[r]];
+        }
+        int[] byRank = new int[realCount];
+        int[] start = new int[maxRank + 2];
+        for (int v = 0; v < realCount; v++) {
+            start[rank[v] + 1]++;
+        }
+        for (int r = 0; r <= maxRank; r++) {
+            start[r + 1] += start[r];
+        }
+        for (int v = 0; v < realCount; v++) {
+            byRank[start[rank[v]]++] = v;
+        }
+
+        int[] filled = new int[maxRank + 1];
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        for (int root : byRank) {
+            if (visited[root]) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            visited[root] = true;
+            while (top > 0) {
+                int v = stack[--top];
+                int r = rank[v];
+                pos[v] = filled[r];
+                order[r][filled[r]++] = v;
+                // Pushed in reverse so the first successor is visited first
+                for (int k = downOffsets[v + 1] - 1; k >= downOffsets[v]; k--) {
+                    int w = down[k];
+                    if (!visited[w]) {
+                        visited[w] = true;
+                        stack[top++] = w;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    void updatePositions() {
+        for (int[] layer : layers) {
+            for (int i = 0; i < layer.length; i++) {
+                pos[layer[i]] = i;
+            }
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package io.awa.layout;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.model.Workflow;
+import io.awa.model.visualization.LayoutDirection;
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.model.visualization.VisualizationConfig.AutoLayoutConfig;
+import io.awa.model.visualization.VisualizationConfig.EdgeRouting;
+import io.awa.model.visualization.VisualizationConfig.NodePosition2D;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lays out the nodes of a workflow in ranks along the flow, the way dagre does in the browser.
+ * <p>
+ * Each connected component is laid out on its own, in four phases:
+ * <ol>
+ *     <li>cycles are broken by reversing the back edges a depth-first search finds;</li>
+ *     <li>nodes are ranked by {@link NetworkSimplex network simplex}, which keeps edges short;</li>
+ *     <li>edges spanning several ranks are split by dummy nodes, and each rank is reordered to
+ *     reduce crossings ({@link Ordering});</li>
+ *     <li>nodes are placed along their rank with the method of Brandes and Köpf, and ranks are
+ *     stacked {@code rankSpacing} apart ({@link Placement}).</li>
+ * </ol>
+ * Components of at least {@link #DEFAULT_PARALLEL_THRESHOLD} nodes are laid out in parallel on
+ * the pool, and the results are packed side by side across the flow, in the order of their first
+ * declared node.
+ * <p>
+ * {@link AutoLayoutConfig} supplies direction, node, rank and edge spacing, and {@code align}
+ * ({@code UL}, {@code UR}, {@code DL}, {@code DR}). The layered layout stands in for every
+ * {@link io.awa.model.visualization.LayoutAlgorithm}; callers honouring {@code MANUAL} should not
+ * call it. Lanes are not taken into account; {@link IncrementalLayout} keeps nodes within them
+ * when it updates a layout after the workflow changed.
+ *
+ * <pre>{@code
+ * LayeredLayout layout = new LayeredLayout();
+ * layout.layout(workflow, visualization);   // fills node_positions_2d and edge_routings
+ * }</pre>
+ */
+public final class LayeredLayout {
+
+    public static final double DEFAULT_NODE_WIDTH = 150;
+    public static final double DEFAULT_NODE_HEIGHT = 60;
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+
+    private static final int MAX_SWEEPS = 24;
+
+    private AutoLayoutConfig config = new AutoLayoutConfig();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Sets the configuration used when the visualization has no {@code auto_layout} of its own.
+     */
+    public LayeredLayout config(AutoLayoutConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Layout config is required");
+        }
+        this.config = config;
+        return this;
+    }
+
+    /**
+     * Sets the pool components are laid out on; the common pool by default.
+     */
+    public LayeredLayout pool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool is required");
+        }
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the node count from which a component gets its own task; smaller ones are laid out on the calling thread.
+     */
+    public LayeredLayout parallelThreshold(int nodes) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + nodes);
+        }
+        this.parallelThreshold = nodes;
+        return this;
+    }
+
+    /**
+     * Lays out the workflow and writes the result into the visualization: every node gets a
+     * {@code NodePosition2D}, added if missing, and every edge with an id an {@code EdgeRouting}
+     * whose control points are the bend points. Sizes already set on node positions are kept and
+     * laid out around; missing ones are set to the defaults.
+     *
+     * @throws IllegalArgumentException if the layout config has an unknown {@code align}
+     */
+    public GraphLayout layout(Workflow workflow, VisualizationConfig visualization) {
+        AutoLayoutConfig effective = visualization.getAutoLayout() != null ? visualization.getAutoLayout() : config;
+        WorkflowGraph graph = WorkflowGraph.of(workflow);
+        if (visualization.getNodePositions2d() == null) {
+            visualization.setNodePositions2d(new ArrayList<>());
+        }
+        if (visualization.getEdgeRoutings() == null) {
+            visualization.setEdgeRoutings(new ArrayList<>());
+        }
+        Map<UUID, NodePosition2D> positions = new HashMap<>();
+        for (NodePosition2D position : visualization.getNodePositions2d()) {
+            if (position.getNodeId() != null) {
+                positions.putIfAbsent(position.getNodeId(), position);
+            }
+        }
+        int n = graph.nodeCount();
+        double[] widths = new double[n];
+        double[] heights = new double[n];
+        for (int v = 0; v < n; v++) {
+            NodePosition2D position = positions.get(graph.nodeId(v));
+            widths[v] = position != null && position.getWidth() != null ? position.getWidth() : DEFAULT_NODE_WIDTH;
+            heights[v] = position != null && position.getHeight() != null ? position.getHeight() : DEFAULT_NODE_HEIGHT;
+        }
+
+        GraphLayout result = layout(graph, widths, heights, effective);
+
+        for (int v = 0; v < n; v++) {
+            if (!result.isPlaced(v)) {
+                continue;
+            }
+            NodePosition2D position = positions.get(graph.nodeId(v));
+            if (position == null) {
+                position = new NodePosition2D();
+                position.setNodeId(graph.nodeId(v));
+                position.setNodeType(graph.nodeType(v));
+                visualization.getNodePositions2d().add(position);
+            }
+            position.setPosition(new Vector2D(result.x(v), result.y(v)));
+            position.setWidth(widths[v]);
+            position.setHeight(heights[v]);
+        }
+        Map<UUID, EdgeRouting> routings = new HashMap<>();
+        for (EdgeRouting routing : visualization.getEdgeRoutings()) {
+            if (routing.getEdgeId() != null) {
+                routings.putIfAbsent(routing.getEdgeId(), routing);
+            }
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            UUID edgeId = graph.edge(e).getId();
+            if (edgeId == null) {
+                continue;
+            }
+            EdgeRouting routing = routings.get(edgeId);
+            if (routing == null) {
+                routing = new EdgeRouting();
+                routing.setEdgeId(edgeId);
+                routings.put(edgeId, routing);
+                visualization.getEdgeRoutings().add(routing);
+            }
+            routing.setControlPoints2d(new ArrayList<>(result.bendPoints(e)));
+        }
+        return result;
+    }
+
+    /**
+     * Lays out a graph with the given node sizes, indexed by the graph's node ids.
+     *
+     * @throws IllegalArgumentException if a size array is shorter than the node count, or the
+     *                                  config has an unknown {@code align}
+     */
+    public GraphLayout layout(WorkflowGraph graph, double[] widths, double[] heights) {
+        return layout(graph, widths, heights, config);
+    }
+
+    private GraphLayout layout(WorkflowGraph graph, double[] widths, double[] heights, AutoLayoutConfig cfg) {
+        int n = graph.nodeCount();
+        if (widths.length < n || heights.length < n) {
+            throw new IllegalArgumentException("Node sizes are required for all " + n + " nodes");
+        }
+        Components components = Components.of(graph);
+        LayoutDirection direction = cfg.getDirection() != null ? cfg.getDirection() : LayoutDirection.LR;
+
+        Placed[] placed = new Placed[components.count()];
+        List<ForkJoinTask<Placed>> tasks = new ArrayList<>();
+        int[] forked = new int[components.count()];
+        int forkedCount = 0;
+        for (int c = 0; c < components.count(); c++) {
+            if (components.nodes(c).length >= parallelThreshold && components.count() > 1) {
+                int component = c;
+                tasks.add(pool.submit(() -> layoutComponent(graph, components, component, widths, heights, cfg, direction)));
+                forked[forkedCount++] = c;
+            }
+        }
+        for (int c = 0; c < components.count(); c++) {
+            if (components.nodes(c).length < parallelThreshold || components.count() == 1) {
+                placed[c] = layoutComponent(graph, components, c, widths, heights, cfg, direction);
+            }
+        }
+        for (int i = 0; i < forkedCount; i++) {
+            placed[forked[i]] = tasks.get(i).join();
+        }
+        return pack(graph, components, placed, widths, heights, cfg, direction);
+    }
+
+    /**
+     * Places the components next to each other across the flow, in component order.
+     */
+    private static GraphLayout pack(WorkflowGraph graph, Components components, Placed[] placed,
+                                    double[] widths, double[] heights, AutoLayoutConfig cfg, LayoutDirection direction) {
+        int n = graph.nodeCount();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] rank = new int[n];
+        Arrays.fill(x, Double.NaN);
+        Arrays.fill(y, Double.NaN);
+        Arrays.fill(rank, -1);
+        double[][] bends = new double[graph.edgeCount()][];
+        boolean horizontal = direction == LayoutDirection.LR || direction == LayoutDirection.RL;
+        double offset = 0;
+        double totalWidth = 0;
+        double totalHeight = 0;
+        for (int c = 0; c < placed.length; c++) {
+            Placed p = placed[c];
+            double dx = horizontal ? 0 : offset;
+            double dy = horizontal ? offset : 0;
+            int[] nodes = components.nodes(c);
+            for (int i = 0; i < nodes.length; i++) {
+                int v = nodes[i];
+                x[v] = dx + p.centerX[i] - widths[v] / 2;
+                y[v] = dy + p.centerY[i] - heights[v] / 2;
+                rank[v] = p.rank[i];
+            }
+            int[] edges = components.edges(c);
+            for (int i = 0; i < edges.length; i++) {
+                double[] points = p.bends[i];
+                if (points != null) {
+                    for (int k = 0; k < points.length; k += 2) {
+                        points[k] += dx;
+                        points[k + 1] += dy;
+                    }
+                    bends[edges[i]] = points;
+                }
+            }
+            if (horizontal) {
+                totalWidth = Math.max(totalWidth, p.width);
+                totalHeight = offset + p.height;
+                offset += p.height + cfg.getNodeSpacing();
+            } else {
+                totalHeight = Math.max(totalHeight, p.height);
+                totalWidth = offset + p.width;
+                offset += p.width + cfg.getNodeSpacing();
+            }
+        }
+        return new GraphLayout(x, y, widths.clone(), heights.clone(), rank, bends, totalWidth, totalHeight);
+    }
+
+    static Placed layoutComponent(WorkflowGraph graph, Components components, int c, double[] widths,
+                                  double[] heights, AutoLayoutConfig cfg, LayoutDirection direction) {
+        int[] nodes = components.nodes(c);
+        int[] edges = components.edges(c);
+        int k = nodes.length;
+        int m = edges.length;
+        boolean horizontal = direction == LayoutDirection.LR || direction == LayoutDirection.RL;
+
+        int[] tail = new int[m];
+        int[] head = new int[m];
+        for (int i = 0; i < m; i++) {
+            tail[i] = components.local(graph.source(edges[i]));
+            head[i] = components.local(graph.target(edges[i]));
+        }
+        boolean[] reversed = breakCycles(k, tail, head);
+        for (int i = 0; i < m; i++) {
+            if (reversed[i]) {
+                int t = tail[i];
+                tail[i] = head[i];
+                head[i] = t;
+            }
+        }
+
+        int[] ranks = rank(k, tail, head);
+        double[] breadth = new double[k];
+        double[] depth = new double[k];
+        for (int i = 0; i < k; i++) {
+            breadth[i] = horizontal ? heights[nodes[i]] : widths[nodes[i]];
+            depth[i] = horizontal ? widths[nodes[i]] : heights[nodes[i]];
+        }
+        LayerGraph layered = new LayerGraph(k, breadth, depth, tail, head, ranks);
+        Ordering.minimizeCrossings(layered, MAX_SWEEPS);
+        double[] along = Placement.alongRanks(layered, cfg.getNodeSpacing(), cfg.getEdgeSpacing(), cfg.getAlign());
+        double[] across = Placement.acrossRanks(layered, cfg.getRankSpacing());
+
+        // Orient, then move the component's bounding box to the origin
+        int size = layered.size;
+        double[] cx = new double[size];
+        double[] cy = new double[size];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < size; v++) {
+            double a = along[v];
+            double d = across[v];
+            switch (direction) {
+                case TB -> {
+                    cx[v] = a;
+                    cy[v] = d;
+                }
+                case BT -> {
+                    cx[v] = a;
+                    cy[v] = -d;
+                }
+                case LR -> {
+                    cx[v] = d;
+                    cy[v] = a;
+                }
+                case RL -> {
+                    cx[v] = -d;
+                    cy[v] = a;
+                }
+            }
+            double halfWidth = v < k ? widths[nodes[v]] / 2 : 0;
+            double halfHeight = v < k ? heights[nodes[v]] / 2 : 0;
+            minX = Math.min(minX, cx[v] - halfWidth);
+            maxX = Math.max(maxX, cx[v] + halfWidth);
+            minY = Math.min(minY, cy[v] - halfHeight);
+            maxY = Math.max(maxY, cy[v] + halfHeight);
+        }
+
+        Placed placed = new Placed();
+        placed.centerX = new double[k];
+        placed.centerY = new double[k];
+        placed.rank = ranks;
+        for (int i = 0; i < k; i++) {
+            placed.centerX[i] = cx[i] - minX;
+            placed.centerY[i] = cy[i] - minY;
+        }
+        placed.bends = new double[m][];
+        for (int i = 0; i < m; i++) {
+            int count = layered.chainLength[i];
+            if (count == 0) {
+                continue;
+            }
+            double[] points = new double[2 * count];
+            for (int j = 0; j < count; j++) {
+                int dummy = layered.chainStart[i] + j;
+                // Chains run from the lower rank; a reversed edge's source is at the other end
+                int slot = reversed[i] ? count - 1 - j : j;
+                points[2 * slot] = cx[dummy] - minX;
+                points[2 * slot + 1] = cy[dummy] - minY;
+            }
+            placed.bends[i] = points;
+        }
+        placed.width = maxX - minX;
+        placed.height = maxY - minY;
+        return placed;
+    }
+
+    /**
+     * Marks the edges a depth-first search meets as back edges, starting from the sources.
+     */
+    static boolean[] breakCycles(int n, int[] tail, int[] head) {
+        int m = tail.length;
+        int[] offsets = new int[n + 1];
+        int[] inDegree = new int[n];
+        for (int e = 0; e < m; e++) {
+            offsets[tail[e] + 1]++;
+            inDegree[head[e]]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] out = new int[m];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < m; e++) {
+            out[fill[tail[e]]++] = e;
+        }
+
+        boolean[] reversed = new boolean[m];
+        byte[] state = new byte[n];
+        int[] cursor = new int[n];
+        int[] stack = new int[n];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int start = 0; start < n; start++) {
+                if (state[start] != 0 || pass == 0 && inDegree[start] > 0) {
+                    continue;
+                }
+                int top = 0;
+                stack[top++] = start;
+                state[start] = 1;
+                cursor[start] = offsets[start];
+                while (top > 0) {
+                    int v = stack[top - 1];
+                    if (cursor[v] < offsets[v + 1]) {
+                        int e = out[cursor[v]++];
+                        int w = head[e];
+                        if (state[w] == 0) {
+                            state[w] = 1;
+                            cursor[w] = offsets[w];
+                            stack[top++] = w;
+                        } else if (state[w] == 1) {
+                            reversed[e] = true;
+                        }
+                    } else {
+                        state[v] = 2;
+                        top--;
+                    }
+                }
+            }
+        }
+        return reversed;
+    }
+
+    /**
+     * Ranks a connected acyclic graph, merging parallel edges into weighted ones first.
+     */
+    private static int[] rank(int n, int[] tail, int[] head) {
+        if (tail.length == 0) {
+            return new int[n];
+        }
+        Map<Long, Integer> merged = new HashMap<>(tail.length * 2);
+        int[] mergedTail = new int[tail.length];
+        int[] mergedHead = new int[tail.length];
+        int[] weight = new int[tail.length];
+        int count = 0;
+        for (int e = 0; e < tail.length; e++) {
+            Integer index = merged.putIfAbsent((long) tail[e] << 32 | head[e], count);
+            if (index == null) {
+                mergedTail[count] = tail[e];
+                mergedHead[count] = head[e];
+                weight[count++] = 1;
+            } else {
+                weight[index]++;
+            }
+        }
+        int[] minLen = new int[count];
+        Arrays.fill(minLen, 1);
+        return NetworkSimplex.rank(n, Arrays.copyOf(mergedTail, count), Arrays.copyOf(mergedHead, count),
+                Arrays.copyOf(weight, count), minLen, 10 * (n + count));
+    }
+
+    /**
+     * One component's layout in its own frame, indexed by position in the component's node and edge lists.
+     */
+    static final class Placed {
+        double[] centerX;
+        double[] centerY;
+        int[] rank;
+        double[][] bends;
+        double width;
+        double height;
+    }
+}
@@ -0,0 +1,300 @@
+package io.awa.layout;
+
+import java.util.Arrays;
+
+/**
+ * Ranks the nodes of a connected acyclic graph so that every edge points to a higher rank by at
+ * least its minimum length, minimising the total weighted edge length.
+ * <p>
+ * This is the network simplex of Gansner et al., "A Technique for Drawing Directed Graphs" (1993):
+ * start from a longest-path ranking, grow a spanning tree of tight edges, then repeatedly swap a
+ * tree edge with a negative cut value for the non-tree edge of least slack that reconnects the
+ * tree. Tree order is kept as postorder low/lim numbers, so subtree membership is two comparisons.
+ * Each swap recomputes cut values and ranks in O(V + E). Edges between the same pair of nodes must
+ * have been merged into one weighted edge.
+ */
+final class NetworkSimplex {
+
+    private final int n;
+    private final int m;
+    private final int[] tail;
+    private final int[] head;
+    private final int[] weight;
+    private final int[] minLen;
+    private final int[] incOffsets;
+    private final int[] incEdges;
+
+    private final int[] rank;
+    private final boolean[] inTree;
+    private final int[] parentEdge;
+    private final int[] low;
+    private final int[] lim;
+    private final int[] cut;
+    private final int[] postorder;
+    private final int[] cursor;
+    private final int[] stack;
+
+    private NetworkSimplex(int n, int[] tail, int[] head, int[] weight, int[] minLen) {
+        this.n = n;
+        this.m = tail.length;
+        this.tail = tail;
+        this.head = head;
+        this.weight = weight;
+        this.minLen = minLen;
+        this.incOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            incOffsets[tail[e] + 1]++;
+            incOffsets[head[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            incOffsets[v + 1] += incOffsets[v];
+        }
+        this.incEdges = new int[2 * m];
+        int[] fill = Arrays.copyOf(incOffsets, n);
+        for (int e = 0; e < m; e++) {
+            incEdges[fill[tail[e]]++] = e;
+            incEdges[fill[head[e]]++] = e;
+        }
+        this.rank = new int[n];
+        this.inTree = new boolean[m];
+        this.parentEdge = new int[n];
+        this.low = new int[n];
+        this.lim = new int[n];
+        this.cut = new int[n];
+        this.postorder = new int[n];
+        this.cursor = new int[n];
+        this.stack = new int[n];
+    }
+
+    /**
+     * Ranks a connected acyclic graph; the lowest rank is 0.
+     *
+     * @param maxIterations bound on tree edge swaps; the ranking stays feasible if it is reached, just not minimal
+     */
+    static int[] rank(int n, int[] tail, int[] head, int[] weight, int[] minLen, int maxIterations) {
+        NetworkSimplex simplex = new NetworkSimplex(n, tail, head, weight, minLen);
+        simplex.run(maxIterations);
+        return simplex.rank;
+    }
+
+    private void run(int maxIterations) {
+        if (n == 0) {
+            return;
+        }
+        longestPath();
+        feasibleTree();
+        assignLowLim();
+        assignCutValues();
+        for (int i = 0; i < maxIterations; i++) {
+            int leaving = leavingNode();
+            if (leaving < 0) {
+                break;
+            }
+            int entering = enteringEdge(leaving);
+            inTree[parentEdge[leaving]] = false;
+            inTree[entering] = true;
+            assignLowLim();
+            assignCutValues();
+            assignRanks();
+        }
+        int min = Integer.MAX_VALUE;
+        for (int r : rank) {
+            min = Math.min(min, r);
+        }
+        for (int v = 0; v < n; v++) {
+            rank[v] -= min;
+        }
+    }
+
+    private int slack(int e) {
+        return rank[head[e]] - rank[tail[e]] - minLen[e];
+    }
+
+    private int other(int e, int v) {
+        return tail[e] == v ? head[e] : tail[e];
+    }
+
+    /**
+     * Sources at rank 0, every other node as low as its predecessors allow.
+     */
+    private void longestPath() {
+        int[] inDegree = new int[n];
+        for (int e = 0; e < m; e++) {
+            inDegree[head[e]]++;
+        }
+        int[] queue = new int[n];
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDegree[v] == 0) {
+                queue[size++] = v;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int v = queue[i];
+            for (int k = incOffsets[v]; k < incOffsets[v + 1]; k++) {
+                int e = incEdges[k];
+                if (tail[e] == v) {
+                    int w = head[e];
+                    rank[w] = Math.max(rank[w], rank[v] + minLen[e]);
+                    if (--inDegree[w] == 0) {
+                        queue[size++] = w;
+                    }
+                }
+            }
+        }
+        if (size != n) {
+            throw new IllegalArgumentException("Graph to rank has a cycle");
+        }
+    }
+
+    /**
+     * Grows a tree of tight edges from node 0, shifting the tree's ranks to tighten the edge of
+     * least slack whenever no tight edge leaves it.
+     */
+    private void feasibleTree() {
+        boolean[] treeNode = new boolean[n];
+        int[] members = new int[n];
+        int size = 0;
+        treeNode[0] = true;
+        members[size++] = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (true) {
+            while (top > 0) {
+                int v = stack[--top];
+                for (int k = incOffsets[v]; k < incOffsets[v + 1]; k++) {
+                    int e = incEdges[k];
+                    int w = other(e, v);
+                    if (!treeNode[w] && slack(e) == 0) {
+                        treeNode[w] = true;
+                        inTree[e] = true;
+                        members[size++] = w;
+                        stack[top++] = w;
+                    }
+                }
+            }
+            if (size == n) {
+                return;
+            }
+            int best = -1;
+            int bestSlack = Integer.MAX_VALUE;
+            for (int e = 0; e < m; e++) {
+                if (treeNode[tail[e]] != treeNode[head[e]] && slack(e) < bestSlack) {
+                    best = e;
+                    bestSlack = slack(e);
+                }
+            }
+            int delta = treeNode[tail[best]] ? bestSlack : -bestSlack;
+            for (int i = 0; i < size; i++) {
+                rank[members[i]] += delta;
+            }
+            stack[top++] = treeNode[tail[best]] ? tail[best] : head[best];
+        }
+    }
+
+    /**
+     * Numbers the tree in postorder from node 0: {@code lim} is a node's own number and {@code low}
+     * the smallest number in its subtree.
+     */
+    private void assignLowLim() {
+        int top = 0;
+        int next = 1;
+        int done = 0;
+        parentEdge[0] = -1;
+        low[0] = next;
+        cursor[0] = incOffsets[0];
+        stack[top++] = 0;
+        while (top > 0) {
+            int v = stack[top - 1];
+            if (cursor[v] < incOffsets[v + 1]) {
+                int e = incEdges[cursor[v]++];
+                if (inTree[e] && e != parentEdge[v]) {
+                    int w = other(e, v);
+                    parentEdge[w] = e;
+                    low[w] = next;
+                    cursor[w] = incOffsets[w];
+                    stack[top++] = w;
+                }
+            } else {
+                lim[v] = next++;
+                postorder[done++] = v;
+                top--;
+            }
+        }
+    }
+
+    private void assignCutValues() {
+        for (int i = 0; i < n - 1; i++) {
+            int child = postorder[i];
+            int treeEdge = parentEdge[child];
+            boolean childIsTail = tail[treeEdge] == child;
+            int value = weight[treeEdge];
+            for (int k = incOffsets[child]; k < incOffsets[child + 1]; k++) {
+                int e = incEdges[k];
+                if (e == treeEdge) {
+                    continue;
+                }
+                boolean out = tail[e] == child;
+                boolean pointsToHead = out == childIsTail;
+                value += pointsToHead ? weight[e] : -weight[e];
+                if (inTree[e]) {
+                    int grandchild = other(e, child);
+                    value += pointsToHead ? -cut[grandchild] : cut[grandchild];
+                }
+            }
+            cut[child] = value;
+        }
+    }
+
+    /**
+     * Ranks from the tree: every node sits its tree edge's minimum length from its parent.
+     */
+    private void assignRanks() {
+        for (int i = n - 2; i >= 0; i--) {
+            int v = postorder[i];
+            int e = parentEdge[v];
+            int parent = other(e, v);
+            rank[v] = rank[parent] + (tail[e] == parent ? minLen[e] : -minLen[e]);
+        }
+    }
+
+    /**
+     * A node whose edge to its tree parent has a negative cut value, or -1 if the ranking is optimal.
+     */
+    private int leavingNode() {
+        for (int i = 0; i < n - 1; i++) {
+            if (cut[postorder[i]] < 0) {
+                return postorder[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The non-tree edge of least slack crossing from the head side to the tail side of the cut
+     * that removing the subtree's tree edge makes.
+     */
+    private int enteringEdge(int subtreeRoot) {
+        int treeEdge = parentEdge[subtreeRoot];
+        // The subtree holds the tail of the leaving edge unless the child is its head
+        boolean subtreeIsTail = tail[treeEdge] == subtreeRoot;
+        int lo = low[subtreeRoot];
+        int hi = lim[subtreeRoot];
+        int best = -1;
+        int bestSlack = Integer.MAX_VALUE;
+        for (int e = 0; e < m; e++) {
+            int tl = lim[tail[e]];
+            int hl = lim[head[e]];
+            boolean tailInside = lo <= tl && tl <= hi;
+            boolean headInside = lo <= hl && hl <= hi;
+            if (tailInside != subtreeIsTail && headInside == subtreeIsTail) {
+                int s = slack(e);
+                if (s < bestSlack) {
+                    best = e;
+                    bestSlack = s;
+                }
+            }
+        }
+        return best;
+    }
+}
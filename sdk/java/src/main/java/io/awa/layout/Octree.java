@@ -0,0 +1,219 @@
+package io.awa.layout;
+
+import java.util.Arrays;
+
+/**
+ * A Barnes-Hut octree over points in space, for approximating the repulsion every point feels
+ * from all the others in O(log n) per point.
+ * <p>
+ * Cells are kept in flat arrays, with the root at 0 and each cell's children in eight slots
+ * holding nothing, a child cell, or a point. Points closer together than {@link #MAX_DEPTH}
+ * halvings of the bounding cube share a leaf. The tree is rebuilt from scratch for every set of
+ * positions; reads are safe from several threads once it is built.
+ */
+final class Octree {
+
+    static final int MAX_DEPTH = 40;
+
+    private static final int EMPTY = 0;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final int[] next;
+
+    private int[] slots = new int[0];
+    private double[] mass = new double[0];
+    private double[] massX = new double[0];
+    private double[] massY = new double[0];
+    private double[] massZ = new double[0];
+    private double[] centerX = new double[0];
+    private double[] centerY = new double[0];
+    private double[] centerZ = new double[0];
+    private double[] half = new double[0];
+    private int cells;
+
+    /**
+     * A tree over the given coordinate arrays, which {@link #build} reads as they are at the time.
+     */
+    Octree(double[] x, double[] y, double[] z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.next = new int[x.length];
+    }
+
+    /**
+     * Rebuilds the tree over the given points, ids into the coordinate arrays.
+     */
+    void build(int[] points, int count) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            int p = points[i];
+            minX = Math.min(minX, x[p]);
+            minY = Math.min(minY, y[p]);
+            minZ = Math.min(minZ, z[p]);
+            maxX = Math.max(maxX, x[p]);
+            maxY = Math.max(maxY, y[p]);
+            maxZ = Math.max(maxZ, z[p]);
+        }
+        cells = 0;
+        ensureCapacity(Math.max(1, 2 * count));
+        double extent = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+        newCell((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2, Math.max(extent / 2, 1e-9) * 1.0001);
+        for (int i = 0; i < count; i++) {
+            insert(points[i]);
+        }
+        for (int c = 0; c < cells; c++) {
+            massX[c] /= mass[c];
+            massY[c] /= mass[c];
+            massZ[c] /= mass[c];
+        }
+    }
+
+    private void insert(int p) {
+        int c = 0;
+        for (int depth = 0; ; depth++) {
+            mass[c] += 1;
+            massX[c] += x[p];
+            massY[c] += y[p];
+            massZ[c] += z[p];
+            int slot = 8 * c + octant(c, p);
+            int held = slots[slot];
+            if (held == EMPTY) {
+                slots[slot] = -p - 1;
+                next[p] = -1;
+                return;
+            }
+            if (held > 0) {
+                c = held - 1;
+                continue;
+            }
+            int other = -held - 1;
+            if (depth >= MAX_DEPTH) {
+                next[p] = other;
+                slots[slot] = -p - 1;
+                return;
+            }
+            // A leaf above the depth limit holds one point, which moves down into a new cell
+            double h = half[c] / 2;
+            int o = slot - 8 * c;
+            int cell = newCell(centerX[c] + ((o & 1) != 0 ? h : -h), centerY[c] + ((o & 2) != 0 ? h : -h),
+                    centerZ[c] + ((o & 4) != 0 ? h : -h), h);
+            slots[slot] = cell + 1;
+            mass[cell] = 1;
+            massX[cell] = x[other];
+            massY[cell] = y[other];
+            massZ[cell] = z[other];
+            slots[8 * cell + octant(cell, other)] = -other - 1;
+            c = cell;
+        }
+    }
+
+    private int octant(int c, int p) {
+        return (x[p] > centerX[c] ? 1 : 0) | (y[p] > centerY[c] ? 2 : 0) | (z[p] > centerZ[c] ? 4 : 0);
+    }
+
+    private int newCell(double cx, double cy, double cz, double h) {
+        if (cells == half.length) {
+            ensureCapacity(2 * cells);
+        }
+        int c = cells++;
+        Arrays.fill(slots, 8 * c, 8 * c + 8, EMPTY);
+        mass[c] = 0;
+        massX[c] = 0;
+        massY[c] = 0;
+        massZ[c] = 0;
+        centerX[c] = cx;
+        centerY[c] = cy;
+        centerZ[c] = cz;
+        half[c] = h;
+        return c;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (half.length >= capacity) {
+            return;
+        }
+        slots = Arrays.copyOf(slots, 8 * capacity);
+        mass = Arrays.copyOf(mass, capacity);
+        massX = Arrays.copyOf(massX, capacity);
+        massY = Arrays.copyOf(massY, capacity);
+        massZ = Arrays.copyOf(massZ, capacity);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+        centerZ = Arrays.copyOf(centerZ, capacity);
+        half = Arrays.copyOf(half, capacity);
+    }
+
+    /**
+     * A traversal stack large enough for {@link #repulsion}; one per thread.
+     */
+    static int[] stack() {
+        return new int[7 * (MAX_DEPTH + 2) + 1];
+    }
+
+    /**
+     * Adds to {@code force} the repulsion on point {@code p} from all other points, each pushing
+     * with {@code strength / distance}. A cell is taken as one mass at its centre of mass when the
+     * point is outside it and the cell's width is under {@code theta} times its distance.
+     */
+    void repulsion(int p, double strength, double theta, int[] stack, double[] force) {
+        double px = x[p];
+        double py = y[p];
+        double pz = z[p];
+        double theta2 = theta * theta;
+        double fx = 0;
+        double fy = 0;
+        double fz = 0;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int c = stack[--top];
+            double dx = px - massX[c];
+            double dy = py - massY[c];
+            double dz = pz - massZ[c];
+            double d2 = dx * dx + dy * dy + dz * dz;
+            double h = half[c];
+            boolean outside = Math.abs(px - centerX[c]) > h || Math.abs(py - centerY[c]) > h
+                    || Math.abs(pz - centerZ[c]) > h;
+            if (outside && 4 * h * h < theta2 * d2) {
+                double f = strength * mass[c] / d2;
+                fx += f * dx;
+                fy += f * dy;
+                fz += f * dz;
+                continue;
+            }
+            for (int s = 8 * c, end = s + 8; s < end; s++) {
+                int held = slots[s];
+                if (held > 0) {
+                    stack[top++] = held - 1;
+                } else if (held < 0) {
+                    for (int q = -held - 1; q >= 0; q = next[q]) {
+                        if (q == p) {
+                            continue;
+                        }
+                        double ex = px - x[q];
+                        double ey = py - y[q];
+                        double ez = pz - z[q];
+                        double e2 = ex * ex + ey * ey + ez * ez;
+                        if (e2 > 0) {
+                            double f = strength / e2;
+                            fx += f * ex;
+                            fy += f * ey;
+                            fz += f * ez;
+                        }
+                    }
+                }
+            }
+        }
+        force[0] += fx;
+        force[1] += fy;
+        force[2] += fz;
+    }
+}
@@ -0,0 +1,198 @@
+package io.awa.layout;
+
+import java.util.Arrays;
+
+/**
+ * Reduces edge crossings by reordering the nodes within each rank.
+ * <p>
+ * Sweeps alternate down and up the ranks, sorting each rank by the barycenter of its neighbours in
+ * the rank just fixed; nodes without such neighbours keep their slot. Every other pair of sweeps
+ * breaks ties to the right instead of the left, which lets equal-barycenter nodes trade places.
+ * Crossings are counted after each sweep with the accumulator tree of Barth, Mutzel and Jünger,
+ * in O(E log V), and the best order seen is kept. The search stops after four sweeps without
+ * improvement.
+ */
+final class Ordering {
+
+    private static final int PATIENCE = 4;
+
+    private final LayerGraph g;
+    private final double[] barycenter;
+    private final int[] movable;
+    private final int[] scratch;
+    private final int[] southPositions;
+    private int[] tree = new int[0];
+
+    private Ordering(LayerGraph g) {
+        this.g = g;
+        this.barycenter = new double[g.size];
+        int widest = 0;
+        for (int[] layer : g.layers) {
+            widest = Math.max(widest, layer.length);
+        }
+        this.movable = new int[widest];
+        this.scratch = new int[widest];
+        this.southPositions = new int[g.down.length];
+    }
+
+    /**
+     * Reorders the layers of the graph in place.
+     */
+    static void minimizeCrossings(LayerGraph g, int maxSweeps) {
+        new Ordering(g).run(maxSweeps);
+    }
+
+    private void run(int maxSweeps) {
+        long best = crossings();
+        int[][] bestLayers = copy(g.layers);
+        for (int i = 0, sinceBest = 0; i < maxSweeps && sinceBest < PATIENCE && best > 0; i++, sinceBest++) {
+            boolean biasRight = i % 4 >= 2;
+            if (i % 2 == 0) {
+                for (int r = 1; r <= g.maxRank; r++) {
+                    sortLayer(r, g.upOffsets, g.up, biasRight);
+                }
+            } else {
+                for (int r = g.maxRank - 1; r >= 0; r--) {
+                    sortLayer(r, g.downOffsets, g.down, biasRight);
+                }
+            }
+            long count = crossings();
+            if (count < best) {
+                best = count;
+                bestLayers = copy(g.layers);
+                sinceBest = -1;
+            }
+        }
+        g.layers = bestLayers;
+        g.updatePositions();
+    }
+
+    private void sortLayer(int r, int[] offsets, int[] neighbours, boolean biasRight) {
+        int[] layer = g.layers[r];
+        int count = 0;
+        for (int v : layer) {
+            int from = offsets[v];
+            int to = offsets[v + 1];
+            if (from < to) {
+                double sum = 0;
+                for (int k = from; k < to; k++) {
+                    sum += g.pos[neighbours[k]];
+                }
+                barycenter[v] = sum / (to - from);
+                movable[count++] = v;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        mergeSort(movable, scratch, 0, count, biasRight);
+        // Nodes without neighbours in the fixed rank stay in their slots; the others fill the rest in order
+        int next = 0;
+        for (int i = 0; i < layer.length; i++) {
+            int v = layer[i];
+            if (offsets[v] < offsets[v + 1]) {
+                layer[i] = movable[next++];
+            }
+        }
+        for (int i = 0; i < layer.length; i++) {
+            g.pos[layer[i]] = i;
+        }
+    }
+
+    private boolean before(int a, int b, boolean biasRight) {
+        if (barycenter[a] != barycenter[b]) {
+            return barycenter[a] < barycenter[b];
+        }
+        return biasRight ? g.pos[a] > g.pos[b] : g.pos[a] < g.pos[b];
+    }
+
+    private void mergeSort(int[] items, int[] buffer, int from, int to, boolean biasRight) {
+        if (to - from < 12) {
+            for (int i = from + 1; i < to; i++) {
+                int item = items[i];
+                int j = i - 1;
+                while (j >= from && before(item, items[j], biasRight)) {
+                    items[j + 1] = items[j];
+                    j--;
+                }
+                items[j + 1] = item;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(items, buffer, from, mid, biasRight);
+        mergeSort(items, buffer, mid, to, biasRight);
+        System.arraycopy(items, from, buffer, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || i < mid && !before(buffer[j], buffer[i], biasRight)) {
+                items[k] = buffer[i++];
+            } else {
+                items[k] = buffer[j++];
+            }
+        }
+    }
+
+    long crossings() {
+        long total = 0;
+        for (int r = 0; r < g.maxRank; r++) {
+            total += crossings(g.layers[r], g.layers[r + 1].length);
+        }
+        return total;
+    }
+
+    /**
+     * Crossings between a rank and the next: the inversions among the lower end positions of the
+     * edges, listed by upper end position.
+     */
+    private long crossings(int[] north, int southCount) {
+        int edges = 0;
+        for (int v : north) {
+            int start = edges;
+            for (int k = g.downOffsets[v]; k < g.downOffsets[v + 1]; k++) {
+                int p = g.pos[g.down[k]];
+                int j = edges++;
+                while (j > start && southPositions[j - 1] > p) {
+                    southPositions[j] = southPositions[j - 1];
+                    j--;
+                }
+                southPositions[j] = p;
+            }
+        }
+        int first = 1;
+        while (first < southCount) {
+            first <<= 1;
+        }
+        int treeSize = 2 * first - 1;
+        if (tree.length < treeSize) {
+            tree = new int[treeSize];
+        } else {
+            Arrays.fill(tree, 0, treeSize, 0);
+        }
+        first -= 1;
+        long count = 0;
+        for (int i = 0; i < edges; i++) {
+            int index = southPositions[i] + first;
+            tree[index]++;
+            long weightSum = 0;
+            while (index > 0) {
+                if ((index & 1) == 1) {
+                    weightSum += tree[index + 1];
+                }
+                index = (index - 1) >> 1;
+                tree[index]++;
+            }
+            count += weightSum;
+        }
+        return count;
+    }
+
+    private static int[][] copy(int[][] layers) {
+        int[][] copy = new int[layers.length][];
+        for (int r = 0; r < layers.length; r++) {
+            copy[r] = layers[r].clone();
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,1057 @@
+package io.awa.layout;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.model.Workflow;
+import io.awa.model.visualization.CurveType;
+import io.awa.model.visualization.LayoutDirection;
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.model.visualization.VisualizationConfig.AutoLayoutConfig;
+import io.awa.model.visualization.VisualizationConfig.EdgeRouting;
+import io.awa.model.visualization.VisualizationConfig.NodePosition2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Routes the edges of a laid-out workflow around its nodes with horizontal and vertical segments,
+ * the way flowchart and BPMN editors draw them.
+ * <p>
+ * An edge leaves its source from the side facing the flow and enters its target from the opposite
+ * side. Edges that do not run with the flow leave and enter across it, and loop around the nodes
+ * if need be. Edges sharing a side of a node get ports {@code edgeSpacing} apart, ordered by where
+ * their other end is so that they do not cross at the node.
+ * <p>
+ * Each route is an A* search over the lines through the node borders near its two ends, and
+ * through the borders grown by the edge spacing. The grid only covers the region searched, which
+ * is widened if no route is found in it. Node boxes are kept in an R-tree ({@link BoxTree}), so
+ * building the grid and checking that a segment misses every node cost O(log n), not a scan of
+ * all nodes. A route pays for its length, twice over within the edge spacing of a node, and
+ * {@link #bendPenalty(double) a penalty} per bend.
+ * <p>
+ * A route's search is capped at a fixed number of steps over all the regions tried; past it, the
+ * edge is drawn as a plain step from its source to its target, which may cross nodes. The cap
+ * bounds the time per edge, but routes spanning a large part of the scene search a grid that
+ * grows with the number of nodes they pass. On layouts with many such long edges, routing time
+ * grows faster than the number of edges: random graphs take seconds at 1k nodes and tens of
+ * seconds at a few thousand, where long edges start to hit the cap. Workflows whose edges mostly
+ * join nearby nodes, as branching flows do, route thousands of nodes in well under a second.
+ * <p>
+ * Parallel edges, with the same source and target, are routed once and drawn as a bundle
+ * {@code edgeSpacing} apart, its centre line clear of nodes by half the bundle's width and half
+ * the spacing. Last, segments of different edges that run along the same line are spread apart
+ * in the room around them. Edges are routed in parallel on the pool once there are
+ * {@link #DEFAULT_PARALLEL_THRESHOLD} routes to find.
+ *
+ * <pre>{@code
+ * new LayeredLayout().layout(workflow, visualization);
+ * new OrthogonalRouter().route(workflow, visualization);   // rewrites edge_routings as step curves
+ * }</pre>
+ */
+public final class OrthogonalRouter {
+
+    public static final double DEFAULT_BEND_PENALTY = 40;
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+
+    private static final double NEAR_COST = 2;
+    private static final int MAX_EXPANSIONS = 200_000;
+    // Weighs estimates a hair over costs, so that of routes costing the same the search follows the one nearest
+    // the target instead of widening over all of them
+    private static final double TIE_BREAK = 1 + 1e-6;
+    private static final int MAX_CACHED_CELLS = 1 << 20;
+    private static final int MAX_SCANNED_BOXES = 64;
+    private static final double EPSILON = 1e-9;
+
+    // Directions, which are also the sides of a node by the way out of them
+    private static final int RIGHT = 0;
+    private static final int DOWN = 1;
+    private static final int LEFT = 2;
+    private static final int UP = 3;
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+
+    private AutoLayoutConfig config = new AutoLayoutConfig();
+    private CurveType curveType = CurveType.STEP;
+    private double bendPenalty = DEFAULT_BEND_PENALTY;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Sets the configuration used when the visualization has no {@code auto_layout} of its own.
+     */
+    public OrthogonalRouter config(AutoLayoutConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Layout config is required");
+        }
+        this.config = config;
+        return this;
+    }
+
+    /**
+     * Sets the curve type written to routed edges: {@code STEP}, the default, or {@code SMOOTHSTEP}
+     * for rounded corners.
+     */
+    public OrthogonalRouter curveType(CurveType curveType) {
+        if (curveType != CurveType.STEP && curveType != CurveType.SMOOTHSTEP) {
+            throw new IllegalArgumentException("Orthogonal routes are drawn as step curves: " + curveType);
+        }
+        this.curveType = curveType;
+        return this;
+    }
+
+    /**
+     * Sets the cost of a bend, as a length of segment: a route takes a detour of up to this much
+     * to save one bend.
+     */
+    public OrthogonalRouter bendPenalty(double bendPenalty) {
+        if (!(bendPenalty >= 0)) {
+            throw new IllegalArgumentException("Bend penalty must not be negative: " + bendPenalty);
+        }
+        this.bendPenalty = bendPenalty;
+        return this;
+    }
+
+    /**
+     * Sets the pool routes are searched on; the common pool by default.
+     */
+    public OrthogonalRouter pool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool is required");
+        }
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Sets the route count from which routes are searched in parallel; fewer are searched on the calling thread.
+     */
+    public OrthogonalRouter parallelThreshold(int routes) {
+        if (routes < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive: " + routes);
+        }
+        this.parallelThreshold = routes;
+        return this;
+    }
+
+    /**
+     * Routes every edge between two positioned nodes and writes the result into the visualization:
+     * the edge's {@code EdgeRouting}, added if missing, gets the curve type and the route as its
+     * control points, from the port on the source's border to the one on the target's. Nodes
+     * without a size are taken to have the {@link LayeredLayout} default.
+     */
+    public EdgeRoutes route(Workflow workflow, VisualizationConfig visualization) {
+        AutoLayoutConfig effective = visualization.getAutoLayout() != null ? visualization.getAutoLayout() : config;
+        WorkflowGraph graph = WorkflowGraph.of(workflow);
+        if (visualization.getEdgeRoutings() == null) {
+            visualization.setEdgeRoutings(new ArrayList<>());
+        }
+        Map<UUID, NodePosition2D> positions = new HashMap<>();
+        if (visualization.getNodePositions2d() != null) {
+            for (NodePosition2D position : visualization.getNodePositions2d()) {
+                if (position.getNodeId() != null) {
+                    positions.putIfAbsent(position.getNodeId(), position);
+                }
+            }
+        }
+        int n = graph.nodeCount();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] width = new double[n];
+        double[] height = new double[n];
+        boolean[] placed = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            NodePosition2D position = graph.isDeclared(v) ? positions.get(graph.nodeId(v)) : null;
+            if (position != null && position.getPosition() != null) {
+                x[v] = position.getPosition().getX();
+                y[v] = position.getPosition().getY();
+                width[v] = position.getWidth() != null ? position.getWidth() : LayeredLayout.DEFAULT_NODE_WIDTH;
+                height[v] = position.getHeight() != null ? position.getHeight() : LayeredLayout.DEFAULT_NODE_HEIGHT;
+                placed[v] = true;
+            }
+        }
+
+        EdgeRoutes result = new Run(graph, x, y, width, height, placed, effective).run();
+
+        Map<UUID, EdgeRouting> routings = new HashMap<>();
+        for (EdgeRouting routing : visualization.getEdgeRoutings()) {
+            if (routing.getEdgeId() != null) {
+                routings.putIfAbsent(routing.getEdgeId(), routing);
+            }
+        }
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            UUID edgeId = graph.edge(e).getId();
+            if (edgeId == null || !result.isRouted(e)) {
+                continue;
+            }
+            EdgeRouting routing = routings.get(edgeId);
+            if (routing == null) {
+                routing = new EdgeRouting();
+                routing.setEdgeId(edgeId);
+                routings.put(edgeId, routing);
+                visualization.getEdgeRoutings().add(routing);
+            }
+            routing.setCurveType(curveType);
+            routing.setControlPoints2d(result.points(e));
+        }
+        return result;
+    }
+
+    /**
+     * Routes the edges of a graph between the nodes of a layout.
+     */
+    public EdgeRoutes route(WorkflowGraph graph, GraphLayout layout) {
+        int n = graph.nodeCount();
+        if (layout.nodeCount() < n) {
+            throw new IllegalArgumentException("Layout has " + layout.nodeCount() + " nodes, graph has " + n);
+        }
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] width = new double[n];
+        double[] height = new double[n];
+        boolean[] placed = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            placed[v] = layout.isPlaced(v);
+            if (placed[v]) {
+                x[v] = layout.x(v);
+                y[v] = layout.y(v);
+                width[v] = layout.width(v);
+                height[v] = layout.height(v);
+            }
+        }
+        return new Run(graph, x, y, width, height, placed, config).run();
+    }
+
+    private static int opposite(int direction) {
+        return (direction + 2) & 3;
+    }
+
+    private static boolean isHorizontal(int direction) {
+        return direction == RIGHT || direction == LEFT;
+    }
+
+    /**
+     * Drops repeated points and the middle of three points on a line.
+     */
+    private static double[] simplify(double[] points) {
+        double[] result = new double[points.length];
+        int count = 0;
+        for (int i = 0; i < points.length; i += 2) {
+            double px = points[i];
+            double py = points[i + 1];
+            if (count > 0 && px == result[2 * count - 2] && py == result[2 * count - 1]) {
+                continue;
+            }
+            if (count > 1) {
+                double ax = result[2 * count - 4];
+                double ay = result[2 * count - 3];
+                if ((ax == px && px == result[2 * count - 2]) || (ay == py && py == result[2 * count - 1])) {
+                    count--;
+                }
+            }
+            result[2 * count] = px;
+            result[2 * count + 1] = py;
+            count++;
+        }
+        return Arrays.copyOf(result, 2 * count);
+    }
+
+    /**
+     * The route moved sideways by {@code offset}, to the right of the way it runs; corners stay
+     * square, so an orthogonal route gives an orthogonal one.
+     */
+    private static double[] offset(double[] route, double offset) {
+        double[] result = route.clone();
+        for (int i = 0; i + 2 < route.length; i += 2) {
+            double dx = Math.signum(route[i + 2] - route[i]);
+            double dy = Math.signum(route[i + 3] - route[i + 1]);
+            if (dy == 0) {
+                result[i + 1] += dx * offset;
+                result[i + 3] += dx * offset;
+            } else {
+                result[i] -= dy * offset;
+                result[i + 2] -= dy * offset;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * One routing of one graph.
+     */
+    private final class Run {
+
+        private final WorkflowGraph graph;
+        private final double[] minX;
+        private final double[] minY;
+        private final double[] maxX;
+        private final double[] maxY;
+        private final boolean[] placed;
+        private final double spacing;
+        private final int flowSide;
+        private final int crossSide;
+        private final BoxTree tree;
+        private final int boxCount;
+        private double sceneMinX = Double.POSITIVE_INFINITY;
+        private double sceneMinY = Double.POSITIVE_INFINITY;
+        private double sceneMaxX = Double.NEGATIVE_INFINITY;
+        private double sceneMaxY = Double.NEGATIVE_INFINITY;
+        private double largest;
+
+        private int bundleCount;
+        private int[] bundleSource;
+        private int[] bundleTarget;
+        private int[][] bundleEdges;
+        private int[] sourceSide;
+        private int[] targetSide;
+        private double[] sourceAlong;
+        private double[] targetAlong;
+        private double[] bundleSpacing;
+        private double[][] centerLines;
+
+        Run(WorkflowGraph graph, double[] x, double[] y, double[] width, double[] height, boolean[] placed,
+            AutoLayoutConfig cfg) {
+            this.graph = graph;
+            int n = graph.nodeCount();
+            this.minX = x;
+            this.minY = y;
+            this.maxX = new double[n];
+            this.maxY = new double[n];
+            this.placed = placed;
+            this.spacing = Math.max(0, cfg.getEdgeSpacing());
+            LayoutDirection direction = cfg.getDirection() != null ? cfg.getDirection() : LayoutDirection.LR;
+            this.flowSide = switch (direction) {
+                case LR -> RIGHT;
+                case RL -> LEFT;
+                case TB -> DOWN;
+                case BT -> UP;
+            };
+            this.crossSide = isHorizontal(flowSide) ? DOWN : RIGHT;
+            int count = 0;
+            for (int v = 0; v < n; v++) {
+                if (placed[v]) {
+                    maxX[v] = x[v] + width[v];
+                    maxY[v] = y[v] + height[v];
+                    sceneMinX = Math.min(sceneMinX, minX[v]);
+                    sceneMinY = Math.min(sceneMinY, minY[v]);
+                    sceneMaxX = Math.max(sceneMaxX, maxX[v]);
+                    sceneMaxY = Math.max(sceneMaxY, maxY[v]);
+                    largest = Math.max(largest, Math.max(width[v], height[v]));
+                    count++;
+                }
+            }
+            int[] boxes = new int[count];
+            for (int v = 0, i = 0; v < n; v++) {
+                if (placed[v]) {
+                    boxes[i++] = v;
+                }
+            }
+            this.boxCount = count;
+            this.tree = new BoxTree(minX, minY, maxX, maxY, boxes);
+        }
+
+        EdgeRoutes run() {
+            bundle();
+            assignPorts();
+            centerLines = new double[bundleCount][];
+            int chunks = bundleCount < parallelThreshold ? 1 : Math.min(bundleCount / 64 + 1, 4 * pool.getParallelism());
+            if (chunks <= 1) {
+                route(0, bundleCount);
+            } else {
+                List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+                int size = (bundleCount + chunks - 1) / chunks;
+                for (int from = 0; from < bundleCount; from += size) {
+                    int start = from;
+                    int end = Math.min(bundleCount, from + size);
+                    tasks.add(pool.submit(() -> route(start, end)));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+            }
+
+            double[][] routes = new double[graph.edgeCount()][];
+            for (int b = 0; b < bundleCount; b++) {
+                int[] edges = bundleEdges[b];
+                for (int i = 0; i < edges.length; i++) {
+                    double shift = (i - (edges.length - 1) / 2.0) * bundleSpacing[b];
+                    routes[edges[i]] = shift == 0 ? centerLines[b] : offset(centerLines[b], shift);
+                }
+            }
+            nudge(routes);
+            return new EdgeRoutes(routes);
+        }
+
+        /**
+         * Groups the edges between positioned nodes by source and target, in edge order.
+         */
+        private void bundle() {
+            int n = graph.nodeCount();
+            int m = graph.edgeCount();
+            Map<Long, Integer> index = new HashMap<>();
+            int[] bundleOf = new int[m];
+            List<Integer> sizes = new ArrayList<>();
+            for (int e = 0; e < m; e++) {
+                int s = graph.source(e);
+                int t = graph.target(e);
+                if (!placed[s] || !placed[t]) {
+                    bundleOf[e] = -1;
+                    continue;
+                }
+                Integer b = index.putIfAbsent((long) s * n + t, index.size());
+                if (b == null) {
+                    b = sizes.size();
+                    sizes.add(0);
+                }
+                sizes.set(b, sizes.get(b) + 1);
+                bundleOf[e] = b;
+            }
+            bundleCount = sizes.size();
+            bundleSource = new int[bundleCount];
+            bundleTarget = new int[bundleCount];
+            bundleEdges = new int[bundleCount][];
+            for (int b = 0; b < bundleCount; b++) {
+                bundleEdges[b] = new int[sizes.get(b)];
+            }
+            int[] filled = new int[bundleCount];
+            for (int e = 0; e < m; e++) {
+                int b = bundleOf[e];
+                if (b >= 0) {
+                    bundleSource[b] = graph.source(e);
+                    bundleTarget[b] = graph.target(e);
+                    bundleEdges[b][filled[b]++] = e;
+                }
+            }
+        }
+
+        /**
+         * Picks the sides each bundle leaves and enters by, and spreads the bundles sharing a side
+         * along it, ordered by the position of their other end.
+         */
+        private void assignPorts() {
+            int n = graph.nodeCount();
+            sourceSide = new int[bundleCount];
+            targetSide = new int[bundleCount];
+            sourceAlong = new double[bundleCount];
+            targetAlong = new double[bundleCount];
+            bundleSpacing = new double[bundleCount];
+            int[] offsets = new int[4 * n + 1];
+            for (int b = 0; b < bundleCount; b++) {
+                chooseSides(b);
+                offsets[4 * bundleSource[b] + sourceSide[b] + 1]++;
+                offsets[4 * bundleTarget[b] + targetSide[b] + 1]++;
+            }
+            for (int i = 0; i < 4 * n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            // Ends are 2b for a bundle's source end and 2b + 1 for its target end
+            int[] ends = new int[offsets[4 * n]];
+            int[] fill = offsets.clone();
+            for (int b = 0; b < bundleCount; b++) {
+                ends[fill[4 * bundleSource[b] + sourceSide[b]]++] = 2 * b;
+                ends[fill[4 * bundleTarget[b] + targetSide[b]]++] = 2 * b + 1;
+            }
+            double[] endSpacing = new double[2 * bundleCount];
+            Arrays.fill(bundleSpacing, Double.POSITIVE_INFINITY);
+            for (int slot = 0; slot < 4 * n; slot++) {
+                int from = offsets[slot];
+                int to = offsets[slot + 1];
+                if (from == to) {
+                    continue;
+                }
+                int v = slot / 4;
+                boolean vertical = isHorizontal(slot % 4);
+                int[] sorted = IntStream.range(from, to).map(i -> ends[i]).boxed()
+                        .sorted(Comparator.<Integer>comparingDouble(end -> {
+                            int other = (end & 1) == 0 ? bundleTarget[end / 2] : bundleSource[end / 2];
+                            return vertical ? minY[other] + maxY[other] : minX[other] + maxX[other];
+                        }).thenComparingInt(end -> end))
+                        .mapToInt(Integer::intValue).toArray();
+                int total = 0;
+                for (int end : sorted) {
+                    total += bundleEdges[end / 2].length;
+                }
+                double low = vertical ? minY[v] : minX[v];
+                double high = vertical ? maxY[v] : maxX[v];
+                double step = (high - low) / (total + 1);
+                if (spacing > 0) {
+                    step = Math.min(step, spacing);
+                }
+                double mid = (low + high) / 2;
+                int taken = 0;
+                for (int end : sorted) {
+                    int size = bundleEdges[end / 2].length;
+                    double along = mid + (taken + (size - 1) / 2.0 - (total - 1) / 2.0) * step;
+                    taken += size;
+                    if ((end & 1) == 0) {
+                        sourceAlong[end / 2] = along;
+                    } else {
+                        targetAlong[end / 2] = along;
+                    }
+                    bundleSpacing[end / 2] = Math.min(bundleSpacing[end / 2], step);
+                }
+            }
+        }
+
+        private void chooseSides(int b) {
+            int s = bundleSource[b];
+            int t = bundleTarget[b];
+            if (s == t) {
+                sourceSide[b] = flowSide;
+                targetSide[b] = crossSide;
+            } else if (gap(s, t, flowSide) >= 0) {
+                sourceSide[b] = flowSide;
+                targetSide[b] = opposite(flowSide);
+            } else if (gap(s, t, crossSide) >= 0) {
+                sourceSide[b] = crossSide;
+                targetSide[b] = opposite(crossSide);
+            } else if (gap(s, t, opposite(crossSide)) >= 0) {
+                sourceSide[b] = opposite(crossSide);
+                targetSide[b] = crossSide;
+            } else {
+                // Against the flow, or overlapping: out and back in on the same side, around the nodes
+                sourceSide[b] = crossSide;
+                targetSide[b] = crossSide;
+            }
+        }
+
+        /**
+         * How far {@code t} lies beyond {@code s} in a direction, from border to border; negative
+         * if it does not.
+         */
+        private double gap(int s, int t, int direction) {
+            return switch (direction) {
+                case RIGHT -> minX[t] - maxX[s];
+                case LEFT -> minX[s] - maxX[t];
+                case DOWN -> minY[t] - maxY[s];
+                default -> minY[s] - maxY[t];
+            };
+        }
+
+        private double portX(int v, int side, double along) {
+            return switch (side) {
+                case RIGHT -> maxX[v];
+                case LEFT -> minX[v];
+                default -> along;
+            };
+        }
+
+        private double portY(int v, int side, double along) {
+            return switch (side) {
+                case DOWN -> maxY[v];
+                case UP -> minY[v];
+                default -> along;
+            };
+        }
+
+        private void route(int from, int to) {
+            Search search = new Search();
+            for (int b = from; b < to; b++) {
+                centerLines[b] = route(b, search);
+            }
+        }
+
+        /**
+         * The centre line of a bundle, from port to port. The bundle keeps clear of nodes by the
+         * edge spacing plus its own half width, and a bundle of several edges never comes closer
+         * than its half width plus half the spacing, so that its outer edges miss the nodes.
+         */
+        private double[] route(int b, Search search) {
+            int s = bundleSource[b];
+            int t = bundleTarget[b];
+            int out = sourceSide[b];
+            int in = opposite(targetSide[b]);
+            double halfWidth = (bundleEdges[b].length - 1) / 2.0 * bundleSpacing[b];
+            double margin = spacing + halfWidth;
+            double clearance = halfWidth > 0 ? halfWidth + spacing / 2 : 0;
+            double psx = portX(s, out, sourceAlong[b]);
+            double psy = portY(s, out, sourceAlong[b]);
+            double ptx = portX(t, targetSide[b], targetAlong[b]);
+            double pty = portY(t, targetSide[b], targetAlong[b]);
+            double sx = psx + DX[out] * margin;
+            double sy = psy + DY[out] * margin;
+            double tx = ptx - DX[in] * margin;
+            double ty = pty - DY[in] * margin;
+
+            double grow = largest + 2 * margin;
+            double[] path;
+            search.budget = MAX_EXPANSIONS;
+            while (true) {
+                double x0 = Math.min(sx, tx) - grow;
+                double y0 = Math.min(sy, ty) - grow;
+                double x1 = Math.max(sx, tx) + grow;
+                double y1 = Math.max(sy, ty) + grow;
+                path = search.find(sx, sy, out, tx, ty, in, margin, clearance, x0, y0, x1, y1);
+                boolean whole = x0 < sceneMinX - margin && y0 < sceneMinY - margin
+                        && x1 > sceneMaxX + margin && y1 > sceneMaxY + margin;
+                if (path != null || whole || search.budget <= 0) {
+                    break;
+                }
+                grow *= 4;
+            }
+            if (path == null) {
+                // Walled in, by overlapping nodes, or out of search budget: a plain step from stub to stub
+                path = isHorizontal(out)
+                        ? new double[]{sx, sy, (sx + tx) / 2, sy, (sx + tx) / 2, ty, tx, ty}
+                        : new double[]{sx, sy, sx, (sy + ty) / 2, tx, (sy + ty) / 2, tx, ty};
+            }
+            double[] points = new double[path.length + 4];
+            points[0] = psx;
+            points[1] = psy;
+            System.arraycopy(path, 0, points, 2, path.length);
+            points[points.length - 2] = ptx;
+            points[points.length - 1] = pty;
+            return simplify(points);
+        }
+
+        /**
+         * Spreads apart the segments of different routes that run along the same line and overlap,
+         * {@code edgeSpacing} apart or as close as the room on either side of the line needs. The
+         * first and last segment of a route stay where they are, on their ports.
+         */
+        private void nudge(double[][] routes) {
+            int count = 0;
+            for (double[] route : routes) {
+                if (route != null) {
+                    count += Math.max(0, route.length / 2 - 3);
+                }
+            }
+            int[] segmentRoute = new int[count];
+            int[] segmentStart = new int[count];
+            boolean[] horizontal = new boolean[count];
+            double[] line = new double[count];
+            double[] low = new double[count];
+            double[] high = new double[count];
+            int segments = 0;
+            for (int e = 0; e < routes.length; e++) {
+                double[] route = routes[e];
+                if (route == null) {
+                    continue;
+                }
+                for (int i = 2; i + 4 < route.length; i += 2) {
+                    segmentRoute[segments] = e;
+                    segmentStart[segments] = i;
+                    horizontal[segments] = route[i + 1] == route[i + 3];
+                    int across = horizontal[segments] ? 1 : 0;
+                    line[segments] = route[i + across];
+                    low[segments] = Math.min(route[i + 1 - across], route[i + 3 - across]);
+                    high[segments] = Math.max(route[i + 1 - across], route[i + 3 - across]);
+                    segments++;
+                }
+            }
+            int[] order = IntStream.range(0, segments).boxed()
+                    .sorted(Comparator.<Integer, Boolean>comparing(i -> horizontal[i])
+                            .thenComparingDouble(i -> line[i])
+                            .thenComparingDouble(i -> low[i]))
+                    .mapToInt(Integer::intValue).toArray();
+            int[] stack = tree.stack();
+            int[] hits = new int[boxCount];
+            int[] cluster = new int[segments];
+            for (int i = 0; i < segments; ) {
+                int size = 0;
+                double end = high[order[i]];
+                cluster[size++] = order[i];
+                int j = i + 1;
+                while (j < segments && horizontal[order[j]] == horizontal[order[i]] && line[order[j]] == line[order[i]]
+                        && low[order[j]] < end - EPSILON) {
+                    end = Math.max(end, high[order[j]]);
+                    cluster[size++] = order[j++];
+                }
+                if (size > 1) {
+                    spread(routes, Arrays.copyOf(cluster, size), horizontal[order[i]], line[order[i]],
+                            low[order[i]], end, segmentRoute, segmentStart, stack, hits);
+                }
+                i = j;
+            }
+        }
+
+        private void spread(double[][] routes, int[] members, boolean horizontal, double at, double low, double high,
+                            int[] segmentRoute, int[] segmentStart, int[] stack, int[] hits) {
+            int k = members.length;
+            double reach = (k - 1) * spacing / 2 + spacing;
+            int found = horizontal
+                    ? tree.overlapping(low, at - reach, high, at + reach, 0, stack, hits)
+                    : tree.overlapping(at - reach, low, at + reach, high, 0, stack, hits);
+            double before = reach;
+            double after = reach;
+            for (int h = 0; h < found; h++) {
+                int v = hits[h];
+                double near = horizontal ? minY[v] : minX[v];
+                double far = horizontal ? maxY[v] : maxX[v];
+                if (far <= at + EPSILON) {
+                    before = Math.min(before, at - far);
+                } else if (near >= at - EPSILON) {
+                    after = Math.min(after, near - at);
+                }
+            }
+            double room = Math.min(before, after) - spacing / 2;
+            if (room <= 0) {
+                return;
+            }
+            double step = Math.min(spacing, 2 * room / (k - 1));
+            int across = horizontal ? 1 : 0;
+            // Segments whose route turns back towards lower coordinates at both ends go first
+            int[] sorted = Arrays.stream(members).boxed()
+                    .sorted(Comparator.<Integer>comparingDouble(m -> {
+                        double[] route = routes[segmentRoute[m]];
+                        int i = segmentStart[m];
+                        return Math.signum(route[i - 2 + across] - at) + Math.signum(route[i + 4 + across] - at);
+                    }).thenComparingInt(m -> segmentRoute[m]))
+                    .mapToInt(Integer::intValue).toArray();
+            for (int r = 0; r < k; r++) {
+                double[] route = routes[segmentRoute[sorted[r]]];
+                int i = segmentStart[sorted[r]];
+                double shift = (r - (k - 1) / 2.0) * step;
+                route[i + across] += shift;
+                route[i + 2 + across] += shift;
+            }
+        }
+
+        /**
+         * A* search for one route at a time, over the grid of a region; one per thread.
+         */
+        private final class Search {
+
+            private final int[] stack = tree.stack();
+            private final int[] hits = new int[boxCount];
+            // The boxes of the region, when few enough to scan
+            private final double[] nearMinX = new double[MAX_SCANNED_BOXES];
+            private final double[] nearMinY = new double[MAX_SCANNED_BOXES];
+            private final double[] nearMaxX = new double[MAX_SCANNED_BOXES];
+            private final double[] nearMaxY = new double[MAX_SCANNED_BOXES];
+            private int nearCount;
+            private double margin;
+            private double clearance;
+            private double[] xs = new double[64];
+            private double[] ys = new double[64];
+            private int nx;
+            private int ny;
+            // How each segment of a small grid lies with respect to the nodes, plus one; 0 if not known yet
+            private byte[] segments = new byte[0];
+            private boolean cached;
+
+            private int[] table = new int[1024];
+            private int mask = table.length - 1;
+            private long[] stateKey = new long[512];
+            private int[] stateSlot = new int[512];
+            private double[] cost = new double[512];
+            private int[] parent = new int[512];
+            private boolean[] closed = new boolean[512];
+            private int states;
+
+            private int[] heap = new int[512];
+            private double[] heapRank = new double[512];
+            private int heapSize;
+            // Expansions left for the current route, over all the regions tried
+            int budget;
+
+            /**
+             * A shortest route from {@code (sx, sy)}, heading {@code out}, to {@code (tx, ty)},
+             * arriving heading {@code in}, within the region; the points where it turns, ends
+             * included, or null if there is none. It stays out of the nodes grown by
+             * {@code clearance}, and pays extra within {@code margin} of them.
+             */
+            double[] find(double sx, double sy, int out, double tx, double ty, int in, double margin, double clearance,
+                          double x0, double y0, double x1, double y1) {
+                grid(sx, sy, tx, ty, margin, clearance, x0, y0, x1, y1);
+                int goalX = Arrays.binarySearch(xs, 0, nx, tx);
+                int goalY = Arrays.binarySearch(ys, 0, ny, ty);
+                clear();
+                int start = state(key(Arrays.binarySearch(xs, 0, nx, sx), Arrays.binarySearch(ys, 0, ny, sy), out));
+                cost[start] = 0;
+                push(start, estimate(sx, sy, out, tx, ty, in));
+                while (heapSize > 0) {
+                    int current = pop();
+                    if (closed[current]) {
+                        continue;
+                    }
+                    closed[current] = true;
+                    long key = stateKey[current];
+                    int direction = (int) (key & 3);
+                    int ix = (int) ((key >>> 2) / ny);
+                    int iy = (int) ((key >>> 2) % ny);
+                    if (ix == goalX && iy == goalY) {
+                        return path(current);
+                    }
+                    if (--budget < 0) {
+                        return null;
+                    }
+                    for (int d = 0; d < 4; d++) {
+                        int jx = ix + DX[d];
+                        int jy = iy + DY[d];
+                        boolean goal = jx == goalX && jy == goalY;
+                        if (d == opposite(direction) || jx < 0 || jy < 0 || jx >= nx || jy >= ny
+                                || (goal && d == opposite(in))) {
+                            continue;
+                        }
+                        int near = classify(ix, iy, jx, jy);
+                        if (near == BoxTree.INSIDE) {
+                            continue;
+                        }
+                        double step = Math.abs(xs[jx] - xs[ix]) + Math.abs(ys[jy] - ys[iy]);
+                        double next = cost[current] + (near == BoxTree.NEAR ? NEAR_COST * step : step)
+                                + (d != direction ? bendPenalty : 0) + (goal && d != in ? bendPenalty : 0);
+                        int neighbour = state(key(jx, jy, d));
+                        if (!closed[neighbour] && next < cost[neighbour]) {
+                            cost[neighbour] = next;
+                            parent[neighbour] = current;
+                            push(neighbour, next + estimate(xs[jx], ys[jy], d, tx, ty, in) * TIE_BREAK);
+                        }
+                    }
+                }
+                return null;
+            }
+
+            /**
+             * A lower bound on the cost from a point, heading one way, to the target, arriving
+             * heading another: the distance, and the bends no route can do without.
+             */
+            private double estimate(double px, double py, int direction, double tx, double ty, int in) {
+                int bends;
+                if (direction == in) {
+                    double ahead = (tx - px) * DX[direction] + (ty - py) * DY[direction];
+                    double aside = (tx - px) * DY[direction] - (ty - py) * DX[direction];
+                    bends = ahead >= 0 && aside == 0 ? 0 : 2;
+                } else {
+                    bends = direction == opposite(in) ? 2 : 1;
+                }
+                return Math.abs(tx - px) + Math.abs(ty - py) + bends * bendPenalty;
+            }
+
+            /**
+             * The grid lines of the region: its borders, the two ends, and the borders of the
+             * nodes in it, grown by the clearance and by the margin.
+             */
+            private void grid(double sx, double sy, double tx, double ty, double margin, double clearance,
+                              double x0, double y0, double x1, double y1) {
+                int found = tree.overlapping(x0, y0, x1, y1, margin, stack, hits);
+                this.margin = margin;
+                this.clearance = clearance;
+                nearCount = found <= MAX_SCANNED_BOXES ? found : -1;
+                for (int h = 0; h < nearCount; h++) {
+                    nearMinX[h] = minX[hits[h]];
+                    nearMinY[h] = minY[hits[h]];
+                    nearMaxX[h] = maxX[hits[h]];
+                    nearMaxY[h] = maxY[hits[h]];
+                }
+                if (xs.length < 4 * found + 4) {
+                    xs = new double[2 * (4 * found + 4)];
+                    ys = new double[2 * (4 * found + 4)];
+                }
+                nx = 0;
+                ny = 0;
+                xs[nx++] = x0;
+                xs[nx++] = x1;
+                xs[nx++] = sx;
+                xs[nx++] = tx;
+                ys[ny++] = y0;
+                ys[ny++] = y1;
+                ys[ny++] = sy;
+                ys[ny++] = ty;
+                for (int h = 0; h < found; h++) {
+                    int v = hits[h];
+                    nx = addLine(xs, nx, minX[v] - margin, x0, x1);
+                    nx = addLine(xs, nx, minX[v] - clearance, x0, x1);
+                    nx = addLine(xs, nx, maxX[v] + clearance, x0, x1);
+                    nx = addLine(xs, nx, maxX[v] + margin, x0, x1);
+                    ny = addLine(ys, ny, minY[v] - margin, y0, y1);
+                    ny = addLine(ys, ny, minY[v] - clearance, y0, y1);
+                    ny = addLine(ys, ny, maxY[v] + clearance, y0, y1);
+                    ny = addLine(ys, ny, maxY[v] + margin, y0, y1);
+                }
+                nx = distinct(xs, nx);
+                ny = distinct(ys, ny);
+                cached = (long) nx * ny <= MAX_CACHED_CELLS;
+                if (cached) {
+                    if (segments.length < 2 * nx * ny) {
+                        segments = new byte[Math.max(2 * nx * ny, 2 * segments.length)];
+                    } else {
+                        Arrays.fill(segments, 0, 2 * nx * ny, (byte) 0);
+                    }
+                }
+            }
+
+            /**
+             * How the segment between two neighbouring grid points lies with respect to the nodes,
+             * as {@link BoxTree#classify}. Each is looked up several times in a search, from both
+             * ends and each way in.
+             */
+            private int classify(int ix, int iy, int jx, int jy) {
+                if (!cached) {
+                    return classify((xs[ix] + xs[jx]) / 2, (ys[iy] + ys[jy]) / 2);
+                }
+                int segment = 2 * (Math.min(ix, jx) * ny + Math.min(iy, jy)) + (ix == jx ? 1 : 0);
+                if (segments[segment] == 0) {
+                    segments[segment] = (byte) (1 + classify((xs[ix] + xs[jx]) / 2, (ys[iy] + ys[jy]) / 2));
+                }
+                return segments[segment] - 1;
+            }
+
+            /**
+             * As {@link BoxTree#classify}, by a scan of the region's boxes when there are few.
+             */
+            private int classify(double px, double py) {
+                if (nearCount < 0) {
+                    return tree.classify(px, py, clearance, margin, stack);
+                }
+                int result = BoxTree.CLEAR;
+                for (int h = 0; h < nearCount; h++) {
+                    if (px > nearMinX[h] - margin && px < nearMaxX[h] + margin
+                            && py > nearMinY[h] - margin && py < nearMaxY[h] + margin) {
+                        if (px > nearMinX[h] - clearance && px < nearMaxX[h] + clearance
+                                && py > nearMinY[h] - clearance && py < nearMaxY[h] + clearance) {
+                            return BoxTree.INSIDE;
+                        }
+                        result = BoxTree.NEAR;
+                    }
+                }
+                return result;
+            }
+
+            private int addLine(double[] lines, int count, double at, double low, double high) {
+                if (at > low && at < high) {
+                    lines[count++] = at;
+                }
+                return count;
+            }
+
+            private int distinct(double[] lines, int count) {
+                Arrays.sort(lines, 0, count);
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    if (kept == 0 || lines[i] != lines[kept - 1]) {
+                        lines[kept++] = lines[i];
+                    }
+                }
+                return kept;
+            }
+
+            private double[] path(int state) {
+                int length = 0;
+                for (int s = state; s >= 0; s = parent[s]) {
+                    length++;
+                }
+                double[] points = new double[2 * length];
+                int i = 2 * length;
+                for (int s = state; s >= 0; s = parent[s]) {
+                    long cell = stateKey[s] >>> 2;
+                    points[--i] = ys[(int) (cell % ny)];
+                    points[--i] = xs[(int) (cell / ny)];
+                }
+                return simplify(points);
+            }
+
+            private long key(int ix, int iy, int direction) {
+                return ((long) ix * ny + iy) << 2 | direction;
+            }
+
+            private void clear() {
+                for (int s = 0; s < states; s++) {
+                    table[stateSlot[s]] = 0;
+                }
+                states = 0;
+                heapSize = 0;
+            }
+
+            /**
+             * The state for a key, added unreached if new.
+             */
+            private int state(long key) {
+                int slot = slot(key);
+                while (table[slot] != 0) {
+                    int s = table[slot] - 1;
+                    if (stateKey[s] == key) {
+                        return s;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                if (states == stateKey.length) {
+                    int capacity = 2 * states;
+                    stateKey = Arrays.copyOf(stateKey, capacity);
+                    stateSlot = Arrays.copyOf(stateSlot, capacity);
+                    cost = Arrays.copyOf(cost, capacity);
+                    parent = Arrays.copyOf(parent, capacity);
+                    closed = Arrays.copyOf(closed, capacity);
+                }
+                int s = states++;
+                stateKey[s] = key;
+                cost[s] = Double.POSITIVE_INFINITY;
+                parent[s] = -1;
+                closed[s] = false;
+                table[slot] = s + 1;
+                stateSlot[s] = slot;
+                if (2 * states > table.length) {
+                    rehash();
+                }
+                return s;
+            }
+
+            private int slot(long key) {
+                return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            }
+
+            private void rehash() {
+                table = new int[2 * table.length];
+                mask = table.length - 1;
+                for (int s = 0; s < states; s++) {
+                    int slot = slot(stateKey[s]);
+                    while (table[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = s + 1;
+                    stateSlot[s] = slot;
+                }
+            }
+
+            private void push(int state, double rank) {
+                if (heapSize == heap.length) {
+                    heap = Arrays.copyOf(heap, 2 * heapSize);
+                    heapRank = Arrays.copyOf(heapRank, 2 * heapSize);
+                }
+                int i = heapSize++;
+                while (i > 0) {
+                    int up = (i - 1) / 2;
+                    if (heapRank[up] <= rank) {
+                        break;
+                    }
+                    heap[i] = heap[up];
+                    heapRank[i] = heapRank[up];
+                    i = up;
+                }
+                heap[i] = state;
+                heapRank[i] = rank;
+            }
+
+            private int pop() {
+                int top = heap[0];
+                int last = heap[--heapSize];
+                double rank = heapRank[heapSize];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= heapSize) {
+                        break;
+                    }
+                    if (child + 1 < heapSize && heapRank[child + 1] < heapRank[child]) {
+                        child++;
+                    }
+                    if (heapRank[child] >= rank) {
+                        break;
+                    }
+                    heap[i] = heap[child];
+                    heapRank[i] = heapRank[child];
+                    i = child;
+                }
+                heap[i] = last;
+                heapRank[i] = rank;
+                return top;
+            }
+        }
+    }
+}
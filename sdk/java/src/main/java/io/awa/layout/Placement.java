@@ -0,0 +1,339 @@
+package io.awa.layout;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Assigns coordinates to an ordered {@link LayerGraph}: along the ranks with the method of
+ * Brandes and Köpf, "Fast and Simple Horizontal Coordinate Assignment" (2001), and across them
+ * rank by rank.
+ * <p>
+ * Each node is aligned with a median neighbour in the previous rank into vertical blocks, which
+ * are then packed as tightly as node separation allows. That is done four times, aligning up or
+ * down and packing to the left or right; the narrowest result fixes the frame and each node takes
+ * the average of its two median coordinates, unless an explicit alignment ({@code UL}, {@code UR},
+ * {@code DL} or {@code DR}) is requested. Inner segments, between two dummies, win over other
+ * segments they cross, so long edges run straight. Linear in the size of the graph.
+ */
+final class Placement {
+
+    private static final String[] ALIGNMENTS = {"UL", "UR", "DL", "DR"};
+
+    private final LayerGraph g;
+    private final double nodeSpacing;
+    private final double edgeSpacing;
+    private final Set<Long> conflicts = new HashSet<>();
+
+    private final int[] root;
+    private final int[] align;
+    private final int[] order;
+    private final int[] neighbours;
+
+    private Placement(LayerGraph g, double nodeSpacing, double edgeSpacing) {
+        this.g = g;
+        this.nodeSpacing = nodeSpacing;
+        this.edgeSpacing = edgeSpacing;
+        this.root = new int[g.size];
+        this.align = new int[g.size];
+        this.order = new int[g.size];
+        int degree = 0;
+        for (int v = 0; v < g.size; v++) {
+            degree = Math.max(degree, Math.max(g.upOffsets[v + 1] - g.upOffsets[v], g.downOffsets[v + 1] - g.downOffsets[v]));
+        }
+        this.neighbours = new int[degree];
+    }
+
+    /**
+     * Centres of the nodes along their rank.
+     *
+     * @param alignment one of {@code UL}, {@code UR}, {@code DL}, {@code DR}, or null to balance all four
+     * @throws IllegalArgumentException if the alignment is not one of those
+     */
+    static double[] alongRanks(LayerGraph g, double nodeSpacing, double edgeSpacing, String alignment) {
+        int chosen = -1;
+        if (alignment != null && !alignment.isBlank()) {
+            chosen = Arrays.asList(ALIGNMENTS).indexOf(alignment.trim().toUpperCase(Locale.ROOT));
+            if (chosen < 0) {
+                throw new IllegalArgumentException("Unknown layout alignment: " + alignment);
+            }
+        }
+        return new Placement(g, nodeSpacing, edgeSpacing).run(chosen);
+    }
+
+    /**
+     * Centres of the nodes across the ranks: each rank is as deep as its deepest node, and ranks
+     * are {@code rankSpacing} apart.
+     */
+    static double[] acrossRanks(LayerGraph g, double rankSpacing) {
+        double[] y = new double[g.size];
+        double offset = 0;
+        for (int[] layer : g.layers) {
+            double depth = 0;
+            for (int v : layer) {
+                depth = Math.max(depth, g.depth[v]);
+            }
+            for (int v : layer) {
+                y[v] = offset + depth / 2;
+            }
+            offset += depth + rankSpacing;
+        }
+        return y;
+    }
+
+    private double[] run(int chosen) {
+        markType1Conflicts();
+        double[][] xs = new double[4][];
+        for (int i = 0; i < 4; i++) {
+            boolean downwards = i >= 2;
+            boolean rightwards = i % 2 == 1;
+            int[][] layers = adjustedLayers(downwards, rightwards);
+            alignVertically(layers, downwards);
+            xs[i] = compact(layers);
+            if (rightwards) {
+                for (int v = 0; v < g.size; v++) {
+                    xs[i][v] = -xs[i][v];
+                }
+            }
+        }
+        int narrowest = 0;
+        double narrowestWidth = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < 4; i++) {
+            double width = max(xs[i], true) - min(xs[i], true);
+            if (width < narrowestWidth) {
+                narrowest = i;
+                narrowestWidth = width;
+            }
+        }
+        // Left-packed results share the narrowest one's left edge, right-packed ones its right edge
+        double left = min(xs[narrowest], false);
+        double right = max(xs[narrowest], false);
+        for (int i = 0; i < 4; i++) {
+            if (i != narrowest) {
+                double delta = i % 2 == 0 ? left - min(xs[i], false) : right - max(xs[i], false);
+                for (int v = 0; v < g.size; v++) {
+                    xs[i][v] += delta;
+                }
+            }
+        }
+        if (chosen >= 0) {
+            return xs[chosen];
+        }
+        double[] x = new double[g.size];
+        double[] four = new double[4];
+        for (int v = 0; v < g.size; v++) {
+            for (int i = 0; i < 4; i++) {
+                four[i] = xs[i][v];
+            }
+            Arrays.sort(four);
+            x[v] = (four[1] + four[2]) / 2;
+        }
+        return x;
+    }
+
+    private double min(double[] x, boolean withExtent) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int v = 0; v < g.size; v++) {
+            min = Math.min(min, x[v] - (withExtent ? g.breadth[v] / 2 : 0));
+        }
+        return min;
+    }
+
+    private double max(double[] x, boolean withExtent) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < g.size; v++) {
+            max = Math.max(max, x[v] + (withExtent ? g.breadth[v] / 2 : 0));
+        }
+        return max;
+    }
+
+    /**
+     * Marks segments that cross an inner segment; alignment never uses them.
+     */
+    private void markType1Conflicts() {
+        for (int r = 1; r <= g.maxRank; r++) {
+            int[] layer = g.layers[r];
+            int previousLength = g.layers[r - 1].length;
+            int k0 = 0;
+            int scan = 0;
+            for (int i = 0; i < layer.length; i++) {
+                int v = layer[i];
+                int upper = innerSegmentUpper(v);
+                if (upper >= 0 || i == layer.length - 1) {
+                    int k1 = upper >= 0 ? g.pos[upper] : previousLength;
+                    for (; scan <= i; scan++) {
+                        int w = layer[scan];
+                        for (int k = g.upOffsets[w]; k < g.upOffsets[w + 1]; k++) {
+                            int u = g.up[k];
+                            int p = g.pos[u];
+                            if ((p < k0 || k1 < p) && !(g.isDummy(u) && g.isDummy(w))) {
+                                conflicts.add(key(u, w));
+                            }
+                        }
+                    }
+                    k0 = k1;
+                }
+            }
+        }
+    }
+
+    private int innerSegmentUpper(int v) {
+        if (g.isDummy(v)) {
+            for (int k = g.upOffsets[v]; k < g.upOffsets[v + 1]; k++) {
+                if (g.isDummy(g.up[k])) {
+                    return g.up[k];
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long key(int a, int b) {
+        return a < b ? (long) a << 32 | b : (long) b << 32 | a;
+    }
+
+    /**
+     * The layers in sweep order: bottom up when aligning downwards, each reversed when packing rightwards.
+     * Also records every node's position within its adjusted layer in {@link #order}.
+     */
+    private int[][] adjustedLayers(boolean downwards, boolean rightwards) {
+        int ranks = g.layers.length;
+        int[][] layers = new int[ranks][];
+        for (int r = 0; r < ranks; r++) {
+            int[] layer = g.layers[downwards ? ranks - 1 - r : r];
+            int[] adjusted = new int[layer.length];
+            for (int i = 0; i < layer.length; i++) {
+                adjusted[i] = layer[rightwards ? layer.length - 1 - i : i];
+                order[adjusted[i]] = i;
+            }
+            layers[r] = adjusted;
+        }
+        return layers;
+    }
+
+    private void alignVertically(int[][] layers, boolean downwards) {
+        int[] offsets = downwards ? g.downOffsets : g.upOffsets;
+        int[] adjacent = downwards ? g.down : g.up;
+        for (int v = 0; v < g.size; v++) {
+            root[v] = v;
+            align[v] = v;
+        }
+        for (int[] layer : layers) {
+            int previous = -1;
+            for (int v : layer) {
+                int count = offsets[v + 1] - offsets[v];
+                if (count == 0) {
+                    continue;
+                }
+                for (int k = 0; k < count; k++) {
+                    int w = adjacent[offsets[v] + k];
+                    int j = k - 1;
+                    while (j >= 0 && order[neighbours[j]] > order[w]) {
+                        neighbours[j + 1] = neighbours[j];
+                        j--;
+                    }
+                    neighbours[j + 1] = w;
+                }
+                for (int m = (count - 1) / 2, last = count / 2; m <= last; m++) {
+                    int w = neighbours[m];
+                    if (align[v] == v && previous < order[w] && !conflicts.contains(key(v, w))) {
+                        align[w] = v;
+                        root[v] = root[w];
+                        align[v] = root[v];
+                        previous = order[w];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs the blocks: first each block as far left as its left neighbours allow, then, from the
+     * right, each block that can move right without pushing anything further right.
+     */
+    private double[] compact(int[][] layers) {
+        int edges = 0;
+        for (int[] layer : layers) {
+            edges += Math.max(0, layer.length - 1);
+        }
+        int[] from = new int[edges];
+        int[] to = new int[edges];
+        double[] gap = new double[edges];
+        int e = 0;
+        for (int[] layer : layers) {
+            for (int i = 1; i < layer.length; i++) {
+                from[e] = root[layer[i - 1]];
+                to[e] = root[layer[i]];
+                gap[e++] = separation(layer[i - 1], layer[i]);
+            }
+        }
+        int[] outOffsets = new int[g.size + 1];
+        int[] inDegree = new int[g.size];
+        for (int i = 0; i < edges; i++) {
+            outOffsets[from[i] + 1]++;
+            inDegree[to[i]]++;
+        }
+        for (int v = 0; v < g.size; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+        }
+        int[] out = new int[edges];
+        int[] fill = Arrays.copyOf(outOffsets, g.size);
+        for (int i = 0; i < edges; i++) {
+            out[fill[from[i]]++] = i;
+        }
+
+        int[] topological = new int[g.size];
+        int count = 0;
+        for (int v = 0; v < g.size; v++) {
+            if (root[v] == v && inDegree[v] == 0) {
+                topological[count++] = v;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int v = topological[i];
+            for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+                if (--inDegree[to[out[k]]] == 0) {
+                    topological[count++] = to[out[k]];
+                }
+            }
+        }
+
+        int roots = 0;
+        for (int v = 0; v < g.size; v++) {
+            roots += root[v] == v ? 1 : 0;
+        }
+        if (count != roots) {
+            throw new IllegalStateException("Aligned blocks overlap; the block graph has a cycle");
+        }
+
+        double[] x = new double[g.size];
+        for (int i = 0; i < count; i++) {
+            int v = topological[i];
+            for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+                int edge = out[k];
+                x[to[edge]] = Math.max(x[to[edge]], x[v] + gap[edge]);
+            }
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            int v = topological[i];
+            double limit = Double.POSITIVE_INFINITY;
+            for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+                int edge = out[k];
+                limit = Math.min(limit, x[to[edge]] - gap[edge]);
+            }
+            if (limit != Double.POSITIVE_INFINITY) {
+                x[v] = Math.max(x[v], limit);
+            }
+        }
+        for (int v = 0; v < g.size; v++) {
+            x[v] = x[root[v]];
+        }
+        return x;
+    }
+
+    private double separation(int left, int right) {
+        return g.breadth[left] / 2 + (g.isDummy(left) ? edgeSpacing : nodeSpacing) / 2
+                + (g.isDummy(right) ? edgeSpacing : nodeSpacing) / 2 + g.breadth[right] / 2;
+    }
+}
@@ -0,0 +1,58 @@
+package io.awa.layout;
+
+/**
+ * Positions computed by {@link ForceLayout3D} for the nodes of a {@link io.awa.graph.WorkflowGraph},
+ * indexed by the graph's int node ids. Nodes that are only referenced by edges are not placed.
+ */
+public final class SpatialLayout {
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final boolean[] placed;
+    private final int iterations;
+    private final boolean converged;
+
+    SpatialLayout(double[] x, double[] y, double[] z, boolean[] placed, int iterations, boolean converged) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.placed = placed;
+        this.iterations = iterations;
+        this.converged = converged;
+    }
+
+    public int nodeCount() {
+        return x.length;
+    }
+
+    public boolean isPlaced(int node) {
+        return placed[node];
+    }
+
+    public double x(int node) {
+        return x[node];
+    }
+
+    public double y(int node) {
+        return y[node];
+    }
+
+    public double z(int node) {
+        return z[node];
+    }
+
+    /**
+     * The number of iterations run.
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * Whether the layout settled before the iteration limit.
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+}
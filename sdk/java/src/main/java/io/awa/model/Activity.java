@@ -16,7 +16,7 @@ import java.util.UUID;
  * Activity entity representing a unit of work in the workflow
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Activity {
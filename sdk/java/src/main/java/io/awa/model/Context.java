@@ -14,7 +14,7 @@ import java.util.UUID;
  * Context entity for shared data/artifacts between agents
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Context {
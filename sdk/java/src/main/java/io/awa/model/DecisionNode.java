@@ -12,7 +12,7 @@ import java.util.UUID;
  * DecisionNode - decision table logic
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class DecisionNode {
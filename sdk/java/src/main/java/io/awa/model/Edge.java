@@ -13,7 +13,7 @@ import java.util.UUID;
  * Edge entity - connection between nodes in the workflow graph
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Edge {
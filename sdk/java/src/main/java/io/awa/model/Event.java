@@ -12,7 +12,7 @@ import java.util.UUID;
  * Event entity - workflow events (start, end, intermediate)
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Event {
@@ -19,7 +19,7 @@ import java.util.UUID;
  * Workflow entity representing a directed graph of agentic activities
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Workflow {
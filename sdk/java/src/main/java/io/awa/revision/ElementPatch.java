@@ -0,0 +1,35 @@
+package io.awa.revision;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Field-level changes to one element, by JSON property name.
+ * <p>
+ * {@link #fields} holds the new value of each changed property, JSON null for a cleared one.
+ * Properties holding a list of elements with ids, such as {@code context_bindings} and
+ * {@code access_rights}, are diffed by id into {@link #lists} instead.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ElementPatch {
+
+    private UUID id;
+
+    @Builder.Default
+    private Map<String, JsonNode> fields = new LinkedHashMap<>();
+
+    @Builder.Default
+    private Map<String, ListPatch> lists = new LinkedHashMap<>();
+}
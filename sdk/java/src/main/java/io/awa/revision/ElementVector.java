@@ -0,0 +1,110 @@
+package io.awa.revision;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * A {@link PersistentVector} of workflow elements with a persistent index from element id to position.
+ * <p>
+ * Replacing an element whose id is unchanged shares the whole index with the original; appending
+ * copies one path of it. When a list holds an id more than once, lookups and edits address its
+ * last occurrence. Elements with a null id are kept in order but cannot be looked up.
+ */
+final class ElementVector<T> {
+
+    private static final ElementVector<?> EMPTY = new ElementVector<>(PersistentVector.empty(),
+            PersistentMap.empty());
+
+    final PersistentVector<T> items;
+    final PersistentMap<UUID, Integer> positions;
+
+    private ElementVector(PersistentVector<T> items, PersistentMap<UUID, Integer> positions) {
+        this.items = items;
+        this.positions = positions;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ElementVector<T> empty() {
+        return (ElementVector<T>) EMPTY;
+    }
+
+    static <T> ElementVector<T> of(List<T> elements, Function<T, UUID> idOf) {
+        PersistentVector<T> items = PersistentVector.of(elements);
+        if (items.isEmpty()) {
+            return empty();
+        }
+        PersistentMap<UUID, Integer> positions = PersistentMap.empty();
+        for (int i = 0; i < items.size(); i++) {
+            UUID id = idOf.apply(items.get(i));
+            if (id != null) {
+                positions = positions.plus(id, i);
+            }
+        }
+        return new ElementVector<>(items, positions);
+    }
+
+    /**
+     * Whether every element has an id and no id occurs twice.
+     */
+    boolean isKeyed() {
+        return positions.size() == items.size();
+    }
+
+    T get(UUID id) {
+        Integer position = positions.get(id);
+        return position != null ? items.get(position) : null;
+    }
+
+    /**
+     * Replaces the element with the same id, or appends the element if there is none.
+     *
+     * @throws IllegalArgumentException if the element or its id is null
+     */
+    ElementVector<T> put(T element, Function<T, UUID> idOf) {
+        UUID id = element != null ? idOf.apply(element) : null;
+        if (id == null) {
+            throw new IllegalArgumentException("Element and its id must not be null");
+        }
+        Integer position = positions.get(id);
+        if (position != null) {
+            if (items.get(position) == element) {
+                return this;
+            }
+            return new ElementVector<>(items.with(position, element), positions);
+        }
+        return new ElementVector<>(items.plus(element), positions.plus(id, items.size()));
+    }
+
+    /**
+     * Removes the element with the id; this vector if there is none.
+     */
+    ElementVector<T> remove(UUID id, Function<T, UUID> idOf) {
+        Integer position = id != null ? positions.get(id) : null;
+        if (position == null) {
+            return this;
+        }
+        int removed = position;
+        PersistentVector<T> newItems = items.minus(removed);
+        if (newItems.isEmpty()) {
+            return empty();
+        }
+        PersistentMap<UUID, Integer> newPositions = positions.minus(id);
+        // An earlier duplicate of the id becomes its last occurrence
+        for (int i = removed - 1; i >= 0; i--) {
+            if (id.equals(idOf.apply(newItems.get(i)))) {
+                newPositions = newPositions.plus(id, i);
+                break;
+            }
+        }
+        // Index entries past the removed element move down one; skip ids whose entry is a later duplicate
+        for (int i = removed; i < newItems.size(); i++) {
+            UUID shifted = idOf.apply(newItems.get(i));
+            Integer old = shifted != null ? newPositions.get(shifted) : null;
+            if (old != null && old == i + 1) {
+                newPositions = newPositions.plus(shifted, i);
+            }
+        }
+        return new ElementVector<>(newItems, newPositions);
+    }
+}
@@ -0,0 +1,52 @@
+package io.awa.revision;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Changes to one list of elements, keyed by element id.
+ * <p>
+ * Applying keeps the surviving elements in place, drops {@link #removed}, patches {@link #modified}
+ * and appends {@link #added}. {@link #order} is set only when that does not reproduce the target
+ * order. When either side has an element without an id or an id twice, elements cannot be matched
+ * and {@link #replaced} carries the whole target list instead; {@link #removed} then still lists
+ * the ids that disappear, for re-validation, but is not needed to apply the patch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class ListPatch {
+
+    @Builder.Default
+    private List<JsonNode> added = new ArrayList<>();
+
+    @Builder.Default
+    private List<UUID> removed = new ArrayList<>();
+
+    @Builder.Default
+    private List<ElementPatch> modified = new ArrayList<>();
+
+    private List<UUID> order;
+
+    private List<JsonNode> replaced;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return isEmpty(added) && isEmpty(removed) && isEmpty(modified) && order == null && replaced == null;
+    }
+
+    private static boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+}
@@ -0,0 +1,393 @@
+package io.awa.revision;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map as a hash array mapped trie (HAMT).
+ * <p>
+ * Each level consumes five bits of the key's hash; a node stores only the slots its bitmap marks
+ * as occupied, so small maps stay small. {@link #plus(Object, Object)} and {@link #minus(Object)}
+ * copy the nodes on the path to the key and share the rest with the original. Keys must not be
+ * null; values may be. The {@link Map} mutators throw {@link UnsupportedOperationException}.
+ */
+final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * A map of the entries; a null map gives the empty map.
+     *
+     * @throws IllegalArgumentException if a key is null
+     */
+    static <K, V> PersistentMap<K, V> of(Map<? extends K, ? extends V> entries) {
+        PersistentMap<K, V> map = empty();
+        if (entries != null) {
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                map = map.plus(entry.getKey(), entry.getValue());
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object value = find(key);
+        return value != NOT_FOUND ? (V) value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != NOT_FOUND;
+    }
+
+    /**
+     * A map with the key bound to the value; this map if it already was.
+     *
+     * @throws IllegalArgumentException if the key is null
+     */
+    PersistentMap<K, V> plus(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+        boolean[] added = new boolean[1];
+        Node start = root != null ? root : BitmapNode.EMPTY;
+        Node newRoot = start.put(0, hash(key), key, value, added);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * A map without the key; this map if it has no such key.
+     */
+    PersistentMap<K, V> minus(Object key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        Node newRoot = root.remove(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot != null ? new PersistentMap<>(newRoot, size - 1) : empty();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private Object find(Object key) {
+        return root != null && key != null ? root.find(0, hash(key), key) : NOT_FOUND;
+    }
+
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * Trie node; returns itself from {@code put} and {@code remove} when nothing changed, and
+     * null from {@code remove} when it became empty.
+     */
+    abstract static class Node {
+
+        /**
+         * Keys and values interleaved; in a {@link BitmapNode} a null key marks a slot whose
+         * value is a child node.
+         */
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+        abstract Node remove(int shift, int hash, Object key);
+
+        final void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] != null) {
+                    action.accept(array[i], array[i + 1]);
+                } else {
+                    ((Node) array[i + 1]).forEach(action);
+                }
+            }
+        }
+    }
+
+    static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+
+        BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object slotKey = array[index];
+            if (slotKey == null) {
+                return ((Node) array[index + 1]).find(shift + 5, hash, key);
+            }
+            return key.equals(slotKey) ? array[index + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, index);
+                copy[index] = key;
+                copy[index + 1] = value;
+                System.arraycopy(array, index, copy, index + 2, array.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+            Object slotKey = array[index];
+            Object slotValue = array[index + 1];
+            Node child;
+            if (slotKey == null) {
+                Node node = (Node) slotValue;
+                child = node.put(shift + 5, hash, key, value, added);
+                if (child == node) {
+                    return this;
+                }
+            } else if (key.equals(slotKey)) {
+                if (value == slotValue) {
+                    return this;
+                }
+                Object[] copy = array.clone();
+                copy[index + 1] = value;
+                return new BitmapNode(bitmap, copy);
+            } else {
+                child = pair(shift + 5, slotKey, slotValue, hash, key, value);
+                added[0] = true;
+            }
+            Object[] copy = array.clone();
+            copy[index] = null;
+            copy[index + 1] = child;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object slotKey = array[index];
+            if (slotKey == null) {
+                Node node = (Node) array[index + 1];
+                Node child = node.remove(shift + 5, hash, key);
+                if (child == node) {
+                    return this;
+                }
+                if (child != null) {
+                    Object[] copy = array.clone();
+                    copy[index + 1] = child;
+                    return new BitmapNode(bitmap, copy);
+                }
+            } else if (!key.equals(slotKey)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, index);
+            System.arraycopy(array, index + 2, copy, index, array.length - index - 2);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+
+        private static Node pair(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return EMPTY.put(shift, hash1, key1, value1, added).put(shift, hash2, key2, value2, added);
+        }
+    }
+
+    /**
+     * Keys whose hashes are equal in all 32 bits, searched linearly.
+     */
+    static final class CollisionNode extends Node {
+
+        final int hash;
+
+        CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int index = indexOf(key);
+            return index >= 0 ? array[index + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // Push this node one level down, next to the new key
+                BitmapNode parent = new BitmapNode(bit(this.hash, shift), new Object[]{null, this});
+                return parent.put(shift, hash, key, value, added);
+            }
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (array[index + 1] == value) {
+                    return this;
+                }
+                Object[] copy = array.clone();
+                copy[index + 1] = value;
+                return new CollisionNode(hash, copy);
+            }
+            Object[] copy = Arrays.copyOf(array, array.length + 2);
+            copy[array.length] = key;
+            copy[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, copy);
+        }
+
+        @Override
+        Node remove(int shift, int hash, Object key) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, index);
+            System.arraycopy(array, index + 2, copy, index, array.length - index - 2);
+            return new CollisionNode(this.hash, copy);
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Depth-first walk over the nodes with an explicit stack.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        private final Deque<Node> nodes = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                nodes.push(root);
+                positions.push(0);
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = next;
+            advance();
+            return entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (!nodes.isEmpty()) {
+                Object[] array = nodes.peek().array;
+                int position = positions.pop();
+                if (position >= array.length) {
+                    nodes.pop();
+                    continue;
+                }
+                positions.push(position + 2);
+                if (array[position] != null) {
+                    next = new SimpleImmutableEntry<>((K) array[position], (V) array[position + 1]);
+                    return;
+                }
+                nodes.push((Node) array[position + 1]);
+                positions.push(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package io.awa.revision;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * Immutable list as a 32-way trie of arrays with a separate tail, in the manner of Clojure's vector.
+ * <p>
+ * {@link #with(int, Object)} and {@link #plus(Object)} copy only the path from the root to the
+ * changed leaf, at most {@code log32(size)} arrays of 32 slots, and share every other array with
+ * the original. {@link #minus(int)} shares the leaves before the removed element and copies the
+ * ones after it. The {@link List} mutators throw {@link UnsupportedOperationException}.
+ */
+final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+
+    static final int BITS = 5;
+    static final int WIDTH = 1 << BITS;
+    static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final Object[] EMPTY_TAIL = new Object[0];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, EMPTY_TAIL);
+
+    private final int size;
+    final int shift;
+    final Object[] root;
+    final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    /**
+     * A vector of the elements in iteration order; a null collection gives the empty vector.
+     */
+    static <E> PersistentVector<E> of(Collection<? extends E> elements) {
+        if (elements == null || elements.isEmpty()) {
+            return empty();
+        }
+        Builder<E> builder = new Builder<>();
+        for (E element : elements) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, size);
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    /**
+     * A vector with the element at {@code index} replaced.
+     *
+     * @throws IndexOutOfBoundsException if the index is not below {@link #size()}
+     */
+    PersistentVector<E> with(int index, E element) {
+        checkIndex(index, size);
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(shift, root, index, element), tail);
+    }
+
+    /**
+     * A vector with the element appended.
+     */
+    PersistentVector<E> plus(E element) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        // The tail is full: push it into the trie as a leaf, growing a level when the root is full
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    /**
+     * A vector without the element at {@code index}.
+     *
+     * @throws IndexOutOfBoundsException if the index is not below {@link #size()}
+     */
+    PersistentVector<E> minus(int index) {
+        checkIndex(index, size);
+        if (index == size - 1) {
+            return pop();
+        }
+        // Later elements all move down one slot, so only the leaves before the removed one survive
+        Builder<E> builder = new Builder<>();
+        int keptLeaves = Math.min(index, tailOffset()) >>> BITS;
+        for (int leaf = 0; leaf < keptLeaves; leaf++) {
+            builder.addLeaf(leafFor(leaf << BITS));
+        }
+        for (int i = keptLeaves << BITS; i < size; i++) {
+            if (i != index) {
+                builder.add(get(i));
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int index;
+            private Object[] leaf;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if ((index & MASK) == 0) {
+                    leaf = leafFor(index);
+                }
+                return (E) leaf[index++ & MASK];
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super E> action) {
+        for (int base = 0; base < size; base += WIDTH) {
+            Object[] leaf = leafFor(base);
+            int end = Math.min(WIDTH, size - base);
+            for (int i = 0; i < end; i++) {
+                action.accept((E) leaf[i]);
+            }
+        }
+    }
+
+    /**
+     * Index of the first element held in the tail rather than the trie.
+     */
+    int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * The array holding the element at {@code index}: a trie leaf or the tail.
+     */
+    Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private PersistentVector<E> pop() {
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset() > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        Object[] newTail = leafFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    private static Object[] assoc(int level, Object[] node, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int slot = (index >>> level) & MASK;
+            copy[slot] = assoc(level - BITS, (Object[]) node[slot], index, element);
+        }
+        return copy;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        int slot = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[slot] = leaf;
+        } else {
+            Object[] child = (Object[]) parent[slot];
+            copy[slot] = child != null ? pushTail(level - BITS, child, leaf) : newPath(level - BITS, leaf);
+        }
+        return copy;
+    }
+
+    private Object[] popTail(int level, Object[] node) {
+        int slot = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] child = popTail(level - BITS, (Object[]) node[slot]);
+            if (child == null && slot == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[slot] = child;
+            return copy;
+        }
+        if (slot == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[slot] = null;
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    /**
+     * Collects elements into full leaves and assembles the trie bottom-up, without the path
+     * copies of repeated {@link #plus(Object)}.
+     */
+    static final class Builder<E> {
+
+        private final List<Object[]> leaves = new ArrayList<>();
+        private Object[] buffer = new Object[WIDTH];
+        private int buffered;
+
+        Builder<E> add(E element) {
+            if (buffered == WIDTH) {
+                leaves.add(buffer);
+                buffer = new Object[WIDTH];
+                buffered = 0;
+            }
+            buffer[buffered++] = element;
+            return this;
+        }
+
+        /**
+         * Adds a full leaf of another vector by reference; only valid on a leaf boundary.
+         */
+        private void addLeaf(Object[] leaf) {
+            if (buffered != 0) {
+                throw new IllegalStateException("Leaves can only be shared on a leaf boundary");
+            }
+            leaves.add(leaf);
+        }
+
+        PersistentVector<E> build() {
+            Object[] tail;
+            if (buffered > 0) {
+                tail = buffered == WIDTH ? buffer : Arrays.copyOf(buffer, buffered);
+            } else if (!leaves.isEmpty()) {
+                tail = leaves.remove(leaves.size() - 1);
+            } else {
+                return empty();
+            }
+            int size = (leaves.size() << BITS) + tail.length;
+            int shift = BITS;
+            List<Object[]> level = leaves;
+            while (level.size() > WIDTH) {
+                List<Object[]> parents = new ArrayList<>((level.size() + MASK) >>> BITS);
+                for (int i = 0; i < level.size(); i += WIDTH) {
+                    Object[] parent = new Object[WIDTH];
+                    for (int j = i; j < Math.min(i + WIDTH, level.size()); j++) {
+                        parent[j - i] = level.get(j);
+                    }
+                    parents.add(parent);
+                }
+                level = parents;
+                shift += BITS;
+            }
+            Object[] root = level.isEmpty() ? EMPTY_NODE : level.toArray(new Object[WIDTH]);
+            return new PersistentVector<>(size, shift, root, tail);
+        }
+    }
+}
@@ -0,0 +1,676 @@
+package io.awa.revision;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.awa.ids.IdRegistry;
+import io.awa.model.Activity;
+import io.awa.model.Context;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+import io.awa.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Computes {@link WorkflowPatch}es between two versions of a workflow and applies them.
+ * <p>
+ * Elements are matched by id through an {@link IdRegistry}, so a diff is linear in the number
+ * of elements rather than pairwise. Elements that are the same instance on both sides, as
+ * unchanged elements of two {@link WorkflowRevision}s are, are skipped without comparing them;
+ * the others are compared with {@code equals} and, when they differ, property by property in
+ * their JSON form. Lists of elements with ids nested in an element, such as context bindings and
+ * access rights, are diffed by id as well.
+ * <p>
+ * Applying checks that the patch was made from the workflow's id and version, and fails with
+ * {@link IllegalArgumentException} when it removes or modifies an element the workflow lacks or
+ * adds one it already has. Untouched elements are shared with the base, so they are not copied.
+ *
+ * <pre>{@code
+ * WorkflowDiff diff = new WorkflowDiff();
+ * WorkflowPatch patch = diff.diff(previous, current);
+ * send(mapper.writeValueAsBytes(patch));
+ * ...
+ * Workflow replica = diff.apply(local, patch);
+ * session.revalidate(replica, patch.changedIds());
+ * }</pre>
+ */
+public final class WorkflowDiff {
+
+    private static final Set<String> LIST_FIELDS = Set.of("activities", "edges", "events", "decision_nodes",
+            "contexts");
+
+    private static final List<Kind<?>> KINDS = List.of(
+            new Kind<>("activity", Activity.class, Activity::getId, Workflow::getActivities, Workflow::setActivities,
+                    WorkflowRevision::activityVector, WorkflowRevision::getActivity, WorkflowRevision::withActivity,
+                    WorkflowRevision::withoutActivity, WorkflowRevision::withActivityList,
+                    WorkflowPatch::getActivities, WorkflowPatch::setActivities),
+            new Kind<>("edge", Edge.class, Edge::getId, Workflow::getEdges, Workflow::setEdges,
+                    WorkflowRevision::edgeVector, WorkflowRevision::getEdge, WorkflowRevision::withEdge,
+                    WorkflowRevision::withoutEdge, WorkflowRevision::withEdgeList,
+                    WorkflowPatch::getEdges, WorkflowPatch::setEdges),
+            new Kind<>("event", Event.class, Event::getId, Workflow::getEvents, Workflow::setEvents,
+                    WorkflowRevision::eventVector, WorkflowRevision::getEvent, WorkflowRevision::withEvent,
+                    WorkflowRevision::withoutEvent, WorkflowRevision::withEventList,
+                    WorkflowPatch::getEvents, WorkflowPatch::setEvents),
+            new Kind<>("decision node", DecisionNode.class, DecisionNode::getId, Workflow::getDecisionNodes,
+                    Workflow::setDecisionNodes, WorkflowRevision::decisionNodeVector, WorkflowRevision::getDecisionNode,
+                    WorkflowRevision::withDecisionNode, WorkflowRevision::withoutDecisionNode,
+                    WorkflowRevision::withDecisionNodeList, WorkflowPatch::getDecisionNodes,
+                    WorkflowPatch::setDecisionNodes),
+            new Kind<>("context", Context.class, Context::getId, Workflow::getContexts, Workflow::setContexts,
+                    WorkflowRevision::contextVector, WorkflowRevision::getContext, WorkflowRevision::withContext,
+                    WorkflowRevision::withoutContext, WorkflowRevision::withContextList,
+                    WorkflowPatch::getContexts, WorkflowPatch::setContexts));
+
+    private static final ListPatch NOT_IN_PLACE = new ListPatch();
+
+    private ObjectMapper mapper = defaultMapper();
+
+    /**
+     * Mapper for the JSON form of elements: dates as ISO strings keeping their offset, lower-case
+     * enum values accepted and unknown properties ignored.
+     */
+    public static ObjectMapper defaultMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    public WorkflowDiff mapper(ObjectMapper mapper) {
+        this.mapper = mapper;
+        return this;
+    }
+
+    /**
+     * The patch that turns {@code from} into {@code to}; empty if they are equal.
+     *
+     * @throws IllegalArgumentException if either workflow is null
+     */
+    public WorkflowPatch diff(Workflow from, Workflow to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Workflows must not be null");
+        }
+        WorkflowPatch patch = newPatch(from.getVersion(), to.getId(), to.getVersion(),
+                diffFields(headerTree(from), headerTree(to)));
+        for (Kind<?> kind : KINDS) {
+            diffKind(kind, from, to, patch);
+        }
+        return patch;
+    }
+
+    /**
+     * The patch that turns {@code from} into {@code to}. When no element was added, removed or
+     * moved, only the vector leaves the two revisions do not share are visited, so diffing a
+     * revision against its parent costs little more than the edits.
+     *
+     * @throws IllegalArgumentException if either revision is null
+     */
+    public WorkflowPatch diff(WorkflowRevision from, WorkflowRevision to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Revisions must not be null");
+        }
+        WorkflowPatch patch = newPatch(from.getVersion(), to.getId(), to.getVersion(),
+                diffFields(headerTree(from.header()), headerTree(to.header())));
+        for (Kind<?> kind : KINDS) {
+            diffKind(kind, from, to, patch);
+        }
+        return patch;
+    }
+
+    /**
+     * A new workflow with the patch applied; the base is left unchanged.
+     *
+     * @throws IllegalArgumentException if the patch does not apply to the base
+     */
+    public Workflow apply(Workflow base, WorkflowPatch patch) {
+        checkBase(base != null ? base.getId() : null, base != null ? base.getVersion() : null, patch);
+        Workflow result;
+        if (patch.getFields() == null || patch.getFields().isEmpty()) {
+            result = base.toBuilder()
+                    .metadata(base.getMetadata() != null ? new HashMap<>(base.getMetadata()) : null)
+                    .build();
+        } else {
+            result = fromTree(patchFields(headerTree(base), patch.getFields()), Workflow.class, "workflow");
+        }
+        for (Kind<?> kind : KINDS) {
+            applyKind(kind, base, result, patch);
+        }
+        return result;
+    }
+
+    /**
+     * A new revision with the patch applied, sharing everything the patch does not touch with the base.
+     *
+     * @throws IllegalArgumentException if the patch does not apply to the base
+     */
+    public WorkflowRevision apply(WorkflowRevision base, WorkflowPatch patch) {
+        checkBase(base != null ? base.getId() : null, base != null ? base.getVersion() : null, patch);
+        WorkflowRevision result = base;
+        if (patch.getFields() != null && !patch.getFields().isEmpty()) {
+            ObjectNode header = patchFields(headerTree(base.header()), patch.getFields());
+            result = result.withHeader(fromTree(header, Workflow.class, "workflow"));
+        }
+        for (Kind<?> kind : KINDS) {
+            result = applyKind(kind, result, patch);
+        }
+        return result;
+    }
+
+    /**
+     * The id of a JSON element, null if it has none or it is not a UUID.
+     */
+    static UUID idOf(JsonNode element) {
+        JsonNode id = element != null ? element.get("id") : null;
+        if (id == null || !id.isTextual()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id.textValue());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static WorkflowPatch newPatch(String fromVersion, UUID workflowId, String toVersion,
+                                          Map<String, JsonNode> fields) {
+        return WorkflowPatch.builder()
+                .workflowId(workflowId)
+                .fromVersion(fromVersion)
+                .toVersion(toVersion)
+                .fields(fields)
+                .build();
+    }
+
+    private <T> void diffKind(Kind<T> kind, Workflow from, Workflow to, WorkflowPatch patch) {
+        kind.setPatch.accept(patch, diffList(kind.workflowList.apply(from), kind.workflowList.apply(to),
+                kind.idOf, this::toTree));
+    }
+
+    private <T> void diffKind(Kind<T> kind, WorkflowRevision from, WorkflowRevision to, WorkflowPatch patch) {
+        ElementVector<T> before = kind.revisionVector.apply(from);
+        ElementVector<T> after = kind.revisionVector.apply(to);
+        ListPatch listPatch = diffInPlace(before, after, kind.idOf);
+        kind.setPatch.accept(patch, listPatch != NOT_IN_PLACE ? listPatch
+                : diffList(before.items, after.items, kind.idOf, this::toTree));
+    }
+
+    /**
+     * Diffs two keyed vectors of the same size whose elements keep their ids and positions, which
+     * is the common case for a revision and its parent, visiting only the leaves they do not share.
+     * Returns {@link #NOT_IN_PLACE} when the vectors do not qualify.
+     */
+    private <T> ListPatch diffInPlace(ElementVector<T> from, ElementVector<T> to, Function<T, UUID> idOf) {
+        if (from == to || from.items == to.items) {
+            return null;
+        }
+        PersistentVector<T> before = from.items;
+        PersistentVector<T> after = to.items;
+        if (before.size() != after.size() || !from.isKeyed() || !to.isKeyed()) {
+            return NOT_IN_PLACE;
+        }
+        ListPatch patch = new ListPatch();
+        for (int base = 0; base < before.size(); base += PersistentVector.WIDTH) {
+            Object[] beforeLeaf = before.leafFor(base);
+            Object[] afterLeaf = after.leafFor(base);
+            if (beforeLeaf == afterLeaf) {
+                continue;
+            }
+            int end = Math.min(PersistentVector.WIDTH, before.size() - base);
+            for (int i = 0; i < end; i++) {
+                @SuppressWarnings("unchecked")
+                T source = (T) beforeLeaf[i];
+                @SuppressWarnings("unchecked")
+                T target = (T) afterLeaf[i];
+                if (source == target) {
+                    continue;
+                }
+                UUID id = idOf.apply(source);
+                if (!id.equals(idOf.apply(target))) {
+                    return NOT_IN_PLACE;
+                }
+                if (!source.equals(target)) {
+                    ElementPatch element = diffElement(id, toTree(source), toTree(target));
+                    if (element != null) {
+                        patch.getModified().add(element);
+                    }
+                }
+            }
+        }
+        return patch.isEmpty() ? null : patch;
+    }
+
+    /**
+     * Diffs two lists by id; null when they are equal.
+     */
+    private <T> ListPatch diffList(List<T> from, List<T> to, Function<T, UUID> idOf, Function<T, JsonNode> toTree) {
+        from = orEmpty(from);
+        to = orEmpty(to);
+        if (from == to) {
+            return null;
+        }
+        int fromSize = from.size();
+        IdRegistry ids = new IdRegistry(fromSize + to.size());
+        int[] toKeys = new int[to.size()];
+        boolean[] matched = new boolean[fromSize];
+        boolean keyed = internAll(from, idOf, ids);
+        for (int j = 0; keyed && j < toKeys.length; j++) {
+            UUID id = idOf.apply(to.get(j));
+            if (id == null) {
+                keyed = false;
+                break;
+            }
+            int known = ids.size();
+            int key = ids.intern(id);
+            if (key < known) {
+                // A second occurrence of an id in the target, added or matched
+                if (key >= fromSize || matched[key]) {
+                    keyed = false;
+                    break;
+                }
+                matched[key] = true;
+            }
+            toKeys[j] = key;
+        }
+        if (!keyed) {
+            return replacedList(from, to, idOf, toTree);
+        }
+
+        ListPatch patch = new ListPatch();
+        boolean inOrder = true;
+        boolean addedSeen = false;
+        int nextKept = 0;
+        for (int j = 0; j < toKeys.length; j++) {
+            int key = toKeys[j];
+            T target = to.get(j);
+            if (key >= fromSize) {
+                patch.getAdded().add(toTree.apply(target));
+                addedSeen = true;
+                continue;
+            }
+            // Kept elements must appear in their old relative order and before any added one
+            while (nextKept < fromSize && !matched[nextKept]) {
+                nextKept++;
+            }
+            inOrder &= !addedSeen && nextKept == key;
+            nextKept = key + 1;
+            T source = from.get(key);
+            if (source != target && !Objects.equals(source, target)) {
+                ElementPatch element = diffElement(ids.uuid(key), toTree.apply(source), toTree.apply(target));
+                if (element != null) {
+                    patch.getModified().add(element);
+                }
+            }
+        }
+        for (int i = 0; i < fromSize; i++) {
+            if (!matched[i]) {
+                patch.getRemoved().add(ids.uuid(i));
+            }
+        }
+        if (!inOrder) {
+            List<UUID> order = new ArrayList<>(toKeys.length);
+            for (int key : toKeys) {
+                order.add(ids.uuid(key));
+            }
+            patch.setOrder(order);
+        }
+        return patch.isEmpty() ? null : patch;
+    }
+
+    /**
+     * Interns the ids in list order, so that an element's key is its position; false if an id is
+     * missing or repeated.
+     */
+    private static <T> boolean internAll(List<T> elements, Function<T, UUID> idOf, IdRegistry ids) {
+        for (T element : elements) {
+            UUID id = idOf.apply(element);
+            if (id == null || ids.contains(id)) {
+                return false;
+            }
+            ids.intern(id);
+        }
+        return true;
+    }
+
+    private static <T> ListPatch replacedList(List<T> from, List<T> to, Function<T, UUID> idOf,
+                                              Function<T, JsonNode> toTree) {
+        if (from.equals(to)) {
+            return null;
+        }
+        ListPatch patch = new ListPatch();
+        List<JsonNode> replaced = new ArrayList<>(to.size());
+        Set<UUID> remaining = new LinkedHashSet<>();
+        for (T element : to) {
+            replaced.add(toTree.apply(element));
+            remaining.add(idOf.apply(element));
+        }
+        for (T element : from) {
+            UUID id = idOf.apply(element);
+            if (id != null && !remaining.contains(id) && !patch.getRemoved().contains(id)) {
+                patch.getRemoved().add(id);
+            }
+        }
+        patch.setReplaced(replaced);
+        return patch;
+    }
+
+    private ElementPatch diffElement(UUID id, JsonNode from, JsonNode to) {
+        ElementPatch patch = ElementPatch.builder().id(id).build();
+        Set<String> names = new LinkedHashSet<>();
+        from.fieldNames().forEachRemaining(names::add);
+        to.fieldNames().forEachRemaining(names::add);
+        for (String name : names) {
+            JsonNode before = from.get(name);
+            JsonNode after = to.get(name);
+            if (Objects.equals(before, after)) {
+                continue;
+            }
+            if (isKeyedArray(before) && isKeyedArray(after)) {
+                ListPatch nested = diffList(elements(before), elements(after), WorkflowDiff::idOf,
+                        Function.identity());
+                if (nested != null) {
+                    patch.getLists().put(name, nested);
+                }
+            } else {
+                patch.getFields().put(name, after != null ? after : NullNode.getInstance());
+            }
+        }
+        return patch.getFields().isEmpty() && patch.getLists().isEmpty() ? null : patch;
+    }
+
+    private static Map<String, JsonNode> diffFields(ObjectNode from, ObjectNode to) {
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        Set<String> names = new LinkedHashSet<>();
+        from.fieldNames().forEachRemaining(names::add);
+        to.fieldNames().forEachRemaining(names::add);
+        for (String name : names) {
+            JsonNode after = to.get(name);
+            if (!Objects.equals(from.get(name), after)) {
+                fields.put(name, after != null ? after : NullNode.getInstance());
+            }
+        }
+        return fields;
+    }
+
+    private <T> void applyKind(Kind<T> kind, Workflow base, Workflow result, WorkflowPatch patch) {
+        List<T> elements = orEmpty(kind.workflowList.apply(base));
+        ListPatch listPatch = kind.patch.apply(patch);
+        kind.setWorkflowList.accept(result, listPatch == null ? new ArrayList<>(elements)
+                : applyList(elements, listPatch, kind.idOf, this::toTree, tree -> fromTree(tree, kind.type, kind.name),
+                kind.name));
+    }
+
+    private <T> WorkflowRevision applyKind(Kind<T> kind, WorkflowRevision base, WorkflowPatch patch) {
+        ListPatch listPatch = kind.patch.apply(patch);
+        if (listPatch == null) {
+            return base;
+        }
+        if (listPatch.getReplaced() != null || listPatch.getOrder() != null) {
+            return kind.replace.apply(base, applyList(kind.revisionVector.apply(base).items, listPatch, kind.idOf,
+                    this::toTree, tree -> fromTree(tree, kind.type, kind.name), kind.name));
+        }
+        // Edit in place through the revision's id index, so the rest of the list stays shared
+        WorkflowRevision result = base;
+        for (UUID id : orEmpty(listPatch.getRemoved())) {
+            requirePresent(kind.lookup.apply(result, id) != null, kind.name, id);
+            result = kind.remove.apply(result, id);
+        }
+        for (ElementPatch element : orEmpty(listPatch.getModified())) {
+            T current = kind.lookup.apply(result, element.getId());
+            requirePresent(current != null, kind.name, element.getId());
+            result = kind.put.apply(result, fromTree(patchElement(toTree(current), element), kind.type, kind.name));
+        }
+        for (JsonNode tree : orEmpty(listPatch.getAdded())) {
+            T added = fromTree(tree, kind.type, kind.name);
+            UUID id = kind.idOf.apply(added);
+            if (id == null || kind.lookup.apply(result, id) != null) {
+                throw new IllegalArgumentException("Patch adds " + kind.name + " " + id
+                        + ", which the workflow already has or which has no id");
+            }
+            result = kind.put.apply(result, added);
+        }
+        return result;
+    }
+
+    /**
+     * Applies a list patch, sharing the elements it does not touch.
+     */
+    private <T> List<T> applyList(List<T> base, ListPatch patch, Function<T, UUID> idOf,
+                                  Function<T, JsonNode> toTree, Function<JsonNode, T> fromTree, String name) {
+        base = orEmpty(base);
+        if (patch.getReplaced() != null) {
+            List<T> replaced = new ArrayList<>(patch.getReplaced().size());
+            patch.getReplaced().forEach(tree -> replaced.add(fromTree.apply(tree)));
+            return replaced;
+        }
+        IdRegistry ids = new IdRegistry(base.size());
+        int[] positions = new int[base.size()];
+        for (int i = 0; i < base.size(); i++) {
+            UUID id = idOf.apply(base.get(i));
+            if (id != null) {
+                int known = ids.size();
+                int key = ids.intern(id);
+                // A repeated id is ambiguous; the patch may only leave it alone
+                positions[key] = key < known ? -1 : i;
+            }
+        }
+        List<T> elements = new ArrayList<>(base);
+        boolean[] dropped = new boolean[base.size()];
+        for (UUID id : orEmpty(patch.getRemoved())) {
+            dropped[position(ids, positions, id, name)] = true;
+        }
+        for (ElementPatch element : orEmpty(patch.getModified())) {
+            int position = position(ids, positions, element.getId(), name);
+            elements.set(position, fromTree.apply(patchElement(toTree.apply(base.get(position)), element)));
+        }
+        List<T> result = new ArrayList<>(base.size() + orEmpty(patch.getAdded()).size());
+        for (int i = 0; i < elements.size(); i++) {
+            if (!dropped[i]) {
+                result.add(elements.get(i));
+            }
+        }
+        for (JsonNode tree : orEmpty(patch.getAdded())) {
+            T added = fromTree.apply(tree);
+            UUID id = idOf.apply(added);
+            int key = id != null ? ids.indexOf(id) : -1;
+            if (id == null || key >= 0 && (positions[key] < 0 || !dropped[positions[key]])) {
+                throw new IllegalArgumentException("Patch adds " + name + " " + id
+                        + ", which the workflow already has or which has no id");
+            }
+            result.add(added);
+        }
+        return patch.getOrder() != null ? reorder(result, patch.getOrder(), idOf, name) : result;
+    }
+
+    private static <T> List<T> reorder(List<T> elements, List<UUID> order, Function<T, UUID> idOf, String name) {
+        Map<UUID, T> byId = new HashMap<>(elements.size() * 2);
+        for (T element : elements) {
+            byId.put(idOf.apply(element), element);
+        }
+        if (order.size() != elements.size() || byId.size() != elements.size()) {
+            throw new IllegalArgumentException("Patch orders " + order.size() + " " + name + " elements, the result has "
+                    + elements.size());
+        }
+        List<T> ordered = new ArrayList<>(order.size());
+        for (UUID id : order) {
+            T element = byId.remove(id);
+            requirePresent(element != null, name, id);
+            ordered.add(element);
+        }
+        return ordered;
+    }
+
+    private static int position(IdRegistry ids, int[] positions, UUID id, String name) {
+        int key = id != null ? ids.indexOf(id) : -1;
+        requirePresent(key >= 0, name, id);
+        if (positions[key] < 0) {
+            throw new IllegalArgumentException("Patch changes " + name + " " + id
+                    + ", which occurs more than once in the workflow");
+        }
+        return positions[key];
+    }
+
+    private static void requirePresent(boolean present, String name, UUID id) {
+        if (!present) {
+            throw new IllegalArgumentException("Patch changes " + name + " " + id + ", which the workflow does not have");
+        }
+    }
+
+    /**
+     * Applies field and nested list changes to a fresh JSON tree of the element.
+     */
+    private JsonNode patchElement(JsonNode tree, ElementPatch patch) {
+        if (!(tree instanceof ObjectNode)) {
+            throw new IllegalArgumentException("Patch changes element " + patch.getId() + ", which is not an object");
+        }
+        ObjectNode object = (ObjectNode) tree;
+        if (patch.getFields() != null) {
+            patch.getFields().forEach((name, value) -> object.set(name, value != null ? value : NullNode.getInstance()));
+        }
+        if (patch.getLists() != null) {
+            patch.getLists().forEach((name, listPatch) -> {
+                List<JsonNode> patched = applyList(elements(object.get(name)), listPatch, WorkflowDiff::idOf,
+                        Function.identity(), Function.identity(), name);
+                ArrayNode array = object.putArray(name);
+                patched.forEach(array::add);
+            });
+        }
+        return object;
+    }
+
+    private static ObjectNode patchFields(ObjectNode header, Map<String, JsonNode> fields) {
+        fields.forEach((name, value) -> header.set(name, value != null ? value : NullNode.getInstance()));
+        return header;
+    }
+
+    private static void checkBase(UUID id, String version, WorkflowPatch patch) {
+        if (patch == null) {
+            throw new IllegalArgumentException("Patch must not be null");
+        }
+        if (patch.getWorkflowId() != null && !patch.getWorkflowId().equals(id)) {
+            throw new IllegalArgumentException("Patch is for workflow " + patch.getWorkflowId() + ", not " + id);
+        }
+        if (!Objects.equals(patch.getFromVersion(), version)) {
+            throw new IllegalArgumentException("Patch applies to version " + patch.getFromVersion()
+                    + ", the workflow is at version " + version);
+        }
+    }
+
+    /**
+     * The workflow's properties as JSON, without the element lists.
+     */
+    private ObjectNode headerTree(Workflow workflow) {
+        Workflow header = workflow.toBuilder()
+                .activities(null)
+                .edges(null)
+                .events(null)
+                .decisionNodes(null)
+                .contexts(null)
+                .build();
+        ObjectNode tree = mapper.valueToTree(header);
+        tree.remove(LIST_FIELDS);
+        return tree;
+    }
+
+    private JsonNode toTree(Object element) {
+        return mapper.valueToTree(element);
+    }
+
+    private <T> T fromTree(JsonNode tree, Class<T> type, String name) {
+        try {
+            return mapper.treeToValue(tree, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Patch holds an invalid " + name + ": " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static boolean isKeyedArray(JsonNode node) {
+        if (node == null || !node.isArray()) {
+            return false;
+        }
+        for (Iterator<JsonNode> it = node.elements(); it.hasNext(); ) {
+            if (idOf(it.next()) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<JsonNode> elements(JsonNode array) {
+        if (array == null || !array.isArray()) {
+            return new ArrayList<>();
+        }
+        List<JsonNode> elements = new ArrayList<>(array.size());
+        array.elements().forEachRemaining(elements::add);
+        return elements;
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : Collections.emptyList();
+    }
+
+    /**
+     * How one element list of a workflow, a revision and a patch is reached.
+     */
+    private static final class Kind<T> {
+
+        final String name;
+        final Class<T> type;
+        final Function<T, UUID> idOf;
+        final Function<Workflow, List<T>> workflowList;
+        final BiConsumer<Workflow, List<T>> setWorkflowList;
+        final Function<WorkflowRevision, ElementVector<T>> revisionVector;
+        final BiFunction<WorkflowRevision, UUID, T> lookup;
+        final BiFunction<WorkflowRevision, T, WorkflowRevision> put;
+        final BiFunction<WorkflowRevision, UUID, WorkflowRevision> remove;
+        final BiFunction<WorkflowRevision, List<T>, WorkflowRevision> replace;
+        final Function<WorkflowPatch, ListPatch> patch;
+        final BiConsumer<WorkflowPatch, ListPatch> setPatch;
+
+        Kind(String name, Class<T> type, Function<T, UUID> idOf, Function<Workflow, List<T>> workflowList,
+             BiConsumer<Workflow, List<T>> setWorkflowList, Function<WorkflowRevision, ElementVector<T>> revisionVector,
+             BiFunction<WorkflowRevision, UUID, T> lookup, BiFunction<WorkflowRevision, T, WorkflowRevision> put,
+             BiFunction<WorkflowRevision, UUID, WorkflowRevision> remove,
+             BiFunction<WorkflowRevision, List<T>, WorkflowRevision> replace,
+             Function<WorkflowPatch, ListPatch> patch, BiConsumer<WorkflowPatch, ListPatch> setPatch) {
+            this.name = name;
+            this.type = type;
+            this.idOf = idOf;
+            this.workflowList = workflowList;
+            this.setWorkflowList = setWorkflowList;
+            this.revisionVector = revisionVector;
+            this.lookup = lookup;
+            this.put = put;
+            this.remove = remove;
+            this.replace = replace;
+            this.patch = patch;
+            this.setPatch = setPatch;
+        }
+    }
+}
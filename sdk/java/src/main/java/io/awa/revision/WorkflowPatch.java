@@ -0,0 +1,97 @@
+package io.awa.revision;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * The changes between two versions of a workflow, as computed by {@link WorkflowDiff}.
+ * <p>
+ * Serializes with Jackson to a compact document: unchanged lists and empty parts are omitted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class WorkflowPatch {
+
+    @JsonProperty("workflow_id")
+    private UUID workflowId;
+
+    @JsonProperty("from_version")
+    private String fromVersion;
+
+    @JsonProperty("to_version")
+    private String toVersion;
+
+    /**
+     * Changed workflow properties other than the element lists, by JSON property name.
+     */
+    @Builder.Default
+    private Map<String, JsonNode> fields = new LinkedHashMap<>();
+
+    private ListPatch activities;
+
+    private ListPatch edges;
+
+    private ListPatch events;
+
+    @JsonProperty("decision_nodes")
+    private ListPatch decisionNodes;
+
+    private ListPatch contexts;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return (fields == null || fields.isEmpty()) && Stream.of(activities, edges, events, decisionNodes, contexts)
+                .allMatch(list -> list == null || list.isEmpty());
+    }
+
+    /**
+     * Ids of the activities, edges, events, decision nodes and contexts the patch adds, removes or
+     * modifies, for example to hand to {@link io.awa.validation.ValidationSession#revalidate}.
+     * A list patched as a whole contributes the ids of all its new elements.
+     */
+    @JsonIgnore
+    public Set<UUID> changedIds() {
+        Set<UUID> ids = new LinkedHashSet<>();
+        Stream.of(activities, edges, events, decisionNodes, contexts).forEach(list -> {
+            if (list == null) {
+                return;
+            }
+            if (list.getAdded() != null) {
+                list.getAdded().forEach(element -> addId(ids, element));
+            }
+            if (list.getRemoved() != null) {
+                ids.addAll(list.getRemoved());
+            }
+            if (list.getModified() != null) {
+                list.getModified().forEach(element -> ids.add(element.getId()));
+            }
+            if (list.getReplaced() != null) {
+                list.getReplaced().forEach(element -> addId(ids, element));
+            }
+        });
+        return ids;
+    }
+
+    private static void addId(Set<UUID> ids, JsonNode element) {
+        UUID id = WorkflowDiff.idOf(element);
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+}
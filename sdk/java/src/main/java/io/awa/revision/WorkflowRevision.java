@@ -0,0 +1,340 @@
+package io.awa.revision;
+
+import io.awa.model.Activity;
+import io.awa.model.Analytics;
+import io.awa.model.Context;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+import io.awa.model.SLA;
+import io.awa.model.Workflow;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable {@link Workflow} whose collections share structure with the revisions they were derived from.
+ * <p>
+ * Element lists are persistent vectors indexed by element id, and metadata is a persistent hash
+ * map. Replacing one activity copies a handful of 32-slot arrays and shares everything else with
+ * the parent, so a store of many near-identical revisions holds roughly one workflow plus the edits.
+ * Appending is as cheap; removing an element copies the part of its list after it.
+ * <p>
+ * Elements, {@link SLA} and {@link Analytics} are shared by reference between revisions and with
+ * the workflow a revision was made from, so they must not be mutated once added; edit a copy,
+ * for example {@code activity.toBuilder().name("Review").build()}, and put it back. The lists
+ * and map returned by the getters are unmodifiable.
+ *
+ * <pre>{@code
+ * WorkflowRevision v1 = WorkflowRevision.of(workflow);
+ * WorkflowRevision v2 = v1.withActivity(v1.getActivity(id).toBuilder().name("Review").build())
+ *         .withVersion("1.0.1");
+ * validator.validate(v2.toWorkflow());
+ * }</pre>
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class WorkflowRevision {
+
+    @With
+    private final UUID id;
+
+    @With
+    private final String name;
+
+    @With
+    private final String version;
+
+    @With
+    private final String description;
+
+    @With
+    private final UUID ownerId;
+
+    @With
+    private final UUID organizationId;
+
+    @With
+    private final UUID parentWorkflowId;
+
+    @With
+    private final UUID expansionActivityId;
+
+    private final ElementVector<Activity> activities;
+
+    private final ElementVector<Edge> edges;
+
+    private final ElementVector<Event> events;
+
+    private final ElementVector<DecisionNode> decisionNodes;
+
+    private final ElementVector<Context> contexts;
+
+    @With
+    private final SLA sla;
+
+    @With
+    private final Analytics analytics;
+
+    private final PersistentMap<String, Object> metadata;
+
+    @With
+    private final OffsetDateTime createdAt;
+
+    @With
+    private final OffsetDateTime updatedAt;
+
+    /**
+     * A revision with the workflow's fields; elements are taken by reference, lists by copy.
+     *
+     * @throws IllegalArgumentException if the workflow is null or a metadata key is null
+     */
+    public static WorkflowRevision of(Workflow workflow) {
+        if (workflow == null) {
+            throw new IllegalArgumentException("Workflow must not be null");
+        }
+        return new WorkflowRevision(workflow.getId(), workflow.getName(), workflow.getVersion(),
+                workflow.getDescription(), workflow.getOwnerId(), workflow.getOrganizationId(),
+                workflow.getParentWorkflowId(), workflow.getExpansionActivityId(),
+                ElementVector.of(workflow.getActivities(), Activity::getId),
+                ElementVector.of(workflow.getEdges(), Edge::getId),
+                ElementVector.of(workflow.getEvents(), Event::getId),
+                ElementVector.of(workflow.getDecisionNodes(), DecisionNode::getId),
+                ElementVector.of(workflow.getContexts(), Context::getId),
+                workflow.getSla(), workflow.getAnalytics(), PersistentMap.of(workflow.getMetadata()),
+                workflow.getCreatedAt(), workflow.getUpdatedAt());
+    }
+
+    /**
+     * A mutable workflow with fresh lists and metadata map holding this revision's elements.
+     */
+    public Workflow toWorkflow() {
+        Workflow workflow = header();
+        workflow.setActivities(new ArrayList<>(activities.items));
+        workflow.setEdges(new ArrayList<>(edges.items));
+        workflow.setEvents(new ArrayList<>(events.items));
+        workflow.setDecisionNodes(new ArrayList<>(decisionNodes.items));
+        workflow.setContexts(new ArrayList<>(contexts.items));
+        return workflow;
+    }
+
+    public List<Activity> getActivities() {
+        return activities.items;
+    }
+
+    public List<Edge> getEdges() {
+        return edges.items;
+    }
+
+    public List<Event> getEvents() {
+        return events.items;
+    }
+
+    public List<DecisionNode> getDecisionNodes() {
+        return decisionNodes.items;
+    }
+
+    public List<Context> getContexts() {
+        return contexts.items;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    public Activity getActivity(UUID activityId) {
+        return activities.get(activityId);
+    }
+
+    public Edge getEdge(UUID edgeId) {
+        return edges.get(edgeId);
+    }
+
+    public Event getEvent(UUID eventId) {
+        return events.get(eventId);
+    }
+
+    public DecisionNode getDecisionNode(UUID decisionNodeId) {
+        return decisionNodes.get(decisionNodeId);
+    }
+
+    public Context getContext(UUID contextId) {
+        return contexts.get(contextId);
+    }
+
+    /**
+     * A revision with the activity replacing the one with its id, or appended if there is none.
+     *
+     * @throws IllegalArgumentException if the activity or its id is null
+     */
+    public WorkflowRevision withActivity(Activity activity) {
+        return withActivities(activities.put(activity, Activity::getId));
+    }
+
+    /**
+     * A revision without the activity; this revision if it has none with the id.
+     * Edges and bindings that refer to the activity are left as they are.
+     */
+    public WorkflowRevision withoutActivity(UUID activityId) {
+        return withActivities(activities.remove(activityId, Activity::getId));
+    }
+
+    public WorkflowRevision withEdge(Edge edge) {
+        return withEdges(edges.put(edge, Edge::getId));
+    }
+
+    public WorkflowRevision withoutEdge(UUID edgeId) {
+        return withEdges(edges.remove(edgeId, Edge::getId));
+    }
+
+    public WorkflowRevision withEvent(Event event) {
+        return withEvents(events.put(event, Event::getId));
+    }
+
+    public WorkflowRevision withoutEvent(UUID eventId) {
+        return withEvents(events.remove(eventId, Event::getId));
+    }
+
+    public WorkflowRevision withDecisionNode(DecisionNode decisionNode) {
+        return withDecisionNodes(decisionNodes.put(decisionNode, DecisionNode::getId));
+    }
+
+    public WorkflowRevision withoutDecisionNode(UUID decisionNodeId) {
+        return withDecisionNodes(decisionNodes.remove(decisionNodeId, DecisionNode::getId));
+    }
+
+    public WorkflowRevision withContext(Context context) {
+        return withContexts(contexts.put(context, Context::getId));
+    }
+
+    public WorkflowRevision withoutContext(UUID contextId) {
+        return withContexts(contexts.remove(contextId, Context::getId));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key is null
+     */
+    public WorkflowRevision withMetadata(String key, Object value) {
+        return withMetadata(metadata.plus(key, value));
+    }
+
+    public WorkflowRevision withoutMetadata(String key) {
+        return withMetadata(metadata.minus(key));
+    }
+
+    /**
+     * A mutable workflow with this revision's properties and metadata, and empty element lists.
+     */
+    Workflow header() {
+        return Workflow.builder()
+                .id(id)
+                .name(name)
+                .version(version)
+                .description(description)
+                .ownerId(ownerId)
+                .organizationId(organizationId)
+                .parentWorkflowId(parentWorkflowId)
+                .expansionActivityId(expansionActivityId)
+                .sla(sla)
+                .analytics(analytics)
+                .metadata(new HashMap<>(metadata))
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    /**
+     * A revision with the header's properties and metadata and this revision's elements.
+     */
+    WorkflowRevision withHeader(Workflow header) {
+        return new WorkflowRevision(header.getId(), header.getName(), header.getVersion(), header.getDescription(),
+                header.getOwnerId(), header.getOrganizationId(), header.getParentWorkflowId(),
+                header.getExpansionActivityId(), activities, edges, events, decisionNodes, contexts,
+                header.getSla(), header.getAnalytics(), PersistentMap.of(header.getMetadata()),
+                header.getCreatedAt(), header.getUpdatedAt());
+    }
+
+    ElementVector<Activity> activityVector() {
+        return activities;
+    }
+
+    ElementVector<Edge> edgeVector() {
+        return edges;
+    }
+
+    ElementVector<Event> eventVector() {
+        return events;
+    }
+
+    ElementVector<DecisionNode> decisionNodeVector() {
+        return decisionNodes;
+    }
+
+    ElementVector<Context> contextVector() {
+        return contexts;
+    }
+
+    WorkflowRevision withActivityList(List<Activity> activities) {
+        return withActivities(ElementVector.of(activities, Activity::getId));
+    }
+
+    WorkflowRevision withEdgeList(List<Edge> edges) {
+        return withEdges(ElementVector.of(edges, Edge::getId));
+    }
+
+    WorkflowRevision withEventList(List<Event> events) {
+        return withEvents(ElementVector.of(events, Event::getId));
+    }
+
+    WorkflowRevision withDecisionNodeList(List<DecisionNode> decisionNodes) {
+        return withDecisionNodes(ElementVector.of(decisionNodes, DecisionNode::getId));
+    }
+
+    WorkflowRevision withContextList(List<Context> contexts) {
+        return withContexts(ElementVector.of(contexts, Context::getId));
+    }
+
+    private WorkflowRevision withActivities(ElementVector<Activity> activities) {
+        return activities == this.activities ? this : new WorkflowRevision(id, name, version, description,
+                ownerId, organizationId, parentWorkflowId, expansionActivityId, activities, edges, events,
+                decisionNodes, contexts, sla, analytics, metadata, createdAt, updatedAt);
+    }
+
+    private WorkflowRevision withEdges(ElementVector<Edge> edges) {
+        return edges == this.edges ? this : new WorkflowRevision(id, name, version, description,
+                ownerId, organizationId, parentWorkflowId, expansionActivityId, activities, edges, events,
+                decisionNodes, contexts, sla, analytics, metadata, createdAt, updatedAt);
+    }
+
+    private WorkflowRevision withEvents(ElementVector<Event> events) {
+        return events == this.events ? this : new WorkflowRevision(id, name, version, description,
+                ownerId, organizationId, parentWorkflowId, expansionActivityId, activities, edges, events,
+                decisionNodes, contexts, sla, analytics, metadata, createdAt, updatedAt);
+    }
+
+    private WorkflowRevision withDecisionNodes(ElementVector<DecisionNode> decisionNodes) {
+        return decisionNodes == this.decisionNodes ? this : new WorkflowRevision(id, name, version, description,
+                ownerId, organizationId, parentWorkflowId, expansionActivityId, activities, edges, events,
+                decisionNodes, contexts, sla, analytics, metadata, createdAt, updatedAt);
+    }
+
+    private WorkflowRevision withContexts(ElementVector<Context> contexts) {
+        return contexts == this.contexts ? this : new WorkflowRevision(id, name, version, description,
+                ownerId, organizationId, parentWorkflowId, expansionActivityId, activities, edges, events,
+                decisionNodes, contexts, sla, analytics, metadata, createdAt, updatedAt);
+    }
+
+    private WorkflowRevision withMetadata(PersistentMap<String, Object> metadata) {
+        return metadata == this.metadata ? this : new WorkflowRevision(id, name, version, description,
+                ownerId, organizationId, parentWorkflowId, expansionActivityId, activities, edges, events,
+                decisionNodes, contexts, sla, analytics, metadata, createdAt, updatedAt);
+    }
+}
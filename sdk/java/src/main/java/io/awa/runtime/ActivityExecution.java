@@ -0,0 +1,46 @@
+package io.awa.runtime;
+
+import io.awa.model.Activity;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The activity, instance and token variables handed to an {@link ActivityHandler}
+ */
+public final class ActivityExecution {
+
+    private final WorkflowInstance instance;
+    private final Activity activity;
+    private final Token token;
+
+    ActivityExecution(WorkflowInstance instance, Activity activity, Token token) {
+        this.instance = instance;
+        this.activity = activity;
+        this.token = token;
+    }
+
+    public WorkflowInstance getInstance() {
+        return instance;
+    }
+
+    public Activity getActivity() {
+        return activity;
+    }
+
+    public UUID getTokenId() {
+        return token.getId();
+    }
+
+    /**
+     * Read-only view of the token variables at the time the activity started.
+     */
+    public Map<String, Object> getVariables() {
+        return Collections.unmodifiableMap(token.getVariables());
+    }
+
+    public Object getVariable(String name) {
+        return token.getVariables().get(name);
+    }
+}
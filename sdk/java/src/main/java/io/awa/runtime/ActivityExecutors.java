@@ -0,0 +1,70 @@
+package io.awa.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for running activities.
+ * <p>
+ * The SDK targets Java 17, so virtual threads are looked up reflectively: on Java 21+
+ * {@link #newDefault()} returns a virtual-thread-per-task executor, on older runtimes a
+ * bounded pool of daemon platform threads sized to the available processors.
+ */
+public final class ActivityExecutors {
+
+    private static final MethodHandle NEW_VIRTUAL_THREAD_EXECUTOR = lookupVirtualThreadExecutor();
+
+    private ActivityExecutors() {
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * Virtual threads when available, otherwise a bounded platform thread pool.
+     */
+    public static ExecutorService newDefault() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke();
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to create virtual thread executor", e);
+            }
+        }
+        return newBoundedPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * A fixed pool of daemon platform threads with an unbounded task queue.
+     */
+    public static ExecutorService newBoundedPool(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "awa-activity-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), factory);
+    }
+
+    private static MethodHandle lookupVirtualThreadExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(java.util.concurrent.Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.awa.runtime;
+
+import java.util.Map;
+
+/**
+ * Executes the work of an activity for one token.
+ * <p>
+ * Handlers may block (waiting on an AI agent, a human task, a remote system):
+ * on Java 21+ every activity runs on its own virtual thread, so blocking does
+ * not pin a platform thread.
+ */
+@FunctionalInterface
+public interface ActivityHandler {
+
+    /**
+     * Runs the activity and returns the values to merge into the token variables, or null for none.
+     */
+    Map<String, Object> execute(ActivityExecution execution) throws Exception;
+}
@@ -0,0 +1,88 @@
+package io.awa.runtime;
+
+import io.awa.expression.CompiledExpression;
+import io.awa.expression.ExpressionCompiler;
+import io.awa.expression.VariableResolver;
+import io.awa.model.Edge;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates edge conditions compiled by {@link ExpressionCompiler}, caching the compiled
+ * form per edge id. The cache is bounded: past {@code maxSize} entries an arbitrary entry is
+ * dropped for each new one. A cached entry is recompiled if the edge's condition text changed.
+ */
+public class CompiledConditionEvaluator implements EdgeConditionEvaluator {
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final int maxSize;
+    private final Map<Object, Cached> cache = new ConcurrentHashMap<>();
+
+    public CompiledConditionEvaluator() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public CompiledConditionEvaluator(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public boolean evaluate(Edge edge, Map<String, Object> variables) {
+        String condition = edge.getCondition();
+        if (condition == null || condition.isBlank()) {
+            return true;
+        }
+        return compiled(edge).test(VariableResolver.of(variables));
+    }
+
+    /**
+     * Returns the compiled condition of the edge, compiling it on first use.
+     *
+     * @throws IllegalArgumentException if the condition is not a valid expression
+     */
+    public CompiledExpression compiled(Edge edge) {
+        String condition = edge.getCondition();
+        Object key = edge.getId() != null ? edge.getId() : condition;
+        if (key == null) {
+            return ExpressionCompiler.compile(null);
+        }
+        Cached cached = cache.get(key);
+        if (cached != null && cached.source.equals(condition)) {
+            return cached.expression;
+        }
+        cached = new Cached(condition, ExpressionCompiler.compile(condition));
+        if (cache.size() >= maxSize) {
+            Iterator<Object> keys = cache.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        cache.put(key, cached);
+        return cached.expression;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private static final class Cached {
+        final String source;
+        final CompiledExpression expression;
+
+        Cached(String source, CompiledExpression expression) {
+            this.source = source == null ? "" : source;
+            this.expression = expression;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.awa.runtime;
+
+import io.awa.model.DecisionNode;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Chooses the outgoing edge of a decision node
+ */
+@FunctionalInterface
+public interface DecisionHandler {
+
+    /**
+     * Returns the id of the edge to follow, or null to fall back to edge conditions.
+     */
+    UUID route(DecisionNode node, Map<String, Object> variables);
+
+    /**
+     * Evaluates decision tables, see {@link DecisionTableHandler}.
+     */
+    static DecisionHandler decisionTables() {
+        return new DecisionTableHandler();
+    }
+
+    /**
+     * Routes every decision to its default output edge.
+     */
+    static DecisionHandler defaultEdge() {
+        return (node, variables) -> node.getDefaultOutputEdgeId();
+    }
+}
@@ -0,0 +1,71 @@
+package io.awa.runtime;
+
+import io.awa.decision.CompiledDecisionTable;
+import io.awa.model.DecisionNode;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes decision nodes by evaluating their decision tables, compiling each table once per node id.
+ * A compiled table is recompiled when the node is given another table object or default edge, so
+ * a route costs one map lookup. A table edited in place is not noticed: {@link #invalidate} its
+ * node after the edit, on a handler passed to the engine with
+ * {@link WorkflowEngine#decisionHandler}.
+ */
+public class DecisionTableHandler implements DecisionHandler {
+
+    private final Map<UUID, Cached> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public UUID route(DecisionNode node, Map<String, Object> variables) {
+        return table(node).evaluate(variables).getOutputEdgeId();
+    }
+
+    /**
+     * Returns the compiled table of the node, compiling it on first use and after it was replaced.
+     */
+    public CompiledDecisionTable table(DecisionNode node) {
+        if (node.getId() == null) {
+            return CompiledDecisionTable.compile(node);
+        }
+        Cached cached = tables.get(node.getId());
+        if (cached != null && cached.matches(node)) {
+            return cached.compiled;
+        }
+        return tables.compute(node.getId(), (id, current) ->
+                current != null && current.matches(node) ? current : new Cached(node)).compiled;
+    }
+
+    /**
+     * Drops the compiled table of a node, so the next route compiles it again.
+     */
+    public void invalidate(UUID nodeId) {
+        tables.remove(nodeId);
+    }
+
+    /**
+     * Drops every compiled table.
+     */
+    public void invalidateAll() {
+        tables.clear();
+    }
+
+    private static final class Cached {
+        final DecisionNode.DecisionTable source;
+        final UUID defaultOutputEdgeId;
+        final CompiledDecisionTable compiled;
+
+        Cached(DecisionNode node) {
+            this.source = node.getDecisionTable();
+            this.defaultOutputEdgeId = node.getDefaultOutputEdgeId();
+            this.compiled = CompiledDecisionTable.compile(node);
+        }
+
+        boolean matches(DecisionNode node) {
+            return source == node.getDecisionTable() && Objects.equals(defaultOutputEdgeId, node.getDefaultOutputEdgeId());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.awa.runtime;
+
+import io.awa.model.Edge;
+
+import java.util.Map;
+
+/**
+ * Evaluates {@link Edge#getCondition()} against token variables
+ */
+@FunctionalInterface
+public interface EdgeConditionEvaluator {
+
+    boolean evaluate(Edge edge, Map<String, Object> variables);
+}
@@ -0,0 +1,115 @@
+package io.awa.runtime;
+
+import io.awa.model.Edge;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Interprets simple edge conditions on every call, matching the TypeScript and Python engines.
+ * Supports {@code name == value}, {@code name != value}, {@code <}, {@code <=}, {@code >},
+ * {@code >=} against numbers, and a bare {@code name} as a truthy check.
+ */
+public class SimpleConditionEvaluator implements EdgeConditionEvaluator {
+
+    private static final Pattern COMPARISON = Pattern.compile("^(\\w+)\\s*(==|!=|>=|<=|>|<)\\s*(.+)$");
+    private static final Pattern IDENTIFIER = Pattern.compile("^\\w+$");
+
+    @Override
+    public boolean evaluate(Edge edge, Map<String, Object> variables) {
+        String condition = edge.getCondition();
+        if (condition == null || condition.isBlank()) {
+            return true;
+        }
+        condition = condition.trim();
+        Matcher m = COMPARISON.matcher(condition);
+        if (m.matches()) {
+            Object actual = variables.get(m.group(1));
+            String expected = unquote(m.group(3).trim());
+            switch (m.group(2)) {
+                case "==":
+                    return equalsLoosely(actual, expected);
+                case "!=":
+                    return !equalsLoosely(actual, expected);
+                default:
+                    return compareNumbers(actual, expected, m.group(2));
+            }
+        }
+        if (IDENTIFIER.matcher(condition).matches()) {
+            return isTruthy(variables.get(condition));
+        }
+        throw new IllegalArgumentException("Unsupported edge condition: " + condition);
+    }
+
+    private static boolean equalsLoosely(Object actual, String expected) {
+        if (actual == null) {
+            return "null".equals(expected);
+        }
+        if (String.valueOf(actual).equals(expected)) {
+            return true;
+        }
+        Double a = toDouble(actual);
+        Double b = toDouble(expected);
+        return a != null && b != null && a.doubleValue() == b.doubleValue();
+    }
+
+    private static boolean compareNumbers(Object actual, String expected, String op) {
+        Double a = toDouble(actual);
+        Double b = toDouble(expected);
+        if (a == null || b == null) {
+            return false;
+        }
+        switch (op) {
+            case ">":
+                return a > b;
+            case ">=":
+                return a >= b;
+            case "<":
+                return a < b;
+            default:
+                return a <= b;
+        }
+    }
+
+    private static Double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2) {
+            char first = value.charAt(0);
+            char last = value.charAt(value.length() - 1);
+            if ((first == '"' || first == '\'') && first == last) {
+                return value.substring(1, value.length() - 1);
+            }
+        }
+        return value;
+    }
+
+    static boolean isTruthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        if (value instanceof String) {
+            return !((String) value).isEmpty();
+        }
+        return true;
+    }
+}
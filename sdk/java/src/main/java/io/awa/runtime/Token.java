@@ -0,0 +1,47 @@
+package io.awa.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Token - marks the current position of an execution path in a workflow instance.
+ * A token is only ever advanced by one thread at a time.
+ */
+public final class Token {
+
+    private final UUID id;
+    private final Map<String, Object> variables;
+    private int node;
+    private long steps;
+
+    Token(UUID id, int node, Map<String, Object> variables) {
+        this.id = id;
+        this.node = node;
+        this.variables = new HashMap<>(variables);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Dense node id in the instance's {@link io.awa.graph.WorkflowGraph}.
+     */
+    public int getNode() {
+        return node;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    Map<String, Object> getVariables() {
+        return variables;
+    }
+
+    void moveTo(int node) {
+        this.node = node;
+        this.steps++;
+    }
+}
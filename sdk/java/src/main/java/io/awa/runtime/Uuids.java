@@ -0,0 +1,22 @@
+package io.awa.runtime;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contention-free random (version 4) UUIDs for runtime identifiers.
+ * {@link UUID#randomUUID()} goes through a shared SecureRandom, which serializes
+ * event emission under load; runtime ids only need uniqueness, not unpredictability.
+ */
+public final class Uuids {
+
+    private Uuids() {
+    }
+
+    public static UUID random() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,354 @@
+package io.awa.runtime;
+
+import io.awa.control.AuditRecord;
+import io.awa.control.ControlPipeline;
+import io.awa.events.WorkflowEvent;
+import io.awa.events.WorkflowEventType;
+import io.awa.graph.WorkflowGraph;
+import io.awa.model.Activity;
+import io.awa.model.ActorType;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Workflow;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes instances of a workflow by moving tokens along its edges.
+ * <p>
+ * Every activity step is scheduled as its own task on the activity executor
+ * (virtual threads on Java 21+, see {@link ActivityExecutors}); event and
+ * decision nodes are passed through inline on the same thread. Edge selection
+ * follows the other AWA runtimes: the first outgoing edge whose condition holds,
+ * then the edge marked default, then the first unconditional edge. Decision nodes
+ * route through their compiled decision table unless another {@link DecisionHandler} is set,
+ * and edge conditions are compiled once per edge by {@link CompiledConditionEvaluator}.
+ * Activity controls are enforced when a {@link ControlPipeline} is set.
+ * <p>
+ * Configure handlers, listeners and evaluators before starting instances.
+ * One engine serves any number of concurrent instances of its workflow.
+ */
+public class WorkflowEngine implements AutoCloseable {
+
+    private static final int NO_OUTGOING = -1;
+    private static final int NO_MATCH = -2;
+
+    private final Workflow workflow;
+    private final WorkflowGraph graph;
+    private final Map<ActorType, ActivityHandler> handlers = new EnumMap<>(ActorType.class);
+    private final List<WorkflowEventListener> listeners = new CopyOnWriteArrayList<>();
+    private ActivityHandler defaultHandler = execution -> null;
+    private EdgeConditionEvaluator conditionEvaluator = new CompiledConditionEvaluator();
+    private DecisionHandler decisionHandler = DecisionHandler.decisionTables();
+    private ControlPipeline controls;
+    private volatile ExecutorService executor;
+    private boolean ownsExecutor;
+    private volatile boolean closed;
+
+    public WorkflowEngine(Workflow workflow) {
+        this(workflow, WorkflowGraph.of(workflow));
+    }
+
+    public WorkflowEngine(Workflow workflow, WorkflowGraph graph) {
+        this.workflow = workflow;
+        this.graph = graph;
+    }
+
+    public WorkflowEngine handler(ActorType actorType, ActivityHandler handler) {
+        handlers.put(actorType, handler);
+        return this;
+    }
+
+    /**
+     * Handler for activities whose actor type has no registered handler. Defaults to a no-op.
+     */
+    public WorkflowEngine defaultHandler(ActivityHandler handler) {
+        this.defaultHandler = handler;
+        return this;
+    }
+
+    public WorkflowEngine listener(WorkflowEventListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    public WorkflowEngine conditionEvaluator(EdgeConditionEvaluator conditionEvaluator) {
+        this.conditionEvaluator = conditionEvaluator;
+        return this;
+    }
+
+    public WorkflowEngine decisionHandler(DecisionHandler decisionHandler) {
+        this.decisionHandler = decisionHandler;
+        return this;
+    }
+
+    /**
+     * Enforces the activities' {@code controls} around each execution; a MANDATORY control that
+     * does not hold fails the activity. Controls are not enforced unless a pipeline is set.
+     */
+    public WorkflowEngine controls(ControlPipeline controls) {
+        this.controls = controls;
+        return this;
+    }
+
+    /**
+     * Uses a caller-managed executor; it is not shut down by {@link #close()}.
+     */
+    public synchronized WorkflowEngine executor(ExecutorService executor) {
+        this.executor = executor;
+        this.ownsExecutor = false;
+        return this;
+    }
+
+    public Workflow getWorkflow() {
+        return workflow;
+    }
+
+    public WorkflowGraph getGraph() {
+        return graph;
+    }
+
+    public WorkflowInstance start() {
+        return start(Collections.emptyMap());
+    }
+
+    /**
+     * Starts a new instance with one token on the first entry node.
+     *
+     * @throws IllegalStateException if the engine is closed, or the workflow has no nodes
+     */
+    public WorkflowInstance start(Map<String, Object> variables) {
+        if (closed) {
+            throw new IllegalStateException("Workflow engine is closed");
+        }
+        if (graph.nodeCount() == 0) {
+            throw new IllegalStateException("Workflow has no nodes");
+        }
+        int[] entries = graph.entryNodes();
+        int entry = entries.length > 0 ? entries[0] : 0;
+
+        WorkflowInstance instance = new WorkflowInstance(this, Uuids.random(), workflow.getId(),
+                System.currentTimeMillis());
+        emit(WorkflowEventType.WORKFLOW_CREATED, instance, null, null, null);
+        emit(WorkflowEventType.WORKFLOW_STARTED, instance, null, null, null);
+
+        Token token = new Token(Uuids.random(), entry, variables);
+        instance.tokenStarted();
+        executor().execute(() -> advance(instance, token));
+        return instance;
+    }
+
+    boolean cancel(WorkflowInstance instance) {
+        if (!instance.terminate(WorkflowInstance.Status.CANCELLED, null)) {
+            return false;
+        }
+        emit(WorkflowEventType.WORKFLOW_CANCELLED, instance, null, null, null);
+        return true;
+    }
+
+    private void advance(WorkflowInstance instance, Token token) {
+        try {
+            // a pass runs at most one activity, so visiting more nodes than the graph has means
+            // the token circles through events and decisions that never reach one
+            int steps = 0;
+            while (!instance.isTerminated()) {
+                int node = token.getNode();
+                if (++steps > graph.nodeCount() + 1) {
+                    fail(instance, null, "Cycle without an activity through " + graph.nodeId(node));
+                    return;
+                }
+                int preferredEdge = NO_OUTGOING;
+                Activity activity = graph.activity(node);
+                if (activity != null) {
+                    if (!runActivity(instance, activity, token)) {
+                        return;
+                    }
+                } else if (graph.decisionNode(node) != null) {
+                    preferredEdge = route(instance, graph.decisionNode(node), token);
+                } else if (!graph.isDeclared(node)) {
+                    fail(instance, null, "Edge target is not a declared node: " + graph.nodeId(node));
+                    return;
+                }
+
+                int edge = preferredEdge >= 0 ? preferredEdge : selectEdge(node, token);
+                if (edge == NO_OUTGOING) {
+                    break;
+                }
+                if (edge == NO_MATCH) {
+                    fail(instance, null, "No valid outgoing edge found from " + graph.nodeId(node));
+                    return;
+                }
+                int next = graph.target(edge);
+                token.moveTo(next);
+                if (graph.activity(next) != null) {
+                    executor().execute(() -> advance(instance, token));
+                    return;
+                }
+            }
+            if (instance.tokenFinished() && instance.terminate(WorkflowInstance.Status.COMPLETED, null)) {
+                emit(WorkflowEventType.WORKFLOW_COMPLETED, instance, null, null, null);
+            }
+        } catch (RuntimeException e) {
+            fail(instance, null, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private boolean runActivity(WorkflowInstance instance, Activity activity, Token token) {
+        emit(WorkflowEventType.ACTIVITY_STARTED, instance, activity, null, null);
+        ActivityHandler handler = handlers.getOrDefault(activity.getActorType(), defaultHandler);
+        ControlPipeline pipeline = controls;
+        Map<String, Object> outputs;
+        try {
+            if (pipeline != null) {
+                pipeline.before(activity, token.getVariables());
+            }
+            outputs = handler.execute(new ActivityExecution(instance, activity, token));
+            if (pipeline != null) {
+                pipeline.after(activity, token.getVariables(), outputs);
+                pipeline.audit(instance.getId(), activity, AuditRecord.Outcome.COMPLETED, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            activityFailed(pipeline, instance, activity, "Interrupted");
+            return false;
+        } catch (Exception e) {
+            activityFailed(pipeline, instance, activity, String.valueOf(e.getMessage()));
+            return false;
+        }
+        if (outputs != null) {
+            token.getVariables().putAll(outputs);
+        }
+        emit(WorkflowEventType.ACTIVITY_COMPLETED, instance, activity, null, null);
+        return true;
+    }
+
+    private void activityFailed(ControlPipeline pipeline, WorkflowInstance instance, Activity activity, String error) {
+        if (pipeline != null) {
+            try {
+                pipeline.audit(instance.getId(), activity, AuditRecord.Outcome.FAILED, error);
+            } catch (IllegalStateException e) {
+                // the audit sink refused the record; the activity fails either way
+            }
+        }
+        emit(WorkflowEventType.ACTIVITY_FAILED, instance, activity, null, error);
+        fail(instance, activity, error);
+    }
+
+    private int route(WorkflowInstance instance, DecisionNode decision, Token token) {
+        UUID edgeId = decisionHandler.route(decision, token.getVariables());
+        emit(WorkflowEventType.DECISION_EVALUATED, instance, null, decision, null);
+        if (edgeId == null) {
+            return NO_OUTGOING;
+        }
+        int edge = graph.edgeIndexOf(edgeId);
+        if (edge < 0 || graph.source(edge) != token.getNode()) {
+            throw new IllegalStateException("Decision " + decision.getId()
+                    + " routed to edge " + edgeId + " which does not leave it");
+        }
+        return edge;
+    }
+
+    private int selectEdge(int node, Token token) {
+        int degree = graph.outDegree(node);
+        if (degree == 0) {
+            return NO_OUTGOING;
+        }
+        int defaultEdge = -1;
+        int unconditional = -1;
+        for (int k = 0; k < degree; k++) {
+            int e = graph.outEdge(node, k);
+            Edge edge = graph.edge(e);
+            String condition = edge.getCondition();
+            if (condition != null && !condition.isBlank()) {
+                if (conditionEvaluator.evaluate(edge, token.getVariables())) {
+                    return e;
+                }
+            } else if (unconditional < 0) {
+                unconditional = e;
+            }
+            if (edge.isDefault() && defaultEdge < 0) {
+                defaultEdge = e;
+            }
+        }
+        if (defaultEdge >= 0) {
+            return defaultEdge;
+        }
+        return unconditional >= 0 ? unconditional : NO_MATCH;
+    }
+
+    private void fail(WorkflowInstance instance, Activity activity, String error) {
+        if (instance.terminate(WorkflowInstance.Status.FAILED, error)) {
+            emit(WorkflowEventType.WORKFLOW_FAILED, instance, activity, null, error);
+        }
+    }
+
+    private void emit(WorkflowEventType type, WorkflowInstance instance, Activity activity,
+                      DecisionNode decision, String error) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        WorkflowEvent event = WorkflowEvent.builder()
+                .eventId(Uuids.random())
+                .eventType(type)
+                .workflowId(instance.getWorkflowId())
+                .workflowInstanceId(instance.getId())
+                .activityId(activity != null ? activity.getId() : null)
+                .actorType(activity != null ? activity.getActorType() : null)
+                .decisionNodeId(decision != null ? decision.getId() : null)
+                .errorMessage(error)
+                .timestamp(System.currentTimeMillis())
+                .build();
+        for (WorkflowEventListener listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    private ExecutorService executor() {
+        ExecutorService current = executor;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (closed) {
+                // a token still advancing fails its instance rather than start a pool nothing shuts down
+                throw new IllegalStateException("Workflow engine is closed");
+            }
+            if (executor == null) {
+                executor = ActivityExecutors.newDefault();
+                ownsExecutor = true;
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * Shuts down the engine-created executor, waiting briefly for running activities. The engine
+     * starts no instances afterwards, and a token that reaches its next activity after the close
+     * fails its instance.
+     */
+    @Override
+    public void close() {
+        ExecutorService owned;
+        synchronized (this) {
+            closed = true;
+            owned = ownsExecutor ? executor : null;
+            executor = null;
+            ownsExecutor = false;
+        }
+        if (owned != null) {
+            owned.shutdown();
+            try {
+                owned.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.awa.runtime;
+
+import io.awa.events.WorkflowEvent;
+
+/**
+ * Receives the events emitted by a {@link WorkflowEngine}.
+ * Called on the thread that advanced the token, so implementations must be thread-safe and fast.
+ */
+@FunctionalInterface
+public interface WorkflowEventListener {
+
+    void onEvent(WorkflowEvent event);
+}
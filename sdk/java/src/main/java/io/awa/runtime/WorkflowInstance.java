@@ -0,0 +1,95 @@
+package io.awa.runtime;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runtime instance of a workflow, tracking its live tokens and final status
+ */
+public final class WorkflowInstance {
+
+    private final WorkflowEngine engine;
+    private final UUID id;
+    private final UUID workflowId;
+    private final long startedAt;
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.RUNNING);
+    private final AtomicInteger liveTokens = new AtomicInteger();
+    private final CompletableFuture<WorkflowInstance> completion = new CompletableFuture<>();
+    private volatile String errorMessage;
+
+    WorkflowInstance(WorkflowEngine engine, UUID id, UUID workflowId, long startedAt) {
+        this.engine = engine;
+        this.id = id;
+        this.workflowId = workflowId;
+        this.startedAt = startedAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getWorkflowId() {
+        return workflowId;
+    }
+
+    /**
+     * Epoch milliseconds
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public Status getStatus() {
+        return status.get();
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean isTerminated() {
+        return status.get() != Status.RUNNING;
+    }
+
+    /**
+     * Completes when the instance reaches a terminal status.
+     */
+    public CompletableFuture<WorkflowInstance> completion() {
+        return completion;
+    }
+
+    /**
+     * Requests cancellation; tokens stop before their next step.
+     *
+     * @return false if the instance had already terminated
+     */
+    public boolean cancel() {
+        return engine.cancel(this);
+    }
+
+    void tokenStarted() {
+        liveTokens.incrementAndGet();
+    }
+
+    /**
+     * @return true if this was the last live token
+     */
+    boolean tokenFinished() {
+        return liveTokens.decrementAndGet() == 0;
+    }
+
+    boolean terminate(Status terminal, String error) {
+        if (!status.compareAndSet(Status.RUNNING, terminal)) {
+            return false;
+        }
+        this.errorMessage = error;
+        completion.complete(this);
+        return true;
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+}
@@ -0,0 +1,116 @@
+package io.awa.sla;
+
+import io.awa.model.SLA;
+
+import java.time.Duration;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * The deadlines of an {@link SLA}, parsed once: a warning when
+ * {@code escalation_policy.warning_threshold} has passed, or else {@code target_time} when a
+ * {@code max_time} follows it, and a breach at {@code max_time}, or else at {@code target_time}.
+ * A warning no earlier than the breach is left out.
+ */
+final class SlaDeadlines {
+
+    static final long NONE = -1;
+
+    final String name;
+    final long warningNanos;
+    final long breachNanos;
+    final String warningAction;
+    final String breachAction;
+
+    private SlaDeadlines(String name, long warningNanos, long breachNanos, String warningAction, String breachAction) {
+        this.name = name;
+        this.warningNanos = warningNanos;
+        this.breachNanos = breachNanos;
+        this.warningAction = warningAction;
+        this.breachAction = breachAction;
+    }
+
+    /**
+     * @return the deadlines, or null if the SLA sets none
+     * @throws IllegalArgumentException if a time is not an ISO-8601 duration of fixed length
+     */
+    static SlaDeadlines of(SLA sla) {
+        if (sla == null) {
+            return null;
+        }
+        SLA.EscalationPolicy policy = sla.getEscalationPolicy();
+        long target = nanos(sla.getTargetTime());
+        long max = nanos(sla.getMaxTime());
+        long threshold = policy != null ? nanos(policy.getWarningThreshold()) : NONE;
+        long breach = max != NONE ? max : target;
+        long warning = threshold != NONE ? threshold : max != NONE ? target : NONE;
+        if (warning != NONE && breach != NONE && warning >= breach) {
+            warning = NONE;
+        }
+        if (warning == NONE && breach == NONE) {
+            return null;
+        }
+        return new SlaDeadlines(sla.getName(), warning, breach,
+                policy != null ? policy.getWarningAction() : null, policy != null ? policy.getBreachAction() : null);
+    }
+
+    /**
+     * Parses {@code PT30S}, {@code P2DT4H} and {@code P1W}; also {@code PT5D}, which the examples
+     * use though ISO-8601 puts days before the {@code T}. Months and years have no fixed length
+     * and are rejected.
+     */
+    static long nanos(String text) {
+        if (text == null || text.isBlank()) {
+            return NONE;
+        }
+        String iso = text.trim().toUpperCase(Locale.ROOT);
+        Duration duration;
+        try {
+            duration = Duration.parse(iso);
+        } catch (DateTimeParseException e) {
+            duration = lenient(iso, text);
+        }
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("SLA time must not be negative: " + text);
+        }
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static Duration lenient(String iso, String text) {
+        int t = iso.indexOf('T');
+        int d = iso.indexOf('D');
+        if (t >= 0 && d > t) {
+            // PT5D or PT1D12H: move the days before the T
+            int start = d - 1;
+            while (start > t && (Character.isDigit(iso.charAt(start)) || iso.charAt(start) == '.')) {
+                start--;
+            }
+            String days = iso.substring(start + 1, d);
+            String time = iso.substring(t + 1, start + 1) + iso.substring(d + 1);
+            iso = iso.substring(0, t) + days + "D" + (time.isEmpty() ? "" : "T" + time);
+            try {
+                return Duration.parse(iso);
+            } catch (DateTimeParseException e) {
+                throw invalid(text);
+            }
+        }
+        try {
+            Period period = Period.parse(iso);
+            if (period.getYears() != 0 || period.getMonths() != 0) {
+                throw new IllegalArgumentException("SLA time must not be in months or years: " + text);
+            }
+            return Duration.ofDays(period.getDays());
+        } catch (DateTimeParseException e) {
+            throw invalid(text);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String text) {
+        return new IllegalArgumentException("SLA time is not an ISO-8601 duration such as PT30S: " + text);
+    }
+}
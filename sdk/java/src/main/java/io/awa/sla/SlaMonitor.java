@@ -0,0 +1,319 @@
+package io.awa.sla;
+
+import io.awa.events.WorkflowEvent;
+import io.awa.events.WorkflowEventType;
+import io.awa.model.Activity;
+import io.awa.model.ActorType;
+import io.awa.model.Workflow;
+import io.awa.runtime.Uuids;
+import io.awa.runtime.WorkflowEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the SLAs of running workflow instances and their activities, and emits
+ * {@link WorkflowEventType#SLA_WARNING} and {@link WorkflowEventType#SLA_BREACHED} events when
+ * their deadlines pass.
+ * <p>
+ * Register the workflows, whose SLA times are parsed once, and add the monitor as a listener of
+ * their engines. A started instance or activity with an SLA gets a warning and a breach deadline
+ * on a {@link TimingWheel}, counted from its start event; completing, failing, skipping or
+ * cancelling it cancels them, and ending an instance cancels those of its activities still
+ * running. The SLA events go to the monitor's own listeners, from the wheel's thread, carrying
+ * the instance, activity and actor type of the start event and, in {@code metadata}, the SLA's
+ * name, the deadline and the escalation policy's action.
+ *
+ * <pre>{@code
+ * SlaMonitor sla = new SlaMonitor().register(workflow).listener(alerts::onEvent);
+ * WorkflowEngine engine = new WorkflowEngine(workflow).listener(sla);
+ * }</pre>
+ */
+public class SlaMonitor implements WorkflowEventListener, AutoCloseable {
+
+    private final TimingWheel wheel;
+    private final boolean ownsWheel;
+    private final Map<UUID, SlaDeadlines> workflows = new ConcurrentHashMap<>();
+    private final Map<UUID, SlaDeadlines> activities = new ConcurrentHashMap<>();
+    // The activities with an SLA of each registered workflow, dropped when a new version loses them
+    private final Map<UUID, Set<UUID>> registered = new HashMap<>();
+    private final Map<UUID, Instance> instances = new ConcurrentHashMap<>();
+    private final List<WorkflowEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    public SlaMonitor() {
+        this(new TimingWheel(), true);
+    }
+
+    /**
+     * Schedules deadlines on a caller-managed wheel; it is not closed by {@link #close()}.
+     */
+    public SlaMonitor(TimingWheel wheel) {
+        this(wheel, false);
+    }
+
+    private SlaMonitor(TimingWheel wheel, boolean ownsWheel) {
+        this.wheel = wheel;
+        this.ownsWheel = ownsWheel;
+    }
+
+    /**
+     * Parses the SLAs of the workflow and its activities, replacing those of an earlier version;
+     * activities it no longer has, or no longer gives an SLA, lose theirs. Instances already
+     * running keep the deadlines they started with.
+     *
+     * @throws IllegalArgumentException if the workflow has no id, or an SLA time is not an
+     *                                  ISO-8601 duration of fixed length
+     */
+    public synchronized SlaMonitor register(Workflow workflow) {
+        if (workflow.getId() == null) {
+            throw new IllegalArgumentException("Workflow id is required");
+        }
+        Map<UUID, SlaDeadlines> parsed = new HashMap<>();
+        if (workflow.getActivities() != null) {
+            for (Activity activity : workflow.getActivities()) {
+                SlaDeadlines deadlines = SlaDeadlines.of(activity.getSla());
+                if (activity.getId() != null && deadlines != null) {
+                    parsed.put(activity.getId(), deadlines);
+                }
+            }
+        }
+        SlaDeadlines deadlines = SlaDeadlines.of(workflow.getSla());
+        if (deadlines != null) {
+            workflows.put(workflow.getId(), deadlines);
+        } else {
+            workflows.remove(workflow.getId());
+        }
+        Set<UUID> previous = registered.put(workflow.getId(), parsed.keySet());
+        if (previous != null) {
+            for (UUID id : previous) {
+                if (!parsed.containsKey(id)) {
+                    activities.remove(id);
+                }
+            }
+        }
+        activities.putAll(parsed);
+        return this;
+    }
+
+    public SlaMonitor listener(WorkflowEventListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    @Override
+    public void onEvent(WorkflowEvent event) {
+        UUID instanceId = event.getWorkflowInstanceId();
+        if (instanceId == null || event.getEventType() == null) {
+            return;
+        }
+        switch (event.getEventType()) {
+            case WORKFLOW_STARTED -> {
+                SlaDeadlines deadlines = workflows.get(event.getWorkflowId());
+                if (deadlines != null) {
+                    start(instanceId, new Watch(event, null, deadlines));
+                }
+            }
+            case ACTIVITY_STARTED -> {
+                SlaDeadlines deadlines = event.getActivityId() != null ? activities.get(event.getActivityId()) : null;
+                if (deadlines != null) {
+                    start(instanceId, new Watch(event, event.getActivityId(), deadlines));
+                }
+            }
+            case ACTIVITY_COMPLETED, ACTIVITY_FAILED, ACTIVITY_SKIPPED -> {
+                Instance instance = instances.get(instanceId);
+                if (instance != null && event.getActivityId() != null) {
+                    instance.stop(event.getActivityId());
+                }
+            }
+            case WORKFLOW_COMPLETED, WORKFLOW_FAILED, WORKFLOW_CANCELLED -> {
+                Instance instance = instances.remove(instanceId);
+                if (instance != null) {
+                    instance.stopAll();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Instances with a deadline pending.
+     */
+    public int getOpenInstances() {
+        return instances.size();
+    }
+
+    /**
+     * Stops the monitor's own wheel; pending deadlines never fire.
+     */
+    @Override
+    public void close() {
+        if (ownsWheel) {
+            wheel.close();
+        }
+    }
+
+    private void start(UUID instanceId, Watch watch) {
+        // an instance whose last deadline just passed is ended, and replaced by a fresh one
+        while (!instances.computeIfAbsent(instanceId, Instance::new).start(watch)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void emit(Watch watch, WorkflowEventType type, long deadlineNanos, String action) {
+        Map<String, String> metadata = new HashMap<>();
+        if (watch.deadlines.name != null) {
+            metadata.put("sla_name", watch.deadlines.name);
+        }
+        metadata.put("deadline", Duration.ofNanos(deadlineNanos).toString());
+        if (action != null) {
+            metadata.put("action", action);
+        }
+        WorkflowEvent event = WorkflowEvent.builder()
+                .eventId(Uuids.random())
+                .eventType(type)
+                .workflowId(watch.workflowId)
+                .workflowInstanceId(watch.instanceId)
+                .activityId(watch.activityId)
+                .actorType(watch.actorType)
+                .timestamp(System.currentTimeMillis())
+                .metadata(metadata)
+                .build();
+        for (WorkflowEventListener listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    /**
+     * The deadlines pending for one instance: its own, under the null key, and its activities'.
+     */
+    private final class Instance {
+
+        final UUID id;
+        final Map<UUID, Watch> watches = new HashMap<>(4);
+        boolean ended;
+
+        Instance(UUID id) {
+            this.id = id;
+        }
+
+        synchronized boolean start(Watch watch) {
+            if (ended) {
+                return false;
+            }
+            Watch previous = watches.put(watch.activityId, watch);
+            if (previous != null) {
+                previous.cancel();
+            }
+            watch.schedule(this);
+            return true;
+        }
+
+        synchronized void stop(UUID activityId) {
+            Watch watch = watches.remove(activityId);
+            if (watch != null) {
+                watch.cancel();
+            }
+            endIfIdle();
+        }
+
+        synchronized void breached(Watch watch) {
+            watches.remove(watch.activityId, watch);
+            endIfIdle();
+        }
+
+        synchronized void stopAll() {
+            ended = true;
+            for (Watch watch : watches.values()) {
+                watch.cancel();
+            }
+            watches.clear();
+        }
+
+        synchronized boolean isCurrent(Watch watch) {
+            return !ended && watches.get(watch.activityId) == watch;
+        }
+
+        private void endIfIdle() {
+            if (watches.isEmpty()) {
+                ended = true;
+                instances.remove(id, this);
+            }
+        }
+    }
+
+    /**
+     * The warning and breach deadline of one running instance or activity.
+     */
+    private final class Watch {
+
+        final UUID workflowId;
+        final UUID instanceId;
+        final UUID activityId;
+        final ActorType actorType;
+        final SlaDeadlines deadlines;
+        final long startedNanos;
+        private volatile Timeout timeout;
+
+        Watch(WorkflowEvent start, UUID activityId, SlaDeadlines deadlines) {
+            this.workflowId = start.getWorkflowId();
+            this.instanceId = start.getWorkflowInstanceId();
+            this.activityId = activityId;
+            this.actorType = start.getActorType();
+            this.deadlines = deadlines;
+            long age = start.getTimestamp() > 0 ? Math.max(0, System.currentTimeMillis() - start.getTimestamp()) : 0;
+            this.startedNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(age);
+        }
+
+        void schedule(Instance instance) {
+            if (deadlines.warningNanos != SlaDeadlines.NONE) {
+                timeout = at(deadlines.warningNanos, () -> warn(instance));
+            } else {
+                timeout = at(deadlines.breachNanos, () -> breach(instance));
+            }
+        }
+
+        private void warn(Instance instance) {
+            if (!instance.isCurrent(this)) {
+                return;
+            }
+            // the breach is scheduled before the listeners run, so a failing one cannot lose it
+            if (deadlines.breachNanos != SlaDeadlines.NONE) {
+                timeout = at(deadlines.breachNanos, () -> breach(instance));
+                if (!instance.isCurrent(this)) {
+                    timeout.cancel();
+                }
+            } else {
+                instance.breached(this);
+            }
+            emit(this, WorkflowEventType.SLA_WARNING, deadlines.warningNanos, deadlines.warningAction);
+        }
+
+        private void breach(Instance instance) {
+            if (!instance.isCurrent(this)) {
+                return;
+            }
+            instance.breached(this);
+            emit(this, WorkflowEventType.SLA_BREACHED, deadlines.breachNanos, deadlines.breachAction);
+        }
+
+        private Timeout at(long deadlineNanos, Runnable task) {
+            long delay = deadlineNanos == Long.MAX_VALUE ? Long.MAX_VALUE : startedNanos + deadlineNanos - System.nanoTime();
+            return wheel.schedule(task, delay, TimeUnit.NANOSECONDS);
+        }
+
+        void cancel() {
+            Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.awa.sla;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A task scheduled on a {@link TimingWheel}
+ */
+public final class Timeout {
+
+    static final int PENDING = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    final TimingWheel wheel;
+    final long deadlineTick;
+    final Runnable task;
+    private volatile int state;
+
+    // Owned by the wheel's thread
+    int slot = -1;
+    Timeout previous;
+    Timeout next;
+
+    // Links of the wheel's lock-free hand-over stacks
+    Timeout nextScheduled;
+    Timeout nextCancelled;
+
+    Timeout(TimingWheel wheel, long deadlineTick, Runnable task) {
+        this.wheel = wheel;
+        this.deadlineTick = deadlineTick;
+        this.task = task;
+    }
+
+    /**
+     * Keeps the task from running, if it has not started yet.
+     *
+     * @return whether this call cancelled it
+     */
+    public boolean cancel() {
+        if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+            return false;
+        }
+        wheel.cancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    /**
+     * Whether the deadline passed and the task was run.
+     */
+    public boolean isExpired() {
+        return state == EXPIRED;
+    }
+
+    boolean expire() {
+        return STATE.compareAndSet(this, PENDING, EXPIRED);
+    }
+}
@@ -0,0 +1,277 @@
+package io.awa.sla;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs tasks after a delay, for millions of pending tasks at once.
+ * <p>
+ * Time advances in ticks, 10 ms by default. Pending timeouts hang in seven levels of 64 slots,
+ * each level 64 times coarser than the one below, so the levels reach 2^42 ticks ahead (1,400
+ * years of 10 ms ticks). A timeout goes into the lowest level its delay fits, in the slot of its
+ * deadline; when time reaches that slot's span it cascades down a level, and it runs from the
+ * bottom level on its tick. Scheduling and cancelling are O(1), each tick touches only the slots
+ * due, and a timeout is never run early, though it may run up to one tick late.
+ * <p>
+ * One thread owns the slots, started on first use. {@link #schedule} and {@link Timeout#cancel()}
+ * hand timeouts over to it through lock-free stacks: they allocate the timeout and nothing
+ * else, and never wait, unlike a {@code ScheduledThreadPoolExecutor}, whose heap makes both
+ * O(log n) under a lock. Tasks run on the wheel's thread one after another, so they should be
+ * short and hand longer work to an executor.
+ *
+ * <pre>{@code
+ * TimingWheel wheel = new TimingWheel();
+ * Timeout reminder = wheel.schedule(() -> remind(taskId), 30, TimeUnit.MINUTES);
+ * ...
+ * reminder.cancel();
+ * }</pre>
+ */
+public final class TimingWheel implements AutoCloseable {
+
+    public static final long DEFAULT_TICK_MILLIS = 10;
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 7;
+
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final Timeout[] slots = new Timeout[LEVELS * WHEEL_SIZE];
+    private final AtomicReference<Timeout> scheduled = new AtomicReference<>();
+    private final AtomicReference<Timeout> cancelled = new AtomicReference<>();
+
+    private long tick;
+    private volatile long size;
+    private volatile Thread worker;
+    private volatile boolean closed;
+
+    public TimingWheel() {
+        this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the tick is shorter than a millisecond
+     */
+    public TimingWheel(long tick, TimeUnit unit) {
+        long nanos = unit.toNanos(tick);
+        if (nanos < TimeUnit.MILLISECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("Tick must be at least 1 ms: " + tick + " " + unit);
+        }
+        this.tickNanos = nanos;
+    }
+
+    /**
+     * Runs the task on the wheel's thread once the delay has passed; a delay of zero or less runs
+     * it on the next tick.
+     *
+     * @throws IllegalStateException if the wheel is closed
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("Timing wheel is closed");
+        }
+        long elapsed = System.nanoTime() - origin;
+        long delayNanos = Math.max(0, unit.toNanos(delay));
+        long deadline = delayNanos > Long.MAX_VALUE - elapsed ? Long.MAX_VALUE : elapsed + delayNanos;
+        long deadlineTick = deadline / tickNanos + (deadline % tickNanos == 0 ? 0 : 1);
+        Timeout timeout = new Timeout(this, deadlineTick, task);
+        Timeout head;
+        do {
+            head = scheduled.get();
+            timeout.nextScheduled = head;
+        } while (!scheduled.compareAndSet(head, timeout));
+        if (worker == null) {
+            start();
+        }
+        return timeout;
+    }
+
+    /**
+     * Timeouts waiting in the slots as of the last tick, not counting those scheduled since.
+     */
+    public long size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    /**
+     * Stops the wheel; pending timeouts never run.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = worker;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void cancelled(Timeout timeout) {
+        Timeout head;
+        do {
+            head = cancelled.get();
+            timeout.nextCancelled = head;
+        } while (!cancelled.compareAndSet(head, timeout));
+    }
+
+    private synchronized void start() {
+        if (worker == null && !closed) {
+            Thread thread = new Thread(this::run, "awa-timing-wheel");
+            thread.setDaemon(true);
+            thread.start();
+            worker = thread;
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            long now = (System.nanoTime() - origin) / tickNanos;
+            if (size == 0) {
+                tick = Math.max(tick, now);
+            }
+            unlinkCancelled();
+            insertScheduled();
+            while (tick < now && !closed) {
+                tick++;
+                cascade();
+                expire(tick & WHEEL_MASK);
+                unlinkCancelled();
+            }
+            LockSupport.parkNanos(origin + (tick + 1) * tickNanos - System.nanoTime());
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout = cancelled.getAndSet(null);
+        long removed = 0;
+        while (timeout != null) {
+            Timeout next = timeout.nextCancelled;
+            timeout.nextCancelled = null;
+            if (timeout.slot >= 0) {
+                unlink(timeout);
+                removed++;
+            }
+            timeout = next;
+        }
+        if (removed > 0) {
+            size -= removed;
+        }
+    }
+
+    private void insertScheduled() {
+        Timeout timeout = scheduled.getAndSet(null);
+        long added = 0;
+        while (timeout != null) {
+            Timeout next = timeout.nextScheduled;
+            timeout.nextScheduled = null;
+            if (!timeout.isCancelled()) {
+                if (timeout.deadlineTick <= tick) {
+                    run(timeout);
+                } else {
+                    insert(timeout);
+                    added++;
+                }
+            }
+            timeout = next;
+        }
+        if (added > 0) {
+            size += added;
+        }
+    }
+
+    /**
+     * Moves the timeouts of every level whose span starts at this tick one level or more down,
+     * from the top level down, so those landing in a lower slot due now are cascaded on in turn.
+     */
+    private void cascade() {
+        int top = 0;
+        while (top < LEVELS - 1 && (tick & ((1L << (WHEEL_BITS * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            int slot = level * WHEEL_SIZE + (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            Timeout timeout = slots[slot];
+            slots[slot] = null;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.previous = null;
+                timeout.next = null;
+                insert(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void expire(long index) {
+        int slot = (int) index;
+        Timeout timeout = slots[slot];
+        slots[slot] = null;
+        long removed = 0;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.slot = -1;
+            removed++;
+            run(timeout);
+            timeout = next;
+        }
+        if (removed > 0) {
+            size -= removed;
+        }
+    }
+
+    private static void run(Timeout timeout) {
+        if (timeout.expire()) {
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                // a failing task must not stop the others
+            }
+        }
+    }
+
+    /**
+     * Puts the timeout in the lowest level whose span covers its delay, in the slot of its deadline.
+     */
+    private void insert(Timeout timeout) {
+        long delay = Math.max(0, timeout.deadlineTick - tick);
+        int level = delay == 0 ? 0 : Math.min(LEVELS - 1, (63 - Long.numberOfLeadingZeros(delay)) / WHEEL_BITS);
+        int slot = level * WHEEL_SIZE + (int) ((timeout.deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        Timeout head = slots[slot];
+        timeout.slot = slot;
+        timeout.previous = null;
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        slots[slot] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.slot = -1;
+    }
+}
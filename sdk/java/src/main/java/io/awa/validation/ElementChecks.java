@@ -0,0 +1,190 @@
+package io.awa.validation;
+
+import io.awa.decision.CompiledDecisionTable;
+import io.awa.expression.ExpressionCompiler;
+import io.awa.model.Activity;
+import io.awa.model.Context;
+import io.awa.model.ContextBinding;
+import io.awa.model.DecisionNode;
+import io.awa.model.DecisionNode.DecisionRule;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Checks that look at one element and the ids it references. The result of a check only changes
+ * when the element itself or one of its referenced ids changes, which is what lets
+ * {@link ValidationSession} re-check a change set instead of the whole workflow.
+ */
+final class ElementChecks {
+
+    private ElementChecks() {
+    }
+
+    /**
+     * Issues found on one element, and the ids its check looked up.
+     */
+    static final class Report {
+        static final Report CLEAN = new Report(List.of(), List.of());
+
+        final List<ValidationIssue> issues;
+        final List<UUID> references;
+
+        Report(List<ValidationIssue> issues, List<UUID> references) {
+            this.issues = issues;
+            this.references = references;
+        }
+    }
+
+    static Report check(Object element, WorkflowIndex index) {
+        if (element instanceof Activity) {
+            return checkActivity((Activity) element, index);
+        }
+        if (element instanceof Edge) {
+            return checkEdge((Edge) element, index);
+        }
+        if (element instanceof DecisionNode) {
+            return checkDecision((DecisionNode) element, index);
+        }
+        if (element instanceof Event) {
+            Event event = (Event) element;
+            return require(event.getId(), event.getName(), "Event has no name");
+        }
+        if (element instanceof Context) {
+            Context context = (Context) element;
+            return require(context.getId(), context.getName(), "Context has no name");
+        }
+        return Report.CLEAN;
+    }
+
+    private static Report checkActivity(Activity activity, WorkflowIndex index) {
+        UUID id = activity.getId();
+        List<ValidationIssue> issues = new ArrayList<>(0);
+        List<UUID> references = new ArrayList<>(0);
+        if (isBlank(activity.getName())) {
+            issues.add(new ValidationIssue(IssueType.MISSING_FIELD, id, "Activity has no name"));
+        }
+        if (activity.getRoleId() == null) {
+            issues.add(new ValidationIssue(IssueType.MISSING_FIELD, id, "Activity has no role"));
+        }
+        if (activity.getActorType() == null) {
+            issues.add(new ValidationIssue(IssueType.MISSING_FIELD, id, "Activity has no actor type"));
+        }
+        if (activity.getContextBindings() != null) {
+            for (ContextBinding binding : activity.getContextBindings()) {
+                UUID contextId = binding.getContextId();
+                if (contextId == null) {
+                    issues.add(new ValidationIssue(IssueType.MISSING_FIELD, id,
+                            "Context binding " + binding.getId() + " has no context id"));
+                    continue;
+                }
+                references.add(contextId);
+                if (!(index.get(contextId) instanceof Context)) {
+                    issues.add(new ValidationIssue(IssueType.UNKNOWN_CONTEXT, id,
+                            "Context binding references unknown context " + contextId));
+                }
+            }
+        }
+        return report(issues, references);
+    }
+
+    private static Report checkEdge(Edge edge, WorkflowIndex index) {
+        UUID id = edge.getId();
+        List<ValidationIssue> issues = new ArrayList<>(0);
+        List<UUID> references = new ArrayList<>(2);
+        if (edge.getSourceId() == null) {
+            issues.add(new ValidationIssue(IssueType.MISSING_FIELD, id, "Edge has no source"));
+        } else {
+            references.add(edge.getSourceId());
+            if (!index.isNode(edge.getSourceId())) {
+                issues.add(new ValidationIssue(IssueType.DANGLING_EDGE_SOURCE, id,
+                        "Edge source " + edge.getSourceId() + " is not a node of the workflow"));
+            }
+        }
+        if (edge.getTargetId() == null) {
+            issues.add(new ValidationIssue(IssueType.MISSING_FIELD, id, "Edge has no target"));
+        } else {
+            references.add(edge.getTargetId());
+            if (!index.isNode(edge.getTargetId())) {
+                issues.add(new ValidationIssue(IssueType.DANGLING_EDGE_TARGET, id,
+                        "Edge target " + edge.getTargetId() + " is not a node of the workflow"));
+            }
+        }
+        try {
+            ExpressionCompiler.compile(edge.getCondition());
+        } catch (IllegalArgumentException e) {
+            issues.add(new ValidationIssue(IssueType.INVALID_CONDITION, id, e.getMessage()));
+        }
+        return report(issues, references);
+    }
+
+    private static Report checkDecision(DecisionNode decision, WorkflowIndex index) {
+        UUID id = decision.getId();
+        List<ValidationIssue> issues = new ArrayList<>(0);
+        List<UUID> references = new ArrayList<>(0);
+        if (decision.getDecisionTable() != null && decision.getDecisionTable().getRules() != null) {
+            for (DecisionRule rule : decision.getDecisionTable().getRules()) {
+                checkOutputEdge(decision, rule.getOutputEdgeId(), "Rule " + rule.getId(), index, issues, references);
+            }
+        }
+        checkOutputEdge(decision, decision.getDefaultOutputEdgeId(), "Default output", index, issues, references);
+        try {
+            CompiledDecisionTable.compile(decision);
+        } catch (IllegalArgumentException e) {
+            issues.add(new ValidationIssue(IssueType.INVALID_DECISION_TABLE, id, e.getMessage()));
+        }
+        return report(issues, references);
+    }
+
+    private static void checkOutputEdge(DecisionNode decision, UUID edgeId, String what, WorkflowIndex index,
+                                        List<ValidationIssue> issues, List<UUID> references) {
+        if (edgeId == null) {
+            return;
+        }
+        references.add(edgeId);
+        Object edge = index.get(edgeId);
+        if (!(edge instanceof Edge)) {
+            issues.add(new ValidationIssue(IssueType.UNKNOWN_OUTPUT_EDGE, decision.getId(),
+                    what + " routes to unknown edge " + edgeId));
+        } else if (decision.getId() != null && !decision.getId().equals(((Edge) edge).getSourceId())) {
+            issues.add(new ValidationIssue(IssueType.OUTPUT_EDGE_NOT_FROM_DECISION, decision.getId(),
+                    what + " routes to edge " + edgeId + ", which does not leave this decision node"));
+        }
+    }
+
+    private static Report require(UUID id, String name, String message) {
+        return isBlank(name) ? report(List.of(new ValidationIssue(IssueType.MISSING_FIELD, id, message)), List.of())
+                : Report.CLEAN;
+    }
+
+    private static Report report(List<ValidationIssue> issues, List<UUID> references) {
+        return issues.isEmpty() && references.isEmpty() ? Report.CLEAN : new Report(issues, references);
+    }
+
+    static String nameOf(Object element) {
+        if (element instanceof Activity) {
+            return ((Activity) element).getName();
+        }
+        if (element instanceof Event) {
+            return ((Event) element).getName();
+        }
+        if (element instanceof DecisionNode) {
+            return ((DecisionNode) element).getName();
+        }
+        if (element instanceof Edge) {
+            Edge edge = (Edge) element;
+            return edge.getSourceId() + " -> " + edge.getTargetId();
+        }
+        if (element instanceof Context) {
+            return ((Context) element).getName();
+        }
+        return String.valueOf(element);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
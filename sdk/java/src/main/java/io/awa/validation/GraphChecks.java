@@ -0,0 +1,179 @@
+package io.awa.validation;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.model.Event;
+import io.awa.model.Workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks over the whole node/edge topology: reachability from the entry nodes and cycles that no
+ * edge leaves. Both are linear in nodes plus edges and allocate only int arrays. Messages name
+ * nodes by id only, so edits that do not touch the topology never make them stale.
+ */
+final class GraphChecks {
+
+    private static final int MAX_NAMES = 5;
+
+    private GraphChecks() {
+    }
+
+    /**
+     * Runs the topology checks. Needs unique node ids and edges with both endpoints, which
+     * {@link WorkflowIndex#graphReady} reports; without them the graph cannot be built and nothing is checked.
+     */
+    static List<ValidationIssue> check(Workflow workflow, WorkflowIndex index) {
+        if (!index.graphReady) {
+            return List.of();
+        }
+        WorkflowGraph graph = WorkflowGraph.of(workflow);
+        List<ValidationIssue> issues = new ArrayList<>();
+        checkReachability(graph, issues);
+        checkClosedCycles(graph, issues);
+        return issues;
+    }
+
+    /**
+     * Walks forward from the start events, or from the nodes without incoming edges when
+     * the workflow has no start event, and reports declared nodes the walk never reaches.
+     */
+    private static void checkReachability(WorkflowGraph graph, List<ValidationIssue> issues) {
+        int n = graph.nodeCount();
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            Event event = graph.event(v);
+            if (event != null && "start".equalsIgnoreCase(event.getEventType())) {
+                queue[tail++] = v;
+            }
+        }
+        if (tail == 0) {
+            int[] entries = graph.entryNodes();
+            System.arraycopy(entries, 0, queue, 0, entries.length);
+            tail = entries.length;
+        }
+        boolean[] reached = new boolean[n];
+        for (int i = 0; i < tail; i++) {
+            reached[queue[i]] = true;
+        }
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int k = 0, degree = graph.outDegree(v); k < degree; k++) {
+                int w = graph.successor(v, k);
+                if (!reached[w]) {
+                    reached[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            if (!reached[v] && graph.isDeclared(v)) {
+                issues.add(new ValidationIssue(IssueType.UNREACHABLE_NODE, graph.nodeId(v),
+                        "Node cannot be reached from a start event or entry node"));
+            }
+        }
+    }
+
+    /**
+     * Finds strongly connected components with an iterative Tarjan walk and reports every cyclic
+     * component without an edge to a node outside it: once entered, the workflow can never finish.
+     */
+    private static void checkClosedCycles(WorkflowGraph graph, List<ValidationIssue> issues) {
+        int n = graph.nodeCount();
+        int[] order = new int[n];
+        int[] low = new int[n];
+        int[] component = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        Arrays.fill(order, -1);
+        int counter = 0;
+        int components = 0;
+        int sp = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (order[root] >= 0) {
+                continue;
+            }
+            int csp = 0;
+            order[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            callNode[csp] = root;
+            callEdge[csp++] = 0;
+            while (csp > 0) {
+                int v = callNode[csp - 1];
+                int k = callEdge[csp - 1];
+                if (k < graph.outDegree(v)) {
+                    callEdge[csp - 1]++;
+                    int w = graph.successor(v, k);
+                    if (order[w] < 0) {
+                        order[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callNode[csp] = w;
+                        callEdge[csp++] = 0;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+                csp--;
+                if (csp > 0) {
+                    int parent = callNode[csp - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] != order[v]) {
+                    continue;
+                }
+                // v roots a component made of the stack above it; every successor outside the
+                // component already belongs to an earlier one
+                int start = sp;
+                do {
+                    start--;
+                    onStack[stack[start]] = false;
+                    component[stack[start]] = components;
+                } while (stack[start] != v);
+                if (isClosedCycle(graph, stack, start, sp, component, components)) {
+                    issues.add(new ValidationIssue(IssueType.CYCLE_WITHOUT_EXIT, graph.nodeId(v),
+                            "Nodes " + ids(graph, stack, start, sp) + " form a cycle that no edge leaves"));
+                }
+                sp = start;
+                components++;
+            }
+        }
+    }
+
+    private static boolean isClosedCycle(WorkflowGraph graph, int[] members, int from, int to,
+                                         int[] component, int id) {
+        boolean cyclic = to - from > 1;
+        for (int i = from; i < to; i++) {
+            int v = members[i];
+            for (int k = 0, degree = graph.outDegree(v); k < degree; k++) {
+                int w = graph.successor(v, k);
+                if (component[w] != id) {
+                    return false;
+                }
+                cyclic |= w == v;
+            }
+        }
+        return cyclic;
+    }
+
+    private static String ids(WorkflowGraph graph, int[] members, int from, int to) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = to - 1; i >= from && i >= to - MAX_NAMES; i--) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(graph.nodeId(members[i]));
+        }
+        if (to - from > MAX_NAMES) {
+            sb.append(", and ").append(to - from - MAX_NAMES).append(" more");
+        }
+        return sb.append(']').toString();
+    }
+}
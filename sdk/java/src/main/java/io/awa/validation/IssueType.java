@@ -0,0 +1,29 @@
+package io.awa.validation;
+
+/**
+ * Kinds of structural problems found by {@link WorkflowValidator}
+ */
+public enum IssueType {
+    MISSING_ID(Severity.ERROR),
+    DUPLICATE_ID(Severity.ERROR),
+    MISSING_FIELD(Severity.ERROR),
+    DANGLING_EDGE_SOURCE(Severity.ERROR),
+    DANGLING_EDGE_TARGET(Severity.ERROR),
+    INVALID_CONDITION(Severity.ERROR),
+    UNKNOWN_CONTEXT(Severity.ERROR),
+    INVALID_DECISION_TABLE(Severity.ERROR),
+    UNKNOWN_OUTPUT_EDGE(Severity.ERROR),
+    OUTPUT_EDGE_NOT_FROM_DECISION(Severity.WARNING),
+    UNREACHABLE_NODE(Severity.WARNING),
+    CYCLE_WITHOUT_EXIT(Severity.ERROR);
+
+    private final Severity severity;
+
+    IssueType(Severity severity) {
+        this.severity = severity;
+    }
+
+    public Severity getSeverity() {
+        return severity;
+    }
+}
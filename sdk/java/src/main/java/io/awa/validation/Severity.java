@@ -0,0 +1,11 @@
+package io.awa.validation;
+
+/**
+ * Severity of a validation issue
+ */
+public enum Severity {
+    /** The workflow cannot run as modeled */
+    ERROR,
+    /** The workflow runs but probably not as intended */
+    WARNING
+}
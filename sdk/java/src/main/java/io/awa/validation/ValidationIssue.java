@@ -0,0 +1,61 @@
+package io.awa.validation;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One problem found in a workflow, attached to the element it was found on
+ */
+public final class ValidationIssue {
+
+    private final IssueType type;
+    private final UUID elementId;
+    private final String message;
+
+    public ValidationIssue(IssueType type, UUID elementId, String message) {
+        this.type = type;
+        this.elementId = elementId;
+        this.message = message;
+    }
+
+    public IssueType getType() {
+        return type;
+    }
+
+    public Severity getSeverity() {
+        return type.getSeverity();
+    }
+
+    /**
+     * The activity, event, decision node, edge or context the issue is about, null if it has no id.
+     */
+    public UUID getElementId() {
+        return elementId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ValidationIssue)) {
+            return false;
+        }
+        ValidationIssue that = (ValidationIssue) o;
+        return type == that.type && Objects.equals(elementId, that.elementId) && message.equals(that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, elementId, message);
+    }
+
+    @Override
+    public String toString() {
+        return type.getSeverity() + " " + type + (elementId != null ? " [" + elementId + "]" : "") + ": " + message;
+    }
+}
@@ -0,0 +1,67 @@
+package io.awa.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Issues found by one validation run
+ */
+public final class ValidationResult {
+
+    private final List<ValidationIssue> issues;
+
+    ValidationResult(List<ValidationIssue> issues) {
+        this.issues = Collections.unmodifiableList(issues);
+    }
+
+    /**
+     * True when there are no errors; warnings do not make a workflow invalid.
+     */
+    public boolean isValid() {
+        for (ValidationIssue issue : issues) {
+            if (issue.getSeverity() == Severity.ERROR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<ValidationIssue> getIssues() {
+        return issues;
+    }
+
+    public List<ValidationIssue> getErrors() {
+        return filter(Severity.ERROR);
+    }
+
+    public List<ValidationIssue> getWarnings() {
+        return filter(Severity.WARNING);
+    }
+
+    public List<ValidationIssue> issuesFor(UUID elementId) {
+        List<ValidationIssue> result = new ArrayList<>();
+        for (ValidationIssue issue : issues) {
+            if (elementId.equals(issue.getElementId())) {
+                result.add(issue);
+            }
+        }
+        return result;
+    }
+
+    private List<ValidationIssue> filter(Severity severity) {
+        List<ValidationIssue> result = new ArrayList<>();
+        for (ValidationIssue issue : issues) {
+            if (issue.getSeverity() == severity) {
+                result.add(issue);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return issues.isEmpty() ? "valid" : issues.toString();
+    }
+}
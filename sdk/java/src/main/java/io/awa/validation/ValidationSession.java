@@ -0,0 +1,229 @@
+package io.awa.validation;
+
+import io.awa.model.Edge;
+import io.awa.model.Event;
+import io.awa.model.Workflow;
+import io.awa.validation.ElementChecks.Report;
+
+import io.awa.ids.IdRegistry;
+import io.awa.ids.IntObjectMap;
+import io.awa.ids.IntSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validation state of one workflow being edited, kept so that a change only re-runs the checks it can affect.
+ * <p>
+ * The session remembers each element's issues and which ids its checks looked up. After an edit,
+ * {@link #revalidate(Workflow, Collection)} re-checks the changed elements and the elements that
+ * reference them, and re-runs the graph checks only when an edge, an event or the set of nodes
+ * changed. The id index is rebuilt on every call, which is linear but cheap next to the checks.
+ * Element ids are interned into int ids once per session, and all per-element state is keyed by
+ * them; ids of removed elements stay interned. Not thread-safe; the checks themselves run on the
+ * validator's fork-join pool.
+ */
+public final class ValidationSession {
+
+    private final WorkflowValidator validator;
+    private final IdRegistry ids;
+    private final IntObjectMap<Report> reports;
+    private final IntObjectMap<IntSet> referrers;
+
+    private Workflow workflow;
+    private WorkflowIndex index;
+    private List<ValidationIssue> graphIssues;
+    private ValidationResult result;
+
+    ValidationSession(WorkflowValidator validator, Workflow workflow) {
+        this.validator = validator;
+        this.workflow = workflow;
+        this.ids = new IdRegistry();
+        this.index = WorkflowIndex.of(workflow, ids);
+        this.reports = new IntObjectMap<>(index.count);
+        this.referrers = new IntObjectMap<>(index.count);
+
+        int[] keys = Arrays.copyOf(index.order, index.count);
+        ForkJoinTask<List<ValidationIssue>> graph = forkGraphChecks();
+        Report[] checked = check(keys);
+        for (int i = 0; i < checked.length; i++) {
+            record(keys[i], checked[i]);
+        }
+        this.graphIssues = graph.join();
+        this.result = collect();
+    }
+
+    /**
+     * The result of the last validation.
+     */
+    public ValidationResult result() {
+        return result;
+    }
+
+    public Workflow getWorkflow() {
+        return workflow;
+    }
+
+    /**
+     * Validates the new revision of the workflow, re-running only the checks the change can affect.
+     *
+     * @param updated    the workflow after the change; may be the same instance, edited in place
+     * @param changedIds ids of every activity, event, decision node, edge and context that was added,
+     *                   removed or modified, including changes to nested bindings, rules or conditions
+     */
+    public ValidationResult revalidate(Workflow updated, Collection<UUID> changedIds) {
+        WorkflowIndex previous = index;
+        WorkflowIndex next = WorkflowIndex.of(updated, ids);
+
+        boolean topologyChanged = next.graphReady != previous.graphReady;
+        IntSet dirty = new IntSet(changedIds.size() * 4);
+        for (UUID id : changedIds) {
+            if (id == null) {
+                continue;
+            }
+            int key = ids.intern(id);
+            Object before = previous.get(key);
+            Object after = next.get(key);
+            topologyChanged |= before instanceof Edge || after instanceof Edge
+                    || before instanceof Event || after instanceof Event
+                    || previous.isNode(id) != next.isNode(id);
+            dirty.add(key);
+            IntSet referencing = referrers.get(key);
+            if (referencing != null) {
+                referencing.forEach(dirty::add);
+            }
+        }
+
+        workflow = updated;
+        index = next;
+        ForkJoinTask<List<ValidationIssue>> graph = topologyChanged ? forkGraphChecks() : null;
+
+        int[] keys = dirty.toArray();
+        int present = 0;
+        for (int key : keys) {
+            forget(key);
+            if (next.get(key) != null) {
+                keys[present++] = key;
+            }
+        }
+        keys = Arrays.copyOf(keys, present);
+        Report[] checked = check(keys);
+        for (int i = 0; i < checked.length; i++) {
+            record(keys[i], checked[i]);
+        }
+        if (graph != null) {
+            graphIssues = graph.join();
+        }
+        result = collect();
+        return result;
+    }
+
+    private ForkJoinTask<List<ValidationIssue>> forkGraphChecks() {
+        Workflow w = workflow;
+        WorkflowIndex i = index;
+        return validator.pool().submit(() -> GraphChecks.check(w, i));
+    }
+
+    /**
+     * Checks the elements, splitting the work across the pool when there are enough of them.
+     * The registry is only read while checks run; new ids are interned afterwards in {@link #record}.
+     */
+    private Report[] check(int[] keys) {
+        Object[] elements = new Object[keys.length];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = index.get(keys[i]);
+        }
+        Report[] checked = new Report[elements.length];
+        CheckTask task = new CheckTask(elements, checked, 0, elements.length, index, validator.chunkSize());
+        if (elements.length > validator.chunkSize()) {
+            validator.pool().invoke(task);
+        } else {
+            task.compute();
+        }
+        return checked;
+    }
+
+    private void record(int key, Report report) {
+        if (report == Report.CLEAN) {
+            return;
+        }
+        reports.put(key, report);
+        for (UUID reference : report.references) {
+            int target = ids.intern(reference);
+            IntSet referencing = referrers.get(target);
+            if (referencing == null) {
+                referencing = new IntSet(2);
+                referrers.put(target, referencing);
+            }
+            referencing.add(key);
+        }
+    }
+
+    private void forget(int key) {
+        Report report = reports.remove(key);
+        if (report == null) {
+            return;
+        }
+        for (UUID reference : report.references) {
+            int target = ids.indexOf(reference);
+            IntSet referencing = referrers.get(target);
+            if (referencing != null && referencing.remove(key) && referencing.isEmpty()) {
+                referrers.remove(target);
+            }
+        }
+    }
+
+    /**
+     * Index issues, then element issues in element order, then graph issues.
+     */
+    private ValidationResult collect() {
+        List<ValidationIssue> issues = new ArrayList<>(index.issues);
+        int[] order = index.order;
+        for (int i = 0, n = index.count; i < n; i++) {
+            Report report = reports.get(order[i]);
+            if (report != null) {
+                issues.addAll(report.issues);
+            }
+        }
+        issues.addAll(graphIssues);
+        return new ValidationResult(issues);
+    }
+
+    private static final class CheckTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] elements;
+        private final Report[] checked;
+        private final int from;
+        private final int to;
+        private final WorkflowIndex index;
+        private final int chunkSize;
+
+        CheckTask(Object[] elements, Report[] checked, int from, int to, WorkflowIndex index, int chunkSize) {
+            this.elements = elements;
+            this.checked = checked;
+            this.from = from;
+            this.to = to;
+            this.index = index;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    checked[i] = ElementChecks.check(elements[i], index);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CheckTask(elements, checked, from, mid, index, chunkSize),
+                    new CheckTask(elements, checked, mid, to, index, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.awa.validation;
+
+import io.awa.model.Activity;
+import io.awa.model.Context;
+import io.awa.model.DecisionNode;
+import io.awa.model.Edge;
+import io.awa.model.Event;
+import io.awa.model.Workflow;
+
+import io.awa.ids.IdRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Id lookup over all elements of a workflow: activities, events, decision nodes, edges and contexts
+ * share one id space. Elements without an id, and later elements reusing an id, are reported and
+ * left out of the index. Ids are interned into the caller's {@link IdRegistry}, so successive
+ * indexes of an edited workflow agree on the int id of every element.
+ */
+final class WorkflowIndex {
+
+    final IdRegistry ids;
+    /** Elements by interned id; ids are dense, so a plain array */
+    private Object[] elements;
+    /** Interned ids of the indexed elements, in declaration order */
+    int[] order;
+    int count;
+    final List<ValidationIssue> issues = new ArrayList<>();
+    /** True when every node and edge has a unique id and every edge both endpoints, so the graph checks can run */
+    boolean graphReady = true;
+
+    private WorkflowIndex(IdRegistry ids, int capacity) {
+        this.ids = ids;
+        this.elements = new Object[Math.max(ids.size(), capacity)];
+        this.order = new int[capacity];
+    }
+
+    static WorkflowIndex of(Workflow workflow, IdRegistry ids) {
+        List<Activity> activities = orEmpty(workflow.getActivities());
+        List<Event> events = orEmpty(workflow.getEvents());
+        List<DecisionNode> decisions = orEmpty(workflow.getDecisionNodes());
+        List<Edge> edges = orEmpty(workflow.getEdges());
+        List<Context> contexts = orEmpty(workflow.getContexts());
+        WorkflowIndex index = new WorkflowIndex(ids, activities.size() + events.size() + decisions.size()
+                + edges.size() + contexts.size());
+        for (Activity activity : activities) {
+            index.add(activity.getId(), activity, "Activity", true);
+        }
+        for (Event event : events) {
+            index.add(event.getId(), event, "Event", true);
+        }
+        for (DecisionNode decision : decisions) {
+            index.add(decision.getId(), decision, "Decision node", true);
+        }
+        for (Edge edge : edges) {
+            index.add(edge.getId(), edge, "Edge", false);
+            if (edge.getSourceId() == null || edge.getTargetId() == null) {
+                index.graphReady = false;
+            }
+        }
+        for (Context context : contexts) {
+            index.add(context.getId(), context, "Context", false);
+        }
+        return index;
+    }
+
+    Object get(UUID id) {
+        return get(ids.indexOf(id));
+    }
+
+    Object get(int key) {
+        return key >= 0 && key < elements.length ? elements[key] : null;
+    }
+
+    boolean isNode(UUID id) {
+        Object element = get(id);
+        return element instanceof Activity || element instanceof Event || element instanceof DecisionNode;
+    }
+
+    private void add(UUID id, Object element, String kind, boolean node) {
+        if (id == null) {
+            issues.add(new ValidationIssue(IssueType.MISSING_ID, null,
+                    kind + " '" + ElementChecks.nameOf(element) + "' has no id"));
+            graphReady &= !node;
+            return;
+        }
+        int key = ids.intern(id);
+        if (key >= elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(key + 1, elements.length * 2));
+        } else if (elements[key] != null) {
+            issues.add(new ValidationIssue(IssueType.DUPLICATE_ID, id, kind + " reuses id " + id));
+            graphReady &= !node;
+            return;
+        }
+        elements[key] = element;
+        if (count == order.length) {
+            order = Arrays.copyOf(order, Math.max(4, count * 2));
+        }
+        order[count++] = key;
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : List.of();
+    }
+}
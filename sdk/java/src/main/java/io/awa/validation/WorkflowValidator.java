@@ -0,0 +1,76 @@
+package io.awa.validation;
+
+import io.awa.model.Workflow;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks a workflow for structural problems before it is run or saved.
+ * <p>
+ * Element checks look at one element and the ids it references: edges whose source or target is not
+ * a node, activities bound to unknown contexts, decision rules routing to unknown edges, and conditions
+ * or decision tables that do not compile. Graph checks look at the topology as a whole: nodes that
+ * cannot be reached from a start event and cycles that no edge leaves. The element checks are split
+ * into chunks and run on a fork-join pool, in parallel with the graph checks.
+ *
+ * <pre>{@code
+ * WorkflowValidator validator = new WorkflowValidator();
+ * ValidationResult result = validator.validate(workflow);
+ *
+ * // In an editor, keep a session and re-check only what an edit touches
+ * ValidationSession session = validator.session(workflow);
+ * edge.setTargetId(otherNodeId);
+ * session.revalidate(workflow, List.of(edge.getId()));
+ * }</pre>
+ */
+public class WorkflowValidator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 512;
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Sets the pool the checks run on; the common pool by default.
+     */
+    public WorkflowValidator pool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool is required");
+        }
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Sets how many elements one task checks; smaller sets of elements are checked on the calling thread.
+     */
+    public WorkflowValidator chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Runs every check on the workflow.
+     */
+    public ValidationResult validate(Workflow workflow) {
+        return session(workflow).result();
+    }
+
+    /**
+     * Runs every check on the workflow and keeps the state needed to re-validate later revisions incrementally.
+     */
+    public ValidationSession session(Workflow workflow) {
+        return new ValidationSession(this, workflow);
+    }
+
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+}
@@ -0,0 +1,176 @@
+package io.awa.visualization;
+
+import io.awa.model.visualization.VisualizationConfig.Quaternion;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+import io.awa.model.visualization.VisualizationConfig.Vector3D;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Collects the changes an editor makes between two sends and merges the ones to the same target.
+ * <p>
+ * Thirty moves of one dragged node become a single move to where it ended up; later properties
+ * overwrite earlier ones, so a move that sets only the position keeps a size set by an earlier
+ * move. A removal discards the pending changes to its target, and a change after a removal is
+ * sent after it, so the target is recreated from scratch. Targets keep the order in which they
+ * were first changed since the last flush, whatever their kind. Thread-safe.
+ *
+ * <pre>{@code
+ * DeltaCoalescer pending = new DeltaCoalescer(visualizationId);
+ * onDrag(node, x, y) -> pending.add(VisualizationChange.nodeMoved2d(node, x, y));
+ * every 100 ms: VisualizationDelta delta = pending.flush(); if (delta != null) publish(delta);
+ * }</pre>
+ */
+public final class DeltaCoalescer {
+
+    private final UUID visualizationId;
+    private final Map<UUID, Slot> nodes2d = new LinkedHashMap<>();
+    private final Map<UUID, Slot> nodes3d = new LinkedHashMap<>();
+    private final Map<UUID, Slot> routings = new LinkedHashMap<>();
+    private final List<Slot> order = new ArrayList<>();
+    private Slot camera2d;
+    private Slot camera3d;
+    private int received;
+
+    public DeltaCoalescer(UUID visualizationId) {
+        this.visualizationId = visualizationId;
+    }
+
+    /**
+     * Adds a change; the coalescer keeps its own copy, so the caller may reuse the instance.
+     *
+     * @throws IllegalArgumentException if the change has no type, or no target id where its type needs one
+     */
+    public synchronized void add(VisualizationChange change) {
+        if (change == null || change.getType() == null) {
+            throw new IllegalArgumentException("Change and its type must not be null");
+        }
+        VisualizationChangeType type = change.getType();
+        if (type.hasTarget() && change.getTargetId() == null) {
+            throw new IllegalArgumentException(type + " requires a target id");
+        }
+        switch (type) {
+            case NODE_MOVED_2D, NODE_REMOVED_2D -> nodes2d.computeIfAbsent(change.getTargetId(), id -> slot())
+                    .add(change);
+            case NODE_MOVED_3D, NODE_REMOVED_3D -> nodes3d.computeIfAbsent(change.getTargetId(), id -> slot())
+                    .add(change);
+            case EDGE_ROUTED, EDGE_ROUTING_REMOVED -> routings.computeIfAbsent(change.getTargetId(), id -> slot())
+                    .add(change);
+            case CAMERA_2D_CHANGED -> {
+                camera2d = camera2d != null ? camera2d : slot();
+                camera2d.add(change);
+            }
+            case CAMERA_3D_CHANGED -> {
+                camera3d = camera3d != null ? camera3d : slot();
+                camera3d.add(change);
+            }
+        }
+        received++;
+    }
+
+    public synchronized boolean isEmpty() {
+        return received == 0;
+    }
+
+    /**
+     * Number of changes added since the last flush, before merging.
+     */
+    public synchronized int received() {
+        return received;
+    }
+
+    /**
+     * The merged changes added since the last flush, and starts over; null if there are none.
+     */
+    public synchronized VisualizationDelta flush() {
+        if (received == 0) {
+            return null;
+        }
+        List<VisualizationChange> changes = new ArrayList<>();
+        for (Slot slot : order) {
+            slot.drainTo(changes);
+        }
+        order.clear();
+        nodes2d.clear();
+        nodes3d.clear();
+        routings.clear();
+        camera2d = null;
+        camera3d = null;
+        received = 0;
+        return VisualizationDelta.builder().visualizationId(visualizationId).changes(changes).build();
+    }
+
+    private Slot slot() {
+        Slot slot = new Slot();
+        order.add(slot);
+        return slot;
+    }
+
+    /**
+     * Pending changes to one target: an optional removal followed by an optional merged change.
+     */
+    private static final class Slot {
+
+        private VisualizationChange removal;
+        private VisualizationChange change;
+
+        void add(VisualizationChange next) {
+            if (next.getType().isRemoval()) {
+                removal = copy(next);
+                change = null;
+            } else if (change == null) {
+                change = copy(next);
+            } else {
+                change.mergeFrom(copy(next));
+            }
+        }
+
+        void drainTo(List<VisualizationChange> changes) {
+            if (removal != null) {
+                changes.add(removal);
+            }
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+
+        /**
+         * Copies the change down to its vectors and control point lists, which the caller may reuse.
+         */
+        private static VisualizationChange copy(VisualizationChange change) {
+            VisualizationChange copy = VisualizationChange.builder().type(change.getType())
+                    .targetId(change.getTargetId()).build();
+            copy.mergeFrom(change);
+            copy.setPosition(copy(copy.getPosition()));
+            copy.setScale(copy(copy.getScale()));
+            copy.setTarget(copy(copy.getTarget()));
+            Quaternion rotation = copy.getRotation();
+            if (rotation != null) {
+                copy.setRotation(new Quaternion(rotation.getX(), rotation.getY(), rotation.getZ(), rotation.getW()));
+            }
+            if (copy.getControlPoints2d() != null) {
+                List<Vector2D> points = new ArrayList<>(copy.getControlPoints2d().size());
+                for (Vector2D point : copy.getControlPoints2d()) {
+                    points.add(point != null ? new Vector2D(point.getX(), point.getY()) : null);
+                }
+                copy.setControlPoints2d(points);
+            }
+            if (copy.getControlPoints3d() != null) {
+                List<Vector3D> points = new ArrayList<>(copy.getControlPoints3d().size());
+                for (Vector3D point : copy.getControlPoints3d()) {
+                    points.add(copy(point));
+                }
+                copy.setControlPoints3d(points);
+            }
+            return copy;
+        }
+
+        private static Vector3D copy(Vector3D vector) {
+            return vector != null ? new Vector3D(vector.getX(), vector.getY(), vector.getZ()) : null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.awa.visualization;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes the images {@link WorkflowRenderer} paints as PNG. Drawings of a few flat colours
+ * compress well with the cheapest settings, so rows are filtered with {@code Sub} only and
+ * deflated at the fastest level, instead of trying every filter on every row the way the
+ * general-purpose {@code ImageIO} writer does.
+ */
+final class PngWriter {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte FILTER_SUB = 1;
+    /** Setting up zlib's state costs more than deflating a thumbnail, so each thread keeps one. */
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+    private final OutputStream out;
+    private final CRC32 crc = new CRC32();
+    private final byte[] header = new byte[8];
+
+    PngWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes an image of type {@code TYPE_INT_RGB} or {@code TYPE_INT_ARGB}.
+     */
+    void write(BufferedImage image) throws IOException {
+        int type = image.getType();
+        if (type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB) {
+            throw new IllegalArgumentException("Unsupported image type: " + type);
+        }
+        boolean alpha = type == BufferedImage.TYPE_INT_ARGB;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int channels = alpha ? 4 : 3;
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        out.write(SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, width);
+        putInt(ihdr, 4, height);
+        ihdr[8] = 8;
+        ihdr[9] = (byte) (alpha ? 6 : 2);
+        chunk("IHDR", ihdr, ihdr.length);
+
+        int stride = 1 + width * channels;
+        byte[] raw = new byte[stride * height];
+        for (int y = 0, p = 0; y < height; y++) {
+            raw[p++] = FILTER_SUB;
+            int previous = 0;
+            for (int x = 0, i = y * width; x < width; x++, i++) {
+                int pixel = pixels[i];
+                raw[p++] = (byte) ((pixel >>> 16) - (previous >>> 16));
+                raw[p++] = (byte) ((pixel >>> 8) - (previous >>> 8));
+                raw[p++] = (byte) (pixel - previous);
+                if (alpha) {
+                    raw[p++] = (byte) ((pixel >>> 24) - (previous >>> 24));
+                }
+                previous = pixel;
+            }
+        }
+
+        Deflater deflater = DEFLATER.get();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] data = new byte[Math.max(64, raw.length / 4)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+                length += deflater.deflate(data, length, data.length - length);
+            }
+            chunk("IDAT", data, length);
+        } finally {
+            deflater.reset();
+        }
+        chunk("IEND", header, 0);
+        out.flush();
+    }
+
+    private void chunk(String type, byte[] data, int length) throws IOException {
+        putInt(header, 0, length);
+        for (int i = 0; i < 4; i++) {
+            header[4 + i] = (byte) type.charAt(i);
+        }
+        out.write(header, 0, 8);
+        out.write(data, 0, length);
+        crc.reset();
+        crc.update(header, 4, 4);
+        crc.update(data, 0, length);
+        byte[] sum = new byte[4];
+        putInt(sum, 0, (int) crc.getValue());
+        out.write(sum);
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
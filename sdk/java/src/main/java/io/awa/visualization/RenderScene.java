@@ -0,0 +1,618 @@
+package io.awa.visualization;
+
+import io.awa.graph.WorkflowGraph;
+import io.awa.model.NodeType;
+import io.awa.model.Workflow;
+import io.awa.model.visualization.CurveType;
+import io.awa.model.visualization.LaneOrientation;
+import io.awa.model.visualization.LayoutDirection;
+import io.awa.model.visualization.NodeShape;
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.model.visualization.VisualizationConfig.EdgeRouting;
+import io.awa.model.visualization.VisualizationConfig.Lane;
+import io.awa.model.visualization.VisualizationConfig.NodePosition2D;
+import io.awa.model.visualization.VisualizationConfig.ThemeConfig;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * What the 2D view of a workflow draws, resolved once from the workflow and its visualization:
+ * lanes, edges as paths with their arrowheads, and nodes with their shapes, in drawing order,
+ * with the colours of the theme and the styles. {@link WorkflowRenderer} writes it as SVG or
+ * paints it with Java2D, so both agree.
+ * <p>
+ * Defaults follow the browser viewer, {@code docs/awa-viz.js}. Nodes are 150 by 60 with a white
+ * fill and a dark border unless their style says otherwise. Without a shape, events are circles,
+ * decisions diamonds and activities rounded rectangles. Lanes are bands across the view around
+ * the nodes they hold. Colours are ARGB ints, with alpha 0 for none.
+ */
+final class RenderScene {
+
+    static final double DEFAULT_NODE_WIDTH = 150;
+    static final double DEFAULT_NODE_HEIGHT = 60;
+    static final double FONT_SIZE = 11;
+    static final double EDGE_FONT_SIZE = 10;
+    static final double CHAR_WIDTH = 0.6;
+    static final int TEXT_COLOR = 0xFF333333;
+
+    static final byte MOVE = 0;
+    static final byte LINE = 1;
+    static final byte QUAD = 2;
+    static final byte CUBIC = 3;
+
+    private static final int DEFAULT_NODE_FILL = 0xFFFFFFFF;
+    private static final int DEFAULT_NODE_STROKE = 0xFF333333;
+    private static final int DEFAULT_EDGE_STROKE = 0xFF666666;
+    private static final int DEFAULT_LANE_COLOR = 0xFFCCCCCC;
+    private static final int DEFAULT_GRID_COLOR = 0xFFE0E0E0;
+    private static final double DEFAULT_RADIUS = 8;
+    private static final double STEP_RADIUS = 8;
+    private static final double LANE_PADDING = 20;
+    private static final double ARROW_LENGTH = 10;
+
+    final int background;
+    final int gridColor;
+    final double gridSize;
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+
+    int laneCount;
+    double[] laneX;
+    double[] laneY;
+    double[] laneWidth;
+    double[] laneHeight;
+    int[] laneColor;
+    String[] laneLabel;
+
+    int nodeCount;
+    double[] nodeX;
+    double[] nodeY;
+    double[] nodeWidth;
+    double[] nodeHeight;
+    NodeShape[] nodeShape;
+    int[] nodeFill;
+    int[] nodeStroke;
+    double[] nodeStrokeWidth;
+    double[] nodeRadius;
+    String[] nodeLabel;
+
+    int edgeCount;
+    int[] pathStart;
+    int[] edgeStroke;
+    double[] edgeWidth;
+    double[] arrowX;
+    double[] arrowY;
+    double[] arrowDX;
+    double[] arrowDY;
+    String[] edgeLabel;
+    double[] labelX;
+    double[] labelY;
+
+    // Path commands of all edges, edge e's from pathStart[e] to pathStart[e + 1], each with its points
+    byte[] ops = new byte[64];
+    int[] opCoords = new int[64];
+    double[] coords = new double[256];
+    int opCount;
+    int coordCount;
+
+    private final LayoutDirection direction;
+
+    RenderScene(Workflow workflow, VisualizationConfig visualization) {
+        ThemeConfig theme = visualization.getTheme();
+        this.background = color(theme != null ? theme.getBackgroundColor() : null, 0xFFFFFFFF);
+        this.gridSize = theme != null && theme.isGridEnabled() ? theme.getGridSize() : 0;
+        this.gridColor = color(theme != null ? theme.getGridColor() : null, DEFAULT_GRID_COLOR);
+        this.direction = visualization.getAutoLayout() != null && visualization.getAutoLayout().getDirection() != null
+                ? visualization.getAutoLayout().getDirection() : LayoutDirection.LR;
+
+        WorkflowGraph graph = WorkflowGraph.of(workflow);
+        Map<UUID, NodePosition2D> positions = new HashMap<>();
+        if (visualization.getNodePositions2d() != null) {
+            for (NodePosition2D position : visualization.getNodePositions2d()) {
+                if (position.getNodeId() != null && position.getPosition() != null) {
+                    positions.putIfAbsent(position.getNodeId(), position);
+                }
+            }
+        }
+        int n = graph.nodeCount();
+        NodePosition2D[] placed = new NodePosition2D[n];
+        for (int v = 0; v < n; v++) {
+            placed[v] = graph.isDeclared(v) ? positions.get(graph.nodeId(v)) : null;
+        }
+        readNodes(graph, placed);
+        readEdges(graph, placed, visualization.getEdgeRoutings());
+        readLanes(graph, placed, visualization.getLanes());
+        if (minX > maxX) {
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+    }
+
+    private void readNodes(WorkflowGraph graph, NodePosition2D[] placed) {
+        int[] order = IntStream.range(0, placed.length).filter(v -> placed[v] != null).boxed()
+                .sorted(Comparator.comparingInt(v -> placed[v].getZIndex() != null ? placed[v].getZIndex() : 0))
+                .mapToInt(Integer::intValue).toArray();
+        nodeCount = order.length;
+        nodeX = new double[nodeCount];
+        nodeY = new double[nodeCount];
+        nodeWidth = new double[nodeCount];
+        nodeHeight = new double[nodeCount];
+        nodeShape = new NodeShape[nodeCount];
+        nodeFill = new int[nodeCount];
+        nodeStroke = new int[nodeCount];
+        nodeStrokeWidth = new double[nodeCount];
+        nodeRadius = new double[nodeCount];
+        nodeLabel = new String[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            int v = order[i];
+            NodePosition2D position = placed[v];
+            Map<String, Object> style = position.getStyle();
+            nodeX[i] = position.getPosition().getX();
+            nodeY[i] = position.getPosition().getY();
+            nodeWidth[i] = width(position);
+            nodeHeight[i] = height(position);
+            nodeShape[i] = position.getShape() != null ? position.getShape() : switch (graph.nodeType(v)) {
+                case EVENT -> NodeShape.CIRCLE;
+                case DECISION -> NodeShape.DIAMOND;
+                default -> NodeShape.ROUNDED;
+            };
+            nodeFill[i] = color(style != null ? style.get("background_color") : null, DEFAULT_NODE_FILL);
+            nodeStroke[i] = color(style != null ? style.get("border_color") : null, DEFAULT_NODE_STROKE);
+            nodeStrokeWidth[i] = number(style != null ? style.get("border_width") : null, 1);
+            nodeRadius[i] = graph.nodeType(v) == NodeType.DECISION ? 0
+                    : number(style != null ? style.get("border_radius") : null, DEFAULT_RADIUS);
+            nodeLabel[i] = switch (graph.nodeType(v)) {
+                case ACTIVITY -> graph.activity(v).getName();
+                case EVENT -> graph.event(v).getName();
+                case DECISION -> graph.decisionNode(v).getName();
+            };
+            include(nodeX[i], nodeY[i]);
+            include(nodeX[i] + nodeWidth[i], nodeY[i] + nodeHeight[i]);
+        }
+    }
+
+    private void readEdges(WorkflowGraph graph, NodePosition2D[] placed, List<EdgeRouting> routings) {
+        Map<UUID, EdgeRouting> byEdge = new HashMap<>();
+        if (routings != null) {
+            for (EdgeRouting routing : routings) {
+                if (routing.getEdgeId() != null) {
+                    byEdge.putIfAbsent(routing.getEdgeId(), routing);
+                }
+            }
+        }
+        int m = graph.edgeCount();
+        pathStart = new int[m + 1];
+        edgeStroke = new int[m];
+        edgeWidth = new double[m];
+        arrowX = new double[m];
+        arrowY = new double[m];
+        arrowDX = new double[m];
+        arrowDY = new double[m];
+        edgeLabel = new String[m];
+        labelX = new double[m];
+        labelY = new double[m];
+        for (int e = 0; e < m; e++) {
+            NodePosition2D source = placed[graph.source(e)];
+            NodePosition2D target = placed[graph.target(e)];
+            if (source == null || target == null) {
+                continue;
+            }
+            EdgeRouting routing = graph.edge(e).getId() != null ? byEdge.get(graph.edge(e).getId()) : null;
+            Map<String, Object> style = routing != null ? routing.getStyle() : null;
+            int i = edgeCount++;
+            pathStart[i] = opCount;
+            edgeStroke[i] = color(style != null ? style.get("stroke_color") : null, DEFAULT_EDGE_STROKE);
+            edgeWidth[i] = number(style != null ? style.get("stroke_width") : null, 2);
+            edgeLabel[i] = graph.edge(e).getLabel();
+            path(i, source, target, routing);
+        }
+        pathStart[edgeCount] = opCount;
+    }
+
+    /**
+     * Adds the path of one edge: from the source's border to the target's through the control
+     * points, drawn as the curve type says.
+     */
+    private void path(int i, NodePosition2D source, NodePosition2D target, EdgeRouting routing) {
+        List<Vector2D> control = routing != null && routing.getControlPoints2d() != null
+                ? routing.getControlPoints2d() : List.of();
+        CurveType curve = routing != null && routing.getCurveType() != null ? routing.getCurveType() : CurveType.BEZIER;
+        double sx = source.getPosition().getX();
+        double sy = source.getPosition().getY();
+        double sw = width(source);
+        double sh = height(source);
+        double tx = target.getPosition().getX();
+        double ty = target.getPosition().getY();
+        double tw = width(target);
+        double th = height(target);
+        boolean horizontal = direction == LayoutDirection.LR || direction == LayoutDirection.RL;
+        int flow = direction == LayoutDirection.LR || direction == LayoutDirection.TB ? 1 : -1;
+
+        // Waypoints: the control points, with the ends on the node borders added unless already there
+        int count = control.size();
+        double[] points = new double[2 * count + 4];
+        int p = 0;
+        if (count == 0) {
+            points[p++] = horizontal ? sx + sw / 2 + flow * sw / 2 : sx + sw / 2;
+            points[p++] = horizontal ? sy + sh / 2 : sy + sh / 2 + flow * sh / 2;
+        } else if (!onBox(control.get(0), sx, sy, sw, sh)) {
+            p = border(points, p, sx, sy, sw, sh, control.get(0).getX(), control.get(0).getY());
+        }
+        for (Vector2D point : control) {
+            points[p++] = point.getX();
+            points[p++] = point.getY();
+        }
+        if (count == 0) {
+            points[p++] = horizontal ? tx + tw / 2 - flow * tw / 2 : tx + tw / 2;
+            points[p++] = horizontal ? ty + th / 2 : ty + th / 2 - flow * th / 2;
+        } else if (!onBox(control.get(count - 1), tx, ty, tw, th)) {
+            p = border(points, p, tx, ty, tw, th, control.get(count - 1).getX(), control.get(count - 1).getY());
+        }
+        int length = p / 2;
+        if (length < 2) {
+            // One control point on both borders: a zero-length edge still gets its arrow
+            points[p++] = points[0];
+            points[p++] = points[1];
+            length = 2;
+        }
+
+        switch (curve) {
+            case STRAIGHT -> polyline(points, length);
+            case STEP -> rounded(step(points, length, horizontal), 0);
+            case SMOOTHSTEP -> rounded(step(points, length, horizontal), STEP_RADIUS);
+            default -> {
+                if (count == 0) {
+                    handleBezier(points, horizontal, flow);
+                } else {
+                    catmullRom(points, length);
+                }
+            }
+        }
+
+        // The arrowhead points along the last stretch of the path
+        int last = coordCount - 2;
+        double ex = coords[last];
+        double ey = coords[last + 1];
+        double dx = 0;
+        double dy = 0;
+        for (int k = last - 2; k >= opCoords[pathStart[i]] && dx == 0 && dy == 0; k -= 2) {
+            dx = ex - coords[k];
+            dy = ey - coords[k + 1];
+        }
+        double norm = Math.hypot(dx, dy);
+        arrowX[i] = ex;
+        arrowY[i] = ey;
+        arrowDX[i] = norm > 0 ? dx / norm : (horizontal ? flow : 0);
+        arrowDY[i] = norm > 0 ? dy / norm : (horizontal ? 0 : flow);
+
+        double[] middle = middle(points, length);
+        labelX[i] = middle[0];
+        labelY[i] = middle[1];
+        for (int k = opCoords[pathStart[i]]; k < coordCount; k += 2) {
+            include(coords[k], coords[k + 1]);
+        }
+    }
+
+    private static boolean onBox(Vector2D point, double x, double y, double w, double h) {
+        return point.getX() >= x - 0.5 && point.getX() <= x + w + 0.5 && point.getY() >= y - 0.5 && point.getY() <= y + h + 0.5;
+    }
+
+    /**
+     * Adds where the line from the box's centre towards a point leaves the box.
+     */
+    private static int border(double[] points, int p, double x, double y, double w, double h, double towardX, double towardY) {
+        double cx = x + w / 2;
+        double cy = y + h / 2;
+        double dx = towardX - cx;
+        double dy = towardY - cy;
+        double scale = Math.min(dx != 0 ? w / 2 / Math.abs(dx) : Double.POSITIVE_INFINITY,
+                dy != 0 ? h / 2 / Math.abs(dy) : Double.POSITIVE_INFINITY);
+        if (Double.isInfinite(scale)) {
+            scale = 0;
+        }
+        points[p++] = cx + dx * scale;
+        points[p++] = cy + dy * scale;
+        return p;
+    }
+
+    /**
+     * The waypoints joined by horizontal and vertical runs, turning half-way along the flow where
+     * two waypoints are not in line.
+     */
+    private static double[] step(double[] points, int length, boolean horizontal) {
+        double[] result = new double[6 * length];
+        int r = 0;
+        result[r++] = points[0];
+        result[r++] = points[1];
+        for (int k = 1; k < length; k++) {
+            double x0 = points[2 * k - 2];
+            double y0 = points[2 * k - 1];
+            double x1 = points[2 * k];
+            double y1 = points[2 * k + 1];
+            if (x0 != x1 && y0 != y1) {
+                if (horizontal) {
+                    double mid = (x0 + x1) / 2;
+                    result[r++] = mid;
+                    result[r++] = y0;
+                    result[r++] = mid;
+                    result[r++] = y1;
+                } else {
+                    double mid = (y0 + y1) / 2;
+                    result[r++] = x0;
+                    result[r++] = mid;
+                    result[r++] = x1;
+                    result[r++] = mid;
+                }
+            }
+            result[r++] = x1;
+            result[r++] = y1;
+        }
+        return Arrays.copyOf(result, r);
+    }
+
+    private void polyline(double[] points, int length) {
+        op(MOVE, points[0], points[1]);
+        for (int k = 1; k < length; k++) {
+            op(LINE, points[2 * k], points[2 * k + 1]);
+        }
+    }
+
+    /**
+     * A polyline with its corners rounded off by up to {@code radius}; square for 0.
+     */
+    private void rounded(double[] points, double radius) {
+        int length = points.length / 2;
+        op(MOVE, points[0], points[1]);
+        for (int k = 1; k < length - 1; k++) {
+            double x = points[2 * k];
+            double y = points[2 * k + 1];
+            double inX = x - points[2 * k - 2];
+            double inY = y - points[2 * k - 1];
+            double outX = points[2 * k + 2] - x;
+            double outY = points[2 * k + 3] - y;
+            double in = Math.hypot(inX, inY);
+            double out = Math.hypot(outX, outY);
+            double r = Math.min(radius, Math.min(in, out) / 2);
+            if (r <= 0) {
+                op(LINE, x, y);
+                continue;
+            }
+            op(LINE, x - inX / in * r, y - inY / in * r);
+            op(QUAD, x, y, x + outX / out * r, y + outY / out * r);
+        }
+        op(LINE, points[2 * length - 2], points[2 * length - 1]);
+    }
+
+    /**
+     * The browser viewer's default edge: a cubic leaving and entering along the flow.
+     */
+    private void handleBezier(double[] points, boolean horizontal, int flow) {
+        double x0 = points[0];
+        double y0 = points[1];
+        double x1 = points[2];
+        double y1 = points[3];
+        double along = flow * (horizontal ? x1 - x0 : y1 - y0);
+        double offset = along >= 0 ? along / 2 : 0.25 * 25 * Math.sqrt(-along);
+        double hx = horizontal ? flow * offset : 0;
+        double hy = horizontal ? 0 : flow * offset;
+        op(MOVE, x0, y0);
+        op(CUBIC, x0 + hx, y0 + hy, x1 - hx, y1 - hy, x1, y1);
+    }
+
+    /**
+     * A smooth curve through the waypoints, Catmull-Rom segments as cubics.
+     */
+    private void catmullRom(double[] points, int length) {
+        op(MOVE, points[0], points[1]);
+        for (int k = 0; k + 1 < length; k++) {
+            int before = Math.max(0, k - 1);
+            int after = Math.min(length - 1, k + 2);
+            op(CUBIC,
+                    points[2 * k] + (points[2 * k + 2] - points[2 * before]) / 6,
+                    points[2 * k + 1] + (points[2 * k + 3] - points[2 * before + 1]) / 6,
+                    points[2 * k + 2] - (points[2 * after] - points[2 * k]) / 6,
+                    points[2 * k + 3] - (points[2 * after + 1] - points[2 * k + 1]) / 6,
+                    points[2 * k + 2], points[2 * k + 3]);
+        }
+    }
+
+    /**
+     * The point half-way along the polyline through the waypoints.
+     */
+    private static double[] middle(double[] points, int length) {
+        double total = 0;
+        for (int k = 1; k < length; k++) {
+            total += Math.hypot(points[2 * k] - points[2 * k - 2], points[2 * k + 1] - points[2 * k - 1]);
+        }
+        double remaining = total / 2;
+        for (int k = 1; k < length; k++) {
+            double step = Math.hypot(points[2 * k] - points[2 * k - 2], points[2 * k + 1] - points[2 * k - 1]);
+            if (step >= remaining && step > 0) {
+                double t = remaining / step;
+                return new double[]{points[2 * k - 2] + t * (points[2 * k] - points[2 * k - 2]),
+                        points[2 * k - 1] + t * (points[2 * k + 1] - points[2 * k - 1])};
+            }
+            remaining -= step;
+        }
+        return new double[]{points[0], points[1]};
+    }
+
+    private void op(byte op, double... points) {
+        if (opCount == ops.length) {
+            ops = Arrays.copyOf(ops, 2 * opCount);
+            opCoords = Arrays.copyOf(opCoords, 2 * opCount);
+        }
+        if (coordCount + points.length > coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(2 * coords.length, coordCount + points.length));
+        }
+        ops[opCount] = op;
+        opCoords[opCount++] = coordCount;
+        System.arraycopy(points, 0, coords, coordCount, points.length);
+        coordCount += points.length;
+    }
+
+    /**
+     * Lanes as bands across the view, around the nodes they hold and meeting half-way between
+     * neighbours, in {@code order_index} order. Lanes holding no positioned node are left out.
+     */
+    private void readLanes(WorkflowGraph graph, NodePosition2D[] placed, List<Lane> lanes) {
+        if (lanes == null || lanes.isEmpty()) {
+            return;
+        }
+        Lane[] ordered = lanes.stream()
+                .sorted(Comparator.comparing(Lane::getOrderIndex, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toArray(Lane[]::new);
+        int count = ordered.length;
+        double[] low = new double[count];
+        double[] high = new double[count];
+        boolean[] vertical = new boolean[count];
+        for (int l = 0; l < count; l++) {
+            Lane lane = ordered[l];
+            vertical[l] = lane.getOrientation() == LaneOrientation.VERTICAL;
+            low[l] = Double.POSITIVE_INFINITY;
+            high[l] = Double.NEGATIVE_INFINITY;
+            if (lane.getNodeIds() == null) {
+                continue;
+            }
+            for (UUID nodeId : lane.getNodeIds()) {
+                int v = nodeId != null ? graph.indexOf(nodeId) : -1;
+                if (v >= 0 && placed[v] != null) {
+                    double at = vertical[l] ? placed[v].getPosition().getX() : placed[v].getPosition().getY();
+                    low[l] = Math.min(low[l], at);
+                    high[l] = Math.max(high[l], at + (vertical[l] ? width(placed[v]) : height(placed[v])));
+                }
+            }
+        }
+        double spanMinX = minX - LANE_PADDING;
+        double spanMinY = minY - LANE_PADDING;
+        double spanMaxX = maxX + LANE_PADDING;
+        double spanMaxY = maxY + LANE_PADDING;
+        laneX = new double[count];
+        laneY = new double[count];
+        laneWidth = new double[count];
+        laneHeight = new double[count];
+        laneColor = new int[count];
+        laneLabel = new String[count];
+        for (int l = 0; l < count; l++) {
+            if (low[l] > high[l]) {
+                continue;
+            }
+            // Each lane reaches half-way to its neighbours of the same orientation holding nodes
+            double start = low[l] - LANE_PADDING;
+            double end = high[l] + LANE_PADDING;
+            for (int k = l - 1; k >= 0; k--) {
+                if (vertical[k] == vertical[l] && low[k] <= high[k]) {
+                    start = (high[k] + low[l]) / 2;
+                    break;
+                }
+            }
+            for (int k = l + 1; k < count; k++) {
+                if (vertical[k] == vertical[l] && low[k] <= high[k]) {
+                    end = (high[l] + low[k]) / 2;
+                    break;
+                }
+            }
+            int i = laneCount++;
+            laneX[i] = vertical[l] ? start : spanMinX;
+            laneY[i] = vertical[l] ? spanMinY : start;
+            laneWidth[i] = vertical[l] ? end - start : spanMaxX - spanMinX;
+            laneHeight[i] = vertical[l] ? spanMaxY - spanMinY : end - start;
+            laneColor[i] = color(ordered[l].getColor(), DEFAULT_LANE_COLOR);
+            laneLabel[i] = ordered[l].getLabel() != null ? ordered[l].getLabel() : ordered[l].getName();
+        }
+        for (int i = 0; i < laneCount; i++) {
+            include(laneX[i], laneY[i]);
+            include(laneX[i] + laneWidth[i], laneY[i] + laneHeight[i]);
+        }
+    }
+
+    private void include(double x, double y) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+
+    private static double width(NodePosition2D position) {
+        return position.getWidth() != null ? position.getWidth() : DEFAULT_NODE_WIDTH;
+    }
+
+    private static double height(NodePosition2D position) {
+        return position.getHeight() != null ? position.getHeight() : DEFAULT_NODE_HEIGHT;
+    }
+
+    private static double number(Object value, double fallback) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text.endsWith("px") ? text.substring(0, text.length() - 2) : text);
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Reads a CSS colour: {@code #rgb}, {@code #rrggbb}, {@code #rrggbbaa}, {@code rgb()},
+     * {@code rgba()} or {@code transparent}; anything else gives the fallback.
+     */
+    static int color(Object value, int fallback) {
+        if (!(value instanceof String text)) {
+            return fallback;
+        }
+        String css = text.trim().toLowerCase();
+        try {
+            if (css.equals("transparent") || css.equals("none")) {
+                return 0;
+            }
+            if (css.startsWith("#")) {
+                String hex = css.substring(1);
+                if (hex.length() == 3) {
+                    hex = "" + hex.charAt(0) + hex.charAt(0) + hex.charAt(1) + hex.charAt(1) + hex.charAt(2) + hex.charAt(2);
+                }
+                if (hex.length() == 6) {
+                    return 0xFF000000 | Integer.parseInt(hex, 16);
+                }
+                if (hex.length() == 8) {
+                    int rgba = (int) Long.parseLong(hex, 16);
+                    return (rgba << 24) | (rgba >>> 8);
+                }
+                return fallback;
+            }
+            if (css.startsWith("rgb")) {
+                String[] parts = css.substring(css.indexOf('(') + 1, css.lastIndexOf(')')).split(",");
+                if (parts.length < 3) {
+                    return fallback;
+                }
+                int alpha = parts.length > 3 ? (int) Math.round(255 * Double.parseDouble(parts[3].trim())) : 255;
+                return Math.max(0, Math.min(255, alpha)) << 24
+                        | channel(parts[0]) << 16 | channel(parts[1]) << 8 | channel(parts[2]);
+            }
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+        return fallback;
+    }
+
+    private static int channel(String part) {
+        return Math.max(0, Math.min(255, (int) Math.round(Double.parseDouble(part.trim()))));
+    }
+
+    static double arrowLength(double strokeWidth) {
+        return ARROW_LENGTH * Math.max(1, strokeWidth / 2);
+    }
+}
@@ -0,0 +1,123 @@
+package io.awa.visualization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes SVG markup as UTF-8 straight to a stream through a small buffer, with numbers formatted
+ * by hand to one decimal rather than through {@code String.format}. Markup passed to
+ * {@link #raw} must be ASCII; {@link #text} escapes and encodes anything.
+ */
+final class SvgWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int size;
+
+    SvgWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    SvgWriter raw(String markup) throws IOException {
+        for (int i = 0; i < markup.length(); i++) {
+            put((byte) markup.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Writes the number rounded to one decimal, without a trailing {@code .0}.
+     */
+    SvgWriter number(double value) throws IOException {
+        long tenths = Double.isFinite(value) ? Math.round(value * 10) : 0;
+        if (tenths < 0) {
+            put((byte) '-');
+            tenths = -tenths;
+        }
+        digits(tenths / 10);
+        if (tenths % 10 != 0) {
+            put((byte) '.');
+            put((byte) ('0' + tenths % 10));
+        }
+        return this;
+    }
+
+    /**
+     * Writes an ARGB colour as {@code #rrggbb}, leaving out the alpha.
+     */
+    SvgWriter color(int argb) throws IOException {
+        put((byte) '#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            put(HEX[(argb >>> shift) & 0xF]);
+        }
+        return this;
+    }
+
+    /**
+     * Writes character data or an attribute value, escaped. Characters XML 1.0 does not allow,
+     * control characters other than tab and line breaks, lone surrogates, U+FFFE and U+FFFF, are
+     * written as {@code ?}.
+     */
+    SvgWriter text(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> raw("&amp;");
+                case '<' -> raw("&lt;");
+                case '>' -> raw("&gt;");
+                case '"' -> raw("&quot;");
+                default -> {
+                    if (c < 0x20 && c != '\t' && c != '\n' && c != '\r' || c == 0xFFFE || c == 0xFFFF) {
+                        put((byte) '?');
+                    } else if (c < 0x80) {
+                        put((byte) c);
+                    } else if (c < 0x800) {
+                        put((byte) (0xC0 | c >> 6));
+                        put((byte) (0x80 | c & 0x3F));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                            && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        int code = Character.toCodePoint(c, text.charAt(++i));
+                        put((byte) (0xF0 | code >> 18));
+                        put((byte) (0x80 | code >> 12 & 0x3F));
+                        put((byte) (0x80 | code >> 6 & 0x3F));
+                        put((byte) (0x80 | code & 0x3F));
+                    } else if (Character.isSurrogate(c)) {
+                        put((byte) '?');
+                    } else {
+                        put((byte) (0xE0 | c >> 12));
+                        put((byte) (0x80 | c >> 6 & 0x3F));
+                        put((byte) (0x80 | c & 0x3F));
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes out what is buffered; the stream itself is left open.
+     */
+    void flush() throws IOException {
+        out.write(buffer, 0, size);
+        size = 0;
+        out.flush();
+    }
+
+    private void digits(long value) throws IOException {
+        if (value >= 10) {
+            digits(value / 10);
+        }
+        put((byte) ('0' + value % 10));
+    }
+
+    private void put(byte b) throws IOException {
+        if (size == buffer.length) {
+            out.write(buffer, 0, size);
+            size = 0;
+        }
+        buffer[size++] = b;
+    }
+}
@@ -0,0 +1,170 @@
+package io.awa.visualization;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.awa.model.NodeType;
+import io.awa.model.visualization.CurveType;
+import io.awa.model.visualization.VisualizationConfig.Quaternion;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+import io.awa.model.visualization.VisualizationConfig.Vector3D;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One change to a node position, an edge routing or a camera of a visualization.
+ * <p>
+ * Only the properties a change carries are set; null properties are left as they are when the
+ * change is applied. 2D changes use the x and y of {@link #position} and ignore z.
+ * <table>
+ *     <caption>Properties by type</caption>
+ *     <tr><td>NODE_MOVED_2D</td><td>target id, position, and optionally node type, width and height</td></tr>
+ *     <tr><td>NODE_MOVED_3D</td><td>target id, position, and optionally node type, rotation and scale</td></tr>
+ *     <tr><td>EDGE_ROUTED</td><td>target id, and any of curve type, control points and animated</td></tr>
+ *     <tr><td>CAMERA_2D_CHANGED</td><td>position as the center, zoom</td></tr>
+ *     <tr><td>CAMERA_3D_CHANGED</td><td>position, target, fov, alpha, beta, radius</td></tr>
+ *     <tr><td>removals</td><td>target id</td></tr>
+ * </table>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VisualizationChange {
+
+    private VisualizationChangeType type;
+
+    @JsonProperty("target_id")
+    private UUID targetId;
+
+    @JsonProperty("node_type")
+    private NodeType nodeType;
+
+    private Vector3D position;
+
+    private Double width;
+
+    private Double height;
+
+    private Quaternion rotation;
+
+    private Vector3D scale;
+
+    @JsonProperty("curve_type")
+    private CurveType curveType;
+
+    @JsonProperty("control_points_2d")
+    private List<Vector2D> controlPoints2d;
+
+    @JsonProperty("control_points_3d")
+    private List<Vector3D> controlPoints3d;
+
+    private Boolean animated;
+
+    private Vector3D target;
+
+    private Double zoom;
+
+    private Double fov;
+
+    private Double alpha;
+
+    private Double beta;
+
+    private Double radius;
+
+    public static VisualizationChange nodeMoved2d(UUID nodeId, double x, double y) {
+        return builder().type(VisualizationChangeType.NODE_MOVED_2D).targetId(nodeId)
+                .position(new Vector3D(x, y, 0)).build();
+    }
+
+    public static VisualizationChange nodeMoved3d(UUID nodeId, double x, double y, double z) {
+        return builder().type(VisualizationChangeType.NODE_MOVED_3D).targetId(nodeId)
+                .position(new Vector3D(x, y, z)).build();
+    }
+
+    public static VisualizationChange nodeRemoved2d(UUID nodeId) {
+        return builder().type(VisualizationChangeType.NODE_REMOVED_2D).targetId(nodeId).build();
+    }
+
+    public static VisualizationChange nodeRemoved3d(UUID nodeId) {
+        return builder().type(VisualizationChangeType.NODE_REMOVED_3D).targetId(nodeId).build();
+    }
+
+    public static VisualizationChange edgeRouted(UUID edgeId, CurveType curveType, List<Vector2D> controlPoints) {
+        return builder().type(VisualizationChangeType.EDGE_ROUTED).targetId(edgeId).curveType(curveType)
+                .controlPoints2d(controlPoints).build();
+    }
+
+    public static VisualizationChange edgeRoutingRemoved(UUID edgeId) {
+        return builder().type(VisualizationChangeType.EDGE_ROUTING_REMOVED).targetId(edgeId).build();
+    }
+
+    public static VisualizationChange camera2d(double centerX, double centerY, double zoom) {
+        return builder().type(VisualizationChangeType.CAMERA_2D_CHANGED).position(new Vector3D(centerX, centerY, 0))
+                .zoom(zoom).build();
+    }
+
+    public static VisualizationChange camera3d(Vector3D position, Vector3D target) {
+        return builder().type(VisualizationChangeType.CAMERA_3D_CHANGED).position(position).target(target).build();
+    }
+
+    /**
+     * Overwrites this change's properties with the ones a later change of the same type and target sets.
+     */
+    void mergeFrom(VisualizationChange later) {
+        if (later.nodeType != null) {
+            nodeType = later.nodeType;
+        }
+        if (later.position != null) {
+            position = later.position;
+        }
+        if (later.width != null) {
+            width = later.width;
+        }
+        if (later.height != null) {
+            height = later.height;
+        }
+        if (later.rotation != null) {
+            rotation = later.rotation;
+        }
+        if (later.scale != null) {
+            scale = later.scale;
+        }
+        if (later.curveType != null) {
+            curveType = later.curveType;
+        }
+        if (later.controlPoints2d != null) {
+            controlPoints2d = later.controlPoints2d;
+        }
+        if (later.controlPoints3d != null) {
+            controlPoints3d = later.controlPoints3d;
+        }
+        if (later.animated != null) {
+            animated = later.animated;
+        }
+        if (later.target != null) {
+            target = later.target;
+        }
+        if (later.zoom != null) {
+            zoom = later.zoom;
+        }
+        if (later.fov != null) {
+            fov = later.fov;
+        }
+        if (later.alpha != null) {
+            alpha = later.alpha;
+        }
+        if (later.beta != null) {
+            beta = later.beta;
+        }
+        if (later.radius != null) {
+            radius = later.radius;
+        }
+    }
+}
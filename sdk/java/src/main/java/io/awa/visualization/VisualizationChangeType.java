@@ -0,0 +1,27 @@
+package io.awa.visualization;
+
+/**
+ * Kinds of {@link VisualizationChange}, one per symbol of {@code VisualizationChangeType}
+ * in {@code spec/avro/visualization_event.avsc}.
+ */
+public enum VisualizationChangeType {
+    NODE_MOVED_2D,
+    NODE_MOVED_3D,
+    NODE_REMOVED_2D,
+    NODE_REMOVED_3D,
+    EDGE_ROUTED,
+    EDGE_ROUTING_REMOVED,
+    CAMERA_2D_CHANGED,
+    CAMERA_3D_CHANGED;
+
+    /**
+     * Whether the change names a node or edge in {@link VisualizationChange#getTargetId()}.
+     */
+    public boolean hasTarget() {
+        return this != CAMERA_2D_CHANGED && this != CAMERA_3D_CHANGED;
+    }
+
+    public boolean isRemoval() {
+        return this == NODE_REMOVED_2D || this == NODE_REMOVED_3D || this == EDGE_ROUTING_REMOVED;
+    }
+}
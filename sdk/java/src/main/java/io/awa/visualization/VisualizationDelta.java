@@ -0,0 +1,30 @@
+package io.awa.visualization;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A batch of changes to one visualization, applied in order; the {@code VisualizationDeltaPayload}
+ * of a {@code VISUALIZATION_PATCHED} event.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VisualizationDelta {
+
+    @JsonProperty("visualization_id")
+    private UUID visualizationId;
+
+    @Builder.Default
+    private List<VisualizationChange> changes = new ArrayList<>();
+}
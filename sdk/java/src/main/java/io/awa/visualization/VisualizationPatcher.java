@@ -0,0 +1,419 @@
+package io.awa.visualization;
+
+import io.awa.model.visualization.VisualizationConfig;
+import io.awa.model.visualization.VisualizationConfig.CameraSettings2D;
+import io.awa.model.visualization.VisualizationConfig.CameraSettings3D;
+import io.awa.model.visualization.VisualizationConfig.EdgeRouting;
+import io.awa.model.visualization.VisualizationConfig.NodePosition2D;
+import io.awa.model.visualization.VisualizationConfig.NodePosition3D;
+import io.awa.model.visualization.VisualizationConfig.Quaternion;
+import io.awa.model.visualization.VisualizationConfig.Vector2D;
+import io.awa.model.visualization.VisualizationConfig.Vector3D;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Applies {@link VisualizationDelta}s to a {@link VisualizationConfig} in place, and computes the
+ * delta between two configs.
+ * <p>
+ * The patcher indexes the config's node positions and edge routings by node and edge id once,
+ * so applying a change costs a hash lookup rather than a scan of the lists. Edit the config only
+ * through the patcher while it is in use, or the index goes stale. Deltas cover positions,
+ * sizes, rotation and scale, edge routes and the cameras; other visual properties such as
+ * shapes, styles and lanes still travel as full configs. Not thread-safe.
+ */
+public final class VisualizationPatcher {
+
+    private final VisualizationConfig config;
+    private final Map<UUID, NodePosition2D> nodes2d;
+    private final Map<UUID, NodePosition3D> nodes3d;
+    private final Map<UUID, EdgeRouting> routings;
+
+    /**
+     * @throws IllegalArgumentException if the config is null
+     */
+    public VisualizationPatcher(VisualizationConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Visualization config must not be null");
+        }
+        this.config = config;
+        if (config.getNodePositions2d() == null) {
+            config.setNodePositions2d(new ArrayList<>());
+        }
+        if (config.getNodePositions3d() == null) {
+            config.setNodePositions3d(new ArrayList<>());
+        }
+        if (config.getEdgeRoutings() == null) {
+            config.setEdgeRoutings(new ArrayList<>());
+        }
+        this.nodes2d = index(config.getNodePositions2d(), NodePosition2D::getNodeId);
+        this.nodes3d = index(config.getNodePositions3d(), NodePosition3D::getNodeId);
+        this.routings = index(config.getEdgeRoutings(), EdgeRouting::getEdgeId);
+    }
+
+    public VisualizationConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Applies the changes in order. A move of a node without a position, or a routing of an
+     * edge without one, adds it; removing one that is not there does nothing.
+     *
+     * @throws IllegalArgumentException if the delta is for another visualization, or a change
+     *                                  lacks the type, target or position it needs
+     */
+    public void apply(VisualizationDelta delta) {
+        if (delta.getVisualizationId() != null && config.getId() != null
+                && !delta.getVisualizationId().equals(config.getId())) {
+            throw new IllegalArgumentException("Delta is for visualization " + delta.getVisualizationId()
+                    + ", not " + config.getId());
+        }
+        if (delta.getChanges() != null) {
+            delta.getChanges().forEach(this::apply);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the change lacks the type, target or position it needs
+     */
+    public void apply(VisualizationChange change) {
+        VisualizationChangeType type = change.getType();
+        if (type == null) {
+            throw new IllegalArgumentException("Change type must not be null");
+        }
+        UUID target = change.getTargetId();
+        if (type.hasTarget() && target == null) {
+            throw new IllegalArgumentException(type + " requires a target id");
+        }
+        switch (type) {
+            case NODE_MOVED_2D -> moveNode2d(target, change);
+            case NODE_MOVED_3D -> moveNode3d(target, change);
+            case NODE_REMOVED_2D -> remove(nodes2d, config.getNodePositions2d(), target);
+            case NODE_REMOVED_3D -> remove(nodes3d, config.getNodePositions3d(), target);
+            case EDGE_ROUTED -> route(target, change);
+            case EDGE_ROUTING_REMOVED -> remove(routings, config.getEdgeRoutings(), target);
+            case CAMERA_2D_CHANGED -> moveCamera2d(change);
+            case CAMERA_3D_CHANGED -> moveCamera3d(change);
+        }
+    }
+
+    /**
+     * The changes that turn the positions, routings and cameras of {@code before} into those of
+     * {@code after}. Nodes and edges are matched by id, and only changed properties are included.
+     */
+    public static VisualizationDelta diff(VisualizationConfig before, VisualizationConfig after) {
+        List<VisualizationChange> changes = new ArrayList<>();
+        Map<UUID, NodePosition2D> old2d = index(orEmpty(before.getNodePositions2d()), NodePosition2D::getNodeId);
+        for (NodePosition2D node : orEmpty(after.getNodePositions2d())) {
+            NodePosition2D previous = old2d.remove(node.getNodeId());
+            VisualizationChange change = VisualizationChange.builder()
+                    .type(VisualizationChangeType.NODE_MOVED_2D).targetId(node.getNodeId()).build();
+            if (previous == null || !Objects.equals(previous.getNodeType(), node.getNodeType())) {
+                change.setNodeType(node.getNodeType());
+            }
+            if (previous == null || !equal(previous.getPosition(), node.getPosition())) {
+                change.setPosition(to3d(node.getPosition()));
+            }
+            if (previous == null || !Objects.equals(previous.getWidth(), node.getWidth())) {
+                change.setWidth(node.getWidth());
+            }
+            if (previous == null || !Objects.equals(previous.getHeight(), node.getHeight())) {
+                change.setHeight(node.getHeight());
+            }
+            addIfChanged(changes, change, previous == null);
+        }
+        old2d.keySet().forEach(id -> changes.add(VisualizationChange.nodeRemoved2d(id)));
+
+        Map<UUID, NodePosition3D> old3d = index(orEmpty(before.getNodePositions3d()), NodePosition3D::getNodeId);
+        for (NodePosition3D node : orEmpty(after.getNodePositions3d())) {
+            NodePosition3D previous = old3d.remove(node.getNodeId());
+            VisualizationChange change = VisualizationChange.builder()
+                    .type(VisualizationChangeType.NODE_MOVED_3D).targetId(node.getNodeId()).build();
+            if (previous == null || !Objects.equals(previous.getNodeType(), node.getNodeType())) {
+                change.setNodeType(node.getNodeType());
+            }
+            if (previous == null || !equal(previous.getPosition(), node.getPosition())) {
+                change.setPosition(node.getPosition());
+            }
+            if (previous == null || !equal(previous.getRotation(), node.getRotation())) {
+                change.setRotation(node.getRotation());
+            }
+            if (previous == null || !equal(previous.getScale(), node.getScale())) {
+                change.setScale(node.getScale());
+            }
+            addIfChanged(changes, change, previous == null);
+        }
+        old3d.keySet().forEach(id -> changes.add(VisualizationChange.nodeRemoved3d(id)));
+
+        Map<UUID, EdgeRouting> oldRoutings = index(orEmpty(before.getEdgeRoutings()), EdgeRouting::getEdgeId);
+        for (EdgeRouting routing : orEmpty(after.getEdgeRoutings())) {
+            EdgeRouting previous = oldRoutings.remove(routing.getEdgeId());
+            VisualizationChange change = VisualizationChange.builder()
+                    .type(VisualizationChangeType.EDGE_ROUTED).targetId(routing.getEdgeId()).build();
+            if (previous == null || previous.getCurveType() != routing.getCurveType()) {
+                change.setCurveType(routing.getCurveType());
+            }
+            if (previous == null || !equal2d(previous.getControlPoints2d(), routing.getControlPoints2d())) {
+                change.setControlPoints2d(orEmpty(routing.getControlPoints2d()));
+            }
+            if (previous == null || !equal3d(previous.getControlPoints3d(), routing.getControlPoints3d())) {
+                change.setControlPoints3d(orEmpty(routing.getControlPoints3d()));
+            }
+            if (previous == null || previous.isAnimated() != routing.isAnimated()) {
+                change.setAnimated(routing.isAnimated());
+            }
+            addIfChanged(changes, change, previous == null);
+        }
+        oldRoutings.keySet().forEach(id -> changes.add(VisualizationChange.edgeRoutingRemoved(id)));
+
+        CameraSettings2D camera2d = after.getCamera2d();
+        if (camera2d != null) {
+            CameraSettings2D previous = before.getCamera2d();
+            VisualizationChange change = VisualizationChange.builder()
+                    .type(VisualizationChangeType.CAMERA_2D_CHANGED).build();
+            if (previous == null || !equal(previous.getCenter(), camera2d.getCenter())) {
+                change.setPosition(to3d(camera2d.getCenter()));
+            }
+            if (previous == null || previous.getZoom() != camera2d.getZoom()) {
+                change.setZoom(camera2d.getZoom());
+            }
+            addIfChanged(changes, change, false);
+        }
+        CameraSettings3D camera3d = after.getCamera3d();
+        if (camera3d != null) {
+            CameraSettings3D previous = before.getCamera3d();
+            VisualizationChange change = VisualizationChange.builder()
+                    .type(VisualizationChangeType.CAMERA_3D_CHANGED).build();
+            if (previous == null || !equal(previous.getPosition(), camera3d.getPosition())) {
+                change.setPosition(camera3d.getPosition());
+            }
+            if (previous == null || !equal(previous.getTarget(), camera3d.getTarget())) {
+                change.setTarget(camera3d.getTarget());
+            }
+            if (previous == null || previous.getFov() != camera3d.getFov()) {
+                change.setFov(camera3d.getFov());
+            }
+            if (previous == null || !Objects.equals(previous.getAlpha(), camera3d.getAlpha())) {
+                change.setAlpha(camera3d.getAlpha());
+            }
+            if (previous == null || !Objects.equals(previous.getBeta(), camera3d.getBeta())) {
+                change.setBeta(camera3d.getBeta());
+            }
+            if (previous == null || !Objects.equals(previous.getRadius(), camera3d.getRadius())) {
+                change.setRadius(camera3d.getRadius());
+            }
+            addIfChanged(changes, change, false);
+        }
+        return VisualizationDelta.builder().visualizationId(after.getId()).changes(changes).build();
+    }
+
+    private void moveNode2d(UUID nodeId, VisualizationChange change) {
+        NodePosition2D node = nodes2d.get(nodeId);
+        if (node == null) {
+            requirePosition(change);
+            node = new NodePosition2D();
+            node.setNodeId(nodeId);
+            nodes2d.put(nodeId, node);
+            config.getNodePositions2d().add(node);
+        }
+        if (change.getNodeType() != null) {
+            node.setNodeType(change.getNodeType());
+        }
+        if (change.getPosition() != null) {
+            node.setPosition(new Vector2D(change.getPosition().getX(), change.getPosition().getY()));
+        }
+        if (change.getWidth() != null) {
+            node.setWidth(change.getWidth());
+        }
+        if (change.getHeight() != null) {
+            node.setHeight(change.getHeight());
+        }
+    }
+
+    private void moveNode3d(UUID nodeId, VisualizationChange change) {
+        NodePosition3D node = nodes3d.get(nodeId);
+        if (node == null) {
+            requirePosition(change);
+            node = new NodePosition3D();
+            node.setNodeId(nodeId);
+            nodes3d.put(nodeId, node);
+            config.getNodePositions3d().add(node);
+        }
+        if (change.getNodeType() != null) {
+            node.setNodeType(change.getNodeType());
+        }
+        if (change.getPosition() != null) {
+            node.setPosition(copy(change.getPosition()));
+        }
+        if (change.getRotation() != null) {
+            Quaternion rotation = change.getRotation();
+            node.setRotation(new Quaternion(rotation.getX(), rotation.getY(), rotation.getZ(), rotation.getW()));
+        }
+        if (change.getScale() != null) {
+            node.setScale(copy(change.getScale()));
+        }
+    }
+
+    private void route(UUID edgeId, VisualizationChange change) {
+        EdgeRouting routing = routings.get(edgeId);
+        if (routing == null) {
+            routing = new EdgeRouting();
+            routing.setEdgeId(edgeId);
+            routings.put(edgeId, routing);
+            config.getEdgeRoutings().add(routing);
+        }
+        if (change.getCurveType() != null) {
+            routing.setCurveType(change.getCurveType());
+        }
+        if (change.getControlPoints2d() != null) {
+            List<Vector2D> points = new ArrayList<>(change.getControlPoints2d().size());
+            change.getControlPoints2d().forEach(p -> points.add(new Vector2D(p.getX(), p.getY())));
+            routing.setControlPoints2d(points);
+        }
+        if (change.getControlPoints3d() != null) {
+            List<Vector3D> points = new ArrayList<>(change.getControlPoints3d().size());
+            change.getControlPoints3d().forEach(p -> points.add(copy(p)));
+            routing.setControlPoints3d(points);
+        }
+        if (change.getAnimated() != null) {
+            routing.setAnimated(change.getAnimated());
+        }
+    }
+
+    private void moveCamera2d(VisualizationChange change) {
+        CameraSettings2D camera = config.getCamera2d();
+        if (camera == null) {
+            camera = new CameraSettings2D();
+            config.setCamera2d(camera);
+        }
+        if (change.getPosition() != null) {
+            camera.setCenter(new Vector2D(change.getPosition().getX(), change.getPosition().getY()));
+        }
+        if (change.getZoom() != null) {
+            camera.setZoom(change.getZoom());
+        }
+    }
+
+    private void moveCamera3d(VisualizationChange change) {
+        CameraSettings3D camera = config.getCamera3d();
+        if (camera == null) {
+            camera = new CameraSettings3D();
+            config.setCamera3d(camera);
+        }
+        if (change.getPosition() != null) {
+            camera.setPosition(copy(change.getPosition()));
+        }
+        if (change.getTarget() != null) {
+            camera.setTarget(copy(change.getTarget()));
+        }
+        if (change.getFov() != null) {
+            camera.setFov(change.getFov());
+        }
+        if (change.getAlpha() != null) {
+            camera.setAlpha(change.getAlpha());
+        }
+        if (change.getBeta() != null) {
+            camera.setBeta(change.getBeta());
+        }
+        if (change.getRadius() != null) {
+            camera.setRadius(change.getRadius());
+        }
+    }
+
+    private static <T> void remove(Map<UUID, T> index, List<T> elements, UUID id) {
+        T element = index.remove(id);
+        if (element != null) {
+            elements.remove(element);
+        }
+    }
+
+    private static void requirePosition(VisualizationChange change) {
+        if (change.getPosition() == null) {
+            throw new IllegalArgumentException(change.getType() + " of new node " + change.getTargetId()
+                    + " requires a position");
+        }
+    }
+
+    private static void addIfChanged(List<VisualizationChange> changes, VisualizationChange change, boolean added) {
+        if (added || change.getNodeType() != null || change.getPosition() != null || change.getWidth() != null
+                || change.getHeight() != null || change.getRotation() != null || change.getScale() != null
+                || change.getCurveType() != null || change.getControlPoints2d() != null
+                || change.getControlPoints3d() != null || change.getAnimated() != null || change.getTarget() != null
+                || change.getZoom() != null || change.getFov() != null || change.getAlpha() != null
+                || change.getBeta() != null || change.getRadius() != null) {
+            changes.add(change);
+        }
+    }
+
+    /**
+     * Indexes by id; with an id listed twice, the first element wins, as the patcher edits only that one.
+     */
+    private static <T> Map<UUID, T> index(List<T> elements, java.util.function.Function<T, UUID> idOf) {
+        Map<UUID, T> index = new HashMap<>(elements.size() * 2);
+        for (T element : elements) {
+            UUID id = idOf.apply(element);
+            if (id != null) {
+                index.putIfAbsent(id, element);
+            }
+        }
+        return index;
+    }
+
+    private static Vector3D to3d(Vector2D vector) {
+        return vector != null ? new Vector3D(vector.getX(), vector.getY(), 0) : null;
+    }
+
+    private static Vector3D copy(Vector3D vector) {
+        return new Vector3D(vector.getX(), vector.getY(), vector.getZ());
+    }
+
+    private static boolean equal(Vector2D a, Vector2D b) {
+        return a == b || a != null && b != null && a.getX() == b.getX() && a.getY() == b.getY();
+    }
+
+    private static boolean equal(Vector3D a, Vector3D b) {
+        return a == b || a != null && b != null && a.getX() == b.getX() && a.getY() == b.getY() && a.getZ() == b.getZ();
+    }
+
+    private static boolean equal(Quaternion a, Quaternion b) {
+        return a == b || a != null && b != null && a.getX() == b.getX() && a.getY() == b.getY()
+                && a.getZ() == b.getZ() && a.getW() == b.getW();
+    }
+
+    private static boolean equal2d(List<Vector2D> a, List<Vector2D> b) {
+        a = orEmpty(a);
+        b = orEmpty(b);
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!equal(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equal3d(List<Vector3D> a, List<Vector3D> b) {
+        a = orEmpty(a);
+        b = orEmpty(b);
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!equal(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list != null ? list : new ArrayList<>();
+    }
+}
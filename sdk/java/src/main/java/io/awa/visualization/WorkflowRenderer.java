@@ -0,0 +1,526 @@
+package io.awa.visualization;
+
+import io.awa.model.Workflow;
+import io.awa.model.visualization.NodeShape;
+import io.awa.model.visualization.VisualizationConfig;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Draws the 2D view of a workflow without a browser: as SVG written straight to a stream, or
+ * painted with Java2D and written as PNG. Meant for previews such as search results and emails.
+ * <p>
+ * Both draw the same {@link RenderScene}: the theme's background and dot grid, lanes, edges in
+ * their curve type with an arrowhead, and nodes in their shape and style with their names. SVG is
+ * written element by element through a small buffer, with no document tree. With
+ * {@link #size(int, int)} the picture is shrunk to fit, never enlarged; text and grids that would
+ * come out too small to see are left out, which also keeps thumbnails cheap.
+ *
+ * <pre>{@code
+ * WorkflowRenderer thumbnails = new WorkflowRenderer().size(320, 200);
+ * thumbnails.writePng(workflow, visualization, out);
+ * }</pre>
+ * <p>
+ * A renderer may be shared between threads once configured.
+ */
+public final class WorkflowRenderer {
+
+    public static final double DEFAULT_PADDING = 20;
+
+    private static final double MIN_TEXT_PIXELS = 4;
+    private static final double MIN_GRID_PIXELS = 4;
+    private static final double LANE_OPACITY = 0.08;
+    private static final double ARROW_WIDTH = 0.4;
+    private static final double CYLINDER_CAP = 1.0 / 6;
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 1);
+
+    private int maxWidth;
+    private int maxHeight;
+    private double padding = DEFAULT_PADDING;
+    private boolean labels = true;
+
+    /**
+     * Sets the box, in pixels, the picture is shrunk to fit; 0 leaves a dimension unbounded. By
+     * default, one pixel per layout unit.
+     */
+    public WorkflowRenderer size(int maxWidth, int maxHeight) {
+        if (maxWidth < 0 || maxHeight < 0) {
+            throw new IllegalArgumentException("Size must not be negative: " + maxWidth + "x" + maxHeight);
+        }
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+        return this;
+    }
+
+    /**
+     * Sets the margin around the drawing, in layout units.
+     */
+    public WorkflowRenderer padding(double padding) {
+        if (!(padding >= 0)) {
+            throw new IllegalArgumentException("Padding must not be negative: " + padding);
+        }
+        this.padding = padding;
+        return this;
+    }
+
+    /**
+     * Sets whether node, edge and lane labels are drawn.
+     */
+    public WorkflowRenderer labels(boolean labels) {
+        this.labels = labels;
+        return this;
+    }
+
+    /**
+     * Writes the view as an SVG document. The stream is flushed, not closed.
+     */
+    public void writeSvg(Workflow workflow, VisualizationConfig visualization, OutputStream out) throws IOException {
+        RenderScene scene = new RenderScene(workflow, visualization);
+        Frame frame = new Frame(scene);
+        SvgWriter svg = new SvgWriter(out);
+        svg.raw("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").number(frame.width)
+                .raw("\" height=\"").number(frame.height)
+                .raw("\" viewBox=\"").number(frame.x).raw(" ").number(frame.y).raw(" ")
+                .number(frame.spanX).raw(" ").number(frame.spanY).raw("\">\n");
+        if ((scene.background >>> 24) != 0) {
+            svg.raw("<rect");
+            box(svg, frame.x, frame.y, frame.spanX, frame.spanY);
+            paint(svg, "fill", scene.background);
+            svg.raw("/>\n");
+        }
+        if (frame.grid) {
+            svg.raw("<defs><pattern id=\"grid\" patternUnits=\"userSpaceOnUse\" width=\"").number(scene.gridSize)
+                    .raw("\" height=\"").number(scene.gridSize).raw("\"><circle cx=\"").number(scene.gridSize / 2)
+                    .raw("\" cy=\"").number(scene.gridSize / 2).raw("\" r=\"1\"");
+            paint(svg, "fill", scene.gridColor);
+            svg.raw("/></pattern></defs>\n<rect");
+            box(svg, frame.x, frame.y, frame.spanX, frame.spanY);
+            svg.raw(" fill=\"url(#grid)\"/>\n");
+        }
+
+        for (int i = 0; i < scene.laneCount; i++) {
+            svg.raw("<rect");
+            box(svg, scene.laneX[i], scene.laneY[i], scene.laneWidth[i], scene.laneHeight[i]);
+            paint(svg, "fill", scene.laneColor[i], LANE_OPACITY);
+            paint(svg, "stroke", scene.laneColor[i]);
+            svg.raw("/>\n");
+        }
+
+        for (int i = 0; i < scene.edgeCount; i++) {
+            svg.raw("<path d=\"");
+            for (int k = scene.pathStart[i]; k < scene.pathStart[i + 1]; k++) {
+                int c = scene.opCoords[k];
+                svg.raw(switch (scene.ops[k]) {
+                    case RenderScene.MOVE -> "M";
+                    case RenderScene.LINE -> "L";
+                    case RenderScene.QUAD -> "Q";
+                    default -> "C";
+                });
+                int end = k + 1 < scene.opCount ? scene.opCoords[k + 1] : scene.coordCount;
+                for (int p = c; p < end; p++) {
+                    if (p > c) {
+                        svg.raw(" ");
+                    }
+                    svg.number(scene.coords[p]);
+                }
+            }
+            svg.raw("\" fill=\"none\"");
+            paint(svg, "stroke", scene.edgeStroke[i]);
+            svg.raw(" stroke-width=\"").number(scene.edgeWidth[i]).raw("\"/>\n<path d=\"");
+            double[] arrow = arrow(scene, i);
+            svg.raw("M").number(arrow[0]).raw(" ").number(arrow[1]).raw("L").number(arrow[2]).raw(" ").number(arrow[3])
+                    .raw("L").number(arrow[4]).raw(" ").number(arrow[5]).raw("Z\"");
+            paint(svg, "fill", scene.edgeStroke[i]);
+            svg.raw("/>\n");
+        }
+
+        for (int i = 0; i < scene.nodeCount; i++) {
+            node(svg, scene, i);
+        }
+
+        if (frame.text) {
+            svg.raw("<g font-family=\"sans-serif\" font-size=\"").number(RenderScene.FONT_SIZE).raw("\"");
+            paint(svg, "fill", RenderScene.TEXT_COLOR);
+            svg.raw(">\n");
+            for (int i = 0; i < scene.laneCount; i++) {
+                if (scene.laneLabel[i] != null) {
+                    svg.raw("<text x=\"").number(scene.laneX[i] + 8).raw("\" y=\"")
+                            .number(scene.laneY[i] + 8 + RenderScene.FONT_SIZE).raw("\">")
+                            .text(scene.laneLabel[i]).raw("</text>\n");
+                }
+            }
+            svg.raw("<g text-anchor=\"middle\" dominant-baseline=\"central\">\n");
+            for (int i = 0; i < scene.nodeCount; i++) {
+                String label = fit(scene.nodeLabel[i], labelWidth(scene, i), RenderScene.FONT_SIZE);
+                if (label != null) {
+                    svg.raw("<text x=\"").number(scene.nodeX[i] + scene.nodeWidth[i] / 2).raw("\" y=\"")
+                            .number(scene.nodeY[i] + scene.nodeHeight[i] / 2).raw("\">").text(label).raw("</text>\n");
+                }
+            }
+            svg.raw("</g>\n<g text-anchor=\"middle\" dominant-baseline=\"central\" font-size=\"")
+                    .number(RenderScene.EDGE_FONT_SIZE).raw("\" paint-order=\"stroke\" stroke-width=\"3\"");
+            paint(svg, "stroke", scene.background | 0xFF000000);
+            svg.raw(">\n");
+            for (int i = 0; i < scene.edgeCount; i++) {
+                if (scene.edgeLabel[i] != null && !scene.edgeLabel[i].isEmpty()) {
+                    svg.raw("<text x=\"").number(scene.labelX[i]).raw("\" y=\"").number(scene.labelY[i]).raw("\">")
+                            .text(scene.edgeLabel[i]).raw("</text>\n");
+                }
+            }
+            svg.raw("</g>\n</g>\n");
+        }
+        svg.raw("</svg>\n");
+        svg.flush();
+    }
+
+    /**
+     * Paints the view into a new image.
+     */
+    public BufferedImage render(Workflow workflow, VisualizationConfig visualization) {
+        RenderScene scene = new RenderScene(workflow, visualization);
+        Frame frame = new Frame(scene);
+        int width = Math.max(1, (int) Math.ceil(frame.width));
+        int height = Math.max(1, (int) Math.ceil(frame.height));
+        boolean opaque = (scene.background >>> 24) == 0xFF;
+        BufferedImage image = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.scale(frame.scale, frame.scale);
+            g.translate(-frame.x, -frame.y);
+            paint(g, scene, frame);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Paints the view and writes it as PNG, favouring speed over size. The stream is flushed, not closed.
+     */
+    public void writePng(Workflow workflow, VisualizationConfig visualization, OutputStream out) throws IOException {
+        new PngWriter(out).write(render(workflow, visualization));
+    }
+
+    private void paint(Graphics2D g, RenderScene scene, Frame frame) {
+        if ((scene.background >>> 24) != 0) {
+            g.setColor(color(scene.background));
+            g.fill(new Rectangle2D.Double(frame.x, frame.y, frame.spanX, frame.spanY));
+        }
+        if (frame.grid) {
+            g.setColor(color(scene.gridColor));
+            double size = scene.gridSize;
+            Ellipse2D.Double dot = new Ellipse2D.Double(0, 0, 2, 2);
+            for (double x = Math.floor(frame.x / size) * size + size / 2; x < frame.x + frame.spanX; x += size) {
+                for (double y = Math.floor(frame.y / size) * size + size / 2; y < frame.y + frame.spanY; y += size) {
+                    dot.x = x - 1;
+                    dot.y = y - 1;
+                    g.fill(dot);
+                }
+            }
+        }
+
+        for (int i = 0; i < scene.laneCount; i++) {
+            Rectangle2D lane = new Rectangle2D.Double(scene.laneX[i], scene.laneY[i], scene.laneWidth[i], scene.laneHeight[i]);
+            g.setColor(color(scene.laneColor[i], LANE_OPACITY));
+            g.fill(lane);
+            g.setColor(color(scene.laneColor[i]));
+            g.setStroke(new BasicStroke(1));
+            g.draw(lane);
+        }
+
+        for (int i = 0; i < scene.edgeCount; i++) {
+            Path2D.Double path = new Path2D.Double();
+            for (int k = scene.pathStart[i]; k < scene.pathStart[i + 1]; k++) {
+                double[] c = scene.coords;
+                int p = scene.opCoords[k];
+                switch (scene.ops[k]) {
+                    case RenderScene.MOVE -> path.moveTo(c[p], c[p + 1]);
+                    case RenderScene.LINE -> path.lineTo(c[p], c[p + 1]);
+                    case RenderScene.QUAD -> path.quadTo(c[p], c[p + 1], c[p + 2], c[p + 3]);
+                    default -> path.curveTo(c[p], c[p + 1], c[p + 2], c[p + 3], c[p + 4], c[p + 5]);
+                }
+            }
+            Color stroke = color(scene.edgeStroke[i]);
+            g.setColor(stroke);
+            g.setStroke(new BasicStroke((float) scene.edgeWidth[i], BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER));
+            g.draw(path);
+            double[] a = arrow(scene, i);
+            Path2D.Double head = new Path2D.Double();
+            head.moveTo(a[0], a[1]);
+            head.lineTo(a[2], a[3]);
+            head.lineTo(a[4], a[5]);
+            head.closePath();
+            g.fill(head);
+        }
+
+        for (int i = 0; i < scene.nodeCount; i++) {
+            node(g, scene, i);
+        }
+
+        if (frame.text) {
+            Font font = FONT.deriveFont((float) RenderScene.FONT_SIZE);
+            g.setColor(color(RenderScene.TEXT_COLOR));
+            g.setFont(font);
+            FontMetrics metrics = g.getFontMetrics(font);
+            for (int i = 0; i < scene.laneCount; i++) {
+                if (scene.laneLabel[i] != null) {
+                    g.drawString(scene.laneLabel[i], (float) (scene.laneX[i] + 8),
+                            (float) (scene.laneY[i] + 8 + RenderScene.FONT_SIZE));
+                }
+            }
+            for (int i = 0; i < scene.nodeCount; i++) {
+                String label = fit(scene.nodeLabel[i], labelWidth(scene, i), RenderScene.FONT_SIZE);
+                if (label != null) {
+                    centered(g, metrics, label, scene.nodeX[i] + scene.nodeWidth[i] / 2, scene.nodeY[i] + scene.nodeHeight[i] / 2);
+                }
+            }
+            Font edgeFont = FONT.deriveFont((float) RenderScene.EDGE_FONT_SIZE);
+            FontMetrics edgeMetrics = g.getFontMetrics(edgeFont);
+            g.setFont(edgeFont);
+            for (int i = 0; i < scene.edgeCount; i++) {
+                String label = scene.edgeLabel[i];
+                if (label != null && !label.isEmpty()) {
+                    double w = edgeMetrics.stringWidth(label);
+                    double h = edgeMetrics.getAscent() + edgeMetrics.getDescent();
+                    g.setColor(color(scene.background | 0xFF000000));
+                    g.fill(new Rectangle2D.Double(scene.labelX[i] - w / 2 - 1.5, scene.labelY[i] - h / 2, w + 3, h));
+                    g.setColor(color(RenderScene.TEXT_COLOR));
+                    centered(g, edgeMetrics, label, scene.labelX[i], scene.labelY[i]);
+                }
+            }
+        }
+    }
+
+    private static void node(SvgWriter svg, RenderScene scene, int i) throws IOException {
+        double x = scene.nodeX[i];
+        double y = scene.nodeY[i];
+        double w = scene.nodeWidth[i];
+        double h = scene.nodeHeight[i];
+        NodeShape shape = scene.nodeShape[i];
+        switch (shape) {
+            case CIRCLE, SPHERE -> svg.raw("<circle cx=\"").number(x + w / 2).raw("\" cy=\"").number(y + h / 2)
+                    .raw("\" r=\"").number(Math.min(w, h) / 2).raw("\"");
+            case DIAMOND, HEXAGON -> {
+                double[] points = polygon(shape, x, y, w, h);
+                svg.raw("<polygon points=\"");
+                for (int p = 0; p < points.length; p += 2) {
+                    svg.raw(p > 0 ? " " : "").number(points[p]).raw(",").number(points[p + 1]);
+                }
+                svg.raw("\"");
+            }
+            case CYLINDER -> {
+                double cap = h * CYLINDER_CAP;
+                svg.raw("<path d=\"M").number(x).raw(" ").number(y + cap)
+                        .raw("a").number(w / 2).raw(" ").number(cap).raw(" 0 0 0 ").number(w).raw(" 0")
+                        .raw("a").number(w / 2).raw(" ").number(cap).raw(" 0 0 0 ").number(-w).raw(" 0")
+                        .raw("v").number(h - 2 * cap)
+                        .raw("a").number(w / 2).raw(" ").number(cap).raw(" 0 0 0 ").number(w).raw(" 0")
+                        .raw("v").number(2 * cap - h).raw("\"");
+            }
+            default -> {
+                svg.raw("<rect");
+                box(svg, x, y, w, h);
+                double radius = shape == NodeShape.ROUNDED ? scene.nodeRadius[i] : 0;
+                if (radius > 0) {
+                    svg.raw(" rx=\"").number(radius).raw("\"");
+                }
+            }
+        }
+        paint(svg, "fill", scene.nodeFill[i]);
+        paint(svg, "stroke", scene.nodeStroke[i]);
+        svg.raw(" stroke-width=\"").number(scene.nodeStrokeWidth[i]).raw("\"/>\n");
+    }
+
+    private static void node(Graphics2D g, RenderScene scene, int i) {
+        double x = scene.nodeX[i];
+        double y = scene.nodeY[i];
+        double w = scene.nodeWidth[i];
+        double h = scene.nodeHeight[i];
+        NodeShape shape = scene.nodeShape[i];
+        Shape outline;
+        Shape[] extra = new Shape[0];
+        switch (shape) {
+            case CIRCLE, SPHERE -> {
+                double r = Math.min(w, h) / 2;
+                outline = new Ellipse2D.Double(x + w / 2 - r, y + h / 2 - r, 2 * r, 2 * r);
+            }
+            case DIAMOND, HEXAGON -> {
+                double[] points = polygon(shape, x, y, w, h);
+                Path2D.Double path = new Path2D.Double();
+                path.moveTo(points[0], points[1]);
+                for (int p = 2; p < points.length; p += 2) {
+                    path.lineTo(points[p], points[p + 1]);
+                }
+                path.closePath();
+                outline = path;
+            }
+            case CYLINDER -> {
+                double cap = h * CYLINDER_CAP;
+                Path2D.Double body = new Path2D.Double();
+                body.moveTo(x, y + cap);
+                body.append(new Arc2D.Double(x, y + h - 2 * cap, w, 2 * cap, 180, 180, Arc2D.OPEN), true);
+                body.lineTo(x + w, y + cap);
+                body.append(new Arc2D.Double(x, y, w, 2 * cap, 0, 180, Arc2D.OPEN), true);
+                body.closePath();
+                outline = body;
+                extra = new Shape[]{new Arc2D.Double(x, y, w, 2 * cap, 180, 180, Arc2D.OPEN)};
+            }
+            default -> {
+                double radius = shape == NodeShape.ROUNDED ? scene.nodeRadius[i] : 0;
+                outline = radius > 0
+                        ? new RoundRectangle2D.Double(x, y, w, h, 2 * radius, 2 * radius)
+                        : new Rectangle2D.Double(x, y, w, h);
+            }
+        }
+        if ((scene.nodeFill[i] >>> 24) != 0) {
+            g.setColor(color(scene.nodeFill[i]));
+            g.fill(outline);
+        }
+        if ((scene.nodeStroke[i] >>> 24) != 0 && scene.nodeStrokeWidth[i] > 0) {
+            g.setColor(color(scene.nodeStroke[i]));
+            g.setStroke(new BasicStroke((float) scene.nodeStrokeWidth[i]));
+            g.draw(outline);
+            for (Shape line : extra) {
+                g.draw(line);
+            }
+        }
+    }
+
+    /**
+     * Corners of a diamond or hexagon inscribed in the node's box.
+     */
+    private static double[] polygon(NodeShape shape, double x, double y, double w, double h) {
+        double cx = x + w / 2;
+        double cy = y + h / 2;
+        if (shape == NodeShape.DIAMOND) {
+            return new double[]{cx, y, x + w, cy, cx, y + h, x, cy};
+        }
+        double inset = Math.min(w, h) / 4;
+        return new double[]{x + inset, y, x + w - inset, y, x + w, cy, x + w - inset, y + h, x + inset, y + h, x, cy};
+    }
+
+    /**
+     * The arrowhead of an edge: its tip, then the two corners of its base.
+     */
+    private static double[] arrow(RenderScene scene, int i) {
+        double length = RenderScene.arrowLength(scene.edgeWidth[i]);
+        double half = length * ARROW_WIDTH;
+        double tipX = scene.arrowX[i];
+        double tipY = scene.arrowY[i];
+        double dx = scene.arrowDX[i];
+        double dy = scene.arrowDY[i];
+        double baseX = tipX - dx * length;
+        double baseY = tipY - dy * length;
+        return new double[]{tipX, tipY, baseX - dy * half, baseY + dx * half, baseX + dy * half, baseY - dx * half};
+    }
+
+    private static double labelWidth(RenderScene scene, int i) {
+        return switch (scene.nodeShape[i]) {
+            case CIRCLE, SPHERE -> Math.min(scene.nodeWidth[i], scene.nodeHeight[i]) * 0.8;
+            case DIAMOND -> scene.nodeWidth[i] * 0.6;
+            default -> scene.nodeWidth[i] - 16;
+        };
+    }
+
+    /**
+     * The text cut short with an ellipsis to fit the width, at the average width of a character;
+     * null if nothing fits.
+     */
+    private static String fit(String text, double width, double fontSize) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        int fits = (int) (width / (RenderScene.CHAR_WIDTH * fontSize));
+        if (text.length() <= fits) {
+            return text;
+        }
+        return fits > 1 ? text.substring(0, fits - 1) + "…" : null;
+    }
+
+    private static void centered(Graphics2D g, FontMetrics metrics, String text, double cx, double cy) {
+        g.drawString(text, (float) (cx - metrics.stringWidth(text) / 2.0),
+                (float) (cy + (metrics.getAscent() - metrics.getDescent()) / 2.0));
+    }
+
+    private static void box(SvgWriter svg, double x, double y, double w, double h) throws IOException {
+        svg.raw(" x=\"").number(x).raw("\" y=\"").number(y).raw("\" width=\"").number(w)
+                .raw("\" height=\"").number(h).raw("\"");
+    }
+
+    private static void paint(SvgWriter svg, String attribute, int argb) throws IOException {
+        paint(svg, attribute, argb, 1);
+    }
+
+    private static void paint(SvgWriter svg, String attribute, int argb, double opacity) throws IOException {
+        int alpha = argb >>> 24;
+        svg.raw(" ").raw(attribute).raw("=\"");
+        if (alpha == 0) {
+            svg.raw("none\"");
+            return;
+        }
+        svg.color(argb).raw("\"");
+        if (alpha < 255 || opacity < 1) {
+            svg.raw(" ").raw(attribute).raw("-opacity=\"").raw(Double.toString(Math.round(alpha / 255.0 * opacity * 100) / 100.0)).raw("\"");
+        }
+    }
+
+    private static Color color(int argb) {
+        return new Color(argb, true);
+    }
+
+    private static Color color(int argb, double opacity) {
+        return new Color(argb & 0xFFFFFF | (int) Math.round((argb >>> 24) * opacity) << 24, true);
+    }
+
+    /**
+     * Where the drawing sits: the layout-unit window it shows, its size in pixels, and what is
+     * big enough to draw.
+     */
+    private final class Frame {
+
+        final double x;
+        final double y;
+        final double spanX;
+        final double spanY;
+        final double scale;
+        final double width;
+        final double height;
+        final boolean text;
+        final boolean grid;
+
+        Frame(RenderScene scene) {
+            x = scene.minX - padding;
+            y = scene.minY - padding;
+            spanX = Math.max(1, scene.maxX - scene.minX + 2 * padding);
+            spanY = Math.max(1, scene.maxY - scene.minY + 2 * padding);
+            double fit = 1;
+            if (maxWidth > 0) {
+                fit = Math.min(fit, maxWidth / spanX);
+            }
+            if (maxHeight > 0) {
+                fit = Math.min(fit, maxHeight / spanY);
+            }
+            scale = fit;
+            width = Math.max(1, Math.round(spanX * scale));
+            height = Math.max(1, Math.round(spanY * scale));
+            text = labels && RenderScene.FONT_SIZE * scale >= MIN_TEXT_PIXELS;
+            grid = scene.gridSize > 0 && scene.gridSize * scale >= MIN_GRID_PIXELS;
+        }
+    }
+}
@@ -251,6 +251,20 @@ CREATE TABLE access_rights (
     updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
 );
 
+-- Audit Records (one per activity execution under an audit control; kept when the workflow is deleted)
+CREATE TABLE audit_records (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    workflow_instance_id UUID,
+    activity_id UUID,
+    activity_name VARCHAR(255),
+    control_id UUID,
+    control_name VARCHAR(255),
+    enforcement enforcement NOT NULL,
+    outcome VARCHAR(20) NOT NULL,
+    detail TEXT,
+    recorded_at TIMESTAMPTZ NOT NULL
+);
+
 -- ============================================================================
 -- INDEXES FOR QUERYABILITY
 -- ============================================================================
@@ -292,6 +306,10 @@ CREATE INDEX idx_access_rights_permission ON access_rights(permission);
 CREATE INDEX idx_access_rights_resource_type ON access_rights(resource_type);
 CREATE INDEX idx_access_rights_resource_id ON access_rights(resource_id);
 
+-- Audit Records
+CREATE INDEX idx_audit_records_instance ON audit_records(workflow_instance_id);
+CREATE INDEX idx_audit_records_activity ON audit_records(activity_id, recorded_at);
+
 -- Systems & Technology
 CREATE INDEX idx_systems_type ON systems(type);
 CREATE INDEX idx_endpoints_system ON endpoints(system_id);